@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+#
+# Compares the start-up cost of single-file extraction for the three build options:
+#   1. plain JVM:   java -jar target/aar-0.0.1.jar <mp3>
+#   2. AppCDS:      java -XX:SharedArchiveFile=target/aar.jsa -jar target/aar-0.0.1.jar <mp3>
+#   3. native:      target/aar <mp3>
+#
+# Build first, from the aar folder:
+#   mvn -Pappcds -Dmaven.test.skip=true package      (JDK 13 or newer, produces the jar and target/aar.jsa)
+#   mvn -Pnative -Dmaven.test.skip=true package      (GraalVM, produces target/aar)
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+# Options that have not been built are skipped.
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-20}"
+JAR="target/aar-0.0.1.jar"
+ARCHIVE="target/aar.jsa"
+NATIVE="target/aar"
+SAMPLE="src/test/resources/MP3-with-art/snap.mp3"
+
+WORK="$(mktemp -d)"
+trap 'rm -rf "$WORK"' EXIT
+cp "$SAMPLE" "$WORK/snap.mp3"
+
+# runs a command RUNS times and prints min, median and mean wall time in milliseconds
+measure() {
+	local label="$1"
+	shift
+	local times=()
+
+	# one warm-up run so the page cache holds the jar and the sample
+	"$@" "$WORK/snap.mp3" > /dev/null 2>&1
+
+	for ((i = 0; i < RUNS; i++)); do
+		rm -f "$WORK/album.jpg"
+		local start end
+		start=$(date +%s%N)
+		"$@" "$WORK/snap.mp3" > /dev/null 2>&1
+		end=$(date +%s%N)
+		times+=($(( (end - start) / 1000000 )))
+	done
+
+	printf '%s\n' "${times[@]}" | sort -n | awk -v label="$label" '
+		{ value[NR] = $1; sum += $1 }
+		END {
+			median = (NR % 2) ? value[(NR + 1) / 2] : (value[NR / 2] + value[NR / 2 + 1]) / 2
+			printf "%-8s min %6d ms   median %8.1f ms   mean %8.1f ms   (%d runs)\n", label, value[1], median, sum / NR, NR
+		}'
+}
+
+if [[ -f "$JAR" ]]; then
+	measure "jvm" java -jar "$JAR"
+else
+	echo "jvm      skipped, $JAR not found"
+fi
+
+if [[ -f "$JAR" && -f "$ARCHIVE" ]]; then
+	measure "appcds" java -XX:SharedArchiveFile="$ARCHIVE" -jar "$JAR"
+else
+	echo "appcds   skipped, $ARCHIVE not found"
+fi
+
+if [[ -x "$NATIVE" ]]; then
+	measure "native" "$NATIVE"
+else
+	echo "native   skipped, $NATIVE not found"
+fi
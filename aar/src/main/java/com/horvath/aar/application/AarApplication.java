@@ -33,11 +33,11 @@ public class AarApplication {
 	public static void main(String[] args) {
 
 		if (args.length > 0) {
-			new CliApp(args[0]).run();
+			new CliApp(args).run();
 			
 		} else {
 			// can put other code here if we want to make a GUI version of tool. 
-			System.out.println("A file or folder arument was not given.");
+			System.out.println(CliApp.ERROR_NO_PATH);
 		}
 	}
 
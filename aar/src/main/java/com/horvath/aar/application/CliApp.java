@@ -26,11 +26,35 @@ package com.horvath.aar.application;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
 
+import com.horvath.aar.command.AuditFolderCmd;
+import com.horvath.aar.command.CheckConsistencyCmd;
+import com.horvath.aar.command.CompactPackCmd;
+import com.horvath.aar.command.EmbedFolderArtCmd;
+import com.horvath.aar.command.MergeReportsCmd;
 import com.horvath.aar.command.ParseAlbumArtCmd;
+import com.horvath.aar.command.ParseArchiveCmd;
+import com.horvath.aar.command.ParseBatchCmd;
 import com.horvath.aar.command.ParseFolderCmd;
 import com.horvath.aar.command.WriteBufferedImageCmd;
 import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.image.JpegBudget.Encoding;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.MirrorTree;
+import com.horvath.aar.report.OutcomeLedger;
+import com.horvath.aar.report.OutcomeLedger.Format;
+import com.horvath.aar.walk.DeviceLimits;
+import com.horvath.aar.walk.Governor;
+import com.horvath.aar.walk.ShardSpec;
+import com.horvath.aar.walk.WalkFilter;
 
 /**
  * Processes CLI inputs and controls operations. 
@@ -38,14 +62,100 @@ import com.horvath.aar.exception.AarException;
  */
 public class CliApp {
 
+	private String[] args;
+	
 	private File file = null; 
+	private ShardSpec shard = null;
+	private File reportFile = null;
+	private File journalFile = null;
+	private File summaryFile = null;
+	private Durability durability = Durability.NONE;
+	private File mergeOutput = null;
+	private File auditFile = null;
+	private File consistencyFile = null;
+	private boolean writeMajority = false;
+	private String ledgerPath = null;
+	private DeviceLimits deviceLimits = null;
+	private File batchFile = null;
+	private boolean embed = false;
+	private long timeoutMillis = 0;
+	private File quarantineFile = null;
+	private File outputRoot = null;
+	private File packFile = null;
+	private File compactFile = null;
+	private String discPattern = null;
+	private boolean linkDiscs = false;
+	private Governor governor = null;
+	private int probeWidth = 1;
+	private long maxBytes = 0;
+	private float minQuality = JpegBudget.DEFAULT_MIN_QUALITY;
+	private JpegBudget budget = null;
+	private WalkFilter walkFilter = null;
+	private List<File> positionalFiles = new ArrayList<>();
+	
+	public static final String OPTION_SHARD = "--shard";
+	public static final String OPTION_REPORT = "--report";
+	public static final String OPTION_MERGE = "--merge";
+	public static final String OPTION_JOURNAL = "--journal";
+	public static final String OPTION_SUMMARIES = "--summaries";
+	public static final String OPTION_DURABILITY = "--durability";
+	public static final String OPTION_AUDIT = "--audit";
+	public static final String OPTION_CONSISTENCY = "--consistency";
+	public static final String OPTION_MAJORITY = "--majority";
+	public static final String OPTION_LEDGER = "--ledger";
+	public static final String OPTION_PARALLEL = "--parallel";
+	public static final String OPTION_DEVICE_LIMIT = "--device-limit";
+	public static final String OPTION_ADAPTIVE = "--adaptive";
+	public static final String OPTION_BATCH = "--batch";
+	public static final String OPTION_EMBED = "--embed";
+	public static final String OPTION_TIMEOUT = "--timeout";
+	public static final String OPTION_QUARANTINE = "--quarantine";
+	public static final String OPTION_OUTPUT = "--output";
+	public static final String OPTION_PACK = "--pack";
+	public static final String OPTION_COMPACT = "--compact";
+	public static final String OPTION_MULTI_DISC = "--multi-disc";
+	public static final String OPTION_DISC_PATTERN = "--disc-pattern";
+	public static final String OPTION_LINK_DISCS = "--link-discs";
+	public static final String OPTION_THROTTLE = "--throttle";
+	public static final String OPTION_PROBE = "--probe";
+	public static final String OPTION_MAX_BYTES = "--max-bytes";
+	public static final String OPTION_MIN_QUALITY = "--min-quality";
+	public static final String OPTION_EXCLUDE = "--exclude";
+	public static final String OPTION_INCLUDE = "--include";
+	public static final String OPTION_EXCLUDE_SYSTEM = "--exclude-system";
+	public static final String OPTION_MAX_DEPTH = "--max-depth";
+	public static final String OPTION_MIN_SIZE = "--min-size";
+	public static final String OPTION_DEBUG = "--debug";
+	public static final String OPTION_LIBRARY_LOG = "--library-log";
+	
+	/** Ledger path that streams the ledger to standard output. */
+	public static final String STANDARD_OUTPUT = "-";
+	
+	public static final String ERROR_UNKNOWN_OPTION = "Unknown option: ";
+	public static final String ERROR_MISSING_VALUE = "A value is required for option: ";
+	public static final String ERROR_TIMEOUT_FORMAT = "The timeout must be a positive number of seconds.";
+	public static final String ERROR_MAX_DEPTH_FORMAT = "The maximum depth must be a whole number: ";
+	public static final String ERROR_MIN_SIZE_FORMAT = "The minimum file size must be a number of bytes, optionally followed by K or M: ";
+	public static final String ERROR_LOG_LEVEL = "The log level is not known: ";
+	public static final String ERROR_NO_PATH = "A file or folder argument was not given.";
+	public static final String ERROR_OUTPUT_NOT_SUPPORTED = "--output and --pack cannot be used with ";
+	public static final String ERROR_PACK_NOT_SUPPORTED = "--pack cannot be used with ";
+	public static final String ERROR_ARCHIVE_OPTION = "--timeout and --pack cannot be used with a single archive.";
 	
 	/**
 	 * Constructor. 
 	 * @param path String 
 	 */
 	public CliApp(String path) {
-		this.file = new File(path);
+		this(new String[] { path });
+	}
+	
+	/**
+	 * Constructor. 
+	 * @param args String[] command line arguments 
+	 */
+	public CliApp(String[] args) {
+		this.args = args;
 	}
 	
 	/**
@@ -53,31 +163,354 @@ public class CliApp {
 	 */
 	public void run() {
 		
-		if (file.isDirectory()) {
+		try {
+			parseArguments();
+			
+		} catch (AarException ex) {
+			System.err.println(ex.getMessage());
+			return;
+		}
+		
+		try {
+			dispatch();
+			
+		} finally {
+			// the log is written by a background thread that does not outlive the application
+			Debugger.flush();
+		}
+	}
+	
+	/**
+	 * Starts the operation the arguments ask for. 
+	 */
+	private void dispatch() {
+		
+		if (mergeOutput != null) {
+			mergeReports();
+			
+		} else if (compactFile != null) {
+			compactPack();
+			
+		} else if (batchFile != null || positionalFiles.size() > 1) {
+			parseBatch();
+			
+		} else if (file == null) {
+			System.out.println(ERROR_NO_PATH);
+			
+		} else if (file.isDirectory() && embed) {
+			embedFolderArt(file);
+			
+		} else if (file.isDirectory() && auditFile != null) {
+			auditFolders(file);
+			
+		} else if (file.isDirectory() && consistencyFile != null) {
+			checkConsistency(file);
+			
+		} else if (file.isDirectory()) {
 			parseFolders(file);
 			
+		} else if (ParseArchiveCmd.isArchive(file)) {
+			parseArchive(file);
+			
 		} else {
 			parsefile(file);
 		}
 	}
 	
+	/**
+	 * Reads the options and the path from the command line arguments. 
+	 * @throws AarException
+	 */
+	private void parseArguments() throws AarException {
+		
+		for (int i = 0; i < args.length; i++) {
+			final String arg = args[i];
+			
+			if (OPTION_SHARD.equals(arg)) {
+				shard = ShardSpec.parse(optionValue(arg, ++i));
+				
+			} else if (OPTION_REPORT.equals(arg)) {
+				reportFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_JOURNAL.equals(arg)) {
+				journalFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_SUMMARIES.equals(arg)) {
+				summaryFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_DURABILITY.equals(arg)) {
+				durability = Durability.parse(optionValue(arg, ++i));
+				
+			} else if (OPTION_AUDIT.equals(arg)) {
+				auditFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_CONSISTENCY.equals(arg)) {
+				consistencyFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_MAJORITY.equals(arg)) {
+				writeMajority = true;
+				
+			} else if (OPTION_LEDGER.equals(arg)) {
+				ledgerPath = optionValue(arg, ++i);
+				
+			} else if (OPTION_PARALLEL.equals(arg)) {
+				deviceLimits();
+				
+			} else if (OPTION_DEVICE_LIMIT.equals(arg)) {
+				deviceLimits().add(optionValue(arg, ++i));
+				
+			} else if (OPTION_ADAPTIVE.equals(arg)) {
+				deviceLimits().setAdaptive(optionValue(arg, ++i));
+				
+			} else if (OPTION_TIMEOUT.equals(arg)) {
+				timeoutMillis = parseTimeout(optionValue(arg, ++i));
+				
+			} else if (OPTION_QUARANTINE.equals(arg)) {
+				quarantineFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_OUTPUT.equals(arg)) {
+				outputRoot = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_PACK.equals(arg)) {
+				packFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_COMPACT.equals(arg)) {
+				compactFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_MULTI_DISC.equals(arg)) {
+				discPattern = ParseFolderCmd.DEFAULT_DISC_PATTERN;
+				
+			} else if (OPTION_DISC_PATTERN.equals(arg)) {
+				discPattern = optionValue(arg, ++i);
+				
+			} else if (OPTION_LINK_DISCS.equals(arg)) {
+				linkDiscs = true;
+				
+			} else if (OPTION_THROTTLE.equals(arg)) {
+				governor = new Governor();
+				governor.setControlFile(new File(optionValue(arg, ++i)));
+				
+			} else if (OPTION_PROBE.equals(arg)) {
+				probeWidth = parseProbeWidth(optionValue(arg, ++i));
+				
+			} else if (OPTION_MAX_BYTES.equals(arg)) {
+				maxBytes = JpegBudget.parseBytes(optionValue(arg, ++i));
+				
+			} else if (OPTION_MIN_QUALITY.equals(arg)) {
+				minQuality = parseQuality(optionValue(arg, ++i));
+				
+			} else if (OPTION_EXCLUDE.equals(arg)) {
+				walkFilter().addExclude(optionValue(arg, ++i));
+				
+			} else if (OPTION_INCLUDE.equals(arg)) {
+				walkFilter().addInclude(optionValue(arg, ++i));
+				
+			} else if (OPTION_EXCLUDE_SYSTEM.equals(arg)) {
+				walkFilter().addSystemExcludes();
+				
+			} else if (OPTION_MAX_DEPTH.equals(arg)) {
+				walkFilter().setMaxDepth(parseMaxDepth(optionValue(arg, ++i)));
+				
+			} else if (OPTION_MIN_SIZE.equals(arg)) {
+				walkFilter().setMinFileBytes(parseMinSize(optionValue(arg, ++i)));
+				
+			} else if (OPTION_DEBUG.equals(arg)) {
+				Debugger.setDebugging(true);
+				
+			} else if (OPTION_LIBRARY_LOG.equals(arg)) {
+				Debugger.setLibraryLevel(parseLevel(optionValue(arg, ++i)));
+				
+			} else if (OPTION_EMBED.equals(arg)) {
+				embed = true;
+				
+			} else if (OPTION_BATCH.equals(arg)) {
+				batchFile = new File(optionValue(arg, ++i));
+				
+			} else if (OPTION_MERGE.equals(arg)) {
+				mergeOutput = new File(optionValue(arg, ++i));
+				
+			} else if (arg.startsWith("--")) {
+				throw new AarException(ERROR_UNKNOWN_OPTION + arg);
+				
+			} else {
+				positionalFiles.add(new File(arg));
+			}
+		}
+		
+		if (!positionalFiles.isEmpty()) {
+			file = positionalFiles.get(0);
+		}
+		
+		if (maxBytes > 0) {
+			budget = new JpegBudget(maxBytes, minQuality);
+		}
+	}
+	
+	/**
+	 * Parses the number of tracks of one album probed at once. 
+	 * @param text String 
+	 * @return int 
+	 * @throws AarException
+	 */
+	private int parseProbeWidth(String text) throws AarException {
+		try {
+			return Integer.parseInt(text.trim());
+			
+		} catch (NumberFormatException ex) {
+			throw new AarException(ParseFolderCmd.ERROR_PROBE_WIDTH, ex);
+		}
+	}
+	
+	/**
+	 * Parses the lowest JPEG quality to use before a cover is scaled down. 
+	 * @param text String 
+	 * @return float 
+	 * @throws AarException
+	 */
+	private float parseQuality(String text) throws AarException {
+		try {
+			return Float.parseFloat(text.trim());
+			
+		} catch (NumberFormatException ex) {
+			throw new AarException(JpegBudget.ERROR_MIN_QUALITY + text, ex);
+		}
+	}
+	
+	/**
+	 * Parses a java.util.logging level, such as OFF, WARNING or ALL. 
+	 * @param text String 
+	 * @return Level 
+	 * @throws AarException
+	 */
+	private Level parseLevel(String text) throws AarException {
+		try {
+			return Level.parse(text.trim().toUpperCase());
+			
+		} catch (IllegalArgumentException ex) {
+			throw new AarException(ERROR_LOG_LEVEL + text, ex);
+		}
+	}
+	
+	/**
+	 * Parses a timeout given in seconds, which may have a fraction. 
+	 * @param text String 
+	 * @return long milliseconds 
+	 * @throws AarException
+	 */
+	private long parseTimeout(String text) throws AarException {
+		try {
+			final double seconds = Double.parseDouble(text);
+			if (!(seconds > 0)) {
+				throw new AarException(ERROR_TIMEOUT_FORMAT);
+			}
+			return Math.max(1, Math.round(seconds * 1000));
+			
+		} catch (NumberFormatException ex) {
+			throw new AarException(ERROR_TIMEOUT_FORMAT, ex);
+		}
+	}
+	
+	/**
+	 * Parses the number of folder levels walked below the root folder. 
+	 * @param text String 
+	 * @return int 
+	 * @throws AarException
+	 */
+	private int parseMaxDepth(String text) throws AarException {
+		try {
+			return Integer.parseInt(text.trim());
+			
+		} catch (NumberFormatException ex) {
+			throw new AarException(ERROR_MAX_DEPTH_FORMAT + text, ex);
+		}
+	}
+	
+	/**
+	 * Parses the size below which files are left out, such as 100K. 
+	 * @param text String 
+	 * @return long bytes 
+	 * @throws AarException
+	 */
+	private long parseMinSize(String text) throws AarException {
+		try {
+			return JpegBudget.parseBytes(text);
+			
+		} catch (AarException ex) {
+			throw new AarException(ERROR_MIN_SIZE_FORMAT + text, ex);
+		}
+	}
+	
+	/**
+	 * Returns the walk rules, creating them on first use. 
+	 * @return WalkFilter 
+	 */
+	private WalkFilter walkFilter() {
+		if (walkFilter == null) {
+			walkFilter = new WalkFilter();
+		}
+		return walkFilter;
+	}
+	
+	/**
+	 * Returns the device limits, creating the defaults on first use. 
+	 * @return DeviceLimits 
+	 */
+	private DeviceLimits deviceLimits() {
+		if (deviceLimits == null) {
+			deviceLimits = new DeviceLimits();
+		}
+		return deviceLimits;
+	}
+	
+	/**
+	 * Returns the value following an option. 
+	 * @param option String 
+	 * @param index int position of the value 
+	 * @return String 
+	 * @throws AarException
+	 */
+	private String optionValue(String option, int index) throws AarException {
+		if (index >= args.length) {
+			throw new AarException(ERROR_MISSING_VALUE + option);
+		}
+		return args[index];
+	}
+	
 	/**
 	 * Parses an individual MP3 file. 
 	 * @param mp3File File 
 	 */
 	private void parsefile(File mp3File) {
 		try {
+			// a single file run writes its cover as a file, so a pack is refused rather than ignored
+			if (packFile != null) {
+				throw new AarException(ERROR_PACK_NOT_SUPPORTED + "a single file.");
+			}
 			ParseAlbumArtCmd parseCmd = new ParseAlbumArtCmd(file);
 			parseCmd.perform();
 			
-			if (parseCmd.isSuccess()) {
+			if (parseCmd.isSuccess() && parseCmd.getBufferedImage() == null) {
+				printStatus(parseCmd.getMessage());
+				
+			} else if (parseCmd.isSuccess()) {
 				BufferedImage image = parseCmd.getBufferedImage();
 				
-				WriteBufferedImageCmd writeCmd = new WriteBufferedImageCmd(file.getParentFile(), image);
+				// a single file has no folder structure to mirror 
+				File folder = outputRoot == null ? file.getParentFile() : new MirrorTree(outputRoot).folderFor("");
+				
+				WriteBufferedImageCmd writeCmd = new WriteBufferedImageCmd(folder, image);
+				writeCmd.setDurability(durability);
+				writeCmd.setBudget(budget);
 				writeCmd.perform();
 				
 				if (writeCmd.isSuccess()) {
-					System.out.println("Successfully wrote MP3 art file to " + file.getParent());
+					printStatus("Successfully wrote MP3 art file to " + folder.getPath());
+					if (budget != null) {
+						Encoding encoding = writeCmd.getEncoding();
+						printStatus(String.format("Quality %.2f, %d bytes, %dx%d%s", encoding.getQuality(),
+								encoding.getBytes().length, encoding.getWidth(), encoding.getHeight(),
+								encoding.isFits() ? "" : ", larger than the maximum even at the smallest size"));
+					}
 					
 				} else {
 					System.err.println("Somethig went wrong with writing the jpeg art file. " + writeCmd.getMessage());
@@ -96,17 +529,320 @@ public class CliApp {
 	 * @param folder File 
 	 */
 	private void parseFolders(File folder) {
+		OutcomeLedger ledger = null;
+		
 		try {
+			ledger = openLedger();
+			
 			ParseFolderCmd cmd = new ParseFolderCmd(folder);
+			cmd.setLedger(ledger);
+			cmd.setShard(shard);
+			cmd.setReportFile(reportFile);
+			cmd.setJournalFile(journalFile);
+			cmd.setSummaryFile(summaryFile);
+			cmd.setDurability(durability);
+			cmd.setDeviceLimits(deviceLimits);
+			cmd.setTimeoutMillis(timeoutMillis);
+			cmd.setQuarantineFile(quarantineFile);
+			cmd.setOutputRoot(outputRoot);
+			cmd.setPackFile(packFile);
+			cmd.setDiscPattern(discPattern);
+			cmd.setLinkDiscArt(linkDiscs);
+			cmd.setGovernor(governor);
+			cmd.setBudget(budget);
+			cmd.setWalkFilter(walkFilter);
+			cmd.setProbeWidth(probeWidth);
 			cmd.perform();
 			
 			if (cmd.isSuccess()) {
-				System.out.println("Successfully parsed MP3 art files.");
+				printStatus("Successfully parsed MP3 art files.");
 			} else {
 				System.err.println("Something went wrong processing the folder. " + cmd.getMessage());
 			}
 		} catch (AarException ex) {
 			System.err.println(ex.getMessage());
+			
+		} finally {
+			closeLedger(ledger);
+		}
+	}
+	
+	/**
+	 * Parses the albums inside a ZIP archive without unpacking it. 
+	 * @param archive File 
+	 */
+	private void parseArchive(File archive) {
+		OutcomeLedger ledger = null;
+		
+		try {
+			// an archive is read as one stream with no per-file watchdog, and its covers go to a folder
+			if (timeoutMillis > 0 || packFile != null) {
+				throw new AarException(ERROR_ARCHIVE_OPTION);
+			}
+			ledger = openLedger();
+			
+			File outputFolder = outputRoot == null ? ParseArchiveCmd.defaultOutputFolder(archive) 
+					: new File(outputRoot, ParseArchiveCmd.defaultOutputFolder(archive).getName());
+			
+			ParseArchiveCmd cmd = new ParseArchiveCmd(archive, outputFolder);
+			cmd.setLedger(ledger);
+			cmd.setDurability(durability);
+			cmd.setGovernor(governor);
+			cmd.setBudget(budget);
+			cmd.perform();
+			
+			if (cmd.isSuccess()) {
+				printStatus(cmd.getMessage());
+			} else {
+				System.err.println("Something went wrong processing the archive. " + cmd.getMessage());
+			}
+		} catch (AarException ex) {
+			System.err.println(ex.getMessage());
+			
+		} finally {
+			closeLedger(ledger);
+		}
+	}
+	
+	/**
+	 * Parses a batch of MP3 files, given as positional arguments and in the batch list file. 
+	 */
+	private void parseBatch() {
+		OutcomeLedger ledger = null;
+		
+		try {
+			// the files of a batch have no common root folder to mirror or key a pack by 
+			rejectOutputTarget("a batch of files");
+			
+			List<File> mp3Files = new ArrayList<>(positionalFiles);
+			if (batchFile != null) {
+				mp3Files.addAll(readBatchFile(batchFile));
+			}
+			
+			ledger = openLedger();
+			
+			ParseBatchCmd cmd = new ParseBatchCmd(mp3Files);
+			cmd.setLedger(ledger);
+			cmd.setDurability(durability);
+			cmd.setDeviceLimits(deviceLimits);
+			cmd.setTimeoutMillis(timeoutMillis);
+			cmd.setQuarantineFile(quarantineFile);
+			cmd.setGovernor(governor);
+			cmd.setBudget(budget);
+			cmd.perform();
+			
+			if (cmd.isSuccess()) {
+				printStatus(cmd.getMessage());
+			} else {
+				System.err.println("Something went wrong processing the batch. " + cmd.getMessage());
+			}
+		} catch (AarException ex) {
+			System.err.println(ex.getMessage());
+			
+		} finally {
+			closeLedger(ledger);
+		}
+	}
+	
+	/**
+	 * Reads a batch list file: one path per line, blank lines and lines starting with "#" are ignored. 
+	 * @param listFile File 
+	 * @return List of File 
+	 * @throws AarException
+	 */
+	private List<File> readBatchFile(File listFile) throws AarException {
+		List<File> files = new ArrayList<>();
+		
+		try {
+			for (String line : Files.readAllLines(listFile.toPath(), StandardCharsets.UTF_8)) {
+				final String path = line.trim();
+				if (!path.isEmpty() && !path.startsWith("#")) {
+					files.add(new File(path));
+				}
+			}
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+		
+		return files;
+	}
+	
+	/**
+	 * Fails a mode that writes covers next to the tracks, or into them, if an output tree or pack was asked for, 
+	 * rather than writing into the library that was meant to stay read-only. 
+	 * @param mode String describing the mode 
+	 * @throws AarException
+	 */
+	private void rejectOutputTarget(String mode) throws AarException {
+		if (outputRoot != null || packFile != null) {
+			throw new AarException(ERROR_OUTPUT_NOT_SUPPORTED + mode + ".");
+		}
+	}
+	
+	/**
+	 * Prints a status message for the user. When the ledger streams to standard output the message goes to 
+	 * standard error instead, so standard output holds nothing but ledger records. 
+	 * @param message String 
+	 */
+	private void printStatus(String message) {
+		if (STANDARD_OUTPUT.equals(ledgerPath)) {
+			System.err.println(message);
+		} else {
+			System.out.println(message);
+		}
+	}
+	
+	/**
+	 * Opens the outcome ledger given on the command line, or returns null if none was given. 
+	 * The format follows the file name: ".csv" for CSV, NDJSON otherwise and for standard output. 
+	 * @return OutcomeLedger 
+	 * @throws AarException
+	 */
+	private OutcomeLedger openLedger() throws AarException {
+		if (ledgerPath == null) {
+			return null;
+		}
+		
+		if (STANDARD_OUTPUT.equals(ledgerPath)) {
+			return new OutcomeLedger(System.out, Format.NDJSON, false);
+		}
+		
+		try {
+			return new OutcomeLedger(new FileOutputStream(ledgerPath), Format.forFileName(ledgerPath), true);
+			
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+	
+	/**
+	 * Closes the outcome ledger, if one was opened. 
+	 * @param ledger OutcomeLedger 
+	 */
+	private void closeLedger(OutcomeLedger ledger) {
+		if (ledger == null) {
+			return;
+		}
+		try {
+			ledger.close();
+		} catch (IOException ex) {
+			System.err.println(ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Embeds a folder's cover file into the folder's MP3 files that have no art. 
+	 * @param folder File 
+	 */
+	private void embedFolderArt(File folder) {
+		OutcomeLedger ledger = null;
+		
+		try {
+			// the covers are embedded into the tracks themselves 
+			rejectOutputTarget(OPTION_EMBED);
+			
+			ledger = openLedger();
+			
+			EmbedFolderArtCmd cmd = new EmbedFolderArtCmd(folder);
+			cmd.setLedger(ledger);
+			cmd.setDurability(durability);
+			cmd.setDeviceLimits(deviceLimits);
+			cmd.perform();
+			
+			if (cmd.isSuccess()) {
+				printStatus(cmd.getMessage());
+			} else {
+				System.err.println("Something went wrong embedding the cover. " + cmd.getMessage());
+			}
+		} catch (AarException ex) {
+			System.err.println(ex.getMessage());
+			
+		} finally {
+			closeLedger(ledger);
+		}
+	}
+	
+	/**
+	 * Audits a folder structure without writing any cover files. 
+	 * @param folder File 
+	 */
+	private void auditFolders(File folder) {
+		try {
+			AuditFolderCmd cmd = new AuditFolderCmd(folder, auditFile);
+			cmd.setOutputRoot(outputRoot);
+			cmd.setPackFile(packFile);
+			cmd.perform();
+			
+			if (cmd.isSuccess()) {
+				printStatus(cmd.getMessage());
+			} else {
+				System.err.println("Something went wrong auditing the folder. " + cmd.getMessage());
+			}
+		} catch (AarException ex) {
+			System.err.println(ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Checks that the tracks of every album folder embed the same cover, optionally writing the majority cover. 
+	 * @param folder File 
+	 */
+	private void checkConsistency(File folder) {
+		try {
+			CheckConsistencyCmd cmd = new CheckConsistencyCmd(folder, consistencyFile);
+			cmd.setWriteMajority(writeMajority);
+			cmd.setOutputRoot(outputRoot);
+			cmd.setPackFile(packFile);
+			cmd.setDurability(durability);
+			cmd.perform();
+			
+			if (cmd.isSuccess()) {
+				printStatus(cmd.getMessage());
+			} else {
+				System.err.println("Something went wrong checking the folder. " + cmd.getMessage());
+			}
+		} catch (AarException ex) {
+			System.err.println(ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Compacts a cover pack, dropping albums that are gone from the root folder if one is given. 
+	 */
+	private void compactPack() {
+		try {
+			CompactPackCmd cmd = new CompactPackCmd(compactFile);
+			cmd.setRootFolder(file);
+			if (durability != Durability.NONE) {
+				cmd.setDurability(durability);
+			}
+			cmd.perform();
+			
+			if (cmd.isSuccess()) {
+				printStatus(cmd.getMessage());
+			} else {
+				System.err.println("Something went wrong compacting the pack. " + cmd.getMessage());
+			}
+		} catch (AarException ex) {
+			System.err.println(ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Merges the shard reports given as positional arguments. 
+	 */
+	private void mergeReports() {
+		try {
+			MergeReportsCmd cmd = new MergeReportsCmd(positionalFiles, mergeOutput);
+			cmd.perform();
+			
+			if (cmd.isSuccess()) {
+				printStatus(cmd.getMessage());
+			} else {
+				System.err.println("Something went wrong merging the reports. " + cmd.getMessage());
+			}
+		} catch (AarException ex) {
+			System.err.println(ex.getMessage());
 		}
 	}
 }
@@ -24,18 +24,57 @@
 
 package com.horvath.aar.application;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Simple debugger class. 
+ * Messages are put in a bounded ring buffer and written to java.util.logging by a background thread, so the
+ * threads doing the work never wait on the console. Parameterised messages are only formatted on that thread,
+ * and not at all when debugging is off. Warnings that repeat are limited to {@value #RATE_LIMIT} per
+ * {@value #RATE_WINDOW_MILLIS} ms for each message and class, and the number left out is logged when the window ends 
+ * or on flush. 
+ * When the buffer is full, messages are dropped rather than slowing the work down, and the number dropped is logged. 
+ * <p>
+ * The loggers of jaudiotagger are controlled here as well: they log at INFO for every file they read, so they
+ * only log warnings unless told otherwise. 
  * @author jhorvath
  */
 public class Debugger {
 
-	private static boolean debugging = false; 
+	public static final int BUFFER_SIZE = 1024;
+	public static final int RATE_LIMIT = 5;
+	public static final long RATE_WINDOW_MILLIS = 10000;
+	public static final String LIBRARY_LOGGER = "org.jaudiotagger";
+	public static final Level DEFAULT_LIBRARY_LEVEL = Level.WARNING;
+
+	/** Longest time flush waits for the buffer to drain. */
+	private static final long FLUSH_MILLIS = 5000;
+	/** Most message keys kept for rate limiting, so messages built by concatenation cannot grow it without bound. */
+	private static final int MAX_RATE_KEYS = 1024;
+
+	private static volatile boolean debugging = false; 
 	private static Logger logger = Logger.getLogger(Debugger.class.getName());
-	
+	// kept here, as java.util.logging only holds loggers weakly and would forget the level
+	private static final Logger libraryLogger = Logger.getLogger(LIBRARY_LOGGER);
+
+	private static final Object lock = new Object();
+	private static final Entry[] ring = new Entry[BUFFER_SIZE];
+	private static int head = 0;
+	private static int size = 0;
+	private static int writing = 0;
+	private static long dropped = 0;
+	private static final Map<String, Rate> rates = new HashMap<>();
+	private static Thread drainer;
+
+	static {
+		libraryLogger.setLevel(DEFAULT_LIBRARY_LEVEL);
+	}
+
 	/**
 	 * Outputs debugging data to the console, if debugging mode is on.
 	 * @param text String 
@@ -52,8 +91,248 @@ public class Debugger {
 	 * @param level Level
 	 */
 	public static void printLog(String text, String className, Level level) {
-		if (isDebugging()) {
-			logger.log(level, text + " - " + className);
+		if (isLogging(level)) {
+			enqueue(level, className, text, null);
+		}
+	}
+
+	/**
+	 * Outputs a parameterised message, formatted like String.format, if debugging mode is on.
+	 * @param level Level
+	 * @param className String
+	 * @param format String
+	 * @param arg Object
+	 */
+	public static void printLog(Level level, String className, String format, Object arg) {
+		if (isLogging(level)) {
+			enqueue(level, className, format, new Object[] { arg });
+		}
+	}
+
+	/**
+	 * Outputs a parameterised message, formatted like String.format, if debugging mode is on.
+	 * @param level Level
+	 * @param className String
+	 * @param format String
+	 * @param arg1 Object
+	 * @param arg2 Object
+	 */
+	public static void printLog(Level level, String className, String format, Object arg1, Object arg2) {
+		if (isLogging(level)) {
+			enqueue(level, className, format, new Object[] { arg1, arg2 });
+		}
+	}
+
+	/**
+	 * Outputs a parameterised message, formatted like String.format, if debugging mode is on.
+	 * The arguments are formatted later on the logging thread, so they should not be changed afterwards. 
+	 * @param level Level
+	 * @param className String
+	 * @param format String
+	 * @param args Object[]
+	 */
+	public static void printLog(Level level, String className, String format, Object... args) {
+		if (isLogging(level)) {
+			enqueue(level, className, format, args);
+		}
+	}
+
+	/**
+	 * Waits until the messages logged so far have been written, or for at most a few seconds. 
+	 * Repeats of warnings left out so far are counted in the log first, even if their window has not ended. 
+	 */
+	public static void flush() {
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_MILLIS);
+		synchronized (lock) {
+			for (Rate rate : rates.values()) {
+				reportSuppressed(rate);
+			}
+			while (size > 0 || writing > 0) {
+				final long wait = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (wait <= 0) {
+					return;
+				}
+				try {
+					lock.wait(wait);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if a message of the given level would be logged. 
+	 * @param level Level
+	 * @return boolean
+	 */
+	private static boolean isLogging(Level level) {
+		return debugging && logger.isLoggable(level);
+	}
+
+	/**
+	 * Puts a message in the ring buffer, unless it is a warning repeated too often or the buffer is full. 
+	 * @param level Level
+	 * @param className String
+	 * @param format String
+	 * @param args Object[], or null if the text is not to be formatted
+	 */
+	private static void enqueue(Level level, String className, String format, Object[] args) {
+		synchronized (lock) {
+			if (level.intValue() >= Level.WARNING.intValue() && !admit(level, className, format)) {
+				return;
+			}
+			put(new Entry(level, className, format, args));
+		}
+	}
+
+	/**
+	 * Counts a warning against its rate and tells whether it is logged. 
+	 * @param level Level
+	 * @param className String
+	 * @param format String
+	 * @return boolean
+	 */
+	private static boolean admit(Level level, String className, String format) {
+		final long now = System.nanoTime();
+		final String key = className + '\n' + format;
+
+		Rate rate = rates.get(key);
+		if (rate == null) {
+			if (rates.size() >= MAX_RATE_KEYS) {
+				for (Rate old : rates.values()) {
+					reportSuppressed(old);
+				}
+				rates.clear();
+			}
+			rate = new Rate(level, className, format, now);
+			rates.put(key, rate);
+		}
+
+		if (now - rate.windowStart >= TimeUnit.MILLISECONDS.toNanos(RATE_WINDOW_MILLIS)) {
+			reportSuppressed(rate);
+			rate.windowStart = now;
+			rate.count = 0;
+		}
+
+		if (rate.count >= RATE_LIMIT) {
+			rate.suppressed++;
+			return false;
+		}
+		rate.count++;
+		return true;
+	}
+
+	/**
+	 * Logs how many repeats of a warning were left out since this was last done, if any. 
+	 * Must be called holding the lock. 
+	 * @param rate Rate
+	 */
+	private static void reportSuppressed(Rate rate) {
+		if (rate.suppressed > 0) {
+			put(new Entry(rate.level, rate.className, "Left out %d repeats of: %s", new Object[] { rate.suppressed, rate.format }));
+			rate.suppressed = 0;
+		}
+	}
+
+	/**
+	 * Reports the repeats left out of the windows that have ended, and forgets those windows, 
+	 * so the count is logged even if the warning never comes back. 
+	 * Must be called holding the lock. 
+	 * @param now long from System.nanoTime
+	 * @return long nanoseconds until the next window with left out repeats ends, or 0 if there is none
+	 */
+	private static long expireRates(long now) {
+		final long window = TimeUnit.MILLISECONDS.toNanos(RATE_WINDOW_MILLIS);
+		long next = 0;
+
+		Iterator<Rate> iterator = rates.values().iterator();
+		while (iterator.hasNext()) {
+			Rate rate = iterator.next();
+			final long remaining = rate.windowStart + window - now;
+			if (remaining <= 0) {
+				reportSuppressed(rate);
+				iterator.remove();
+			} else if (rate.suppressed > 0 && (next == 0 || remaining < next)) {
+				next = remaining;
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Adds an entry to the ring buffer, starting the logging thread if needed. 
+	 * Must be called holding the lock. 
+	 * @param entry Entry
+	 */
+	private static void put(Entry entry) {
+		if (size == BUFFER_SIZE) {
+			dropped++;
+			return;
+		}
+
+		ring[(head + size) % BUFFER_SIZE] = entry;
+		size++;
+
+		if (drainer == null) {
+			drainer = new Thread(Debugger::drain, "aar-log");
+			drainer.setDaemon(true);
+			drainer.start();
+		}
+		lock.notifyAll();
+	}
+
+	/**
+	 * Body of the logging thread: takes what is in the buffer at once and writes it outside the lock. 
+	 */
+	private static void drain() {
+		Entry[] batch = new Entry[BUFFER_SIZE];
+
+		while (true) {
+			int count;
+			long lost;
+			synchronized (lock) {
+				long next = expireRates(System.nanoTime());
+				while (size == 0) {
+					try {
+						if (next == 0) {
+							lock.wait();
+						} else {
+							// wakes up when a window ends, to log the repeats it left out 
+							lock.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(next)));
+						}
+					} catch (InterruptedException ex) {
+						return;
+					}
+					next = expireRates(System.nanoTime());
+				}
+
+				count = size;
+				for (int i = 0; i < count; i++) {
+					batch[i] = ring[head];
+					ring[head] = null;
+					head = (head + 1) % BUFFER_SIZE;
+				}
+				size = 0;
+				writing = count;
+				lost = dropped;
+				dropped = 0;
+			}
+
+			if (lost > 0) {
+				logger.log(Level.WARNING, "Dropped " + lost + " messages, the log buffer was full - " + Debugger.class.getName());
+			}
+
+			for (int i = 0; i < count; i++) {
+				batch[i].write();
+				batch[i] = null;
+			}
+
+			synchronized (lock) {
+				writing = 0;
+				lock.notifyAll();
+			}
 		}
 	}
 
@@ -72,4 +351,67 @@ public class Debugger {
 	public static void setDebugging(boolean debugging) {
 		Debugger.debugging = debugging;
 	}
+
+	/**
+	 * Returns the level jaudiotagger logs at. 
+	 * @return Level
+	 */
+	public static Level getLibraryLevel() {
+		return libraryLogger.getLevel();
+	}
+
+	/**
+	 * Sets the level jaudiotagger logs at. 
+	 * @param level Level
+	 */
+	public static void setLibraryLevel(Level level) {
+		libraryLogger.setLevel(level);
+	}
+
+	/**
+	 * One message waiting in the ring buffer. 
+	 */
+	private static final class Entry {
+		final Level level;
+		final String className;
+		final String format;
+		final Object[] args;
+
+		Entry(Level level, String className, String format, Object[] args) {
+			this.level = level;
+			this.className = className;
+			this.format = format;
+			this.args = args;
+		}
+
+		void write() {
+			String text;
+			try {
+				text = args == null ? format : String.format(format, args);
+			} catch (RuntimeException ex) {
+				text = format;
+			}
+			// the source is given, as java.util.logging would otherwise find this thread's frame
+			logger.logp(level, className, null, text + " - " + className);
+		}
+	}
+
+	/**
+	 * How often one warning was logged in the current window. 
+	 */
+	private static final class Rate {
+		final Level level;
+		final String className;
+		final String format;
+		long windowStart;
+		int count = 0;
+		int suppressed = 0;
+
+		Rate(Level level, String className, String format, long windowStart) {
+			this.level = level;
+			this.className = className;
+			this.format = format;
+			this.windowStart = windowStart;
+		}
+	}
 }
@@ -0,0 +1,132 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Parent of the read-only commands that look at the MP3 files of every album folder below a root folder, 
+ * such as the audit and the consistency check. 
+ * @author jhorvath
+ */
+public abstract class AlbumFolderCmd extends AarCommand {
+	
+	protected final File rootFolder;
+	protected final File reportFile;
+	
+	public static final String ERROR_NULL_FOLDER = "The folder cannot be null";
+	public static final String ERROR_FOLDER_DOES_NOT_EXIST = "The folder was not found.";
+	public static final String ERROR_FILE_IS_NOT_FOLDER = "The file is not a folder.";
+	
+	/**
+	 * Constructor. 
+	 * @param folder File root folder 
+	 * @param reportFile File where the report is written, or null to keep it in memory only 
+	 */
+	protected AlbumFolderCmd(File folder, File reportFile) {
+		this.rootFolder = folder;
+		this.reportFile = reportFile;
+	}
+	
+	/**
+	 * Handles one album folder. 
+	 * @param folder File 
+	 * @param mp3Files List of File in the order the folder was listed in 
+	 * @throws AarException
+	 */
+	protected abstract void visitAlbum(File folder, List<File> mp3Files) throws AarException;
+	
+	/**
+	 * Walks the folder structure below the root folder and hands every folder holding MP3 files to visitAlbum. 
+	 * @throws AarException
+	 */
+	protected void walkAlbums() throws AarException {
+		walkSubFolders(rootFolder);
+	}
+	
+	/**
+	 * Recursive method to explore sub-folders. 
+	 * @param folder File 
+	 * @throws AarException
+	 */
+	private void walkSubFolders(File folder) throws AarException {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		
+		List<File> mp3Files = new ArrayList<>();
+		
+		for (File file : files) {
+			if (file.isDirectory()) {
+				walkSubFolders(file);
+				
+			} else if (file.getName().toLowerCase().endsWith(".mp3")) {
+				mp3Files.add(file);
+			}
+		}
+		
+		if (!mp3Files.isEmpty()) {
+			visitAlbum(folder, mp3Files);
+		}
+	}
+	
+	/**
+	 * Returns the path of a folder relative to the root folder, using forward slashes. 
+	 * @param folder File 
+	 * @return String, empty for the root folder 
+	 */
+	protected String relativePath(File folder) {
+		return rootFolder.toPath().relativize(folder.toPath()).toString().replace(File.separatorChar, '/');
+	}
+	
+	/**
+	 * Validates the given root folder. 
+	 * @throws AarException
+	 */
+	protected void validate() throws AarException {
+		
+		if (rootFolder == null) {
+			throw new AarException(ERROR_NULL_FOLDER);
+		}
+		
+		if (!rootFolder.exists()) {
+			throw new AarException(ERROR_FOLDER_DOES_NOT_EXIST);
+		}
+		
+		if (!rootFolder.isDirectory()) {
+			throw new AarException(ERROR_FILE_IS_NOT_FOLDER);
+		}
+	}
+	
+	public File getReportFile() {
+		return reportFile;
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.logging.Level;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.ImageHeaders;
+import com.horvath.aar.io.MirrorTree;
+import com.horvath.aar.pack.CoverPackReader;
+import com.horvath.aar.report.AuditReport;
+import com.horvath.aar.report.AuditReport.AlbumAudit;
+import com.horvath.aar.report.AuditReport.AuditStatus;
+import com.horvath.aar.tag.CoverHash;
+import com.horvath.aar.tag.CoverSelector;
+import com.horvath.aar.tag.Id3PictureScanner;
+import com.horvath.aar.tag.PictureFrame;
+
+/**
+ * Read-only audit of a folder structure. 
+ * Reports which album folders have no embedded art, which are missing their cover file and 
+ * where the cover file differs from the embedded art. Only tag headers are read and the art is 
+ * hashed and measured from its header, so no image is decoded and nothing is written except the report. 
+ * After a run with an output tree or a pack, the covers are looked for there instead of in the album folders. 
+ * @author jhorvath
+ */
+public class AuditFolderCmd extends AlbumFolderCmd {
+	
+	private String coverName = WriteBufferedImageCmd.DEFAULT_NAME;
+	private File outputRoot = null;
+	private File packFile = null;
+	
+	private AuditReport report = new AuditReport();
+	private MirrorTree mirror = null;
+	private CoverPackReader pack = null;
+	
+	/**
+	 * Constructor. 
+	 * @param folder File root folder to audit 
+	 * @param reportFile File where the report is written, or null to keep it in memory only 
+	 */
+	public AuditFolderCmd(File folder, File reportFile) {
+		super(folder, reportFile);
+	}
+
+	@Override
+	public void perform() throws AarException {
+		Debugger.printLog("Audit art in folder structure", this.getClass().getName());
+		
+		success = false;
+		
+		validate();
+		
+		report = new AuditReport();
+		mirror = outputRoot == null ? null : new MirrorTree(outputRoot);
+		pack = packFile == null ? null : CoverPackReader.open(packFile);
+		
+		try {
+			walkAlbums();
+			
+		} finally {
+			if (pack != null) {
+				pack.close();
+				pack = null;
+			}
+		}
+		
+		if (reportFile != null) {
+			report.write(reportFile);
+		}
+		
+		message = "Audited " + report.getAlbums().size() + " albums: " 
+				+ report.count(AuditStatus.NO_ART) + " without art, " 
+				+ report.count(AuditStatus.MISSING) + " missing a cover file, " 
+				+ report.count(AuditStatus.MISMATCH) + " with a mismatched cover file.";
+		
+		success = true;
+	}
+	
+	@Override
+	protected void visitAlbum(File folder, List<File> mp3Files) throws AarException {
+		report.addAlbum(auditAlbum(folder, mp3Files));
+	}
+	
+	/**
+	 * Finds the first track with embedded art and compares the art to the folder's cover file. 
+	 * @param folder File 
+	 * @param mp3Files List of File 
+	 * @return AlbumAudit 
+	 * @throws AarException
+	 */
+	private AlbumAudit auditAlbum(File folder, List<File> mp3Files) throws AarException {
+		final String relativePath = relativePath(folder);
+		
+		for (File mp3 : mp3Files) {
+			try (FileChannel channel = FileChannel.open(mp3.toPath(), StandardOpenOption.READ)) {
+				List<PictureFrame> frames = Id3PictureScanner.scan(channel);
+				if (frames.isEmpty()) {
+					continue;
+				}
+				
+				// the same cover a folder run would extract
+				PictureFrame frame = CoverSelector.select(frames);
+				
+				final String artHash = CoverHash.toHex(CoverHash.ofFrame(channel, frame));
+				
+				Dimension artSize = ImageHeaders.dimensions(payloadStream(channel, frame));
+				final int width = artSize == null ? -1 : artSize.width;
+				final int height = artSize == null ? -1 : artSize.height;
+				
+				AuditStatus status = pack == null 
+						? compareCover(coverFile(folder, relativePath), artHash, artSize) 
+						: comparePackedCover(relativePath, artHash, artSize);
+				
+				return new AlbumAudit(relativePath, status, mp3.getName(), frame.getMimeType(), 
+						frame.getPayloadLength(), width, height, artHash);
+				
+			} catch (IOException ex) {
+				Debugger.printLog(Level.WARNING, this.getClass().getName(), "Error: %s", ex.getMessage());
+				report.addUnreadableTrack();
+			}
+		}
+		
+		return new AlbumAudit(relativePath, AuditStatus.NO_ART, "", "", -1, -1, -1, "");
+	}
+	
+	/**
+	 * Compares a cover file with the embedded art by hash, and by dimensions when the hashes differ. 
+	 * @param cover File 
+	 * @param artHash String 
+	 * @param artSize Dimension 
+	 * @return AuditStatus
+	 * @throws IOException
+	 */
+	private AuditStatus compareCover(File cover, String artHash, Dimension artSize) throws IOException {
+		if (!cover.isFile()) {
+			return AuditStatus.MISSING;
+		}
+		
+		if (artHash.equals(CoverHash.toHex(CoverHash.ofFile(cover)))) {
+			return AuditStatus.MATCH;
+		}
+		
+		Dimension coverSize = ImageHeaders.dimensions(cover);
+		if (artSize != null && artSize.equals(coverSize)) {
+			return AuditStatus.REENCODED;
+		}
+		
+		return AuditStatus.MISMATCH;
+	}
+	
+	/**
+	 * Compares the cover a pack holds for an album folder with the embedded art, as compareCover does for a file. 
+	 * @param relativePath String of the album folder 
+	 * @param artHash String 
+	 * @param artSize Dimension 
+	 * @return AuditStatus 
+	 * @throws IOException
+	 * @throws AarException
+	 */
+	private AuditStatus comparePackedCover(String relativePath, String artHash, Dimension artSize) throws IOException, AarException {
+		final String key = relativePath.isEmpty() ? ParseFolderCmd.ROOT_PACK_KEY : relativePath;
+		
+		byte[] coverHash = pack.getHash(key);
+		if (coverHash == null) {
+			return AuditStatus.MISSING;
+		}
+		
+		if (artHash.equals(CoverHash.toHex(coverHash))) {
+			return AuditStatus.MATCH;
+		}
+		
+		Dimension coverSize = ImageHeaders.dimensions(new ByteArrayInputStream(pack.read(key)));
+		if (artSize != null && artSize.equals(coverSize)) {
+			return AuditStatus.REENCODED;
+		}
+		
+		return AuditStatus.MISMATCH;
+	}
+	
+	/**
+	 * Returns the cover file of an album folder, in its mirror if covers go to an output tree. 
+	 * @param folder File 
+	 * @param relativePath String 
+	 * @return File 
+	 * @throws AarException if the path leaves the output root 
+	 */
+	private File coverFile(File folder, String relativePath) throws AarException {
+		return new File(mirror == null ? folder : mirror.resolveFolder(relativePath), coverName);
+	}
+	
+	/**
+	 * Returns a stream positioned at the start of the frame's image data. 
+	 * @param channel FileChannel 
+	 * @param frame PictureFrame 
+	 * @return InputStream 
+	 * @throws IOException
+	 */
+	private InputStream payloadStream(FileChannel channel, PictureFrame frame) throws IOException {
+		if (frame.getData() != null) {
+			return new ByteArrayInputStream(frame.getData());
+		}
+		channel.position(frame.getPayloadPosition());
+		return Channels.newInputStream(channel);
+	}
+	
+	public AuditReport getReport() {
+		return report;
+	}
+
+	public String getCoverName() {
+		return coverName;
+	}
+
+	/**
+	 * Sets the name of the cover file compared with the embedded art. 
+	 * @param coverName String 
+	 */
+	public void setCoverName(String coverName) {
+		this.coverName = coverName;
+	}
+
+	public File getOutputRoot() {
+		return outputRoot;
+	}
+
+	/**
+	 * Sets the output tree a folder run mirrored the covers into, so the covers are looked for there. 
+	 * Null looks in the album folders. 
+	 * @param outputRoot File 
+	 */
+	public void setOutputRoot(File outputRoot) {
+		this.outputRoot = outputRoot;
+	}
+
+	public File getPackFile() {
+		return packFile;
+	}
+
+	/**
+	 * Sets the pack a folder run stored the covers in, so the covers are looked for there. 
+	 * Takes precedence over the output tree. Null looks in the album folders or the output tree. 
+	 * @param packFile File 
+	 */
+	public void setPackFile(File packFile) {
+		this.packFile = packFile;
+	}
+}
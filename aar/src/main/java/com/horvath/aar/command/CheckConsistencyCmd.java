@@ -0,0 +1,325 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
+import com.horvath.aar.io.MirrorTree;
+import com.horvath.aar.pack.CoverPackWriter;
+import com.horvath.aar.report.ConsistencyReport;
+import com.horvath.aar.report.ConsistencyReport.ConsistencyStatus;
+import com.horvath.aar.report.ConsistencyReport.FolderConsistency;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.tag.CoverHash;
+import com.horvath.aar.tag.CoverSelector;
+import com.horvath.aar.tag.Id3PictureScanner;
+import com.horvath.aar.tag.PictureFrame;
+
+/**
+ * Checks that the tracks of every album folder embed the same cover.
+ * The cover a folder run would pick from each track is hashed straight from its tag, the tracks of a folder in parallel,
+ * so no image is decoded. Folders whose tracks embed different covers are reported, and the cover most tracks share
+ * can be written wherever a folder run writes covers. Ties go to the cover of the first track by name.
+ * @author jhorvath
+ */
+public class CheckConsistencyCmd extends AlbumFolderCmd {
+
+	private boolean writeMajority = false;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private File outputRoot = null;
+	private File packFile = null;
+	private Durability durability = Durability.NONE;
+
+	private ConsistencyReport report = new ConsistencyReport();
+	private ExecutorService hashers = null;
+	private GroupCommit groupCommit = null;
+	private CoverPackWriter pack = null;
+	private MirrorTree mirror = null;
+
+	public static final String ERROR_THREADS = "The number of threads must be at least 1.";
+
+	/**
+	 * Constructor.
+	 * @param folder File root folder to check
+	 * @param reportFile File where the report is written, or null to keep it in memory only
+	 */
+	public CheckConsistencyCmd(File folder, File reportFile) {
+		super(folder, reportFile);
+	}
+
+	@Override
+	public void perform() throws AarException {
+		Debugger.printLog("Check consistency of art in folder structure", this.getClass().getName());
+
+		success = false;
+
+		validate();
+
+		report = new ConsistencyReport();
+
+		final AtomicInteger threadCount = new AtomicInteger();
+		hashers = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "aar-hash-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		if (writeMajority) {
+			groupCommit = durability == Durability.GROUP_COMMIT ? new GroupCommit() : null;
+			mirror = outputRoot == null ? null : new MirrorTree(outputRoot);
+			pack = packFile == null ? null : CoverPackWriter.open(packFile, durability);
+		}
+
+		try {
+			walkAlbums();
+
+		} finally {
+			hashers.shutdownNow();
+			try {
+				if (groupCommit != null) {
+					groupCommit.commit();
+				}
+			} finally {
+				if (pack != null) {
+					pack.close();
+				}
+				groupCommit = null;
+				pack = null;
+				mirror = null;
+			}
+		}
+
+		if (reportFile != null) {
+			report.write(reportFile);
+		}
+
+		message = "Checked " + report.getFolders().size() + " albums: "
+				+ report.count(ConsistencyStatus.INCONSISTENT) + " with different covers, "
+				+ report.count(ConsistencyStatus.NO_ART) + " without art.";
+
+		success = true;
+	}
+
+	@Override
+	protected void visitAlbum(File folder, List<File> mp3Files) throws AarException {
+		mp3Files.sort(Comparator.comparing(File::getName));
+		report.addFolder(checkAlbum(folder, mp3Files));
+	}
+
+	/**
+	 * Hashes the cover of every track of an album folder and finds the cover most tracks share.
+	 * @param folder File
+	 * @param mp3Files List of File sorted by name
+	 * @return FolderConsistency
+	 * @throws AarException
+	 */
+	private FolderConsistency checkAlbum(File folder, List<File> mp3Files) throws AarException {
+		final String relativePath = relativePath(folder);
+
+		List<Future<String>> hashes = new ArrayList<>();
+		for (File mp3 : mp3Files) {
+			hashes.add(hashers.submit(() -> hashCover(mp3)));
+		}
+
+		Map<String, String> trackHashes = new LinkedHashMap<>();
+		Map<String, Integer> counts = new HashMap<>();
+
+		for (int i = 0; i < mp3Files.size(); i++) {
+			final String hash = await(hashes.get(i));
+			trackHashes.put(mp3Files.get(i).getName(), hash);
+			if (!hash.isEmpty()) {
+				counts.merge(hash, 1, Integer::sum);
+			}
+		}
+
+		String majorityTrack = "";
+		int majorityCount = 0;
+		for (Map.Entry<String, String> track : trackHashes.entrySet()) {
+			final int count = track.getValue().isEmpty() ? 0 : counts.get(track.getValue());
+			// in track order, so a tie goes to the cover of the first track
+			if (count > majorityCount) {
+				majorityCount = count;
+				majorityTrack = track.getKey();
+			}
+		}
+
+		FolderConsistency consistency = new FolderConsistency(relativePath, trackHashes, counts.size(),
+				majorityTrack, majorityCount);
+
+		if (consistency.getStatus() == ConsistencyStatus.INCONSISTENT) {
+			Debugger.printLog(Level.INFO, this.getClass().getName(), "Different covers in %s: %d covers, %d of %d tracks share %s",
+					relativePath, counts.size(), majorityCount, mp3Files.size(), majorityTrack);
+		}
+
+		if (writeMajority && !majorityTrack.isEmpty()) {
+			ExtractArtCmd extractCmd = new ExtractArtCmd(new File(folder, majorityTrack));
+			extractCmd.setDurability(durability);
+			extractCmd.setGroupCommit(groupCommit);
+			extractCmd.setAlbumTarget(rootFolder, relativePath, pack, mirror);
+			extractCmd.perform();
+			consistency.setMajorityWritten(extractCmd.getOutcome() == Outcome.ART_WRITTEN);
+		}
+
+		return consistency;
+	}
+
+	/**
+	 * Hashes the image data of the cover a folder run would pick from a track, without decoding it.
+	 * @param mp3 File
+	 * @return String hex digest, empty if the track has no art or its tag cannot be read
+	 */
+	private String hashCover(File mp3) {
+		try (FileChannel channel = FileChannel.open(mp3.toPath(), StandardOpenOption.READ)) {
+			PictureFrame frame = CoverSelector.select(Id3PictureScanner.scan(channel));
+			if (frame == null) {
+				return "";
+			}
+			return CoverHash.toHex(CoverHash.ofFrame(channel, frame));
+
+		} catch (IOException ex) {
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), "Error: %s", ex.getMessage());
+			report.addUnreadableTrack();
+			return "";
+		}
+	}
+
+	/**
+	 * Waits for the hash of a track.
+	 * @param hash Future
+	 * @return String
+	 * @throws AarException
+	 */
+	private String await(Future<String> hash) throws AarException {
+		try {
+			return hash.get();
+
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+
+		} catch (ExecutionException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	@Override
+	protected void validate() throws AarException {
+		super.validate();
+
+		if (writeMajority && outputRoot != null && MirrorTree.overlaps(rootFolder, outputRoot)) {
+			throw new AarException(ParseFolderCmd.ERROR_OUTPUT_OVERLAPS_ROOT);
+		}
+	}
+
+	public ConsistencyReport getReport() {
+		return report;
+	}
+
+	public boolean isWriteMajority() {
+		return writeMajority;
+	}
+
+	/**
+	 * Sets whether the cover most tracks of a folder share is written as its cover,
+	 * to the output tree or pack if one is set and into the album folder otherwise.
+	 * @param writeMajority boolean
+	 */
+	public void setWriteMajority(boolean writeMajority) {
+		this.writeMajority = writeMajority;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of tracks hashed at once.
+	 * @param threads int
+	 * @throws AarException if threads is below 1
+	 */
+	public void setThreads(int threads) throws AarException {
+		if (threads < 1) {
+			throw new AarException(ERROR_THREADS);
+		}
+		this.threads = threads;
+	}
+
+	public File getOutputRoot() {
+		return outputRoot;
+	}
+
+	/**
+	 * Sets the folder that receives the majority covers, mirroring the folder structure below the root folder.
+	 * Null writes into the album folders.
+	 * @param outputRoot File
+	 */
+	public void setOutputRoot(File outputRoot) {
+		this.outputRoot = outputRoot;
+	}
+
+	public File getPackFile() {
+		return packFile;
+	}
+
+	/**
+	 * Stores the majority covers in a pack file, keyed by album path, as a folder run with the same pack does.
+	 * Takes precedence over the output folder. Null writes into the album folders or the output folder.
+	 * @param packFile File
+	 */
+	public void setPackFile(File packFile) {
+		this.packFile = packFile;
+	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets how written majority covers are made durable.
+	 * @param durability Durability
+	 */
+	public void setDurability(Durability durability) {
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.pack.CoverPackWriter;
+
+/**
+ * Rewrites a cover pack with only the current cover of each album, dropping replaced covers.
+ * Given the root folder the pack was built from, albums whose folder or archive no longer exists are dropped too.
+ * @author jhorvath
+ */
+public class CompactPackCmd extends AarCommand {
+
+	private File packFile;
+	private File rootFolder = null;
+	private Durability durability = Durability.FSYNC;
+
+	private long reclaimedBytes = 0;
+	private int albumCount = 0;
+	private final Map<File, Set<String>> archiveFolders = new HashMap<>();
+
+	public static final String ERROR_NULL_FILE = "The pack cannot be null";
+	public static final String ERROR_FILE_DOES_NOT_EXIST = "The pack was not found.";
+	public static final String ERROR_FILE_IS_NOT_FOLDER = "The root folder is not a folder.";
+
+	/**
+	 * Constructor.
+	 * @param packFile File
+	 */
+	public CompactPackCmd(File packFile) {
+		this.packFile = packFile;
+	}
+
+	@Override
+	public void perform() throws AarException {
+		Debugger.printLog("Compact cover pack", this.getClass().getName());
+
+		success = false;
+
+		validate();
+
+		CoverPackWriter pack = CoverPackWriter.open(packFile, durability);
+		try {
+			reclaimedBytes = pack.compact(rootFolder == null ? null : this::albumExists);
+			albumCount = pack.size();
+		} finally {
+			archiveFolders.clear();
+			pack.close();
+		}
+
+		message = "Compacted the pack to " + albumCount + " albums, reclaiming " + reclaimedBytes + " bytes.";
+		success = true;
+	}
+
+	/**
+	 * Returns true if the album of a pack key still exists below the root folder,
+	 * as a folder or inside an archive standing in for one of its parent folders.
+	 * @param key String
+	 * @return boolean
+	 */
+	private boolean albumExists(String key) {
+		if (ParseFolderCmd.ROOT_PACK_KEY.equals(key)) {
+			return true;
+		}
+
+		String path = key;
+		if (new File(rootFolder, path).isDirectory()) {
+			return true;
+		}
+
+		while (!path.isEmpty()) {
+			final int slash = path.lastIndexOf('/');
+			final File parent = slash < 0 ? rootFolder : new File(rootFolder, path.substring(0, slash));
+			if (archiveFolders(parent).contains(path.substring(slash + 1))) {
+				return true;
+			}
+			path = slash < 0 ? "" : path.substring(0, slash);
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the names of the folders the archives in a folder stand in for, whatever the case of their extension.
+	 * Each folder is listed once per compaction.
+	 * @param folder File
+	 * @return Set of String names
+	 */
+	private Set<String> archiveFolders(File folder) {
+		Set<String> names = archiveFolders.get(folder);
+		if (names != null) {
+			return names;
+		}
+
+		names = new HashSet<>();
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (ParseArchiveCmd.isArchive(file)) {
+					names.add(ParseArchiveCmd.defaultOutputFolder(file).getName());
+				}
+			}
+		}
+		archiveFolders.put(folder, names);
+		return names;
+	}
+
+	/**
+	 * Validates the pack and root folder.
+	 * @throws AarException
+	 */
+	private void validate() throws AarException {
+
+		if (packFile == null) {
+			throw new AarException(ERROR_NULL_FILE);
+		}
+
+		if (!packFile.isFile()) {
+			throw new AarException(ERROR_FILE_DOES_NOT_EXIST);
+		}
+
+		if (rootFolder != null && !rootFolder.isDirectory()) {
+			throw new AarException(ERROR_FILE_IS_NOT_FOLDER);
+		}
+	}
+
+	public File getRootFolder() {
+		return rootFolder;
+	}
+
+	/**
+	 * Sets the root folder the pack was built from. Albums missing below it are dropped. Null keeps every album.
+	 * @param rootFolder File
+	 */
+	public void setRootFolder(File rootFolder) {
+		this.rootFolder = rootFolder;
+	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets how the rewritten pack is made durable. Defaults to forcing it to disk.
+	 * @param durability Durability
+	 */
+	public void setDurability(Durability durability) {
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	public long getReclaimedBytes() {
+		return reclaimedBytes;
+	}
+
+	public int getAlbumCount() {
+		return albumCount;
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.report.OutcomeLedger;
+import com.horvath.aar.tag.Id3ArtWriter;
+import com.horvath.aar.tag.Id3ArtWriter.Result;
+import com.horvath.aar.tag.Id3PictureScanner;
+import com.horvath.aar.walk.DeviceLimits;
+import com.horvath.aar.walk.DeviceScheduler;
+
+/**
+ * Embeds a folder's cover file into every MP3 file of the folder that has no embedded picture yet.
+ * Tags are extended in place when their padding is large enough; otherwise the file is rewritten once
+ * with generous padding. Files are processed in parallel within the per-device limits.
+ * @author jhorvath
+ */
+public class EmbedFolderArtCmd extends AarCommand {
+
+	private File folder;
+	private String coverName = WriteBufferedImageCmd.DEFAULT_NAME;
+	private DeviceLimits deviceLimits = new DeviceLimits();
+	private Durability durability = Durability.NONE;
+	private OutcomeLedger ledger = null;
+
+	private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+	private final Map<Result, Integer> results = new EnumMap<>(Result.class);
+	private final AtomicReference<AarException> taskError = new AtomicReference<>();
+	private GroupCommit groupCommit = null;
+
+	public static final String ERROR_NULL_FOLDER = "The folder cannot be null";
+	public static final String ERROR_FOLDER_DOES_NOT_EXIST = "The folder was not found.";
+	public static final String ERROR_FILE_IS_NOT_FOLDER = "The file is not a folder.";
+	public static final String ERROR_COVER_DOES_NOT_EXIST = "The folder has no cover file: ";
+	public static final String ERROR_UNSUPPORTED_COVER = "The cover file is neither a JPEG nor a PNG image.";
+
+	public static final String DETAIL_ART_PRESENT = "The file already has embedded art.";
+	public static final String DETAIL_IN_PLACE = "Embedded in the existing tag padding.";
+	public static final String DETAIL_REWRITTEN = "The file was rewritten with a larger tag.";
+	public static final String DETAIL_UNSUPPORTED_TAG = "The tag is unsynchronised or compressed as a whole.";
+
+	/**
+	 * Constructor.
+	 * @param folder File album folder holding the cover file and the MP3 files
+	 */
+	public EmbedFolderArtCmd(File folder) {
+		this.folder = folder;
+	}
+
+	@Override
+	public void perform() throws AarException {
+		Debugger.printLog("Embed cover into folder tracks", this.getClass().getName());
+
+		success = false;
+
+		validate();
+
+		final byte[] image;
+		try {
+			image = Files.readAllBytes(new File(folder, coverName).toPath());
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+		final String mimeType = mimeType(image);
+
+		counts.clear();
+		results.clear();
+		taskError.set(null);
+		groupCommit = durability == Durability.GROUP_COMMIT ? new GroupCommit() : null;
+
+		File[] mp3Files = folder.listFiles(file -> file.isFile() && file.getName().toLowerCase().endsWith(".mp3"));
+		if (mp3Files == null) {
+			mp3Files = new File[0];
+		}
+		DeviceScheduler scheduler = new DeviceScheduler(deviceLimits);
+
+		try {
+			for (File mp3 : mp3Files) {
+				scheduler.submit(mp3, () -> {
+					try {
+						embedTrack(mp3, image, mimeType);
+					} catch (AarException ex) {
+						taskError.compareAndSet(null, ex);
+					}
+				});
+			}
+
+			scheduler.awaitCompletion();
+
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+
+		} catch (RuntimeException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+
+		} finally {
+			if (groupCommit != null) {
+				groupCommit.commit();
+			}
+		}
+
+		if (taskError.get() != null) {
+			throw taskError.get();
+		}
+
+		message = "Embedded the cover into " + getCount(Outcome.ART_WRITTEN) + " of " + mp3Files.length + " files: "
+				+ getResultCount(Result.IN_PLACE) + " in place, " + getResultCount(Result.REWRITTEN) + " rewritten.";
+		success = true;
+	}
+
+	/**
+	 * Embeds the cover into one file, unless it already has a picture.
+	 * @param mp3 File
+	 * @param image byte[]
+	 * @param mimeType String
+	 * @throws AarException if the ledger cannot be written
+	 */
+	private void embedTrack(File mp3, byte[] image, String mimeType) throws AarException {
+		final long start = System.nanoTime();
+
+		Outcome outcome;
+		String detail;
+
+		try {
+			if (hasPicture(mp3)) {
+				outcome = Outcome.SKIPPED;
+				detail = DETAIL_ART_PRESENT;
+
+			} else {
+				Result result = Id3ArtWriter.embed(mp3.toPath(), image, mimeType, durability, groupCommit);
+				synchronized (results) {
+					results.merge(result, 1, Integer::sum);
+				}
+
+				if (result == Result.UNSUPPORTED) {
+					outcome = Outcome.UNSUPPORTED_FORMAT;
+					detail = DETAIL_UNSUPPORTED_TAG;
+				} else {
+					outcome = Outcome.ART_WRITTEN;
+					detail = result == Result.IN_PLACE ? DETAIL_IN_PLACE : DETAIL_REWRITTEN;
+				}
+			}
+
+		} catch (IOException | AarException ex) {
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), "Error: %s", ex.getMessage());
+			outcome = Outcome.IO_ERROR;
+			detail = ex.getMessage();
+		}
+
+		record(mp3, outcome, detail, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	/**
+	 * Returns true if the file's ID3v2 tag already holds a picture frame, even one that cannot be read, 
+	 * such as a compressed, encrypted or linked picture. 
+	 * @param mp3 File
+	 * @return boolean
+	 * @throws IOException
+	 */
+	private boolean hasPicture(File mp3) throws IOException {
+		try (FileChannel channel = FileChannel.open(mp3.toPath(), StandardOpenOption.READ)) {
+			return Id3PictureScanner.hasPictureFrame(channel);
+		}
+	}
+
+	/**
+	 * Returns the MIME type of the cover from its leading bytes.
+	 * @param image byte[]
+	 * @return String
+	 * @throws AarException
+	 */
+	private String mimeType(byte[] image) throws AarException {
+		if (image.length > 3 && (image[0] & 0xff) == 0xff && (image[1] & 0xff) == 0xd8) {
+			return "image/jpeg";
+		}
+		if (image.length > 8 && (image[0] & 0xff) == 0x89 && image[1] == 'P' && image[2] == 'N' && image[3] == 'G') {
+			return "image/png";
+		}
+		throw new AarException(ERROR_UNSUPPORTED_COVER);
+	}
+
+	/**
+	 * Counts an outcome and writes it to the ledger, if one is in use.
+	 * @param file File
+	 * @param outcome Outcome
+	 * @param detail String
+	 * @param millis long
+	 * @throws AarException
+	 */
+	private void record(File file, Outcome outcome, String detail, long millis) throws AarException {
+		synchronized (counts) {
+			counts.merge(outcome, 1, Integer::sum);
+		}
+		if (ledger != null) {
+			ledger.record(file.getPath(), outcome, detail, millis);
+		}
+	}
+
+	/**
+	 * Validates the folder and its cover file.
+	 * @throws AarException
+	 */
+	private void validate() throws AarException {
+
+		if (folder == null) {
+			throw new AarException(ERROR_NULL_FOLDER);
+		}
+
+		if (!folder.exists()) {
+			throw new AarException(ERROR_FOLDER_DOES_NOT_EXIST);
+		}
+
+		if (!folder.isDirectory()) {
+			throw new AarException(ERROR_FILE_IS_NOT_FOLDER);
+		}
+
+		if (!new File(folder, coverName).isFile()) {
+			throw new AarException(ERROR_COVER_DOES_NOT_EXIST + coverName);
+		}
+	}
+
+	/**
+	 * Returns the number of files with the given outcome.
+	 * @param outcome Outcome
+	 * @return int
+	 */
+	public int getCount(Outcome outcome) {
+		synchronized (counts) {
+			return counts.getOrDefault(outcome, 0);
+		}
+	}
+
+	/**
+	 * Returns the number of files the tag writer handled in the given way.
+	 * @param result Result
+	 * @return int
+	 */
+	public int getResultCount(Result result) {
+		synchronized (results) {
+			return results.getOrDefault(result, 0);
+		}
+	}
+
+	public String getCoverName() {
+		return coverName;
+	}
+
+	/**
+	 * Sets the name of the cover file in the folder.
+	 * @param coverName String
+	 */
+	public void setCoverName(String coverName) {
+		this.coverName = coverName;
+	}
+
+	public DeviceLimits getDeviceLimits() {
+		return deviceLimits;
+	}
+
+	/**
+	 * Sets the per-device concurrency limits.
+	 * @param deviceLimits DeviceLimits
+	 */
+	public void setDeviceLimits(DeviceLimits deviceLimits) {
+		this.deviceLimits = deviceLimits == null ? new DeviceLimits() : deviceLimits;
+	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets how changed files are made durable.
+	 * @param durability Durability
+	 */
+	public void setDurability(Durability durability) {
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	public OutcomeLedger getLedger() {
+		return ledger;
+	}
+
+	/**
+	 * Sets the ledger that receives one record per file. Null disables it.
+	 * @param ledger OutcomeLedger
+	 */
+	public void setLedger(OutcomeLedger ledger) {
+		this.ledger = ledger;
+	}
+}
@@ -0,0 +1,414 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.image.JpegBudget.Encoding;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
+import com.horvath.aar.io.MirrorTree;
+import com.horvath.aar.pack.CoverPackWriter;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.walk.Governor;
+import com.horvath.aar.walk.Watchdog;
+
+/**
+ * Extracts the album art of one MP3 file and writes it next to the file.
+ * Problems with the file are reported through the outcome rather than as exceptions,
+ * so folder and batch runs can carry on with the next file.
+ * @author jhorvath
+ */
+public class ExtractArtCmd extends AarCommand {
+
+	private File mp3File;
+	private Durability durability = Durability.NONE;
+	private GroupCommit groupCommit = null;
+	private Watchdog watchdog = null;
+	private Governor governor = null;
+	private JpegBudget budget = null;
+	private CoverPackWriter pack = null;
+	private File outputFolder = null;
+	private MirrorTree outputTree = null;
+	private String outputPath = null;
+	private String packKey = null;
+
+	private BooleanSupplier claim = null;
+
+	private Outcome outcome = null;
+	private BufferedImage parsed = null;
+	private String detail = "";
+	private long millis = 0;
+	private Encoding encoding = null;
+
+	public static final String DETAIL_TIMED_OUT = "Abandoned after ";
+	public static final String DETAIL_NOT_CLAIMED = "Art was parsed, but the cover was claimed by another track.";
+
+	/**
+	 * Constructor.
+	 * @param mp3File File
+	 */
+	public ExtractArtCmd(File mp3File) {
+		this.mp3File = mp3File;
+	}
+
+	@Override
+	public void perform() throws AarException {
+		final long start = System.nanoTime();
+
+		success = false;
+		outcome = null;
+		detail = "";
+		parsed = null;
+		encoding = null;
+
+		if (watchdog == null) {
+			finish(extract(() -> false));
+
+		} else {
+			final AtomicBoolean abandoned = new AtomicBoolean();
+			// the watched thread also gives up on its own once the deadline has passed, before the caller notices 
+			final BooleanSupplier late = () -> abandoned.get() || Watchdog.isOverdue();
+
+			try {
+				finish(watchdog.call(() -> extract(late)));
+
+			} catch (TimeoutException ex) {
+				// a late finish must not write a cover after the run has moved on
+				abandoned.set(true);
+				Debugger.printLog(Level.WARNING, this.getClass().getName(), "Timed out: %s", mp3File);
+				outcome = Outcome.TIMED_OUT;
+				detail = DETAIL_TIMED_OUT + watchdog.getTimeoutMillis() + " ms";
+
+			} catch (InterruptedException ex) {
+				abandoned.set(true);
+				Thread.currentThread().interrupt();
+				throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+
+			} catch (ExecutionException ex) {
+				throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+			}
+		}
+
+		if (parsed != null) {
+			// waiting for the claim is not held against the deadline 
+			BufferedImage image = parsed;
+			parsed = null;
+			if (claim.getAsBoolean()) {
+				finish(store(image, () -> false));
+			} else {
+				outcome = Outcome.SKIPPED;
+				detail = DETAIL_NOT_CLAIMED;
+			}
+		}
+
+		millis = (System.nanoTime() - start) / 1_000_000;
+		message = detail;
+		success = true;
+	}
+
+	/**
+	 * Parses the art and writes the cover. Runs on the calling thread or, with a watchdog, on a watched thread, 
+	 * so the result is returned instead of being stored in the command. 
+	 * With a claim, the cover is only parsed and handed back for the caller to write once the claim is granted. 
+	 * @param abandoned BooleanSupplier true once the caller has given up on this attempt 
+	 * @return Attempt 
+	 */
+	private Attempt extract(BooleanSupplier abandoned) {
+		ParseAlbumArtCmd parseArtCmd = new ParseAlbumArtCmd(mp3File);
+		parseArtCmd.setGovernor(governor);
+
+		try {
+			parseArtCmd.perform();
+
+		} catch (AarException ex) {
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), "Error: %s", ex.getMessage());
+			return new Attempt(parseArtCmd.getOutcome() == null ? Outcome.IO_ERROR : parseArtCmd.getOutcome(), ex.getMessage());
+		}
+
+		if (parseArtCmd.getOutcome() != null) {
+			return new Attempt(parseArtCmd.getOutcome(), "");
+		}
+		if (abandoned.getAsBoolean()) {
+			return new Attempt(Outcome.TIMED_OUT, "");
+		}
+		if (claim != null) {
+			return new Attempt(parseArtCmd.getBufferedImage());
+		}
+		return store(parseArtCmd.getBufferedImage(), abandoned);
+	}
+
+	/**
+	 * Writes a parsed cover to the pack, the output tree, the output folder or next to the file. 
+	 * Encoding can take a while, so the attempt is checked again right before the cover is put in place. 
+	 * @param image BufferedImage 
+	 * @param abandoned BooleanSupplier true once the caller has given up on this attempt 
+	 * @return Attempt 
+	 */
+	private Attempt store(BufferedImage image, BooleanSupplier abandoned) {
+		if (pack != null) {
+			try {
+				Encoding encoded = WriteBufferedImageCmd.encodeJpeg(image, governor, budget);
+				if (abandoned.getAsBoolean()) {
+					return new Attempt(Outcome.TIMED_OUT, "");
+				}
+				pack.put(packKey, encoded.getBytes());
+				return new Attempt(Outcome.ART_WRITTEN, "", encoded);
+
+			} catch (IOException | AarException ex) {
+				return new Attempt(Outcome.IO_ERROR, ex.getMessage());
+			}
+		}
+
+		try {
+			File folder = outputTree != null ? outputTree.folderFor(outputPath)
+					: outputFolder != null ? outputFolder : mp3File.getParentFile();
+			WriteBufferedImageCmd writeCmd = new WriteBufferedImageCmd(folder, image);
+			writeCmd.setDurability(durability);
+			writeCmd.setGroupCommit(groupCommit);
+			writeCmd.setGovernor(governor);
+			writeCmd.setBudget(budget);
+			writeCmd.setAbandoned(abandoned);
+
+			writeCmd.perform();
+			if (!writeCmd.isSuccess() && abandoned.getAsBoolean()) {
+				return new Attempt(Outcome.TIMED_OUT, "");
+			}
+			return new Attempt(writeCmd.isSuccess() ? Outcome.ART_WRITTEN : Outcome.IO_ERROR, "", writeCmd.getEncoding());
+
+		} catch (AarException ex) {
+			return new Attempt(Outcome.IO_ERROR, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Stores the result of an attempt. 
+	 * @param attempt Attempt 
+	 */
+	private void finish(Attempt attempt) {
+		outcome = attempt.outcome;
+		detail = attempt.detail;
+		parsed = attempt.image;
+		encoding = attempt.encoding;
+	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets how the written cover is made durable.
+	 * @param durability Durability
+	 */
+	public void setDurability(Durability durability) {
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	public GroupCommit getGroupCommit() {
+		return groupCommit;
+	}
+
+	/**
+	 * Sets the group commit that collects the write when the durability is group commit.
+	 * @param groupCommit GroupCommit
+	 */
+	public void setGroupCommit(GroupCommit groupCommit) {
+		this.groupCommit = groupCommit;
+	}
+
+	public Watchdog getWatchdog() {
+		return watchdog;
+	}
+
+	/**
+	 * Sets the watchdog that enforces the per-file deadline. Null runs without a deadline.
+	 * @param watchdog Watchdog
+	 */
+	public void setWatchdog(Watchdog watchdog) {
+		this.watchdog = watchdog;
+	}
+
+	public Governor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * Sets the governor that paces reading and encoding. Null runs at full speed.
+	 * @param governor Governor
+	 */
+	public void setGovernor(Governor governor) {
+		this.governor = governor;
+	}
+
+	public JpegBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the largest size the cover may have. Null encodes at the default quality.
+	 * @param budget JpegBudget
+	 */
+	public void setBudget(JpegBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Returns the quality, size and dimensions the cover was written with.
+	 * @return Encoding, null if no cover was written
+	 */
+	public Encoding getEncoding() {
+		return encoding;
+	}
+
+	public File getOutputFolder() {
+		return outputFolder;
+	}
+
+	/**
+	 * Sets the folder the cover is written to. Null writes it next to the file.
+	 * @param outputFolder File
+	 */
+	public void setOutputFolder(File outputFolder) {
+		this.outputFolder = outputFolder;
+	}
+
+	public BooleanSupplier getClaim() {
+		return claim;
+	}
+
+	/**
+	 * Sets a claim asked once art was parsed, before the cover is written. The cover is only written if it grants it, 
+	 * so several tracks of an album can be parsed at once while one writes the cover. 
+	 * Waiting on the claim does not count against the watchdog's deadline. Null writes without asking.
+	 * @param claim BooleanSupplier
+	 */
+	public void setClaim(BooleanSupplier claim) {
+		this.claim = claim;
+	}
+
+	public MirrorTree getOutputTree() {
+		return outputTree;
+	}
+
+	/**
+	 * Writes the cover into a mirrored output tree, creating the folder only once there is a cover to write.
+	 * Takes precedence over the output folder. A null tree writes to the output folder.
+	 * @param outputTree MirrorTree
+	 * @param outputPath String of the source folder the cover belongs to, relative to the mirrored root
+	 */
+	public void setOutputTree(MirrorTree outputTree, String outputPath) {
+		this.outputTree = outputTree;
+		this.outputPath = outputPath;
+	}
+
+	/**
+	 * Sends the cover of an album folder where a folder run puts it: into the pack if one is given, else into the 
+	 * folder's mirror in the output tree if one is given, else into the album folder itself. 
+	 * @param rootFolder File the album path is relative to
+	 * @param albumPath String of the album folder, empty for the root folder
+	 * @param pack CoverPackWriter, may be null
+	 * @param mirror MirrorTree, may be null
+	 */
+	public void setAlbumTarget(File rootFolder, String albumPath, CoverPackWriter pack, MirrorTree mirror) {
+		if (pack != null) {
+			setPack(pack, albumPath.isEmpty() ? ParseFolderCmd.ROOT_PACK_KEY : albumPath);
+		} else if (mirror != null) {
+			setOutputTree(mirror, albumPath);
+		} else {
+			setOutputFolder(new File(rootFolder, albumPath));
+		}
+	}
+
+	public CoverPackWriter getPack() {
+		return pack;
+	}
+
+	/**
+	 * Stores the cover in a pack under the given album path instead of writing it next to the file.
+	 * A null pack writes next to the file.
+	 * @param pack CoverPackWriter
+	 * @param packKey String album path
+	 */
+	public void setPack(CoverPackWriter pack, String packKey) {
+		this.pack = pack;
+		this.packKey = packKey;
+	}
+
+	public File getMp3File() {
+		return mp3File;
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	public String getDetail() {
+		return detail;
+	}
+
+	public long getMillis() {
+		return millis;
+	}
+
+	/**
+	 * Outcome and detail of one extraction attempt.
+	 */
+	private static final class Attempt {
+		final Outcome outcome;
+		final String detail;
+		/** A parsed cover waiting for its claim, null once the attempt is over. */
+		final BufferedImage image;
+		/** How a written cover was encoded, null if none was written. */
+		final Encoding encoding;
+
+		Attempt(Outcome outcome, String detail) {
+			this(outcome, detail, null);
+		}
+
+		Attempt(Outcome outcome, String detail, Encoding encoding) {
+			this.outcome = outcome;
+			this.detail = detail;
+			this.image = null;
+			this.encoding = encoding;
+		}
+
+		Attempt(BufferedImage image) {
+			this.outcome = null;
+			this.detail = "";
+			this.image = image;
+			this.encoding = null;
+		}
+	}
+}
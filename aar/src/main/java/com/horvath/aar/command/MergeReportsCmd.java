@@ -0,0 +1,169 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.util.List;
+import java.util.TreeSet;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.report.RunReport;
+import com.horvath.aar.report.RunReport.AlbumStatus;
+
+/**
+ * Combines the run reports written by several shard processes into one summary report.
+ * @author jhorvath
+ */
+public class MergeReportsCmd extends AarCommand {
+
+	private List<File> reportFiles;
+	private File outputFile;
+
+	private RunReport mergedReport = null;
+
+	public static final String ERROR_NO_REPORTS = "At least one report must be given.";
+	public static final String ERROR_REPORT_DOES_NOT_EXIST = "The report was not found: ";
+	public static final String ERROR_NULL_OUTPUT = "The output file cannot be null";
+
+	public static final String MESSAGE_MISSING_SHARDS = "Not all shards were merged. Present: ";
+
+	/**
+	 * Constructor.
+	 * @param reportFiles List of File
+	 * @param outputFile File
+	 */
+	public MergeReportsCmd(List<File> reportFiles, File outputFile) {
+		this.reportFiles = reportFiles;
+		this.outputFile = outputFile;
+	}
+
+	@Override
+	public void perform() throws AarException {
+		Debugger.printLog("Merge shard reports", this.getClass().getName());
+
+		success = false;
+
+		validate();
+
+		mergedReport = new RunReport();
+		TreeSet<String> shards = new TreeSet<>();
+
+		for (File file : reportFiles) {
+			RunReport report = RunReport.read(file);
+			mergedReport.merge(report);
+			shards.add(report.getShard());
+		}
+
+		mergedReport.setShard("merged " + String.join(",", shards));
+		mergedReport.write(outputFile);
+
+		message = "Merged " + reportFiles.size() + " reports: "
+				+ mergedReport.count(AlbumStatus.WRITTEN) + " albums written, "
+				+ mergedReport.count(AlbumStatus.NO_ART) + " albums without art.";
+
+		if (!isComplete(shards)) {
+			message += " " + MESSAGE_MISSING_SHARDS + shards;
+		}
+
+		success = true;
+	}
+
+	/**
+	 * Returns true if the merged shards are exactly 1/N through N/N for a single N.
+	 * @param shards TreeSet of String
+	 * @return boolean
+	 */
+	private boolean isComplete(TreeSet<String> shards) {
+		int count = -1;
+		boolean[] seen = null;
+
+		for (String shard : shards) {
+			final int slash = shard.indexOf('/');
+			if (slash < 1) {
+				return false;
+			}
+
+			try {
+				int index = Integer.parseInt(shard.substring(0, slash));
+				int total = Integer.parseInt(shard.substring(slash + 1));
+
+				if (count < 0) {
+					count = total;
+					seen = new boolean[count];
+				} else if (count != total) {
+					return false;
+				}
+
+				if (index < 1 || index > count) {
+					return false;
+				}
+				seen[index - 1] = true;
+
+			} catch (NumberFormatException ex) {
+				return false;
+			}
+		}
+
+		if (seen == null) {
+			return false;
+		}
+		for (boolean value : seen) {
+			if (!value) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Validates the constructor inputs.
+	 * @throws AarException
+	 */
+	private void validate() throws AarException {
+
+		if (reportFiles == null || reportFiles.isEmpty()) {
+			throw new AarException(ERROR_NO_REPORTS);
+		}
+
+		for (File file : reportFiles) {
+			if (file == null || !file.isFile()) {
+				throw new AarException(ERROR_REPORT_DOES_NOT_EXIST + file);
+			}
+		}
+
+		if (outputFile == null) {
+			throw new AarException(ERROR_NULL_OUTPUT);
+		}
+	}
+
+	public RunReport getMergedReport() {
+		return mergedReport;
+	}
+
+	public File getOutputFile() {
+		return outputFile;
+	}
+}
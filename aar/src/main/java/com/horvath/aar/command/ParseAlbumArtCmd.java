@@ -25,11 +25,19 @@
 package com.horvath.aar.command;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.logging.Level;
 
+import javax.imageio.ImageIO;
+
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
@@ -41,6 +49,17 @@ import org.jaudiotagger.tag.datatype.Artwork;
 
 import com.horvath.aar.application.Debugger;
 import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.ByteBufferChannel;
+import com.horvath.aar.io.CountingChannel;
+import com.horvath.aar.jfr.DecodeEvent;
+import com.horvath.aar.jfr.StageEvents;
+import com.horvath.aar.jfr.TagReadEvent;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.tag.CoverSelector;
+import com.horvath.aar.tag.Id3PictureScanner;
+import com.horvath.aar.tag.Id3PictureScanner.OversizedTagException;
+import com.horvath.aar.tag.PictureFrame;
+import com.horvath.aar.walk.Governor;
 
 /**
  * Command for parsing album artwork from audio file. 
@@ -50,14 +69,29 @@ import com.horvath.aar.exception.AarException;
 public class ParseAlbumArtCmd extends AarCommand {
 	
 	private File file;
+	private ByteBuffer buffer = null;
+	private InputStream stream = null;
+	private String sourceName = null;
 	
 	private BufferedImage bufferedImage = null;
+	private Outcome outcome = null;
+	private int pictureType = -1;
+	private Governor governor = null;
 	
 	public static final String ERROR_NULL_FILE = "The file cannot be null";
 	public static final String ERROR_FILE_DOES_NOT_EXIST = "The file was not found.";
+	public static final String ERROR_NULL_SOURCE = "The audio data cannot be null";
 	
 	public static final String MESSAGE_ARTWORK_PARSED = "Art was found and retrieved from file.";
 	public static final String MESSAGE_NO_ARTWORK_FOUND = "The audiofile did not contain album artwork.";
+	public static final String MESSAGE_UNSUPPORTED_IMAGE = "The album artwork is in an image format that cannot be read.";
+	
+	private static final String READER_SCANNER = "scanner";
+	private static final String READER_JAUDIOTAGGER = "jaudiotagger";
+	
+	public static final String SOURCE_BYTES = "<byte[]>";
+	public static final String SOURCE_BUFFER = "<ByteBuffer>";
+	public static final String SOURCE_STREAM = "<InputStream>";
 	
 	/**
 	 * Constructor. 
@@ -66,12 +100,61 @@ public class ParseAlbumArtCmd extends AarCommand {
 	public ParseAlbumArtCmd(File file) {
 		this.file = file;
 	}
+	
+	/**
+	 * Creates a command parsing the art of an audio file held in memory. 
+	 * @param bytes byte[] of the file, or at least of its ID3v2 tag 
+	 * @return ParseAlbumArtCmd 
+	 */
+	public static ParseAlbumArtCmd fromBytes(byte[] bytes) {
+		return fromMemory(bytes == null ? null : ByteBuffer.wrap(bytes), null, SOURCE_BYTES);
+	}
+	
+	/**
+	 * Creates a command parsing the art of an audio file in a buffer, such as a mapped file. 
+	 * The file is read from the buffer's position to its limit, and the buffer itself is left unchanged. 
+	 * @param buffer ByteBuffer 
+	 * @return ParseAlbumArtCmd 
+	 */
+	public static ParseAlbumArtCmd fromBuffer(ByteBuffer buffer) {
+		return fromMemory(buffer, null, SOURCE_BUFFER);
+	}
+	
+	/**
+	 * Creates a command parsing the art of an audio file read from a stream. 
+	 * Only the ID3v2 tag at the start of the stream is read, and the stream is left open after it. 
+	 * @param stream InputStream 
+	 * @return ParseAlbumArtCmd 
+	 */
+	public static ParseAlbumArtCmd fromStream(InputStream stream) {
+		return fromMemory(null, stream, SOURCE_STREAM);
+	}
+	
+	private static ParseAlbumArtCmd fromMemory(ByteBuffer buffer, InputStream stream, String sourceName) {
+		ParseAlbumArtCmd cmd = new ParseAlbumArtCmd(null);
+		cmd.buffer = buffer;
+		cmd.stream = stream;
+		cmd.sourceName = sourceName;
+		return cmd;
+	}
 
 	@Override
 	public void perform() throws AarException {
 		Debugger.printLog("Parse art from audio file", this.getClass().getName());
 		
 		this.success = false;
+		this.outcome = null;
+		this.bufferedImage = null;
+		this.pictureType = -1;
+		
+		if (sourceName != null) {
+			if (buffer == null && stream == null) {
+				throw new AarException(ERROR_NULL_SOURCE);
+			}
+			processMemoryImage();
+			this.success = true;
+			return;
+		}
 		
 		if (file == null) {
 			throw new AarException(ERROR_NULL_FILE);
@@ -86,41 +169,280 @@ public class ParseAlbumArtCmd extends AarCommand {
 	
 	/**
 	 * Performs image extraction from audio file. 
+	 * Files with an ID3v2 tag holding pictures are read from the tag directly; everything else goes through jaudiotagger. 
+	 * The file counts as one open with the governor, however many readers it goes through. 
 	 * @throws AarException
 	 */
 	private void processImage() throws AarException {
+		if (governor != null) {
+			governor.acquireFile();
+		}
+		
+		if (processTaggedImage()) {
+			return;
+		}
+		
+		TagReadEvent readEvent = StageEvents.beginTagRead();
+		
 		try {
 			AudioFile audioFile = AudioFileIO.read(file);
+			// jaudiotagger does not say how much it read, so the whole file is charged 
+			chargeRead(file.length());
 
 			Tag tag = audioFile.getTag();
 
-			List<Artwork> existingArtworkList = tag.getArtworkList();
+			List<Artwork> existingArtworkList = tag == null ? null : tag.getArtworkList();
 
-			if (existingArtworkList.isEmpty()) {
+			if (existingArtworkList == null || existingArtworkList.isEmpty()) {
+				commit(readEvent, READER_JAUDIOTAGGER, 0);
 				message = MESSAGE_NO_ARTWORK_FOUND;
+				outcome = Outcome.NO_ART;
 
 			} else {
-				Artwork art = existingArtworkList.get(0);
-				bufferedImage = art.getImage();
-
-				message = MESSAGE_ARTWORK_PARSED;
+				Artwork art = CoverSelector.select(existingArtworkList, Artwork::getPictureType, 
+						artwork -> artwork.getBinaryData() == null ? 0 : artwork.getBinaryData().length);
+				pictureType = art.getPictureType();
+				final int length = art.getBinaryData() == null ? 0 : art.getBinaryData().length;
+				commit(readEvent, READER_JAUDIOTAGGER, length);
+				
+				DecodeEvent decodeEvent = StageEvents.beginDecode();
+				decodeImage(art.getImage());
+				commit(decodeEvent, length);
 			}
 
 		} catch (CannotReadException | IOException | TagException | ReadOnlyFileException
 				| InvalidAudioFrameException ex) {
-			final String message = "Unexpected Exception: " + ex.getMessage();
-			Debugger.printLog(message, this.getClass().getName(), Level.SEVERE);
-			this.message = message;
-			throw new AarException(message, ex);
+			fail(classify(ex), ex);
+		}
+	}
+	
+	/**
+	 * Reads the cover from the ID3v2 tag of the file. 
+	 * Returns false, without changing any state, when the file has no tag with pictures 
+	 * or the tag cannot be scanned, so the caller can fall back to jaudiotagger. 
+	 * @return boolean true if the tag was handled 
+	 */
+	private boolean processTaggedImage() {
+		TagReadEvent readEvent = StageEvents.beginTagRead();
+		
+		try (CountingChannel channel = new CountingChannel(FileChannel.open(file.toPath(), StandardOpenOption.READ))) {
+			try {
+				// without pictures, jaudiotagger reads the tag again and records its own event 
+				return readCover(channel, readEvent);
+			} finally {
+				chargeRead(channel.getBytesRead());
+			}
+			
+		} catch (IOException ex) {
+			Debugger.printLog(Level.INFO, this.getClass().getName(), "Tag scan failed, using jaudiotagger: %s", ex.getMessage());
+			return false;
+		}
+	}
+	
+	/**
+	 * Extracts the cover of an audio file held in memory, reading no more of a stream than its ID3v2 tag. 
+	 * Only ID3v2 tags are understood, since there is no file for jaudiotagger to fall back on. 
+	 * @throws AarException if the stream cannot be read or the tag is corrupt 
+	 */
+	private void processMemoryImage() throws AarException {
+		TagReadEvent readEvent = StageEvents.beginTagRead();
+		
+		ByteBuffer data = buffer;
+		if (stream != null) {
+			try {
+				byte[] tag = Id3PictureScanner.readTag(stream);
+				chargeRead(tag == null ? Id3PictureScanner.HEADER_SIZE : tag.length);
+				data = tag == null ? null : ByteBuffer.wrap(tag);
+				
+			} catch (OversizedTagException ex) {
+				fail(Outcome.CORRUPT_TAG, ex);
+			} catch (IOException ex) {
+				fail(Outcome.IO_ERROR, ex);
+			}
+		}
+		
+		try (CountingChannel channel = data == null ? null : new CountingChannel(new ByteBufferChannel(data))) {
+			if (channel == null || !readCover(channel, readEvent)) {
+				commit(readEvent, READER_SCANNER, 0);
+				message = MESSAGE_NO_ARTWORK_FOUND;
+				outcome = Outcome.NO_ART;
+			}
+			if (channel != null && buffer != null) {
+				// a stream was charged as it was read 
+				chargeRead(channel.getBytesRead());
+			}
+			
+		} catch (IOException ex) {
+			fail(Outcome.CORRUPT_TAG, ex);
+		}
+	}
+	
+	/**
+	 * Reads the picture frame headers of an ID3v2 tag, selects the cover and decodes only that picture. 
+	 * @param channel SeekableByteChannel positioned at the start of the audio file 
+	 * @param readEvent TagReadEvent begun before the tag was opened 
+	 * @return boolean false, without changing any state, if the tag holds no pictures 
+	 * @throws IOException if the tag cannot be scanned 
+	 */
+	private boolean readCover(SeekableByteChannel channel, TagReadEvent readEvent) throws IOException {
+		PictureFrame frame = CoverSelector.select(Id3PictureScanner.scan(channel));
+		if (frame == null) {
+			return false;
+		}
+		
+		byte[] payload = Id3PictureScanner.readPayload(channel, frame);
+		pictureType = frame.getPictureType();
+		commit(readEvent, READER_SCANNER, payload.length);
+		
+		DecodeEvent decodeEvent = StageEvents.beginDecode();
+		decodeImage(ImageIO.read(new ByteArrayInputStream(payload)));
+		commit(decodeEvent, payload.length);
+		return true;
+	}
+	
+	/**
+	 * Records a failure and raises it. 
+	 * @param failure Outcome 
+	 * @param ex Exception 
+	 * @throws AarException always 
+	 */
+	private void fail(Outcome failure, Exception ex) throws AarException {
+		outcome = failure;
+		final String message = "Unexpected Exception: " + ex.getMessage();
+		Debugger.printLog(message, this.getClass().getName(), Level.SEVERE);
+		this.message = message;
+		throw new AarException(message, ex);
+	}
+	
+	/**
+	 * Stores the decoded cover, or records that no image reader understood it. 
+	 * @param image BufferedImage, null if the image could not be decoded 
+	 */
+	private void decodeImage(BufferedImage image) {
+		bufferedImage = image;
+		
+		if (bufferedImage == null) {
+			// no ImageIO reader understands the embedded image
+			message = MESSAGE_UNSUPPORTED_IMAGE;
+			outcome = Outcome.UNSUPPORTED_FORMAT;
+		} else {
+			message = MESSAGE_ARTWORK_PARSED;
+		}
+	}
+	
+	/**
+	 * Charges bytes read to the governor, if there is one. 
+	 * @param bytes long 
+	 */
+	private void chargeRead(long bytes) {
+		if (governor != null) {
+			governor.chargeRead(bytes);
+		}
+	}
+	
+	/**
+	 * Commits a tag read event. The fields are only filled in while the event is being recorded. 
+	 * @param event TagReadEvent, null without the flight recorder API 
+	 * @param reader String 
+	 * @param bytes long of the selected picture 
+	 */
+	private void commit(TagReadEvent event, String reader, long bytes) {
+		if (event == null) {
+			return;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = getSourceName();
+			event.reader = reader;
+			event.bytes = bytes;
+			event.pictureType = pictureType;
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Commits a decode event with the dimensions of the decoded cover. 
+	 * @param event DecodeEvent, null without the flight recorder API 
+	 * @param bytes long of the encoded picture 
+	 */
+	private void commit(DecodeEvent event, long bytes) {
+		if (event == null) {
+			return;
+		}
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = getSourceName();
+			event.bytes = bytes;
+			if (bufferedImage != null) {
+				event.width = bufferedImage.getWidth();
+				event.height = bufferedImage.getHeight();
+			}
+			event.commit();
 		}
 	}
 	
+	/**
+	 * Maps a jaudiotagger failure to a typed outcome. 
+	 * @param ex Exception 
+	 * @return Outcome 
+	 */
+	private static Outcome classify(Exception ex) {
+		if (ex instanceof CannotReadException) {
+			return Outcome.UNSUPPORTED_FORMAT;
+		}
+		if (ex instanceof TagException || ex instanceof InvalidAudioFrameException) {
+			return Outcome.CORRUPT_TAG;
+		}
+		return Outcome.IO_ERROR;
+	}
+	
+	/**
+	 * Returns the folder of the audio file, or null for audio held in memory. 
+	 * @return File 
+	 */
 	public File getParentDirectory() {
-		return this.file.getParentFile();
+		return this.file == null ? null : this.file.getParentFile();
+	}
+
+	/**
+	 * Returns the path of the audio file, or a name for the kind of memory source such as {@value #SOURCE_STREAM}. 
+	 * @return String 
+	 */
+	public String getSourceName() {
+		return sourceName != null ? sourceName : file == null ? null : file.getPath();
 	}
 
 	public BufferedImage getBufferedImage() {
 		return bufferedImage;
 	}
 
+	/**
+	 * Returns the typed outcome of the last perform: NO_ART, UNSUPPORTED_FORMAT, CORRUPT_TAG or IO_ERROR, 
+	 * or null when art was parsed and is ready to be written. 
+	 * @return Outcome 
+	 */
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	/**
+	 * Returns the ID3 picture type of the selected cover, or -1 if no picture was selected. 
+	 * @return int 
+	 */
+	public int getPictureType() {
+		return pictureType;
+	}
+
+	public Governor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * Sets the governor that paces file opens and bytes read. Null reads at full speed. 
+	 * @param governor Governor 
+	 */
+	public void setGovernor(Governor governor) {
+		this.governor = governor;
+	}
+
 }
@@ -0,0 +1,457 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import javax.imageio.ImageIO;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.image.JpegBudget.Encoding;
+import com.horvath.aar.io.ByteBufferChannel;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
+import com.horvath.aar.pack.CoverPackWriter;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.report.OutcomeLedger;
+import com.horvath.aar.report.RunReport.AlbumStatus;
+import com.horvath.aar.tag.CoverSelector;
+import com.horvath.aar.tag.Id3PictureScanner;
+import com.horvath.aar.tag.PictureFrame;
+import com.horvath.aar.walk.Governor;
+
+/**
+ * Extracts album art from a ZIP archive without unpacking it. Every folder inside the archive that holds
+ * MP3 entries is an album folder; of each entry only the ID3v2 tag is inflated, never the audio data.
+ * Covers are written below an output folder that stands in for the archive, one per album folder.
+ * @author jhorvath
+ */
+public class ParseArchiveCmd extends AarCommand {
+
+	private File archive;
+	private File outputFolder;
+	private Durability durability = Durability.NONE;
+	private GroupCommit groupCommit = null;
+	private OutcomeLedger ledger = null;
+	private CoverPackWriter pack = null;
+	private String packPrefix = "";
+	private Governor governor = null;
+	private JpegBudget budget = null;
+
+	private final Map<String, AlbumStatus> albums = new TreeMap<>();
+	private final Map<String, Encoding> encodings = new TreeMap<>();
+
+	public static final String ARCHIVE_EXTENSION = ".zip";
+	public static final String ENTRY_SEPARATOR = "!/";
+
+	public static final String ERROR_NULL_FILE = "The archive cannot be null";
+	public static final String ERROR_FILE_DOES_NOT_EXIST = "The archive was not found.";
+	public static final String ERROR_NULL_OUTPUT = "The output folder cannot be null";
+
+	public static final String DETAIL_NO_TAG = "The entry has no ID3v2 tag.";
+	public static final String DETAIL_NO_PICTURE = "The tag holds no picture.";
+	public static final String DETAIL_UNSAFE_PATH = "The entry path leads outside the archive.";
+	public static final String DETAIL_ARCHIVE_UNREADABLE = "The archive could not be read: ";
+
+	/**
+	 * Constructor.
+	 * @param archive File ZIP archive
+	 * @param outputFolder File folder that receives the covers, mirroring the folders inside the archive
+	 */
+	public ParseArchiveCmd(File archive, File outputFolder) {
+		this.archive = archive;
+		this.outputFolder = outputFolder;
+	}
+
+	/**
+	 * Returns the folder that stands in for an archive when covers are written next to it:
+	 * the archive's name without its extension, in the archive's folder.
+	 * @param archive File
+	 * @return File
+	 */
+	public static File defaultOutputFolder(File archive) {
+		final String name = archive.getName();
+		final int dot = name.toLowerCase().endsWith(ARCHIVE_EXTENSION) ? name.length() - ARCHIVE_EXTENSION.length() : name.length();
+		return new File(archive.getParentFile(), name.substring(0, dot));
+	}
+
+	/**
+	 * Checks if a file is a ZIP archive by its name.
+	 * @param file File
+	 * @return boolean
+	 */
+	public static boolean isArchive(File file) {
+		return file.getName().toLowerCase().endsWith(ARCHIVE_EXTENSION) && file.isFile();
+	}
+
+	@Override
+	public void perform() throws AarException {
+		Debugger.printLog("Parse art from archive", this.getClass().getName());
+
+		success = false;
+		albums.clear();
+		encodings.clear();
+
+		validate();
+
+		Map<String, List<ZipEntry>> folders;
+
+		if (governor != null) {
+			// the archive is opened once for all of its entries 
+			governor.acquireFile();
+		}
+
+		try (ZipFile zip = new ZipFile(archive)) {
+			folders = albumFolders(zip);
+
+			for (Map.Entry<String, List<ZipEntry>> folder : folders.entrySet()) {
+				processAlbum(zip, folder.getKey(), folder.getValue());
+			}
+
+		} catch (IOException | IllegalArgumentException ex) {
+			// not a ZIP file, or entry names that are not valid in the archive's encoding
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), "Error: %s", ex.getMessage());
+			message = DETAIL_ARCHIVE_UNREADABLE + ex.getMessage();
+			record(archive.getPath(), Outcome.IO_ERROR, message, 0);
+			return;
+		}
+
+		message = "Parsed " + albums.size() + " album folders from the archive.";
+		success = true;
+	}
+
+	/**
+	 * Groups the MP3 entries of the archive by the folder that holds them, in name order.
+	 * @param zip ZipFile
+	 * @return Map of folder path inside the archive to its MP3 entries
+	 */
+	private Map<String, List<ZipEntry>> albumFolders(ZipFile zip) {
+		Map<String, List<ZipEntry>> folders = new TreeMap<>();
+
+		Enumeration<? extends ZipEntry> entries = zip.entries();
+		while (entries.hasMoreElements()) {
+			ZipEntry entry = entries.nextElement();
+			final String name = entryName(entry);
+
+			if (entry.isDirectory() || !name.toLowerCase().endsWith(".mp3")) {
+				continue;
+			}
+
+			final int slash = name.lastIndexOf('/');
+			final String folder = slash < 0 ? "" : name.substring(0, slash);
+			folders.computeIfAbsent(folder, key -> new ArrayList<>()).add(entry);
+		}
+
+		for (List<ZipEntry> folderEntries : folders.values()) {
+			Collections.sort(folderEntries, (a, b) -> entryName(a).compareTo(entryName(b)));
+		}
+		return folders;
+	}
+
+	/**
+	 * Extracts the art of the first entry of an album folder that has some and skips the remaining entries.
+	 * @param zip ZipFile
+	 * @param folder String path of the album folder inside the archive
+	 * @param entries List of ZipEntry
+	 * @throws AarException if the ledger cannot be written
+	 */
+	private void processAlbum(ZipFile zip, String folder, List<ZipEntry> entries) throws AarException {
+		boolean keepLooking = true;
+
+		for (ZipEntry entry : entries) {
+			final String path = archive.getPath() + ENTRY_SEPARATOR + entry.getName();
+
+			if (!keepLooking) {
+				record(path, Outcome.SKIPPED, ParseFolderCmd.DETAIL_ART_ALREADY_FOUND, 0);
+				continue;
+			}
+
+			final long start = System.nanoTime();
+			Attempt attempt = extractEntry(zip, entry, folder);
+			record(path, attempt.outcome, attempt.detail, (System.nanoTime() - start) / 1_000_000);
+
+			keepLooking = attempt.outcome != Outcome.ART_WRITTEN;
+			if (!keepLooking && attempt.encoding != null) {
+				encodings.put(folder, attempt.encoding);
+			}
+		}
+
+		albums.put(folder, keepLooking ? AlbumStatus.NO_ART : AlbumStatus.WRITTEN);
+	}
+
+	/**
+	 * Reads the tag of one entry and writes its cover. Problems with the entry are returned as the outcome.
+	 * @param zip ZipFile
+	 * @param entry ZipEntry
+	 * @param folder String path of the album folder inside the archive
+	 * @return Attempt
+	 */
+	private Attempt extractEntry(ZipFile zip, ZipEntry entry, String folder) {
+
+		try {
+			File target = targetFolder(folder);
+			if (target == null) {
+				return new Attempt(Outcome.IO_ERROR, DETAIL_UNSAFE_PATH);
+			}
+
+			byte[] tag;
+			try (InputStream in = zip.getInputStream(entry)) {
+				// the stream is closed after the tag, so the audio data is never inflated
+				tag = Id3PictureScanner.readTag(in, entry.getSize());
+			}
+			if (governor != null) {
+				governor.chargeRead(tag == null ? Id3PictureScanner.HEADER_SIZE : tag.length);
+			}
+
+			if (tag == null) {
+				return new Attempt(Outcome.NO_ART, DETAIL_NO_TAG);
+			}
+
+			BufferedImage image;
+			try (ByteBufferChannel channel = new ByteBufferChannel(tag)) {
+				PictureFrame frame = CoverSelector.select(Id3PictureScanner.scan(channel));
+				if (frame == null) {
+					return new Attempt(Outcome.NO_ART, DETAIL_NO_PICTURE);
+				}
+				image = ImageIO.read(new ByteArrayInputStream(Id3PictureScanner.readPayload(channel, frame)));
+			}
+
+			if (image == null) {
+				return new Attempt(Outcome.UNSUPPORTED_FORMAT, ParseAlbumArtCmd.MESSAGE_UNSUPPORTED_IMAGE);
+			}
+
+			if (pack != null) {
+				Encoding encoded = WriteBufferedImageCmd.encodeJpeg(image, governor, budget);
+				pack.put(packPrefix + (folder.isEmpty() ? "" : "/" + folder), encoded.getBytes());
+				return new Attempt(Outcome.ART_WRITTEN, "", encoded);
+			}
+
+			target.mkdirs();
+
+			WriteBufferedImageCmd writeCmd = new WriteBufferedImageCmd(target, image);
+			writeCmd.setDurability(durability);
+			writeCmd.setGroupCommit(groupCommit);
+			writeCmd.setGovernor(governor);
+			writeCmd.setBudget(budget);
+			writeCmd.perform();
+
+			return new Attempt(writeCmd.isSuccess() ? Outcome.ART_WRITTEN : Outcome.IO_ERROR, "", writeCmd.getEncoding());
+
+		} catch (IOException | AarException ex) {
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), "Error: %s", ex.getMessage());
+			return new Attempt(Outcome.IO_ERROR, ex.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the output folder of an album folder inside the archive,
+	 * or null if the entry path would lead outside the output folder.
+	 * @param folder String
+	 * @return File
+	 */
+	private File targetFolder(String folder) {
+		Path base = outputFolder.toPath().toAbsolutePath().normalize();
+		Path target = base.resolve(folder).normalize();
+		return target.startsWith(base) ? target.toFile() : null;
+	}
+
+	/**
+	 * Returns the name of an entry with forward slashes.
+	 * @param entry ZipEntry
+	 * @return String
+	 */
+	private static String entryName(ZipEntry entry) {
+		return entry.getName().replace('\\', '/');
+	}
+
+	/**
+	 * Writes a record to the ledger, if one is in use.
+	 * @param path String
+	 * @param outcome Outcome
+	 * @param detail String
+	 * @param millis long
+	 * @throws AarException
+	 */
+	private void record(String path, Outcome outcome, String detail, long millis) throws AarException {
+		if (ledger != null) {
+			ledger.record(path, outcome, detail, millis);
+		}
+	}
+
+	/**
+	 * Validates the constructor inputs.
+	 * @throws AarException
+	 */
+	private void validate() throws AarException {
+
+		if (archive == null) {
+			throw new AarException(ERROR_NULL_FILE);
+		}
+
+		if (!archive.isFile()) {
+			throw new AarException(ERROR_FILE_DOES_NOT_EXIST);
+		}
+
+		if (outputFolder == null) {
+			throw new AarException(ERROR_NULL_OUTPUT);
+		}
+	}
+
+	/**
+	 * Returns the status of every album folder of the last perform, by its path inside the archive.
+	 * The album folder at the top of the archive has an empty path.
+	 * @return Map of String to AlbumStatus
+	 */
+	public Map<String, AlbumStatus> getAlbums() {
+		return Collections.unmodifiableMap(albums);
+	}
+
+	/**
+	 * Returns the quality, size and dimensions each cover was written with, by album folder inside the archive.
+	 * @return Map of String to Encoding
+	 */
+	public Map<String, Encoding> getEncodings() {
+		return Collections.unmodifiableMap(encodings);
+	}
+
+	public File getArchive() {
+		return archive;
+	}
+
+	public File getOutputFolder() {
+		return outputFolder;
+	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets how written covers are made durable.
+	 * @param durability Durability
+	 */
+	public void setDurability(Durability durability) {
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	public GroupCommit getGroupCommit() {
+		return groupCommit;
+	}
+
+	/**
+	 * Sets the group commit that collects the writes when the durability is group commit.
+	 * @param groupCommit GroupCommit
+	 */
+	public void setGroupCommit(GroupCommit groupCommit) {
+		this.groupCommit = groupCommit;
+	}
+
+	public CoverPackWriter getPack() {
+		return pack;
+	}
+
+	/**
+	 * Stores the covers in a pack instead of the output folder. Each album folder is stored under 
+	 * the prefix followed by its path inside the archive. A null pack writes to the output folder.
+	 * @param pack CoverPackWriter
+	 * @param packPrefix String album path standing in for the archive
+	 */
+	public void setPack(CoverPackWriter pack, String packPrefix) {
+		this.pack = pack;
+		this.packPrefix = packPrefix == null ? "" : packPrefix;
+	}
+
+	public Governor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * Sets the governor that paces the archive open, the bytes read from its entries and the encoding of covers.
+	 * Null runs at full speed.
+	 * @param governor Governor
+	 */
+	public void setGovernor(Governor governor) {
+		this.governor = governor;
+	}
+
+	public JpegBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the largest size a cover may have. Null encodes at the default quality.
+	 * @param budget JpegBudget
+	 */
+	public void setBudget(JpegBudget budget) {
+		this.budget = budget;
+	}
+
+	public OutcomeLedger getLedger() {
+		return ledger;
+	}
+
+	/**
+	 * Sets the ledger that receives one record per entry. Null disables it.
+	 * @param ledger OutcomeLedger
+	 */
+	public void setLedger(OutcomeLedger ledger) {
+		this.ledger = ledger;
+	}
+
+	/**
+	 * Outcome and detail of one entry, and the encoding of a written cover.
+	 */
+	private static final class Attempt {
+		final Outcome outcome;
+		final String detail;
+		final Encoding encoding;
+
+		Attempt(Outcome outcome, String detail) {
+			this(outcome, detail, null);
+		}
+
+		Attempt(Outcome outcome, String detail, Encoding encoding) {
+			this.outcome = outcome;
+			this.detail = detail;
+			this.encoding = encoding;
+		}
+	}
+}
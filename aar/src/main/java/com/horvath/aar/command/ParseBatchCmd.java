@@ -0,0 +1,324 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.report.OutcomeLedger;
+import com.horvath.aar.walk.DeviceLimits;
+import com.horvath.aar.walk.DeviceScheduler;
+import com.horvath.aar.walk.Governor;
+import com.horvath.aar.walk.Quarantine;
+import com.horvath.aar.walk.Watchdog;
+
+/**
+ * Extracts album art from a list of MP3 files, such as the tracks of an import.
+ * Files are grouped by folder and every folder gets one cover, taken from the first file that has art.
+ * Folders are processed in parallel with a separate concurrency limit for each device.
+ * @author jhorvath
+ */
+public class ParseBatchCmd extends AarCommand {
+
+	private List<File> mp3Files;
+	private DeviceLimits deviceLimits = new DeviceLimits();
+	private Durability durability = Durability.NONE;
+	private OutcomeLedger ledger = null;
+	private long timeoutMillis = 0;
+	private File quarantineFile = null;
+
+	private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+	private final AtomicReference<AarException> taskError = new AtomicReference<>();
+	private GroupCommit groupCommit = null;
+	private Watchdog watchdog = null;
+	private Governor governor = null;
+	private JpegBudget budget = null;
+	private Quarantine quarantine = null;
+
+	public static final String ERROR_NO_FILES = "At least one MP3 file must be given.";
+
+	public static final String DETAIL_FILE_NOT_FOUND = "The file was not found.";
+
+	/**
+	 * Constructor.
+	 * @param mp3Files List of File
+	 */
+	public ParseBatchCmd(List<File> mp3Files) {
+		this.mp3Files = mp3Files;
+	}
+
+	@Override
+	public void perform() throws AarException {
+		Debugger.printLog("Parse art from a batch of files", this.getClass().getName());
+
+		success = false;
+
+		if (mp3Files == null || mp3Files.isEmpty()) {
+			throw new AarException(ERROR_NO_FILES);
+		}
+
+		counts.clear();
+		taskError.set(null);
+		groupCommit = durability == Durability.GROUP_COMMIT ? new GroupCommit() : null;
+		watchdog = timeoutMillis > 0 ? new Watchdog(timeoutMillis) : null;
+		quarantine = null;
+
+		if (quarantineFile != null) {
+			quarantine = new Quarantine(quarantineFile);
+			quarantine.load();
+		}
+
+		DeviceScheduler scheduler = new DeviceScheduler(deviceLimits);
+
+		try {
+			for (List<File> folderFiles : groupByFolder().values()) {
+				scheduler.submit(folderFiles.get(0), () -> {
+					try {
+						processFolderFiles(folderFiles, scheduler);
+					} catch (AarException ex) {
+						taskError.compareAndSet(null, ex);
+					}
+				});
+			}
+
+			scheduler.awaitCompletion();
+
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+
+		} catch (RuntimeException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+
+		} finally {
+			if (watchdog != null) {
+				watchdog.shutdown();
+			}
+			if (groupCommit != null) {
+				groupCommit.commit();
+			}
+		}
+
+		if (taskError.get() != null) {
+			throw taskError.get();
+		}
+
+		Debugger.printLog("Devices: " + scheduler.getDevices(), this.getClass().getName());
+
+		message = "Processed " + mp3Files.size() + " files: " + getCount(Outcome.ART_WRITTEN) + " covers written.";
+		success = true;
+	}
+
+	/**
+	 * Groups the existing files by their folder, keeping the given order. Missing files are recorded straight away.
+	 * @return Map of folder to files
+	 * @throws AarException
+	 */
+	private Map<File, List<File>> groupByFolder() throws AarException {
+		Map<File, List<File>> folders = new LinkedHashMap<>();
+
+		for (File file : mp3Files) {
+			if (file == null || !file.isFile()) {
+				record(file, Outcome.IO_ERROR, DETAIL_FILE_NOT_FOUND, 0);
+				continue;
+			}
+
+			File folder = file.getAbsoluteFile().getParentFile();
+			List<File> files = folders.get(folder);
+			if (files == null) {
+				files = new ArrayList<>();
+				folders.put(folder, files);
+			}
+			files.add(file);
+		}
+
+		return folders;
+	}
+
+	/**
+	 * Extracts the art of the first file of a folder that has some and skips the remaining files.
+	 * @param files List of File in one folder
+	 * @param scheduler DeviceScheduler running the folder, told how long each file took
+	 * @throws AarException if the ledger cannot be written
+	 */
+	private void processFolderFiles(List<File> files, DeviceScheduler scheduler) throws AarException {
+		boolean keepLooking = true;
+
+		for (File file : files) {
+			if (!keepLooking) {
+				record(file, Outcome.SKIPPED, ParseFolderCmd.DETAIL_ART_ALREADY_FOUND, 0);
+				continue;
+			}
+
+			if (quarantine != null && quarantine.isQuarantined(file)) {
+				record(file, Outcome.SKIPPED, ParseFolderCmd.DETAIL_QUARANTINED, 0);
+				continue;
+			}
+
+			ExtractArtCmd extractCmd = new ExtractArtCmd(file);
+			extractCmd.setDurability(durability);
+			extractCmd.setGroupCommit(groupCommit);
+			extractCmd.setWatchdog(watchdog);
+			extractCmd.setGovernor(governor);
+			extractCmd.setBudget(budget);
+			extractCmd.perform();
+
+			if (extractCmd.getOutcome() == Outcome.TIMED_OUT && quarantine != null) {
+				quarantine.recordTimeout(file);
+			}
+
+			scheduler.fileDone(extractCmd.getMillis());
+			record(file, extractCmd.getOutcome(), extractCmd.getDetail(), extractCmd.getMillis());
+			keepLooking = extractCmd.getOutcome() != Outcome.ART_WRITTEN;
+		}
+	}
+
+	/**
+	 * Counts an outcome and writes it to the ledger, if one is in use.
+	 * @param file File
+	 * @param outcome Outcome
+	 * @param detail String
+	 * @param millis long
+	 * @throws AarException
+	 */
+	private void record(File file, Outcome outcome, String detail, long millis) throws AarException {
+		synchronized (counts) {
+			counts.merge(outcome, 1, Integer::sum);
+		}
+		if (ledger != null) {
+			ledger.record(String.valueOf(file), outcome, detail, millis);
+		}
+	}
+
+	/**
+	 * Returns the number of files with the given outcome.
+	 * @param outcome Outcome
+	 * @return int
+	 */
+	public int getCount(Outcome outcome) {
+		synchronized (counts) {
+			return counts.getOrDefault(outcome, 0);
+		}
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * Sets the deadline for each file. Zero runs without a deadline.
+	 * @param timeoutMillis long
+	 */
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = Math.max(0, timeoutMillis);
+	}
+
+	public File getQuarantineFile() {
+		return quarantineFile;
+	}
+
+	/**
+	 * Sets the file that records timeouts across runs. Null runs without a quarantine.
+	 * @param quarantineFile File
+	 */
+	public void setQuarantineFile(File quarantineFile) {
+		this.quarantineFile = quarantineFile;
+	}
+
+	public DeviceLimits getDeviceLimits() {
+		return deviceLimits;
+	}
+
+	/**
+	 * Sets the per-device concurrency limits.
+	 * @param deviceLimits DeviceLimits
+	 */
+	public void setDeviceLimits(DeviceLimits deviceLimits) {
+		this.deviceLimits = deviceLimits == null ? new DeviceLimits() : deviceLimits;
+	}
+
+	public Governor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * Sets the governor that limits the bytes read, files opened and encoding done per second. Null runs at full speed.
+	 * @param governor Governor
+	 */
+	public void setGovernor(Governor governor) {
+		this.governor = governor;
+	}
+
+	public JpegBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the largest size a cover may have. Null writes covers at the default quality.
+	 * @param budget JpegBudget
+	 */
+	public void setBudget(JpegBudget budget) {
+		this.budget = budget;
+	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets how written covers are made durable.
+	 * @param durability Durability
+	 */
+	public void setDurability(Durability durability) {
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	public OutcomeLedger getLedger() {
+		return ledger;
+	}
+
+	/**
+	 * Sets the ledger that receives one record per file. Null disables it.
+	 * @param ledger OutcomeLedger
+	 */
+	public void setLedger(OutcomeLedger ledger) {
+		this.ledger = ledger;
+	}
+
+	public List<File> getMp3Files() {
+		return mp3Files;
+	}
+}
@@ -25,10 +25,55 @@
 package com.horvath.aar.command;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import com.horvath.aar.application.Debugger;
 import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.image.JpegBudget.Encoding;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
+import com.horvath.aar.io.MirrorTree;
+import com.horvath.aar.jfr.FolderVisitEvent;
+import com.horvath.aar.jfr.StageEvents;
+import com.horvath.aar.pack.CoverPackWriter;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.report.OutcomeLedger;
+import com.horvath.aar.report.RunReport;
+import com.horvath.aar.report.RunReport.AlbumStatus;
+import com.horvath.aar.report.RunReport.CoverEncoding;
+import com.horvath.aar.tag.CoverSelector;
+import com.horvath.aar.walk.DeviceLimits;
+import com.horvath.aar.walk.DeviceScheduler;
+import com.horvath.aar.walk.Governor;
+import com.horvath.aar.walk.Journal;
+import com.horvath.aar.walk.ProbeGate;
+import com.horvath.aar.walk.Quarantine;
+import com.horvath.aar.walk.ShardSpec;
+import com.horvath.aar.walk.SummaryTree;
+import com.horvath.aar.walk.WalkFilter;
+import com.horvath.aar.walk.Watchdog;
 
 /**
  * Recursively processes all sub-folder for given folder and extracts album art from first MP3 file found. 
@@ -37,10 +82,57 @@ import com.horvath.aar.exception.AarException;
 public class ParseFolderCmd extends AarCommand {
 	
 	private File rootFolder;
+	private ShardSpec shard = null;
+	private File reportFile = null;
+	private File journalFile = null;
+	private File summaryFile = null;
+	private Durability durability = Durability.NONE;
+	private OutcomeLedger ledger = null;
+	private long timeoutMillis = 0;
+	private File quarantineFile = null;
+	private File outputRoot = null;
+	private File packFile = null;
+	private Pattern discPattern = null;
+	private boolean linkDiscArt = false;
+	private int probeWidth = 1;
+	
+	private RunReport report = new RunReport();
+	private Journal journal = null;
+	private SummaryTree summaries = null;
+	private GroupCommit groupCommit = null;
+	private DeviceLimits deviceLimits = null;
+	private DeviceScheduler scheduler = null;
+	private Watchdog watchdog = null;
+	private Governor governor = null;
+	private JpegBudget budget = null;
+	private WalkFilter walkFilter = null;
+	private Quarantine quarantine = null;
+	private CoverPackWriter pack = null;
+	private MirrorTree mirror = null;
+	private ExecutorService probes = null;
+	private final AtomicReference<AarException> taskError = new AtomicReference<>();
 	
 	public static final String ERROR_NULL_FOLDER = "The folder cannot be null";
 	public static final String ERROR_FOLDER_DOES_NOT_EXIST = "The folder was not found.";
 	public static final String ERROR_FILE_IS_NOT_FOLDER = "The file is not a folder.";
+	public static final String ERROR_OUTPUT_OVERLAPS_ROOT = "The output folder cannot be inside the folder being processed, or hold it.";
+	
+	public static final String ERROR_PROBE_WIDTH = "The number of tracks probed at once must be at least 1.";
+	
+	public static final String ERROR_DISC_PATTERN = "The disc folder pattern is not a valid regular expression: ";
+	
+	private static final Pattern DIGITS = Pattern.compile("\\d+");
+	
+	/** Matches folder names like "CD1", "CD 2", "Disc 01", "Disk2 - Bonus" or "Part 3". */
+	public static final String DEFAULT_DISC_PATTERN = "(?i)(cd|dis[ck]|part)[ _.-]*\\d+(\\W.*)?";
+	
+	public static final String DETAIL_FOLDER_UNREADABLE = "The folder could not be listed.";
+	public static final String DETAIL_ART_ALREADY_FOUND = "A cover was already written for this folder.";
+	/** Pack key of an album in the root folder itself. */
+	public static final String ROOT_PACK_KEY = ".";
+	
+	public static final String DETAIL_HOISTED = "The disc shares the cover written to the album folder.";
+	public static final String DETAIL_QUARANTINED = "The file timed out in earlier runs and is quarantined.";
 
 	/**
 	 * Constructor. 
@@ -57,89 +149,975 @@ public class ParseFolderCmd extends AarCommand {
 		this.success = false;
 		
 		validate();
+		
+		report = new RunReport();
+		if (shard != null) {
+			report.setShard(shard.toString());
+		}
 
-		processSubFolders(rootFolder);
+		journal = null;
+		groupCommit = durability == Durability.GROUP_COMMIT ? new GroupCommit() : null;
+		
+		scheduler = deviceLimits == null ? null : new DeviceScheduler(deviceLimits);
+		watchdog = timeoutMillis > 0 ? new Watchdog(timeoutMillis) : null;
+		quarantine = null;
+		taskError.set(null);
+		
+		if (quarantineFile != null) {
+			quarantine = new Quarantine(quarantineFile);
+			quarantine.load();
+		}
+		
+		summaries = null;
+		if (summaryFile != null) {
+			summaries = new SummaryTree(summaryFile, durability);
+			summaries.setRunKey(runKey());
+			summaries.load();
+			if (summaries.isDiscarded()) {
+				Debugger.printLog("Folder summaries were written with other options, visiting every folder", this.getClass().getName());
+			}
+		}
+		
+		mirror = outputRoot == null ? null : new MirrorTree(outputRoot);
+		probes = probeWidth > 1 ? Executors.newCachedThreadPool(probeThreads()) : null;
+		pack = packFile == null ? null : CoverPackWriter.open(packFile, durability);
+		
+		try {
+			if (journalFile != null) {
+				processWithJournal();
+			} else {
+				processFolders();
+			}
+			
+		} finally {
+			try {
+				commitWrites();
+			} finally {
+				try {
+					if (pack != null) {
+						pack.close();
+						Debugger.printLog("Pack holds " + pack.size() + " covers, " + pack.getStaleBytes() + " stale bytes", this.getClass().getName());
+					}
+					// written after the covers are durable, since it claims their folders are done 
+					if (summaries != null) {
+						summaries.save();
+						Debugger.printLog("Left " + summaries.getPrunedCount() + " unchanged subtrees alone", this.getClass().getName());
+					}
+					
+				} finally {
+					// stopped even if a write failed, so no probe or watchdog thread outlives the run 
+					if (probes != null) {
+						probes.shutdownNow();
+					}
+					
+					if (watchdog != null) {
+						watchdog.shutdown();
+						if (watchdog.getAbandonedCount() > 0) {
+							Debugger.printLog("Abandoned " + watchdog.getAbandonedCount() + " files after the deadline", this.getClass().getName());
+						}
+					}
+				}
+			}
+			
+			if (walkFilter != null) {
+				Debugger.printLog(Level.INFO, this.getClass().getName(), "Walk rules left out %d entries and %d small files",
+						walkFilter.getLeftOutCount(), walkFilter.getSmallFileCount());
+			}
+		}
+		
+		if (reportFile != null) {
+			report.write(reportFile);
+		}
 		
 		this.success = true;
 	}
 	
+	/**
+	 * Runs the folder walk while recording completed subtrees in the journal. 
+	 * A shutdown hook flushes the journal so an interrupted run loses at most the folders in flight. 
+	 * The journal is removed once the whole walk has completed. 
+	 * @throws AarException
+	 */
+	private void processWithJournal() throws AarException {
+		journal = new Journal(journalFile);
+		journal.setRunKey(journalKey());
+		journal.load();
+		
+		if (journal.isDiscarded()) {
+			Debugger.printLog("The journal was written with other options, starting from the beginning", this.getClass().getName());
+		}
+		if (journal.size() > 0) {
+			Debugger.printLog("Resuming with " + journal.size() + " completed folders", this.getClass().getName());
+		}
+		
+		final Journal hookJournal = journal;
+		Thread hook = new Thread(() -> {
+			try {
+				commitWrites();
+				hookJournal.flush();
+			} catch (AarException ex) {
+				System.err.println(ex.getMessage());
+			}
+		}, "aar-journal-flush");
+		Runtime.getRuntime().addShutdownHook(hook);
+		
+		try {
+			processFolders();
+			journal.delete();
+			
+		} finally {
+			commitWrites();
+			journal.flush();
+			try {
+				Runtime.getRuntime().removeShutdownHook(hook);
+			} catch (IllegalStateException ex) {
+				// the JVM is already shutting down and the hook is running
+			}
+		}
+	}
+	
+	/**
+	 * Walks the folder structure and waits for the scheduled album folders, if a scheduler is in use. 
+	 * @throws AarException
+	 */
+	private void processFolders() throws AarException {
+		try {
+			processSubFolders(rootFolder, null);
+			
+		} finally {
+			if (scheduler != null) {
+				awaitScheduler();
+			}
+		}
+		
+		if (taskError.get() != null) {
+			throw taskError.get();
+		}
+	}
+	
+	/**
+	 * Waits until the device scheduler has run every album folder. 
+	 * @throws AarException
+	 */
+	private void awaitScheduler() throws AarException {
+		try {
+			scheduler.awaitCompletion();
+			Debugger.printLog("Devices: " + scheduler.getDevices(), this.getClass().getName());
+			
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+			
+		} catch (RuntimeException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+	
+	/**
+	 * Completes the pending writes of a group commit, if one is in use, and writes the pack index. 
+	 * @throws AarException
+	 */
+	private void commitWrites() throws AarException {
+		GroupCommit pending = groupCommit;
+		if (pending != null) {
+			pending.commit();
+		}
+		CoverPackWriter openPack = pack;
+		if (openPack != null) {
+			openPack.flush();
+		}
+	}
+	
 	/**
 	 * Recursive method to explore sub-folders and call processing operations. 
+	 * The MP3 files of each album folder are handed over as one unit of work, 
+	 * which runs at once or, with device limits, on the scheduler of the folder's device. 
 	 * @param folder File 
+	 * @param parent FolderNode of the parent folder, null for the root folder 
 	 * @throws AarException
 	 */
-	private void processSubFolders(File folder) throws AarException {
-	    File[] files = folder.listFiles();
+	private void processSubFolders(File folder, FolderNode parent) throws AarException {
+	    final String relativePath = relativePath(folder);
 	    
-	    boolean keepLooking = true;
+	    if (journal != null && journal.isComplete(relativePath)) {
+	    	// finished by an earlier, interrupted run
+	    	return;
+	    }
 	    
-        for (File file: files) {
-            if (file.isDirectory()) {
-            	// recurse, and go down another folder level 
-                processSubFolders(file);
-            }
-            else {
-                if (keepLooking && findMp3File(file)) {
-                	// keep cycling in loop to make sure no sub-folders are skipped
-                	keepLooking = false;
-                }
-            }
-        }
-	}
-	
-	/**
-	 * Checks if given file is an MP3, and attempts to process the image from it.
-	 * Returns true only if file is an MP3, and album art image written to disk.
-	 * 
-	 * @param file File 
-	 * @return boolean 
+	    if (summaries != null && summaries.isUnchanged(relativePath, folder)) {
+	    	// nothing was added, removed or renamed anywhere below since the last run 
+	    	summaries.pruned();
+	    	return;
+	    }
+	    
+	    FolderNode node = new FolderNode(relativePath, parent);
+	    node.folder = folder;
+	    
+	    try {
+	    	if (summaries != null && processKnownFolder(folder, node)) {
+	    		// not listed, so there is no visit to record 
+	    		return;
+	    	}
+	    	
+	    	// covers the listing only, sub-folders and tracks record their own events 
+	    	FolderVisitEvent event = StageEvents.beginFolderVisit();
+	    	File[] files = folder.listFiles();
+	    	if (event != null) {
+	    		event.end();
+	    	}
+	    	
+	    	if (files == null) {
+	    		node.failed = true;
+	    		record(folder, Outcome.IO_ERROR, DETAIL_FOLDER_UNREADABLE, 0);
+	    		return;
+	    	}
+	    	
+	    	List<File> mp3Files = new ArrayList<>();
+	    	List<File> discFolders = new ArrayList<>();
+	    	List<String> children = new ArrayList<>();
+	    	
+	    	for (File file: files) {
+	    		if (isLeftOut(relativePath, file.getName())) {
+	    			// by name alone, so a left out folder is neither stat'ed nor listed 
+	    			continue;
+	    		}
+	    		
+	    		final boolean directory = file.isDirectory();
+	    		if (directory && isTooDeep(node)) {
+	    			continue;
+	    		}
+	    		
+	    		if (directory) {
+	    			children.add(file.getName());
+	    		}
+	    		
+	    		if (directory && isDiscFolder(file)) {
+	    			discFolders.add(file);
+	    		}
+	    		else if (directory) {
+	    			// recurse, and go down another folder level 
+	    			processSubFolders(file, node);
+	    		}
+	    		else if (isMp3File(file)) {
+	    			if (isLargeEnough(file)) {
+	    				mp3Files.add(file);
+	    			}
+	    		}
+	    		else if (ParseArchiveCmd.isArchive(file)) {
+	    			if (isLargeEnough(file)) {
+	    				submitArchive(file, node);
+	    			}
+	    		}
+	    	}
+	    	
+	    	node.entries = files.length;
+	    	node.children = children;
+	    	
+	    	if (event != null && event.shouldCommit()) {
+	    		event.path = folder.getPath();
+	    		event.entries = files.length;
+	    		event.mp3Files = mp3Files.size();
+	    		event.commit();
+	    	}
+	    	
+	    	if (!mp3Files.isEmpty() && (shard == null || shard.contains(relativePath))) {
+	    		submitAlbumFolder(mp3Files, node);
+	    	}
+	    	
+	    	if (!discFolders.isEmpty() && mp3Files.isEmpty()) {
+	    		processDiscFolders(discFolders, node);
+	    	} else {
+	    		// tracks next to the disc folders make this more than a multi-disc album 
+	    		for (File disc : discFolders) {
+	    			processSubFolders(disc, node);
+	    		}
+	    	}
+	    	
+	    } catch (AarException | RuntimeException ex) {
+	    	node.failed = true;
+	    	throw ex;
+	    	
+	    } finally {
+	    	folderDone(node);
+	    }
+	}
+	
+	/**
+	 * Walks the sub-folders a folder had in the last run without listing it, if its own entries are unchanged. 
+	 * The MP3 files in it already have their cover, so only the sub-folders can hold new work. 
+	 * Disc folders are only processed together with their album folder, so such an album folder is listed as usual. 
+	 * @param folder File 
+	 * @param node FolderNode of the folder 
+	 * @return boolean true if the folder was handled 
+	 * @throws AarException
+	 */
+	private boolean processKnownFolder(File folder, FolderNode node) throws AarException {
+		List<String> children = summaries.getUnchangedChildren(node.relativePath, folder);
+		if (children == null) {
+			return false;
+		}
+		for (String child : children) {
+			if (isDiscFolder(new File(folder, child))) {
+				return false;
+			}
+		}
+		
+		// the summaries were written with the same walk rules, so these are the sub-folders the rules let through 
+		node.entries = summaries.getEntries(node.relativePath);
+		node.children = children;
+		for (String child : children) {
+			processSubFolders(new File(folder, child), node);
+		}
+		return true;
+	}
+	
+	/**
+	 * Lists the disc folders of a multi-disc album and hands their MP3 files over as one unit of work, 
+	 * which writes a single cover to the album folder. Folders below a disc folder are walked as usual. 
+	 * @param discFolders List of File 
+	 * @param node FolderNode of the album folder holding the discs 
+	 * @throws AarException
 	 */
-	private boolean findMp3File(File file) {
+	private void processDiscFolders(List<File> discFolders, FolderNode node) throws AarException {
+		discFolders.sort(Comparator.comparingLong(ParseFolderCmd::discNumber)
+				.thenComparing(folder -> folder.getName().toLowerCase()));
 		
-		boolean result = false;
+		List<Disc> discs = new ArrayList<>();
 		
-		if (!file.exists() || file.isDirectory()) {
-			return result;
+		for (File discFolder : discFolders) {
+			final String discPath = relativePath(discFolder);
+			if (journal != null && journal.isComplete(discPath)) {
+				continue;
+			}
+			
+			FolderNode discNode = new FolderNode(discPath, node);
+			discNode.folder = discFolder;
+			List<File> mp3Files = new ArrayList<>();
+			boolean held = false;
+			
+			try {
+				File[] files = discFolder.listFiles();
+				if (files == null) {
+					discNode.failed = true;
+					record(discFolder, Outcome.IO_ERROR, DETAIL_FOLDER_UNREADABLE, 0);
+					continue;
+				}
+				
+				List<String> children = new ArrayList<>();
+				for (File file : files) {
+					if (isLeftOut(discPath, file.getName())) {
+						continue;
+					}
+					if (file.isDirectory()) {
+						if (!isTooDeep(discNode)) {
+							children.add(file.getName());
+							processSubFolders(file, discNode);
+						}
+					} else if (isMp3File(file) && isLargeEnough(file)) {
+						mp3Files.add(file);
+					}
+				}
+				discNode.entries = files.length;
+				discNode.children = children;
+				
+				if (!mp3Files.isEmpty()) {
+					// the disc stays open until the album's unit of work has run 
+					discs.add(new Disc(discFolder, discNode, mp3Files));
+					held = true;
+				}
+				
+			} catch (AarException | RuntimeException ex) {
+				discNode.failed = true;
+				throw ex;
+				
+			} finally {
+				if (!held) {
+					folderDone(discNode);
+				}
+			}
 		}
 		
-		if (file.getName().toLowerCase().endsWith(".mp3")) {
-			result = processMp3File(file);
+		if (discs.isEmpty()) {
+			return;
 		}
 		
-		return result;
+		if (shard != null && !shard.contains(node.relativePath)) {
+			for (Disc disc : discs) {
+				folderDone(disc.node);
+			}
+			return;
+		}
+		
+		submit(discs.get(0).mp3Files.get(0), node, () -> {
+			try {
+				processMultiDisc(discs, node.relativePath);
+				
+			} catch (AarException | RuntimeException ex) {
+				for (Disc disc : discs) {
+					disc.node.failed = true;
+				}
+				throw ex;
+				
+			} finally {
+				for (Disc disc : discs) {
+					folderDone(disc.node);
+				}
+			}
+		});
 	}
 	
 	/**
-	 * Parses the album art from MP3 file. 
-	 * Returns true if image file written to disk. 
-	 * 
-	 * @param mp3 File 
-	 * @return boolean 
+	 * Extracts the cover of a multi-disc album once and writes it to the album folder. 
+	 * The discs are tried in order until one yields art. Every later disc is compared by the hash of its embedded cover: 
+	 * a disc with the same cover, or none, is skipped or linked, and a disc with a different cover gets its own. 
+	 * @param discs List of Disc in disc order 
+	 * @param relativePath String of the album folder 
+	 * @throws AarException if the ledger cannot be written 
 	 */
-	private boolean processMp3File(File mp3) {
-		boolean result = false; 
+	private void processMultiDisc(List<Disc> discs, String relativePath) throws AarException {
+		byte[] hoistedHash = null;
+		boolean written = false;
+		int next = 0;
 		
+		while (next < discs.size() && !written) {
+			final Disc disc = discs.get(next);
+			for (File file : disc.mp3Files) {
+				if (written) {
+					record(file, Outcome.SKIPPED, DETAIL_ART_ALREADY_FOUND, 0);
+					
+				} else if (processMp3File(file, relativePath, disc.node) == Outcome.ART_WRITTEN) {
+					written = true;
+					hoistedHash = CoverSelector.hashCover(file);
+				}
+			}
+			next++;
+		}
+		
+		report.addAlbum(relativePath, written ? AlbumStatus.WRITTEN : AlbumStatus.NO_ART);
+		
+		for (Disc disc : discs.subList(next, discs.size())) {
+			byte[] discHash = null;
+			for (File file : disc.mp3Files) {
+				discHash = CoverSelector.hashCover(file);
+				if (discHash != null) {
+					break;
+				}
+			}
+			
+			if (hoistedHash != null && (discHash == null || Arrays.equals(discHash, hoistedHash))) {
+				for (File file : disc.mp3Files) {
+					record(file, Outcome.SKIPPED, DETAIL_HOISTED, 0);
+				}
+				if (linkDiscArt && pack == null) {
+					linkCover(disc);
+				}
+			} else {
+				// the disc has art of its own 
+				processAlbumFolder(disc.mp3Files, disc.node);
+			}
+		}
+	}
+	
+	/**
+	 * Links the cover of a disc folder to the cover of its album folder, in the output tree if one is in use. 
+	 * A failure is logged, since the cover in the album folder is already in place. 
+	 * @param disc Disc 
+	 */
+	private void linkCover(Disc disc) {
 		try {
-			// process buffered image 
-			ParseAlbumArtCmd parseArtCmd = new ParseAlbumArtCmd(mp3);
-			parseArtCmd.perform();
+			File discFolder = mirror == null ? disc.folder : mirror.folderFor(disc.node.relativePath);
+			Path link = new File(discFolder, WriteBufferedImageCmd.DEFAULT_NAME).toPath();
+			if (!Files.exists(link, LinkOption.NOFOLLOW_LINKS)) {
+				Files.createSymbolicLink(link, Paths.get("..", WriteBufferedImageCmd.DEFAULT_NAME));
+			}
+		} catch (AarException | IOException | UnsupportedOperationException ex) {
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), "Could not link the cover: %s", ex.getMessage());
+		}
+	}
+	
+	/**
+	 * Returns the first number in the name of a disc folder, so "CD 2" comes before "CD10". 
+	 * @param discFolder File 
+	 * @return long, or Long.MAX_VALUE if the name holds no number 
+	 */
+	private static long discNumber(File discFolder) {
+		Matcher matcher = DIGITS.matcher(discFolder.getName());
+		if (!matcher.find()) {
+			return Long.MAX_VALUE;
+		}
+		try {
+			return Long.parseLong(matcher.group());
+		} catch (NumberFormatException ex) {
+			return Long.MAX_VALUE;
+		}
+	}
+	
+	/**
+	 * Checks if a folder is a disc folder of a multi-disc album. 
+	 * @param folder File 
+	 * @return boolean 
+	 */
+	private boolean isDiscFolder(File folder) {
+		return discPattern != null && discPattern.matcher(folder.getName()).matches();
+	}
+	
+	/**
+	 * Processes the MP3 files of an album folder, either at once or on the device scheduler. 
+	 * @param mp3Files List of File 
+	 * @param node FolderNode of the album folder 
+	 * @throws AarException
+	 */
+	private void submitAlbumFolder(List<File> mp3Files, FolderNode node) throws AarException {
+		submit(mp3Files.get(0), node, () -> processAlbumFolder(mp3Files, node));
+	}
+	
+	/**
+	 * Processes the album folders inside a ZIP archive, either at once or on the device scheduler. 
+	 * The archive counts as a folder named like the archive without its extension. 
+	 * @param archive File 
+	 * @param node FolderNode of the folder holding the archive 
+	 * @throws AarException
+	 */
+	private void submitArchive(File archive, FolderNode node) throws AarException {
+		final File virtualFolder = ParseArchiveCmd.defaultOutputFolder(archive);
+		final String relativePath = relativePath(virtualFolder);
+		
+		if (shard != null && !shard.contains(relativePath)) {
+			return;
+		}
+		
+		submit(archive, node, () -> processArchive(archive, relativePath, node));
+	}
+	
+	/**
+	 * Runs a unit of work for a folder at once or, with device limits, on the scheduler of the file's device. 
+	 * The folder is done once the work has finished; a failure keeps it out of the journal. 
+	 * @param file File whose device runs the work 
+	 * @param node FolderNode 
+	 * @param work FolderWork 
+	 * @throws AarException
+	 */
+	private void submit(File file, FolderNode node, FolderWork work) throws AarException {
+		node.pending.incrementAndGet();
+		
+		if (scheduler == null) {
+			try {
+				work.run();
+			} catch (AarException | RuntimeException ex) {
+				node.failed = true;
+				throw ex;
+			} finally {
+				folderDone(node);
+			}
+			return;
+		}
+		
+		scheduler.submit(file, () -> {
+			try {
+				work.run();
+			} catch (AarException ex) {
+				node.failed = true;
+				taskError.compareAndSet(null, ex);
+			}
 			
-			if (parseArtCmd.isSuccess()) {
-				
-				WriteBufferedImageCmd writeCmd = new WriteBufferedImageCmd(mp3.getParentFile(), parseArtCmd.getBufferedImage());
-				writeCmd.perform();
+			try {
+				folderDone(node);
+			} catch (AarException ex) {
+				taskError.compareAndSet(null, ex);
+			}
+		});
+	}
+	
+	/**
+	 * Extracts the art of every album folder inside an archive and adds them to the report. 
+	 * @param archive File 
+	 * @param relativePath String of the folder standing in for the archive 
+	 * @param node FolderNode of the folder holding the archive 
+	 * @throws AarException if the ledger cannot be written 
+	 */
+	private void processArchive(File archive, String relativePath, FolderNode node) throws AarException {
+		File outputFolder = mirror == null 
+				? ParseArchiveCmd.defaultOutputFolder(archive) 
+				: mirror.resolveFolder(relativePath);
+		
+		ParseArchiveCmd archiveCmd = new ParseArchiveCmd(archive, outputFolder);
+		archiveCmd.setDurability(durability);
+		archiveCmd.setGroupCommit(groupCommit);
+		archiveCmd.setGovernor(governor);
+		archiveCmd.setBudget(budget);
+		archiveCmd.setLedger(ledger);
+		archiveCmd.setPack(pack, relativePath);
+		archiveCmd.perform();
+		
+		if (!archiveCmd.isSuccess()) {
+			// an unreadable archive is visited again by a resumed run
+			node.failed = true;
+		}
+		
+		for (Map.Entry<String, AlbumStatus> album : archiveCmd.getAlbums().entrySet()) {
+			final String path = album.getKey().isEmpty() ? relativePath : relativePath + "/" + album.getKey();
+			report.addAlbum(path, album.getValue());
+		}
+		for (Map.Entry<String, Encoding> cover : archiveCmd.getEncodings().entrySet()) {
+			reportEncoding(cover.getKey().isEmpty() ? relativePath : relativePath + "/" + cover.getKey(), cover.getValue());
+		}
+	}
+	
+	/**
+	 * Extracts the art of the first MP3 file that has some and skips the remaining files. 
+	 * @param mp3Files List of File 
+	 * @param node FolderNode of the album folder 
+	 * @throws AarException if the ledger cannot be written 
+	 */
+	private void processAlbumFolder(List<File> mp3Files, FolderNode node) throws AarException {
+		if (probes != null && mp3Files.size() > 1) {
+			probeAlbumFolder(mp3Files, node);
+			return;
+		}
+		
+		final String relativePath = node.relativePath;
+		
+		boolean keepLooking = true;
+		
+		for (File file : mp3Files) {
+			if (!keepLooking) {
+				record(file, Outcome.SKIPPED, DETAIL_ART_ALREADY_FOUND, 0);
 				
-				result = writeCmd.isSuccess();
+			} else if (processMp3File(file, relativePath, node) == Outcome.ART_WRITTEN) {
+				// record the remaining files as skipped
+				keepLooking = false;
 			}
-
-		} catch (AarException ex) {
-			Debugger.printLog("Error: " + ex.getMessage(), this.getClass().getName(), Level.WARNING);
-			return false;
 		}
 		
-		return result;
+		report.addAlbum(relativePath, keepLooking ? AlbumStatus.NO_ART : AlbumStatus.WRITTEN);
 	}
 	
+	/**
+	 * Extracts the art of an album folder by parsing up to the probe width of its tracks at once. 
+	 * Results are taken in track order, and a track only writes its cover once every earlier track came up empty, 
+	 * so the album gets the same cover as one track after another. Once a cover is written the remaining probes are cancelled. 
+	 * @param mp3Files List of File 
+	 * @param node FolderNode of the album folder 
+	 * @throws AarException if the ledger cannot be written 
+	 */
+	private void probeAlbumFolder(List<File> mp3Files, FolderNode node) throws AarException {
+		final String relativePath = node.relativePath;
+		final ProbeGate gate = new ProbeGate();
+		final List<Future<ExtractArtCmd>> running = new ArrayList<>();
+		
+		for (int track = 0; track < mp3Files.size(); track++) {
+			if (track == 0) {
+				for (int next = 0; next < Math.min(probeWidth, mp3Files.size()); next++) {
+					running.add(submitProbe(mp3Files.get(next), relativePath, gate, next));
+				}
+			} else if (track + probeWidth - 1 < mp3Files.size() && !gate.isWon()) {
+				// keep the window full 
+				final int next = track + probeWidth - 1;
+				running.add(submitProbe(mp3Files.get(next), relativePath, gate, next));
+			}
+			
+			final File file = mp3Files.get(track);
+			
+			if (gate.isWon()) {
+				if (track < running.size()) {
+					running.get(track).cancel(true);
+				}
+				record(file, Outcome.SKIPPED, DETAIL_ART_ALREADY_FOUND, 0);
+				continue;
+			}
+			
+			ExtractArtCmd extractCmd = awaitProbe(running.get(track));
+			if (extractCmd == null) {
+				node.failed = true;
+				record(file, Outcome.SKIPPED, DETAIL_QUARANTINED, 0);
+				gate.resolve(track, false);
+				continue;
+			}
+			
+			finishMp3File(file, relativePath, node, extractCmd);
+			gate.resolve(track, extractCmd.getOutcome() == Outcome.ART_WRITTEN);
+		}
+		
+		report.addAlbum(relativePath, gate.isWon() ? AlbumStatus.WRITTEN : AlbumStatus.NO_ART);
+	}
+	
+	/**
+	 * Starts the probe of one track. A quarantined track is not probed and yields null. 
+	 * @param mp3 File 
+	 * @param albumPath String 
+	 * @param gate ProbeGate of the album 
+	 * @param track int index of the track in the album 
+	 * @return Future of the finished command 
+	 */
+	private Future<ExtractArtCmd> submitProbe(File mp3, String albumPath, ProbeGate gate, int track) {
+		return probes.submit(() -> {
+			if (quarantine != null && quarantine.isQuarantined(mp3)) {
+				return null;
+			}
+			ExtractArtCmd extractCmd = newExtractCmd(mp3, albumPath);
+			extractCmd.setClaim(() -> gate.awaitTurn(track));
+			extractCmd.perform();
+			return extractCmd;
+		});
+	}
+	
+	/**
+	 * Waits for a probe. 
+	 * @param probe Future 
+	 * @return ExtractArtCmd, null if the track is quarantined 
+	 * @throws AarException if the probe failed or the wait was interrupted 
+	 */
+	private ExtractArtCmd awaitProbe(Future<ExtractArtCmd> probe) throws AarException {
+		try {
+			return probe.get();
+			
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+			
+		} catch (ExecutionException | CancellationException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+	
+	/**
+	 * Returns the factory of the daemon threads that probe tracks. 
+	 * @return ThreadFactory 
+	 */
+	private static ThreadFactory probeThreads() {
+		final AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "aar-probe-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+	
+	/**
+	 * Releases one piece of outstanding work of a folder. When the folder and everything below it 
+	 * is done the folder is recorded in the journal, and its parent is released in turn. 
+	 * A folder with a failure is not journaled, so a resumed run visits it again. 
+	 * @param node FolderNode 
+	 * @throws AarException
+	 */
+	private void folderDone(FolderNode node) throws AarException {
+		if (node.pending.decrementAndGet() > 0) {
+			return;
+		}
+		
+		if (journal != null && !node.failed) {
+			synchronized (journal) {
+				if (journal.isFlushDue()) {
+					// covers must be durable before the journal claims their folders are done
+					commitWrites();
+				}
+				// the folder and everything below it is done
+				journal.markComplete(node.relativePath);
+			}
+		}
+		
+		if (summaries != null && node.folder != null) {
+			if (node.failed) {
+				summaries.forget(node.relativePath);
+			} else if (node.children != null) {
+				summaries.update(node.relativePath, node.folder, node.entries, node.children);
+			}
+		}
+		
+		if (node.parent != null) {
+			if (node.failed) {
+				node.parent.failed = true;
+			}
+			folderDone(node.parent);
+		}
+	}
+	
+	/**
+	 * Returns the options the folder summaries depend on. Summaries written with other walk rules are not used, 
+	 * since folders left out then may be walked now, and neither are those of another shard, which skipped the albums 
+	 * of this one, or those written for another output target or disc pattern, whose covers went elsewhere. 
+	 * @return String 
+	 */
+	private String runKey() {
+		final String output;
+		if (packFile != null) {
+			output = "pack " + packFile.getAbsoluteFile().toPath().normalize();
+		} else if (outputRoot != null) {
+			output = "mirror " + outputRoot.getAbsoluteFile().toPath().normalize();
+		} else {
+			output = "in place";
+		}
+		
+		return "walk " + (walkFilter == null ? new WalkFilter() : walkFilter).describe()
+				+ "\nshard " + (shard == null ? "all" : shard.toString())
+				+ "\noutput " + output
+				+ "\ndiscs " + (discPattern == null ? "none" : discPattern.pattern());
+	}
+	
+	/**
+	 * Returns the options the journal depends on: those of the folder summaries, and also the cover name, byte budget and disc links, 
+	 * since a folder finished with other ones holds covers this run would write differently. 
+	 * @return String 
+	 */
+	String journalKey() {
+		return runKey()
+				+ "\ncover " + WriteBufferedImageCmd.DEFAULT_NAME
+				+ "\nbudget " + (budget == null ? "none" : budget.getMaxBytes() + " " + budget.getMinQuality())
+				+ "\nlinks " + linkDiscArt;
+	}
+	
+	/**
+	 * Checks if the walk rules leave out an entry of a folder, going by its name only. 
+	 * @param folderPath String of the folder holding the entry 
+	 * @param name String 
+	 * @return boolean 
+	 */
+	private boolean isLeftOut(String folderPath, String name) {
+		return walkFilter != null && walkFilter.isExcluded(folderPath, name);
+	}
+	
+	/**
+	 * Checks if the sub-folders of a folder are below the maximum depth. 
+	 * @param node FolderNode of the folder 
+	 * @return boolean 
+	 */
+	private boolean isTooDeep(FolderNode node) {
+		return walkFilter != null && !walkFilter.isWithinDepth(node.depth + 1);
+	}
+	
+	/**
+	 * Checks if a file is at least the minimum size of the walk rules. 
+	 * @param file File 
+	 * @return boolean 
+	 */
+	private boolean isLargeEnough(File file) {
+		return walkFilter == null || walkFilter.isLargeEnough(file);
+	}
+	
+	/**
+	 * Checks if given file is an existing MP3 file. 
+	 * 
+	 * @param file File 
+	 * @return boolean 
+	 */
+	private boolean isMp3File(File file) {
+		return file.getName().toLowerCase().endsWith(".mp3") && file.exists() && !file.isDirectory();
+	}
+	
+	/**
+	 * Returns the path of a folder relative to the root folder, using forward slashes. 
+	 * The root folder itself has an empty relative path. 
+	 * 
+	 * @param folder File 
+	 * @return String 
+	 */
+	private String relativePath(File folder) {
+		return rootFolder.toPath().relativize(folder.toPath()).toString().replace(File.separatorChar, '/');
+	}
+	
+	/**
+	 * Parses the album art from MP3 file and writes it to the album folder, its mirror in the output tree, 
+	 * or the pack, whichever is in use. 
+	 * Returns the outcome, which is also recorded in the ledger. 
+	 * Files without art are handled without raising exceptions. 
+	 * 
+	 * @param mp3 File 
+	 * @param albumPath String of the folder the cover belongs to, relative to the root folder 
+	 * @param node FolderNode of the folder holding the file 
+	 * @return Outcome 
+	 * @throws AarException if the ledger cannot be written 
+	 */
+	private Outcome processMp3File(File mp3, String albumPath, FolderNode node) throws AarException {
+		if (quarantine != null && quarantine.isQuarantined(mp3)) {
+			// the file may yet have a cover, so the folder is not summarised 
+			node.failed = true;
+			record(mp3, Outcome.SKIPPED, DETAIL_QUARANTINED, 0);
+			return Outcome.SKIPPED;
+		}
+		
+		ExtractArtCmd extractCmd = newExtractCmd(mp3, albumPath);
+		extractCmd.perform();
+		
+		finishMp3File(mp3, albumPath, node, extractCmd);
+		
+		return extractCmd.getOutcome();
+	}
+	
+	/**
+	 * Creates the command extracting the art of an MP3 file to wherever covers of the run go. 
+	 * @param mp3 File 
+	 * @param albumPath String of the folder the cover belongs to, relative to the root folder 
+	 * @return ExtractArtCmd 
+	 */
+	private ExtractArtCmd newExtractCmd(File mp3, String albumPath) {
+		ExtractArtCmd extractCmd = new ExtractArtCmd(mp3);
+		extractCmd.setDurability(durability);
+		extractCmd.setGroupCommit(groupCommit);
+		extractCmd.setWatchdog(watchdog);
+		extractCmd.setGovernor(governor);
+		extractCmd.setBudget(budget);
+		extractCmd.setAlbumTarget(rootFolder, albumPath, pack, mirror);
+		return extractCmd;
+	}
+	
+	/**
+	 * Records the outcome of an extraction in the ledger, and a timeout in the quarantine. 
+	 * The time it took goes to the device scheduler, which may tune its concurrency from it. 
+	 * With a byte budget, the quality and size of a written cover go to the report. 
+	 * A timeout or read error fails the folder, so it is neither journaled nor summarised and the next run tries again. 
+	 * @param mp3 File 
+	 * @param albumPath String of the folder the cover belongs to 
+	 * @param node FolderNode of the folder holding the file 
+	 * @param extractCmd ExtractArtCmd that has been performed 
+	 * @throws AarException if the ledger cannot be written 
+	 */
+	private void finishMp3File(File mp3, String albumPath, FolderNode node, ExtractArtCmd extractCmd) throws AarException {
+		if (scheduler != null) {
+			scheduler.fileDone(extractCmd.getMillis());
+		}
+		if (extractCmd.getOutcome() == Outcome.TIMED_OUT && quarantine != null) {
+			quarantine.recordTimeout(mp3);
+		}
+		if (extractCmd.getOutcome() == Outcome.TIMED_OUT || extractCmd.getOutcome() == Outcome.IO_ERROR) {
+			node.failed = true;
+		}
+		
+		if (extractCmd.getOutcome() == Outcome.ART_WRITTEN) {
+			reportEncoding(albumPath, extractCmd.getEncoding());
+		}
+		
+		record(mp3, extractCmd.getOutcome(), extractCmd.getDetail(), extractCmd.getMillis());
+	}
+	
+	/**
+	 * Adds the quality and size of a written cover to the report, when covers are written within a byte budget. 
+	 * @param albumPath String of the folder the cover belongs to 
+	 * @param encoding Encoding, may be null 
+	 */
+	private void reportEncoding(String albumPath, Encoding encoding) {
+		if (budget == null || encoding == null) {
+			return;
+		}
+		report.addEncoding(albumPath, new CoverEncoding(encoding.getQuality(), encoding.getBytes().length,
+				encoding.getWidth(), encoding.getHeight(), encoding.isFits()));
+		Debugger.printLog(encoding.isFits() ? Level.INFO : Level.WARNING, this.getClass().getName(),
+				"Cover of %s: quality %.2f, %d bytes, %dx%d after %d trials", albumPath, encoding.getQuality(),
+				encoding.getBytes().length, encoding.getWidth(), encoding.getHeight(), encoding.getTrials());
+	}
+	
+	/**
+	 * Writes a record to the ledger, if one is in use. 
+	 * @param file File 
+	 * @param outcome Outcome 
+	 * @param detail String 
+	 * @param millis long 
+	 * @throws AarException
+	 */
+	private void record(File file, Outcome outcome, String detail, long millis) throws AarException {
+		if (ledger != null) {
+			ledger.record(file.getPath(), outcome, detail, millis);
+		}
+	}
 	
 	/**
 	 * Validates the given root folder. 
@@ -157,7 +1135,288 @@ public class ParseFolderCmd extends AarCommand {
 		
 		if (!rootFolder.isDirectory()) {
 			throw new AarException(ERROR_FILE_IS_NOT_FOLDER);
-		}		
+		}
+		
+		if (outputRoot != null && MirrorTree.overlaps(rootFolder, outputRoot)) {
+			throw new AarException(ERROR_OUTPUT_OVERLAPS_ROOT);
+		}
+	}
+
+	public ShardSpec getShard() {
+		return shard;
+	}
+
+	/**
+	 * Restricts the run to the album folders of one shard. Null processes every folder. 
+	 * @param shard ShardSpec 
+	 */
+	public void setShard(ShardSpec shard) {
+		this.shard = shard;
+	}
+
+	public File getReportFile() {
+		return reportFile;
+	}
+
+	/**
+	 * Sets the file the run report is written to when the run completes. 
+	 * @param reportFile File 
+	 */
+	public void setReportFile(File reportFile) {
+		this.reportFile = reportFile;
+	}
+
+	public File getSummaryFile() {
+		return summaryFile;
+	}
+
+	/**
+	 * Sets the file of folder summaries kept between runs. Subtrees in which no folder changed since the last run 
+	 * are left alone without being listed. Null visits every folder. 
+	 * @param summaryFile File 
+	 */
+	public void setSummaryFile(File summaryFile) {
+		this.summaryFile = summaryFile;
+	}
+
+	public File getJournalFile() {
+		return journalFile;
+	}
+
+	/**
+	 * Sets the journal used to resume an interrupted run. Null runs without a journal. 
+	 * @param journalFile File 
+	 */
+	public void setJournalFile(File journalFile) {
+		this.journalFile = journalFile;
+	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets how written covers are made durable. 
+	 * @param durability Durability 
+	 */
+	public void setDurability(Durability durability) {
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	public OutcomeLedger getLedger() {
+		return ledger;
+	}
+
+	/**
+	 * Sets the ledger that receives one record per processed file. Null disables it. 
+	 * @param ledger OutcomeLedger 
+	 */
+	public void setLedger(OutcomeLedger ledger) {
+		this.ledger = ledger;
+	}
+
+	public RunReport getReport() {
+		return report;
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * Sets the deadline for each file, after which the attempt is abandoned and the file recorded as timed out. 
+	 * Zero runs without a deadline. 
+	 * @param timeoutMillis long 
+	 */
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.timeoutMillis = Math.max(0, timeoutMillis);
+	}
+
+	public File getOutputRoot() {
+		return outputRoot;
+	}
+
+	/**
+	 * Sets the folder that receives every cover, mirroring the folder structure below the root folder, 
+	 * so the root folder is only ever read. Output folders are created as covers are written to them. 
+	 * Null writes covers into the album folders, and next to each archive for albums inside archives. 
+	 * @param outputRoot File 
+	 */
+	public void setOutputRoot(File outputRoot) {
+		this.outputRoot = outputRoot;
+	}
+
+	public int getProbeWidth() {
+		return probeWidth;
+	}
+
+	/**
+	 * Sets how many tracks of one album folder are parsed at once while looking for art. 
+	 * The cover written is the same as with one track at a time. Defaults to 1. 
+	 * @param probeWidth int 
+	 * @throws AarException if the width is below 1 
+	 */
+	public void setProbeWidth(int probeWidth) throws AarException {
+		if (probeWidth < 1) {
+			throw new AarException(ERROR_PROBE_WIDTH);
+		}
+		this.probeWidth = probeWidth;
+	}
+
+	public Pattern getDiscPattern() {
+		return discPattern;
+	}
+
+	/**
+	 * Turns on multi-disc albums: subfolders whose names match the regular expression are discs of one album, 
+	 * whose cover is written once to the album folder. Null treats every folder as an album of its own. 
+	 * @param regex String, see DEFAULT_DISC_PATTERN 
+	 * @throws AarException if the expression is invalid 
+	 */
+	public void setDiscPattern(String regex) throws AarException {
+		try {
+			this.discPattern = regex == null ? null : Pattern.compile(regex);
+		} catch (PatternSyntaxException ex) {
+			throw new AarException(ERROR_DISC_PATTERN + ex.getMessage(), ex);
+		}
+	}
+
+	public boolean isLinkDiscArt() {
+		return linkDiscArt;
+	}
+
+	/**
+	 * Sets whether disc folders that share the album cover get a symbolic link to it. 
+	 * @param linkDiscArt boolean 
+	 */
+	public void setLinkDiscArt(boolean linkDiscArt) {
+		this.linkDiscArt = linkDiscArt;
+	}
+
+	public File getPackFile() {
+		return packFile;
+	}
+
+	/**
+	 * Stores every cover in one pack file, keyed by the album folder's path relative to the root folder, 
+	 * instead of writing an image into each album folder. Null writes into the album folders. 
+	 * @param packFile File 
+	 */
+	public void setPackFile(File packFile) {
+		this.packFile = packFile;
+	}
+
+	public File getQuarantineFile() {
+		return quarantineFile;
+	}
+
+	/**
+	 * Sets the file that records timeouts across runs. Files that timed out repeatedly are skipped. 
+	 * Null runs without a quarantine. 
+	 * @param quarantineFile File 
+	 */
+	public void setQuarantineFile(File quarantineFile) {
+		this.quarantineFile = quarantineFile;
+	}
+
+	public DeviceLimits getDeviceLimits() {
+		return deviceLimits;
+	}
+
+	/**
+	 * Sets the per-device concurrency limits. Album folders are then processed in parallel, 
+	 * with each device limited separately. Null processes the folders one after another. 
+	 * @param deviceLimits DeviceLimits 
+	 */
+	public void setDeviceLimits(DeviceLimits deviceLimits) {
+		this.deviceLimits = deviceLimits;
+	}
+	
+	public Governor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * Sets the governor that limits the bytes read, files opened and encoding done per second, 
+	 * so a run can share the machine with other work. Null runs at full speed. 
+	 * @param governor Governor 
+	 */
+	public void setGovernor(Governor governor) {
+		this.governor = governor;
+	}
+	
+	public JpegBudget getBudget() {
+		return budget;
+	}
+	
+	public WalkFilter getWalkFilter() {
+		return walkFilter;
+	}
+	
+	/**
+	 * Sets the rules that keep the walk out of folders and files, such as a NAS's thumbnail folders. 
+	 * Null walks every folder. A summary file written with other rules is set aside and every folder visited again. 
+	 * @param walkFilter WalkFilter 
+	 */
+	public void setWalkFilter(WalkFilter walkFilter) {
+		this.walkFilter = walkFilter;
+	}
+	
+	/**
+	 * Sets the largest size a cover may have. Each cover is written at the highest quality that fits, 
+	 * and its quality and size go to the report. Null writes covers at the default quality. 
+	 * @param budget JpegBudget 
+	 */
+	public void setBudget(JpegBudget budget) {
+		this.budget = budget;
+	}
+	
+	/**
+	 * A disc folder of a multi-disc album with its MP3 files. 
+	 */
+	private static final class Disc {
+		final File folder;
+		final FolderNode node;
+		final List<File> mp3Files;
+		
+		Disc(File folder, FolderNode node, List<File> mp3Files) {
+			this.folder = folder;
+			this.node = node;
+			this.mp3Files = mp3Files;
+		}
+	}
+	
+	/**
+	 * Work for one album folder or archive. 
+	 */
+	private interface FolderWork {
+		void run() throws AarException;
+	}
+	
+	/**
+	 * Outstanding work of one folder: its own album files and its sub-folders. 
+	 */
+	private static final class FolderNode {
+		final String relativePath;
+		final FolderNode parent;
+		final AtomicInteger pending = new AtomicInteger(1);
+		/** Folder levels below the root folder. */
+		final int depth;
+		volatile boolean failed = false;
+		
+		/** The folder, its number of entries and its sub-folders, for the folder summaries. */
+		File folder = null;
+		int entries = 0;
+		List<String> children = null;
+		
+		FolderNode(String relativePath, FolderNode parent) {
+			this.relativePath = relativePath;
+			this.parent = parent;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+			if (parent != null) {
+				parent.pending.incrementAndGet();
+			}
+		}
 	}
 
 }
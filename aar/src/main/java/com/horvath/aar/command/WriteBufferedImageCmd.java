@@ -25,17 +25,33 @@
 package com.horvath.aar.command;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
 import java.util.logging.Level;
 
 import javax.imageio.ImageIO;
 
 import com.horvath.aar.application.Debugger;
 import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.image.JpegBudget.Encoding;
+import com.horvath.aar.io.AtomicFiles;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
+import com.horvath.aar.jfr.EncodeEvent;
+import com.horvath.aar.jfr.StageEvents;
+import com.horvath.aar.jfr.WriteEvent;
+import com.horvath.aar.walk.Governor;
 
 /**
  * Writes a BufferedImage to disk. 
+ * The image is encoded in memory, written to a temporary file in the same folder and renamed into place, 
+ * so a crash never leaves a truncated JPEG behind. 
+ * With a byte budget, the cover is encoded at the highest quality that fits it. 
  * @author jhorvath 
  */
 public class WriteBufferedImageCmd extends AarCommand {
@@ -43,13 +59,23 @@ public class WriteBufferedImageCmd extends AarCommand {
 	private File folder;
 	private String name;
 	private BufferedImage image;
+	private Durability durability = Durability.NONE;
+	private GroupCommit groupCommit = null;
+	private Governor governor = null;
+	private JpegBudget budget = null;
+	private BooleanSupplier abandoned = null;
+	
+	private Encoding encoding = null;
 	
 	public static final String DEFAULT_NAME = "album.jpg";
 	
+	public static final String MESSAGE_ABANDONED = "The write was abandoned before the cover was put in place";
+	
 	public static final String ERROR_NULL_FILE = "The file cannot be null";
 	public static final String ERROR_PARENT_FOLDER_DOES_NOT_EXIST = "The parent folder does not exist";
 	public static final String ERROR_FILE_IS_NOT_FOLDER = "The file is not a folder";
 	public static final String ERROR_IMAGE_NULL= "The image is null";
+	public static final String ERROR_NO_JPEG_WRITER = JpegBudget.ERROR_NO_JPEG_WRITER;
 	
 	/**
 	 * Constructor. 
@@ -80,13 +106,41 @@ public class WriteBufferedImageCmd extends AarCommand {
 		
 		validate();
 		
+		Path temp = null;
+		
 		try {
 			File outputfile = new File(folder.getAbsolutePath() + File.separator + name);
-			ImageIO.write(image, "jpg", outputfile);
+			Path target = outputfile.toPath();
+			encoding = encodeJpeg(image, outputfile.getPath(), governor, budget);
+			byte[] jpeg = encoding.getBytes();
+			
+			WriteEvent event = StageEvents.beginWrite();
+			
+			temp = AtomicFiles.createTempFile(target);
+			Files.write(temp, jpeg);
+			
+			if (abandoned != null && abandoned.getAsBoolean()) {
+				// the caller has moved on, and may have written or recorded the folder since 
+				AtomicFiles.deleteQuietly(temp);
+				message = MESSAGE_ABANDONED;
+				return;
+			}
+			AtomicFiles.commit(temp, target, durability, groupCommit);
+			
+			if (event != null) {
+				event.end();
+				if (event.shouldCommit()) {
+					event.path = outputfile.getPath();
+					event.bytes = jpeg.length;
+					event.durability = durability.name();
+					event.commit();
+				}
+			}
 			
 			success = true;
 			
 		} catch (IOException ex) {
+			AtomicFiles.deleteQuietly(temp);
 			final String message = "Unexpected Exception: " + ex.getMessage();
 			Debugger.printLog(message, this.getClass().getName(), Level.SEVERE);
 			this.message = message;
@@ -94,6 +148,82 @@ public class WriteBufferedImageCmd extends AarCommand {
 		}
 	}
 
+	/**
+	 * Encodes an image as JPEG in memory, the same way covers are written to disk. 
+	 * @param image BufferedImage 
+	 * @return byte[] 
+	 * @throws IOException if no JPEG writer is available for the image 
+	 */
+	public static byte[] encodeJpeg(BufferedImage image) throws IOException {
+		return encodeJpeg(image, "", null, null).getBytes();
+	}
+
+	/**
+	 * Encodes an image as JPEG in memory, charging the time it took to a governor. 
+	 * @param image BufferedImage 
+	 * @param governor Governor, null to encode at full speed 
+	 * @return byte[] 
+	 * @throws IOException if no JPEG writer is available for the image 
+	 */
+	public static byte[] encodeJpeg(BufferedImage image, Governor governor) throws IOException {
+		return encodeJpeg(image, "", governor, null).getBytes();
+	}
+
+	/**
+	 * Encodes an image as JPEG in memory within a byte budget, charging the time it took to a governor. 
+	 * @param image BufferedImage 
+	 * @param governor Governor, null to encode at full speed 
+	 * @param budget JpegBudget, null to encode at the default quality 
+	 * @return Encoding 
+	 * @throws IOException if no JPEG writer is available for the image 
+	 */
+	public static Encoding encodeJpeg(BufferedImage image, Governor governor, JpegBudget budget) throws IOException {
+		return encodeJpeg(image, "", governor, budget);
+	}
+
+	/**
+	 * Encodes an image as JPEG in memory, recording the encode for the flight recorder. 
+	 * All trials of a budgeted encode are charged to the governor and make up one event. 
+	 * @param image BufferedImage 
+	 * @param path String of the cover being written 
+	 * @param governor Governor, may be null 
+	 * @param budget JpegBudget, may be null 
+	 * @return Encoding 
+	 * @throws IOException if no JPEG writer is available for the image 
+	 */
+	private static Encoding encodeJpeg(BufferedImage image, String path, Governor governor, JpegBudget budget) throws IOException {
+		EncodeEvent event = StageEvents.beginEncode();
+		final long start = System.nanoTime();
+		
+		Encoding encoding;
+		if (budget != null) {
+			encoding = budget.encode(image);
+			
+		} else {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			if (!ImageIO.write(image, "jpg", out)) {
+				throw new IOException(ERROR_NO_JPEG_WRITER);
+			}
+			encoding = new Encoding(out.toByteArray(), JpegBudget.DEFAULT_QUALITY, image.getWidth(), image.getHeight(), 1, true);
+		}
+		
+		if (governor != null) {
+			governor.chargeEncode(System.nanoTime() - start);
+		}
+		
+		if (event != null) {
+			event.end();
+			if (event.shouldCommit()) {
+				event.path = path;
+				event.bytes = encoding.getBytes().length;
+				event.width = encoding.getWidth();
+				event.height = encoding.getHeight();
+				event.commit();
+			}
+		}
+		return encoding;
+	}
+
 	/**
 	 * Validates the constructor inputs. 
 	 * @throws AarException
@@ -132,5 +262,75 @@ public class WriteBufferedImageCmd extends AarCommand {
 	public BufferedImage getImage() {
 		return image;
 	}
+
+	public Durability getDurability() {
+		return durability;
+	}
+
+	/**
+	 * Sets how the written file is made durable. Defaults to rename only. 
+	 * @param durability Durability 
+	 */
+	public void setDurability(Durability durability) {
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	public GroupCommit getGroupCommit() {
+		return groupCommit;
+	}
+
+	/**
+	 * Sets the group commit shared by many writes in group commit mode. 
+	 * Without one, group commit mode syncs the file on its own. 
+	 * @param groupCommit GroupCommit 
+	 */
+	public void setGroupCommit(GroupCommit groupCommit) {
+		this.groupCommit = groupCommit;
+	}
+
+	public Governor getGovernor() {
+		return governor;
+	}
+
+	/**
+	 * Sets the governor that limits the processor share of encoding. Null encodes at full speed. 
+	 * @param governor Governor 
+	 */
+	public void setGovernor(Governor governor) {
+		this.governor = governor;
+	}
+
+	public JpegBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the largest size the cover may have. Null encodes at the default quality. 
+	 * @param budget JpegBudget 
+	 */
+	public void setBudget(JpegBudget budget) {
+		this.budget = budget;
+	}
+
+	public BooleanSupplier getAbandoned() {
+		return abandoned;
+	}
+
+	/**
+	 * Sets a check asked right before the cover is renamed into place. If it says the write was abandoned, 
+	 * the temporary file is removed and the command ends without success. Null always writes. 
+	 * @param abandoned BooleanSupplier 
+	 */
+	public void setAbandoned(BooleanSupplier abandoned) {
+		this.abandoned = abandoned;
+	}
+
+	/**
+	 * Returns the quality, size and dimensions the cover was written with. 
+	 * @return Encoding, null until the cover has been encoded 
+	 */
+	public Encoding getEncoding() {
+		return encoding;
+	}
 	
 }
@@ -0,0 +1,87 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.image;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+
+/**
+ * Reads image dimensions from the image header without decoding any pixels. 
+ * @author jhorvath
+ */
+public final class ImageHeaders {
+	
+	private ImageHeaders() { }
+	
+	/**
+	 * Returns the dimensions of an image file, or null if no image reader understands it. 
+	 * @param file File 
+	 * @return Dimension 
+	 * @throws IOException
+	 */
+	public static Dimension dimensions(File file) throws IOException {
+		try (ImageInputStream input = new FileImageInputStream(file)) {
+			return dimensions(input);
+		}
+	}
+	
+	/**
+	 * Returns the dimensions of an image stream, or null if no image reader understands it. 
+	 * The stream is cached in memory, never in a temporary file. 
+	 * @param in InputStream 
+	 * @return Dimension 
+	 * @throws IOException
+	 */
+	public static Dimension dimensions(InputStream in) throws IOException {
+		try (ImageInputStream input = new MemoryCacheImageInputStream(in)) {
+			return dimensions(input);
+		}
+	}
+	
+	private static Dimension dimensions(ImageInputStream input) throws IOException {
+		Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+		if (!readers.hasNext()) {
+			return null;
+		}
+		
+		ImageReader reader = readers.next();
+		try {
+			reader.setInput(input, true, true);
+			return new Dimension(reader.getWidth(0), reader.getHeight(0));
+			
+		} finally {
+			reader.dispose();
+		}
+	}
+}
@@ -0,0 +1,354 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.image;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Encodes covers as JPEG within a maximum file size. 
+ * The highest quality that fits is found by a binary search over whole percent quality levels, encoding the same 
+ * decoded image with one writer, one set of write parameters and one output buffer for every trial. Only when even 
+ * the lowest acceptable quality does not fit is the image scaled down, by the square root of the size it has to lose, 
+ * and searched again. 
+ * @author jhorvath
+ */
+public class JpegBudget {
+
+	/** Quality of ImageIO's JPEG writer when none is given, used when covers are written without a budget. */
+	public static final float DEFAULT_QUALITY = 0.75f;
+	public static final float DEFAULT_MIN_QUALITY = 0.5f;
+	public static final float MAX_QUALITY = 0.95f;
+	/** An image is not scaled below this many pixels on its longest side. */
+	public static final int MIN_SIDE = 64;
+
+	public static final String ERROR_MAX_BYTES = "The maximum size must be a positive number of bytes, optionally followed by K or M: ";
+	public static final String ERROR_MIN_QUALITY = "The minimum quality must be between 0.01 and " + MAX_QUALITY + ": ";
+	public static final String ERROR_NO_JPEG_WRITER = "No JPEG writer is available for the image";
+
+	private final long maxBytes;
+	private final float minQuality;
+
+	/**
+	 * Constructor. 
+	 * @param maxBytes long largest file size 
+	 * @throws AarException if the size is not positive 
+	 */
+	public JpegBudget(long maxBytes) throws AarException {
+		this(maxBytes, DEFAULT_MIN_QUALITY);
+	}
+
+	/**
+	 * Constructor. 
+	 * @param maxBytes long largest file size 
+	 * @param minQuality float lowest quality to use before the image is scaled down 
+	 * @throws AarException if the size is not positive or the quality is out of range 
+	 */
+	public JpegBudget(long maxBytes, float minQuality) throws AarException {
+		if (maxBytes <= 0) {
+			throw new AarException(ERROR_MAX_BYTES + maxBytes);
+		}
+		if (!(minQuality >= 0.01f && minQuality <= MAX_QUALITY)) {
+			throw new AarException(ERROR_MIN_QUALITY + minQuality);
+		}
+		this.maxBytes = maxBytes;
+		this.minQuality = minQuality;
+	}
+
+	/**
+	 * Parses a size such as 500000, 500K or 1.5M. 
+	 * @param text String 
+	 * @return long bytes 
+	 * @throws AarException
+	 */
+	public static long parseBytes(String text) throws AarException {
+		String value = text.trim().toUpperCase(Locale.ROOT);
+		long multiplier = 1;
+
+		if (value.length() > 1) {
+			final int shift = "KMG".indexOf(value.charAt(value.length() - 1)) + 1;
+			if (shift > 0) {
+				multiplier = 1L << (10 * shift);
+				value = value.substring(0, value.length() - 1).trim();
+			}
+		}
+
+		final double bytes;
+		try {
+			bytes = Double.parseDouble(value) * multiplier;
+
+		} catch (NumberFormatException ex) {
+			throw new AarException(ERROR_MAX_BYTES + text, ex);
+		}
+
+		if (!(bytes >= 1)) {
+			throw new AarException(ERROR_MAX_BYTES + text);
+		}
+		return (long) bytes;
+	}
+
+	/**
+	 * Encodes an image at the highest quality that fits the budget, scaling it down if it must. 
+	 * If the image does not fit even at the smallest size, the smallest encoding is returned and marked as over budget. 
+	 * @param image BufferedImage 
+	 * @return Encoding 
+	 * @throws IOException if no JPEG writer is available for the image 
+	 */
+	public Encoding encode(BufferedImage image) throws IOException {
+		Trials trials = new Trials(image, maxBytes);
+		try {
+			final int lowest = Math.round(minQuality * 100);
+			final int highest = Math.round(MAX_QUALITY * 100);
+
+			while (true) {
+				final int highestSize = trials.encode(highest);
+				if (highestSize <= maxBytes) {
+					return trials.result(highest, true);
+				}
+
+				final int lowestSize = trials.encode(lowest);
+				if (lowestSize <= maxBytes) {
+					return trials.result(search(trials, lowest, highest), true);
+				}
+
+				final BufferedImage current = trials.image;
+				final int side = Math.max(current.getWidth(), current.getHeight());
+				if (side <= MIN_SIDE) {
+					return trials.result(lowest, false);
+				}
+
+				// the size of a JPEG grows about with its number of pixels 
+				double scale = Math.sqrt((double) maxBytes / lowestSize) * 0.95;
+				scale = Math.max(0.25, Math.min(0.9, Math.max(scale, (double) MIN_SIDE / side)));
+				trials.image = scale(current, scale);
+			}
+
+		} finally {
+			trials.writer.dispose();
+		}
+	}
+
+	/**
+	 * Binary search between a quality that fits and one that does not. 
+	 * @param trials Trials 
+	 * @param fits int quality in percent that fits 
+	 * @param tooLarge int quality in percent that does not 
+	 * @return int highest quality in percent that fits 
+	 * @throws IOException
+	 */
+	private int search(Trials trials, int fits, int tooLarge) throws IOException {
+		while (tooLarge - fits > 1) {
+			final int mid = (fits + tooLarge) >>> 1;
+			if (trials.encode(mid) <= maxBytes) {
+				fits = mid;
+			} else {
+				tooLarge = mid;
+			}
+		}
+		return fits;
+	}
+
+	/**
+	 * Scales an image down with bilinear filtering. 
+	 * @param image BufferedImage 
+	 * @param scale double below 1 
+	 * @return BufferedImage 
+	 */
+	private static BufferedImage scale(BufferedImage image, double scale) {
+		final int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+		final int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+		BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = scaled.createGraphics();
+		try {
+			graphics.setColor(Color.WHITE);
+			graphics.fillRect(0, 0, width, height);
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(image, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		return scaled;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public float getMinQuality() {
+		return minQuality;
+	}
+
+	/**
+	 * The writer, parameters and buffer shared by all trials of one image, and the trial that fit best. 
+	 */
+	private static final class Trials {
+		final ImageWriter writer;
+		final ImageWriteParam param;
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final long maxBytes;
+		BufferedImage image;
+
+		int count = 0;
+		int lastQuality = -1;
+		BufferedImage lastImage = null;
+		byte[] kept = null;
+		int keptQuality = -1;
+		BufferedImage keptImage = null;
+
+		Trials(BufferedImage image, long maxBytes) throws IOException {
+			Iterator<ImageWriter> writers = ImageIO.getImageWriters(ImageTypeSpecifier.createFromRenderedImage(image), "jpg");
+			if (!writers.hasNext()) {
+				throw new IOException(ERROR_NO_JPEG_WRITER);
+			}
+			this.writer = writers.next();
+			this.param = writer.getDefaultWriteParam();
+			this.param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			this.image = image;
+			this.maxBytes = maxBytes;
+		}
+
+		/**
+		 * Encodes the current image at a quality. The bytes are kept until the next trial, or longer if they fit. 
+		 * @param quality int percent 
+		 * @return int size in bytes 
+		 * @throws IOException
+		 */
+		int encode(int quality) throws IOException {
+			if (quality == lastQuality && image == lastImage) {
+				return out.size();
+			}
+
+			out.reset();
+			param.setCompressionQuality(quality / 100f);
+			try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+				writer.setOutput(stream);
+				writer.write(null, new IIOImage(image, null, null), param);
+			}
+			count++;
+			lastQuality = quality;
+			lastImage = image;
+
+			// the search ends on the best trial that fit, which may not be the last one 
+			if (out.size() <= maxBytes && (quality > keptQuality || image != keptImage)) {
+				kept = out.toByteArray();
+				keptQuality = quality;
+				keptImage = image;
+			}
+			return out.size();
+		}
+
+		/**
+		 * Returns the encoding of the current image at a quality that has been tried. 
+		 * @param quality int percent 
+		 * @param fits boolean 
+		 * @return Encoding 
+		 * @throws IOException
+		 */
+		Encoding result(int quality, boolean fits) throws IOException {
+			byte[] bytes;
+			if (quality == lastQuality && image == lastImage) {
+				bytes = out.toByteArray();
+			} else if (quality == keptQuality && image == keptImage) {
+				bytes = kept;
+			} else {
+				encode(quality);
+				bytes = out.toByteArray();
+			}
+			return new Encoding(bytes, quality / 100f, image.getWidth(), image.getHeight(), count, fits);
+		}
+	}
+
+	/**
+	 * A cover encoded as JPEG, with the quality and size it was encoded at. 
+	 */
+	public static final class Encoding {
+		private final byte[] bytes;
+		private final float quality;
+		private final int width;
+		private final int height;
+		private final int trials;
+		private final boolean fits;
+
+		/**
+		 * Constructor. 
+		 * @param bytes byte[] JPEG data 
+		 * @param quality float 
+		 * @param width int 
+		 * @param height int 
+		 * @param trials int number of encodes it took 
+		 * @param fits boolean false if the budget could not be met 
+		 */
+		public Encoding(byte[] bytes, float quality, int width, int height, int trials, boolean fits) {
+			this.bytes = bytes;
+			this.quality = quality;
+			this.width = width;
+			this.height = height;
+			this.trials = trials;
+			this.fits = fits;
+		}
+
+		public byte[] getBytes() {
+			return bytes;
+		}
+
+		public float getQuality() {
+			return quality;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public int getTrials() {
+			return trials;
+		}
+
+		public boolean isFits() {
+			return fits;
+		}
+	}
+}
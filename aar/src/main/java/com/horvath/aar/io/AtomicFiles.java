@@ -0,0 +1,225 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * File system helpers for writing files with a temporary file and an atomic rename. 
+ * @author jhorvath
+ */
+public final class AtomicFiles {
+	
+	public static final String TEMP_SUFFIX = ".tmp";
+	
+	/** Age after which a temporary file that this process is not writing is taken as left behind by a killed run. */
+	public static final long STALE_TEMP_MILLIS = 60_000;
+	
+	/** Temporary files of this process that are not yet in place or deleted. */
+	private static final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+	
+	private AtomicFiles() { }
+	
+	/**
+	 * Creates a hidden temporary file next to the target, so the final rename never crosses file systems. 
+	 * The file gets the permissions of the target if there is one, and otherwise the default permissions 
+	 * under the umask, since the rename carries them over to the target. 
+	 * Stale temporary files of the same target are deleted first. 
+	 * @param target Path 
+	 * @return Path 
+	 * @throws IOException
+	 */
+	public static Path createTempFile(Path target) throws IOException {
+		final Path folder = target.toAbsolutePath().getParent();
+		deleteStaleTempFiles(target);
+		
+		while (true) {
+			// Files.createTempFile would make the file readable by its owner only 
+			Path temp = folder.resolve("." + target.getFileName() + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + TEMP_SUFFIX);
+			try {
+				Files.createFile(temp);
+				
+			} catch (FileAlreadyExistsException ex) {
+				continue;
+			}
+			inFlight.add(temp);
+			
+			if (Files.exists(target)) {
+				try {
+					copyPermissions(target, temp);
+				} catch (IOException ex) {
+					deleteQuietly(temp);
+					throw ex;
+				}
+			}
+			return temp;
+		}
+	}
+	
+	/**
+	 * Deletes the temporary files of a target that a killed run left behind, such as covers still queued 
+	 * on a group commit. Files this process is writing, and files younger than {@value #STALE_TEMP_MILLIS} ms, 
+	 * which another process may be writing, are left alone. Errors are ignored, as the write goes on regardless. 
+	 * @param target Path 
+	 * @return int number of files deleted 
+	 */
+	public static int deleteStaleTempFiles(Path target) {
+		final Path folder = target.toAbsolutePath().getParent();
+		final String prefix = "." + target.getFileName() + ".";
+		final long oldest = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+		
+		// names are compared as they are, since a glob would read brackets in them as a pattern 
+		DirectoryStream.Filter<Path> stale = path -> {
+			final String name = path.getFileName().toString();
+			return name.startsWith(prefix) && name.endsWith(TEMP_SUFFIX) && name.length() > prefix.length() + TEMP_SUFFIX.length()
+					&& !inFlight.contains(path) && Files.getLastModifiedTime(path).toMillis() < oldest;
+		};
+		
+		int deleted = 0;
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(folder, stale)) {
+			for (Path temp : entries) {
+				if (Files.deleteIfExists(temp)) {
+					deleted++;
+				}
+			}
+		} catch (IOException | RuntimeException ex) {
+			// the folder may be gone or unreadable, which the write itself reports 
+		}
+		return deleted;
+	}
+	
+	/**
+	 * Renames the temporary file over the target. 
+	 * Falls back to a plain replace on file systems that cannot move atomically. 
+	 * @param temp Path 
+	 * @param target Path 
+	 * @throws IOException
+	 */
+	public static void moveIntoPlace(Path temp, Path target) throws IOException {
+		try {
+			Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+			
+		} catch (AtomicMoveNotSupportedException ex) {
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+		inFlight.remove(temp);
+	}
+	
+	/**
+	 * Moves a finished temporary file over its target according to the durability setting. 
+	 * In group commit mode the file is queued on the group commit, or synced on its own if there is none. 
+	 * @param temp Path 
+	 * @param target Path 
+	 * @param durability Durability 
+	 * @param groupCommit GroupCommit, may be null 
+	 * @throws IOException
+	 * @throws AarException
+	 */
+	public static void commit(Path temp, Path target, Durability durability, GroupCommit groupCommit) throws IOException, AarException {
+		
+		if (durability == Durability.GROUP_COMMIT && groupCommit != null) {
+			// the group commit forces and renames the file together with others
+			groupCommit.add(temp, target);
+			
+		} else if (durability == Durability.NONE) {
+			moveIntoPlace(temp, target);
+			
+		} else {
+			fsync(temp);
+			moveIntoPlace(temp, target);
+			fsyncDirectory(target.toAbsolutePath().getParent());
+		}
+	}
+	
+	/**
+	 * Gives a file the POSIX permissions of another, on file systems that have them. 
+	 * A replaced file keeps its permissions this way. 
+	 * @param source Path 
+	 * @param target Path 
+	 * @throws IOException
+	 */
+	public static void copyPermissions(Path source, Path target) throws IOException {
+		try {
+			Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+			
+		} catch (UnsupportedOperationException ex) {
+			// not a POSIX file system
+		}
+	}
+	
+	/**
+	 * Forces the contents of a file to the storage device. 
+	 * @param file Path 
+	 * @throws IOException
+	 */
+	public static void fsync(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.force(true);
+		}
+	}
+	
+	/**
+	 * Forces a folder entry to the storage device so a rename inside it is durable. 
+	 * Platforms that cannot open a folder for syncing, such as Windows, are skipped. 
+	 * @param folder Path 
+	 */
+	public static void fsyncDirectory(Path folder) {
+		try (FileChannel channel = FileChannel.open(folder, StandardOpenOption.READ)) {
+			channel.force(true);
+			
+		} catch (IOException ex) {
+			// not supported on this platform, the rename is as durable as it can be made
+		}
+	}
+	
+	/**
+	 * Deletes a temporary file left behind by a failed write, ignoring errors. 
+	 * @param temp Path 
+	 */
+	public static void deleteQuietly(Path temp) {
+		if (temp == null) {
+			return;
+		}
+		try {
+			Files.deleteIfExists(temp);
+		} catch (IOException ex) {
+			// nothing more can be done
+		}
+		inFlight.remove(temp);
+	}
+}
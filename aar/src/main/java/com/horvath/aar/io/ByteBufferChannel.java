@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.io;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Read-only seekable channel over a ByteBuffer, so in-memory data can be scanned like a file. 
+ * @author jhorvath
+ */
+public class ByteBufferChannel implements SeekableByteChannel {
+	
+	private final ByteBuffer buffer;
+	private boolean open = true;
+	
+	/**
+	 * Constructor. The channel covers the buffer from its position to its limit. 
+	 * @param buffer ByteBuffer 
+	 */
+	public ByteBufferChannel(ByteBuffer buffer) {
+		this.buffer = buffer.slice();
+	}
+	
+	/**
+	 * Constructor. 
+	 * @param bytes byte[] 
+	 */
+	public ByteBufferChannel(byte[] bytes) {
+		this(ByteBuffer.wrap(bytes));
+	}
+
+	@Override
+	public synchronized int read(ByteBuffer dst) throws ClosedChannelException {
+		ensureOpen();
+		
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+		
+		final int count = Math.min(dst.remaining(), buffer.remaining());
+		ByteBuffer part = buffer.duplicate();
+		part.limit(part.position() + count);
+		dst.put(part);
+		buffer.position(buffer.position() + count);
+		
+		return count;
+	}
+
+	@Override
+	public int write(ByteBuffer src) {
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public synchronized long position() throws ClosedChannelException {
+		ensureOpen();
+		return buffer.position();
+	}
+
+	@Override
+	public synchronized SeekableByteChannel position(long newPosition) throws ClosedChannelException {
+		ensureOpen();
+		buffer.position((int) Math.min(newPosition, buffer.limit()));
+		return this;
+	}
+
+	@Override
+	public synchronized long size() throws ClosedChannelException {
+		ensureOpen();
+		return buffer.limit();
+	}
+
+	@Override
+	public SeekableByteChannel truncate(long size) {
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public synchronized boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public synchronized void close() {
+		open = false;
+	}
+	
+	private void ensureOpen() throws ClosedChannelException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.io;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * How hard the AAR works to make written files survive a crash or power loss. 
+ * Every mode writes to a temporary file and renames it into place, so readers never see a partial file. 
+ * @author jhorvath
+ */
+public enum Durability {
+	
+	/** Rename only, leave flushing to the operating system. */
+	NONE("none"),
+	
+	/** Force every file and its folder to disk before moving on. */
+	FSYNC("fsync"),
+	
+	/** Batch the forces of many files and folders into one group commit. */
+	GROUP_COMMIT("group");
+	
+	public static final String ERROR_UNKNOWN_DURABILITY = "The durability must be one of none, fsync or group.";
+	
+	private final String label;
+	
+	Durability(String label) {
+		this.label = label;
+	}
+	
+	public String getLabel() {
+		return label;
+	}
+	
+	/**
+	 * Parses a durability given on the command line. 
+	 * @param text String 
+	 * @return Durability 
+	 * @throws AarException
+	 */
+	public static Durability parse(String text) throws AarException {
+		for (Durability durability : values()) {
+			if (durability.label.equalsIgnoreCase(text)) {
+				return durability;
+			}
+		}
+		throw new AarException(ERROR_UNKNOWN_DURABILITY);
+	}
+}
@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Collects finished temporary files and makes them durable in batches. 
+ * A commit forces every pending file, renames them into place and then forces each parent folder once, 
+ * so many outputs share the cost of the syncs instead of paying one per file. 
+ * A batch is committed once it is full, or at the latest a fixed time after its first file was queued, 
+ * so covers appear while a run goes on and few temporary files are left behind if it is killed. 
+ * @author jhorvath
+ */
+public class GroupCommit {
+	
+	public static final int DEFAULT_BATCH_SIZE = 128;
+	public static final long DEFAULT_MAX_DELAY_MILLIS = 1000;
+	
+	/** Commits the batches whose time is up, on one daemon thread for all group commits. */
+	private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "aar-group-commit");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final int batchSize;
+	private final long maxDelayMillis;
+	private final List<Path[]> pending = new ArrayList<>();
+	private ScheduledFuture<?> scheduled = null;
+	private AarException lateFailure = null;
+	
+	/**
+	 * Constructor. 
+	 */
+	public GroupCommit() {
+		this(DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY_MILLIS);
+	}
+	
+	/**
+	 * Constructor. 
+	 * @param batchSize int number of files collected before a commit happens 
+	 * @param maxDelayMillis long longest time a queued file waits for its commit 
+	 */
+	public GroupCommit(int batchSize, long maxDelayMillis) {
+		this.batchSize = Math.max(1, batchSize);
+		this.maxDelayMillis = Math.max(1, maxDelayMillis);
+	}
+	
+	/**
+	 * Queues a completely written temporary file to be moved over its target. 
+	 * @param temp Path 
+	 * @param target Path 
+	 * @throws AarException
+	 */
+	public synchronized void add(Path temp, Path target) throws AarException {
+		pending.add(new Path[] { temp, target });
+		
+		if (pending.size() >= batchSize) {
+			commitPending();
+		} else if (scheduled == null) {
+			scheduled = timer.schedule(this::commitLate, maxDelayMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * Forces, renames and syncs the folders of every queued file. 
+	 * @throws AarException if this or an earlier timed commit failed 
+	 */
+	public synchronized void commit() throws AarException {
+		commitPending();
+		
+		if (lateFailure != null) {
+			AarException failure = lateFailure;
+			lateFailure = null;
+			throw failure;
+		}
+	}
+	
+	/**
+	 * Commits a batch whose time is up. A failure is kept for the next call to commit, 
+	 * which the run makes before it claims its covers are done. 
+	 */
+	private synchronized void commitLate() {
+		scheduled = null;
+		try {
+			commitPending();
+		} catch (AarException ex) {
+			if (lateFailure == null) {
+				lateFailure = ex;
+			}
+		}
+	}
+	
+	/**
+	 * Forces, renames and syncs the folders of every queued file. 
+	 * @throws AarException
+	 */
+	private void commitPending() throws AarException {
+		if (scheduled != null) {
+			scheduled.cancel(false);
+			scheduled = null;
+		}
+		if (pending.isEmpty()) {
+			return;
+		}
+		
+		Set<Path> folders = new LinkedHashSet<>();
+		
+		try {
+			for (Path[] entry : pending) {
+				AtomicFiles.fsync(entry[0]);
+			}
+			
+			for (Path[] entry : pending) {
+				AtomicFiles.moveIntoPlace(entry[0], entry[1]);
+				folders.add(entry[1].toAbsolutePath().getParent());
+			}
+			
+			for (Path folder : folders) {
+				AtomicFiles.fsyncDirectory(folder);
+			}
+			
+		} catch (IOException ex) {
+			for (Path[] entry : pending) {
+				AtomicFiles.deleteQuietly(entry[0]);
+			}
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+			
+		} finally {
+			pending.clear();
+		}
+	}
+	
+	public synchronized int getPendingCount() {
+		return pending.size();
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Output folders mirroring the structure of a source folder below a separate root.
+ * A folder is only created when a cover is about to be written to it, together with any missing parents in one pass,
+ * and every folder created or found is remembered, so an album whose parent is already known costs one mkdir
+ * and an album seen before costs nothing.
+ * @author jhorvath
+ */
+public class MirrorTree {
+
+	private final Path root;
+	private final Set<Path> known = ConcurrentHashMap.newKeySet();
+
+	public static final String ERROR_OUTSIDE_ROOT = "The folder is outside the output root: ";
+
+	/**
+	 * Constructor.
+	 * @param root File of the output root
+	 */
+	public MirrorTree(File root) {
+		this.root = root.toPath().toAbsolutePath().normalize();
+	}
+
+	/**
+	 * Returns the output folder of a source folder, creating it and its missing parents if needed.
+	 * @param relativePath String of the source folder below the source root, using forward slashes
+	 * @return File
+	 * @throws AarException if the folder cannot be created or the path leaves the output root
+	 */
+	public File folderFor(String relativePath) throws AarException {
+		final Path folder = resolve(relativePath);
+		if (known.contains(folder)) {
+			return folder.toFile();
+		}
+
+		// climb to the nearest folder already known, then create downwards without looking at the disk first
+		Deque<Path> missing = new ArrayDeque<>();
+		Path current = folder;
+		while (current != null && !known.contains(current)) {
+			missing.push(current);
+			current = current.equals(root) ? null : current.getParent();
+		}
+
+		try {
+			while (!missing.isEmpty()) {
+				final Path next = missing.pop();
+				try {
+					if (next.equals(root)) {
+						Files.createDirectories(next);
+					} else {
+						Files.createDirectory(next);
+					}
+				} catch (FileAlreadyExistsException ex) {
+					if (!Files.isDirectory(next)) {
+						throw ex;
+					}
+				}
+				known.add(next);
+			}
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+		return folder.toFile();
+	}
+
+	/**
+	 * Returns the output folder of a source folder without creating it.
+	 * @param relativePath String
+	 * @return File
+	 * @throws AarException if the path leaves the output root
+	 */
+	public File resolveFolder(String relativePath) throws AarException {
+		return resolve(relativePath).toFile();
+	}
+
+	/**
+	 * Checks if an output root lies inside a source folder or holds it. 
+	 * Either way round, mirrored covers could land in the source tree.
+	 * @param source File
+	 * @param output File
+	 * @return boolean
+	 */
+	public static boolean overlaps(File source, File output) {
+		final Path sourcePath = source.toPath().toAbsolutePath().normalize();
+		final Path outputPath = output.toPath().toAbsolutePath().normalize();
+		return outputPath.startsWith(sourcePath) || sourcePath.startsWith(outputPath);
+	}
+
+	public File getRoot() {
+		return root.toFile();
+	}
+
+	/**
+	 * Returns the number of output folders created or found so far.
+	 * @return int
+	 */
+	public int getKnownCount() {
+		return known.size();
+	}
+
+	private Path resolve(String relativePath) throws AarException {
+		final Path folder = relativePath == null || relativePath.isEmpty() ? root : root.resolve(relativePath).normalize();
+		if (!folder.startsWith(root)) {
+			throw new AarException(ERROR_OUTSIDE_ROOT + relativePath);
+		}
+		return folder;
+	}
+}
@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the decode of an embedded picture into an image.
+ * @author jhorvath
+ */
+@Name(DecodeEvent.NAME)
+@Label("Decode")
+@Category({ TagReadEvent.CATEGORY, "Stages" })
+@Description("Decoding an embedded picture")
+@StackTrace(false)
+public class DecodeEvent extends jdk.jfr.Event {
+
+	public static final String NAME = "com.horvath.aar.Decode";
+
+	@Label("Path")
+	public String path;
+
+	@Label("Encoded Bytes")
+	@DataAmount
+	public long bytes;
+
+	@Label("Width")
+	@Description("Width of the decoded image, 0 if it could not be decoded")
+	public int width;
+
+	@Label("Height")
+	@Description("Height of the decoded image, 0 if it could not be decoded")
+	public int height;
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.jfr;
+
+/**
+ * Begins the flight recorder events of the extraction stages, if the JVM has the jdk.jfr module.
+ * A runtime image can be built without the module. Then every method returns null and the events are never loaded,
+ * so callers check for null instead of touching an event class.
+ * @author jhorvath
+ */
+public final class StageEvents {
+
+	/** True if the jdk.jfr API is present, so events can be created. */
+	public static final boolean AVAILABLE = isAvailable();
+
+	private StageEvents() { }
+
+	/**
+	 * Begins a tag read event.
+	 * @return TagReadEvent, null without the jdk.jfr API
+	 */
+	public static TagReadEvent beginTagRead() {
+		if (!AVAILABLE) {
+			return null;
+		}
+		TagReadEvent event = new TagReadEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Begins a decode event.
+	 * @return DecodeEvent, null without the jdk.jfr API
+	 */
+	public static DecodeEvent beginDecode() {
+		if (!AVAILABLE) {
+			return null;
+		}
+		DecodeEvent event = new DecodeEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Begins an encode event.
+	 * @return EncodeEvent, null without the jdk.jfr API
+	 */
+	public static EncodeEvent beginEncode() {
+		if (!AVAILABLE) {
+			return null;
+		}
+		EncodeEvent event = new EncodeEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Begins a write event.
+	 * @return WriteEvent, null without the jdk.jfr API
+	 */
+	public static WriteEvent beginWrite() {
+		if (!AVAILABLE) {
+			return null;
+		}
+		WriteEvent event = new WriteEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Begins a folder visit event.
+	 * @return FolderVisitEvent, null without the jdk.jfr API
+	 */
+	public static FolderVisitEvent beginFolderVisit() {
+		if (!AVAILABLE) {
+			return null;
+		}
+		FolderVisitEvent event = new FolderVisitEvent();
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * Looks for the base class of all events without initialising it.
+	 * @return boolean
+	 */
+	private static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event", false, StageEvents.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError ex) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event spanning the read of an audio file's tag, up to the bytes of the selected picture.
+ * @author jhorvath
+ */
+@Name(TagReadEvent.NAME)
+@Label("Tag Read")
+@Category({ TagReadEvent.CATEGORY, "Stages" })
+@Description("Reading the tag of an audio file and the payload of its cover picture")
+@StackTrace(false)
+public class TagReadEvent extends jdk.jfr.Event {
+
+	public static final String NAME = "com.horvath.aar.TagRead";
+	public static final String CATEGORY = "Album Art Retriever";
+
+	@Label("Path")
+	public String path;
+
+	@Label("Picture Bytes")
+	@DataAmount
+	public long bytes;
+
+	@Label("Picture Type")
+	@Description("ID3 picture type of the selected picture, -1 if none was selected")
+	public int pictureType = -1;
+
+	@Label("Reader")
+	@Description("Tag scanner, or jaudiotagger when the scanner could not handle the file")
+	public String reader;
+}
@@ -0,0 +1,253 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.pack;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Random access to the covers of a cover pack. The index is memory mapped and binary searched in place,
+ * so opening a pack costs two file opens however many covers it holds, and a lookup reads only the cover itself.
+ * A reader sees the pack as of the last time its index was written, and may be shared between threads.
+ * @author jhorvath
+ */
+public class CoverPackReader implements Closeable {
+
+	private final File packFile;
+	private final FileChannel channel;
+	private final MappedByteBuffer index;
+	private final int count;
+	private final int keysStart;
+
+	public static final String ERROR_NO_INDEX = "The pack has no index: ";
+	public static final String ERROR_STALE_INDEX = "The pack index does not belong to the pack, open the pack for writing to rebuild it: ";
+
+	/**
+	 * Constructor.
+	 */
+	private CoverPackReader(File packFile, FileChannel channel, MappedByteBuffer index) {
+		this.packFile = packFile;
+		this.channel = channel;
+		this.index = index;
+		this.count = index.getInt(24);
+		this.keysStart = PackFormat.INDEX_HEADER_SIZE + count * PackFormat.ENTRY_SIZE;
+	}
+
+	/**
+	 * Opens a pack for reading.
+	 * @param packFile File
+	 * @return CoverPackReader
+	 * @throws AarException if the pack or its index is missing, or they do not belong together
+	 */
+	public static CoverPackReader open(File packFile) throws AarException {
+		File indexFile = PackFormat.indexFile(packFile);
+		if (!indexFile.isFile()) {
+			throw new AarException(ERROR_NO_INDEX + packFile.getPath());
+		}
+
+		FileChannel channel = null;
+
+		try (FileChannel indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ);
+
+			// the mapping stays valid after its channel is closed
+			MappedByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+			ByteBuffer header = PackFormat.read(channel, 0, PackFormat.PACK_HEADER_SIZE);
+
+			if (index.limit() < PackFormat.INDEX_HEADER_SIZE || !PackFormat.hasMagic(index, 0, PackFormat.INDEX_MAGIC)
+					|| header.limit() < PackFormat.PACK_HEADER_SIZE || !PackFormat.hasMagic(header, 0, PackFormat.PACK_MAGIC)
+					|| index.getLong(8) != header.getLong(8) || index.getLong(16) > channel.size()
+					|| PackFormat.INDEX_HEADER_SIZE + (long) index.getInt(24) * PackFormat.ENTRY_SIZE + index.getInt(28) > index.limit()) {
+				throw new AarException(ERROR_STALE_INDEX + packFile.getPath());
+			}
+
+			return new CoverPackReader(packFile, channel, index);
+
+		} catch (IOException ex) {
+			closeQuietly(channel);
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+
+		} catch (AarException ex) {
+			closeQuietly(channel);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Returns the cover stored under an album path.
+	 * @param key String album path
+	 * @return byte[] encoded cover, or null if the pack has none for the path
+	 * @throws AarException
+	 */
+	public byte[] read(String key) throws AarException {
+		final int entry = find(PackFormat.utf8(key));
+		if (entry < 0) {
+			return null;
+		}
+
+		final long position = index.getLong(entry + 8);
+		final int length = index.getInt(entry + 16);
+
+		try {
+			ByteBuffer image = PackFormat.read(channel, position, length);
+			if (image.limit() < length) {
+				throw new IOException("Unexpected end of pack at " + position);
+			}
+			return image.array();
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Returns true if the pack holds a cover for an album path.
+	 * @param key String
+	 * @return boolean
+	 */
+	public boolean contains(String key) {
+		return find(PackFormat.utf8(key)) >= 0;
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the cover stored under an album path, or null if there is none.
+	 * @param key String
+	 * @return byte[]
+	 */
+	public byte[] getHash(String key) {
+		final int entry = find(PackFormat.utf8(key));
+		if (entry < 0) {
+			return null;
+		}
+
+		byte[] hash = new byte[PackFormat.HASH_SIZE];
+		for (int i = 0; i < hash.length; i++) {
+			hash[i] = index.get(entry + 20 + i);
+		}
+		return hash;
+	}
+
+	/**
+	 * Returns every album path in the pack, in index order.
+	 * @return List of String
+	 */
+	public List<String> keys() {
+		List<String> keys = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			keys.add(new String(key(entryOffset(i)), StandardCharsets.UTF_8));
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns the number of album paths in the pack.
+	 * @return int
+	 */
+	public int size() {
+		return count;
+	}
+
+	public File getPackFile() {
+		return packFile;
+	}
+
+	@Override
+	public void close() {
+		closeQuietly(channel);
+	}
+
+	/**
+	 * Binary searches the index and returns the offset of the key's entry, or -1.
+	 */
+	private int find(byte[] key) {
+		int low = 0;
+		int high = count - 1;
+
+		while (low <= high) {
+			final int middle = (low + high) >>> 1;
+			final int entry = entryOffset(middle);
+			final int order = compare(entry, key);
+
+			if (order < 0) {
+				low = middle + 1;
+			} else if (order > 0) {
+				high = middle - 1;
+			} else {
+				return entry;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Compares the key of an entry with a key, byte by byte in the mapping.
+	 */
+	private int compare(int entry, byte[] key) {
+		final int start = keysStart + index.getInt(entry);
+		final int length = index.getInt(entry + 4);
+		final int common = Math.min(length, key.length);
+
+		for (int i = 0; i < common; i++) {
+			final int diff = (index.get(start + i) & 0xff) - (key[i] & 0xff);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return length - key.length;
+	}
+
+	private byte[] key(int entry) {
+		final int start = keysStart + index.getInt(entry);
+		byte[] key = new byte[index.getInt(entry + 4)];
+		for (int i = 0; i < key.length; i++) {
+			key[i] = index.get(start + i);
+		}
+		return key;
+	}
+
+	private static int entryOffset(int position) {
+		return PackFormat.INDEX_HEADER_SIZE + position * PackFormat.ENTRY_SIZE;
+	}
+
+	private static void closeQuietly(FileChannel channel) {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				// nothing was written
+			}
+		}
+	}
+}
@@ -0,0 +1,574 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.pack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.AtomicFiles;
+import com.horvath.aar.io.Durability;
+
+/**
+ * Appends covers to a cover pack, keyed by album path, and keeps its index up to date.
+ * A cover that is already stored under its key with the same hash is not written again.
+ * Opening a pack recovers records appended after the index was last written and drops a record
+ * cut short by a crash, so an interrupted run never loses the covers that reached the pack.
+ * Replaced covers stay in the pack as stale bytes until it is compacted.
+ * The pack is locked while it is open, so a second run appending to the same pack waits for the first to close it.
+ * @author jhorvath
+ */
+public class CoverPackWriter implements AutoCloseable {
+
+	private final File packFile;
+	private final Durability durability;
+
+	private FileChannel channel;
+	private long packId;
+	private long length;
+	private boolean dirty = false;
+	private Map<String, Entry> entries = new HashMap<>();
+
+	public static final String ERROR_NOT_A_PACK = "The file is not an AAR cover pack: ";
+	public static final String ERROR_KEY_TOO_LONG = "The album path is too long for the pack: ";
+	public static final String ERROR_CLOSED = "The pack is closed.";
+	public static final String ERROR_IN_USE = "The pack is already open in this run: ";
+
+	/**
+	 * Constructor.
+	 * @param packFile File
+	 * @param durability Durability of the pack and its index when they are closed or compacted
+	 */
+	private CoverPackWriter(File packFile, Durability durability) {
+		this.packFile = packFile;
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	/**
+	 * Opens a pack for appending, creating it if it does not exist.
+	 * @param packFile File
+	 * @param durability Durability
+	 * @return CoverPackWriter
+	 * @throws AarException if the file is not a pack or cannot be read
+	 */
+	public static CoverPackWriter open(File packFile, Durability durability) throws AarException {
+		CoverPackWriter writer = new CoverPackWriter(packFile, durability);
+
+		try {
+			writer.load();
+
+		} catch (IOException ex) {
+			writer.closeQuietly();
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+
+		} catch (AarException ex) {
+			writer.closeQuietly();
+			throw ex;
+		}
+		return writer;
+	}
+
+	/**
+	 * Reads the index, then the records the index does not cover yet.
+	 */
+	private void load() throws IOException, AarException {
+		channel = openLocked();
+
+		if (channel.size() == 0) {
+			packId = new SecureRandom().nextLong();
+			length = writeHeader(channel, packId);
+			dirty = true;
+			return;
+		}
+
+		ByteBuffer header = PackFormat.read(channel, 0, PackFormat.PACK_HEADER_SIZE);
+		if (header.limit() < PackFormat.PACK_HEADER_SIZE || !PackFormat.hasMagic(header, 0, PackFormat.PACK_MAGIC)) {
+			throw new AarException(ERROR_NOT_A_PACK + packFile.getPath());
+		}
+		packId = header.getLong(8);
+
+		long indexed = loadIndex();
+		if (indexed < 0) {
+			// no usable index, rebuild it from the records
+			entries.clear();
+			indexed = PackFormat.PACK_HEADER_SIZE;
+			dirty = true;
+		}
+
+		length = scan(indexed);
+
+		if (length < channel.size()) {
+			Debugger.printLog("Dropping " + (channel.size() - length) + " bytes of an incomplete record", this.getClass().getName(), Level.WARNING);
+			channel.truncate(length);
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Opens the pack and takes an exclusive lock on it, waiting while another process holds it.
+	 * A pack compacted while waiting has been replaced by a new file, which is opened and locked in turn.
+	 */
+	private FileChannel openLocked() throws IOException, AarException {
+		while (true) {
+			FileChannel opened = FileChannel.open(packFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			try {
+				lock(opened);
+				if (isCurrent(opened)) {
+					return opened;
+				}
+				opened.close();
+
+			} catch (IOException | AarException | RuntimeException ex) {
+				opened.close();
+				throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Takes an exclusive lock on a pack channel, logging when another process holds it.
+	 */
+	private void lock(FileChannel target) throws IOException, AarException {
+		try {
+			FileLock lock = target.tryLock();
+			if (lock == null) {
+				Debugger.printLog("Waiting for another run to close " + packFile.getPath(), this.getClass().getName());
+				target.lock();
+			}
+
+		} catch (OverlappingFileLockException ex) {
+			throw new AarException(ERROR_IN_USE + packFile.getPath(), ex);
+		}
+	}
+
+	/**
+	 * Returns true if a locked channel still reads the file at the pack path, by comparing their headers,
+	 * which differ in the pack id once the pack is compacted.
+	 */
+	private boolean isCurrent(FileChannel locked) throws IOException {
+		try (FileChannel current = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer expected = PackFormat.read(current, 0, PackFormat.PACK_HEADER_SIZE);
+			ByteBuffer actual = PackFormat.read(locked, 0, PackFormat.PACK_HEADER_SIZE);
+			return expected.equals(actual);
+
+		} catch (NoSuchFileException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Loads the entries of the index. Returns the pack length the index covers, or -1 if there is no index
+	 * or it belongs to another pack.
+	 */
+	private long loadIndex() throws IOException {
+		File indexFile = PackFormat.indexFile(packFile);
+		if (!indexFile.isFile()) {
+			return -1;
+		}
+
+		try (FileChannel indexChannel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			if (indexChannel.size() > Integer.MAX_VALUE) {
+				return -1;
+			}
+			ByteBuffer index = PackFormat.read(indexChannel, 0, (int) indexChannel.size());
+
+			if (index.limit() < PackFormat.INDEX_HEADER_SIZE || !PackFormat.hasMagic(index, 0, PackFormat.INDEX_MAGIC)
+					|| index.getLong(8) != packId) {
+				return -1;
+			}
+
+			final long covered = index.getLong(16);
+			final int count = index.getInt(24);
+			final int keysLength = index.getInt(28);
+			final long keysStart = PackFormat.INDEX_HEADER_SIZE + (long) count * PackFormat.ENTRY_SIZE;
+
+			if (count < 0 || keysLength < 0 || keysStart + keysLength > index.limit() || covered > channel.size()) {
+				return -1;
+			}
+
+			for (int i = 0; i < count; i++) {
+				final int entry = PackFormat.INDEX_HEADER_SIZE + i * PackFormat.ENTRY_SIZE;
+				final int keyOffset = index.getInt(entry);
+				final int keyLength = index.getInt(entry + 4);
+				if (keyOffset < 0 || keyLength < 0 || keyOffset + (long) keyLength > keysLength) {
+					return -1;
+				}
+
+				byte[] hash = new byte[PackFormat.HASH_SIZE];
+				for (int h = 0; h < hash.length; h++) {
+					hash[h] = index.get(entry + 20 + h);
+				}
+
+				String key = new String(index.array(), (int) keysStart + keyOffset, keyLength, StandardCharsets.UTF_8);
+				entries.put(key, new Entry(index.getLong(entry + 8), index.getInt(entry + 16), hash));
+			}
+			return covered;
+		}
+	}
+
+	/**
+	 * Reads the records from a position to the end of the pack into the entries.
+	 * Returns the position after the last complete record.
+	 */
+	private long scan(long from) throws IOException {
+		final long size = channel.size();
+		long position = from;
+		int recovered = 0;
+
+		while (position + PackFormat.RECORD_HEADER_SIZE <= size) {
+			ByteBuffer header = PackFormat.read(channel, position, PackFormat.RECORD_HEADER_SIZE);
+			if (header.limit() < PackFormat.RECORD_HEADER_SIZE || header.getInt(0) != PackFormat.RECORD_MARKER) {
+				break;
+			}
+
+			final int keyLength = header.getInt(4);
+			final int imageLength = header.getInt(8);
+			final long imagePosition = position + PackFormat.RECORD_HEADER_SIZE + keyLength;
+
+			if (keyLength <= 0 || keyLength > PackFormat.MAX_KEY_LENGTH || imageLength < 0 || imagePosition + imageLength > size) {
+				break;
+			}
+
+			ByteBuffer key = PackFormat.read(channel, position + PackFormat.RECORD_HEADER_SIZE, keyLength);
+			byte[] hash = Arrays.copyOfRange(header.array(), 12, 12 + PackFormat.HASH_SIZE);
+
+			entries.put(new String(key.array(), 0, key.limit(), StandardCharsets.UTF_8), new Entry(imagePosition, imageLength, hash));
+			position = imagePosition + imageLength;
+			recovered++;
+		}
+
+		if (recovered > 0) {
+			Debugger.printLog("Recovered " + recovered + " records missing from the pack index", this.getClass().getName());
+			dirty = true;
+		}
+		return position;
+	}
+
+	/**
+	 * Stores a cover under an album path, unless the same cover is stored there already.
+	 * @param key String album path
+	 * @param image byte[] encoded cover
+	 * @return boolean true if the cover was appended
+	 * @throws AarException
+	 */
+	public synchronized boolean put(String key, byte[] image) throws AarException {
+		if (channel == null) {
+			throw new AarException(ERROR_CLOSED);
+		}
+
+		final byte[] keyBytes = PackFormat.utf8(key);
+		if (keyBytes.length == 0 || keyBytes.length > PackFormat.MAX_KEY_LENGTH) {
+			throw new AarException(ERROR_KEY_TOO_LONG + key);
+		}
+
+		final byte[] hash = PackFormat.sha256(image);
+		Entry existing = entries.get(key);
+		if (existing != null && Arrays.equals(existing.hash, hash)) {
+			return false;
+		}
+
+		try {
+			length = append(channel, length, keyBytes, image, hash);
+			entries.put(key, new Entry(length - image.length, image.length, hash));
+			dirty = true;
+			return true;
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Writes the index for everything appended so far, so a reader sees it.
+	 * @throws AarException
+	 */
+	public synchronized void flush() throws AarException {
+		if (channel == null || !dirty) {
+			return;
+		}
+
+		try {
+			if (durability != Durability.NONE) {
+				// the records must be durable before an index points at them
+				channel.force(false);
+			}
+			writeIndex();
+			dirty = false;
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Rewrites the pack with only the current cover of every album path that the filter keeps, in key order.
+	 * Stale records and covers whose bytes no longer match their hash are dropped.
+	 * @param keep Predicate deciding which album paths stay in the pack, null keeps all
+	 * @return long number of bytes the pack shrank by
+	 * @throws AarException
+	 */
+	public synchronized long compact(Predicate<String> keep) throws AarException {
+		if (channel == null) {
+			throw new AarException(ERROR_CLOSED);
+		}
+
+		final long oldLength = length;
+		final long newId = new SecureRandom().nextLong();
+		Map<String, Entry> kept = new HashMap<>();
+		Path temp = null;
+
+		try {
+			temp = AtomicFiles.createTempFile(packFile.toPath());
+			long newLength;
+
+			try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				newLength = writeHeader(target, newId);
+
+				for (String key : sortedKeys(entries)) {
+					if (keep != null && !keep.test(key)) {
+						continue;
+					}
+
+					Entry entry = entries.get(key);
+					ByteBuffer image = PackFormat.read(channel, entry.position, entry.length);
+					if (image.limit() < entry.length || !Arrays.equals(entry.hash, PackFormat.sha256(image.array()))) {
+						Debugger.printLog("Dropping damaged cover of " + key, this.getClass().getName(), Level.WARNING);
+						continue;
+					}
+
+					newLength = append(target, newLength, PackFormat.utf8(key), image.array(), entry.hash);
+					kept.put(key, new Entry(newLength - entry.length, entry.length, entry.hash));
+				}
+			}
+
+			// a crash after this rename leaves an index with the old pack id, which the next open rebuilds
+			AtomicFiles.commit(temp, packFile.toPath(), durability == Durability.NONE ? Durability.NONE : Durability.FSYNC, null);
+			temp = null;
+
+			// the old pack stays locked until the new one is, so a waiting run never appends to the replaced file
+			FileChannel replaced = channel;
+			channel = null;
+			try {
+				channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+				lock(channel);
+			} finally {
+				replaced.close();
+			}
+			packId = newId;
+			length = newLength;
+			entries = kept;
+			writeIndex();
+			dirty = false;
+
+			return oldLength - newLength;
+
+		} catch (IOException ex) {
+			if (temp != null) {
+				AtomicFiles.deleteQuietly(temp);
+			}
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Writes the index and closes the pack.
+	 * @throws AarException
+	 */
+	@Override
+	public synchronized void close() throws AarException {
+		if (channel == null) {
+			return;
+		}
+
+		try {
+			flush();
+		} finally {
+			closeQuietly();
+		}
+	}
+
+	/**
+	 * Writes the index to a temporary file and moves it over the old one.
+	 */
+	private void writeIndex() throws IOException, AarException {
+		List<byte[]> keys = new ArrayList<>();
+		Map<byte[], Entry> byBytes = new HashMap<>();
+		int keysLength = 0;
+
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			byte[] key = PackFormat.utf8(entry.getKey());
+			keys.add(key);
+			byBytes.put(key, entry.getValue());
+			keysLength += key.length;
+		}
+		keys.sort(PackFormat.KEY_ORDER);
+
+		ByteBuffer index = ByteBuffer.allocate(PackFormat.INDEX_HEADER_SIZE + keys.size() * PackFormat.ENTRY_SIZE + keysLength);
+		index.put(PackFormat.magic(PackFormat.INDEX_MAGIC));
+		index.putLong(packId);
+		index.putLong(length);
+		index.putInt(keys.size());
+		index.putInt(keysLength);
+
+		int keyOffset = 0;
+		for (byte[] key : keys) {
+			Entry entry = byBytes.get(key);
+			index.putInt(keyOffset);
+			index.putInt(key.length);
+			index.putLong(entry.position);
+			index.putInt(entry.length);
+			index.put(entry.hash);
+			keyOffset += key.length;
+		}
+		for (byte[] key : keys) {
+			index.put(key);
+		}
+		index.flip();
+
+		Path target = PackFormat.indexFile(packFile).toPath();
+		Path temp = AtomicFiles.createTempFile(target);
+
+		try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+			PackFormat.write(out, index, 0);
+		} catch (IOException ex) {
+			AtomicFiles.deleteQuietly(temp);
+			throw ex;
+		}
+
+		AtomicFiles.commit(temp, target, durability == Durability.NONE ? Durability.NONE : Durability.FSYNC, null);
+	}
+
+	/**
+	 * Writes the pack header and returns the position after it.
+	 */
+	private static long writeHeader(FileChannel target, long id) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(PackFormat.PACK_HEADER_SIZE);
+		header.put(PackFormat.magic(PackFormat.PACK_MAGIC));
+		header.putLong(id);
+		header.flip();
+		PackFormat.write(target, header, 0);
+		return PackFormat.PACK_HEADER_SIZE;
+	}
+
+	/**
+	 * Appends one record and returns the position after it.
+	 */
+	private static long append(FileChannel target, long position, byte[] key, byte[] image, byte[] hash) throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(PackFormat.RECORD_HEADER_SIZE + key.length);
+		record.putInt(PackFormat.RECORD_MARKER);
+		record.putInt(key.length);
+		record.putInt(image.length);
+		record.put(hash);
+		record.put(key);
+		record.flip();
+
+		final long imagePosition = position + record.limit();
+		PackFormat.write(target, record, position);
+		PackFormat.write(target, ByteBuffer.wrap(image), imagePosition);
+		return imagePosition + image.length;
+	}
+
+	private static List<String> sortedKeys(Map<String, Entry> entries) {
+		List<String> keys = new ArrayList<>(entries.keySet());
+		keys.sort((a, b) -> PackFormat.compare(PackFormat.utf8(a), PackFormat.utf8(b)));
+		return keys;
+	}
+
+	private void closeQuietly() {
+		if (channel != null) {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				Debugger.printLog("Error: " + ex.getMessage(), this.getClass().getName(), Level.WARNING);
+			}
+			channel = null;
+		}
+	}
+
+	public File getPackFile() {
+		return packFile;
+	}
+
+	/**
+	 * Returns the number of album paths in the pack.
+	 * @return int
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the length of the pack file.
+	 * @return long
+	 */
+	public synchronized long getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the number of bytes held by records that were replaced, which compaction would reclaim.
+	 * @return long
+	 */
+	public synchronized long getStaleBytes() {
+		long live = PackFormat.PACK_HEADER_SIZE;
+		for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+			live += PackFormat.RECORD_HEADER_SIZE + PackFormat.utf8(entry.getKey()).length + entry.getValue().length;
+		}
+		return length - live;
+	}
+
+	/**
+	 * Position, length and hash of the current cover of an album path.
+	 */
+	private static final class Entry {
+		final long position;
+		final int length;
+		final byte[] hash;
+
+		Entry(long position, int length, byte[] hash) {
+			this.position = position;
+			this.length = length;
+			this.hash = hash;
+		}
+	}
+}
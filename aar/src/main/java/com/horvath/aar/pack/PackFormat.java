@@ -0,0 +1,143 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.pack;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Layout of a cover pack, shared by the writer and the reader.
+ * <p>
+ * The pack file starts with a header of {@value #PACK_MAGIC} and a random pack id, followed by records.
+ * Each record holds a record marker, the key length, the image length, the SHA-256 hash of the image,
+ * the UTF-8 key and the image bytes. Records are only ever appended; a later record replaces an earlier one
+ * with the same key, so the pack alone describes its content and the index can always be rebuilt from it.
+ * <p>
+ * The index file, next to the pack with the suffix {@value #INDEX_SUFFIX}, holds a header with the pack id,
+ * the pack length it covers and the entry count, then fixed size entries sorted by the unsigned bytes of their keys,
+ * then the keys. It is read through a memory mapping and searched in place.
+ * All numbers are big-endian.
+ * @author jhorvath
+ */
+final class PackFormat {
+
+	static final String PACK_MAGIC = "AARPACK1";
+	static final String INDEX_MAGIC = "AARPIDX1";
+	static final String INDEX_SUFFIX = ".idx";
+
+	/** Magic and pack id. */
+	static final int PACK_HEADER_SIZE = 16;
+	/** Magic, pack id, covered pack length, entry count and key bytes. */
+	static final int INDEX_HEADER_SIZE = 32;
+
+	static final int RECORD_MARKER = 0x41415243;
+	static final int HASH_SIZE = 32;
+	/** Marker, key length, image length and hash. */
+	static final int RECORD_HEADER_SIZE = 12 + HASH_SIZE;
+	/** Key offset, key length, image position, image length and hash. */
+	static final int ENTRY_SIZE = 20 + HASH_SIZE;
+
+	static final int MAX_KEY_LENGTH = 64 * 1024;
+
+	/** Orders keys by their unsigned UTF-8 bytes, the order of the index. */
+	static final Comparator<byte[]> KEY_ORDER = PackFormat::compare;
+
+	private PackFormat() { }
+
+	/**
+	 * Returns the index file of a pack file.
+	 */
+	static File indexFile(File packFile) {
+		return new File(packFile.getPath() + INDEX_SUFFIX);
+	}
+
+	static byte[] utf8(String key) {
+		return key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	static byte[] sha256(byte[] data) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(data);
+		} catch (NoSuchAlgorithmException ex) {
+			// every Java platform provides SHA-256
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	static int compare(byte[] a, byte[] b) {
+		final int length = Math.min(a.length, b.length);
+		for (int i = 0; i < length; i++) {
+			final int diff = (a[i] & 0xff) - (b[i] & 0xff);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return a.length - b.length;
+	}
+
+	static byte[] magic(String magic) {
+		return magic.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	static boolean hasMagic(ByteBuffer buffer, int index, String magic) {
+		byte[] expected = magic(magic);
+		if (buffer.limit() - index < expected.length) {
+			return false;
+		}
+		byte[] actual = new byte[expected.length];
+		for (int i = 0; i < expected.length; i++) {
+			actual[i] = buffer.get(index + i);
+		}
+		return Arrays.equals(expected, actual);
+	}
+
+	/**
+	 * Reads up to length bytes at a position. The returned buffer is shorter at the end of the channel.
+	 */
+	static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				break;
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long offset = position;
+		while (buffer.hasRemaining()) {
+			offset += channel.write(buffer, offset);
+		}
+	}
+}
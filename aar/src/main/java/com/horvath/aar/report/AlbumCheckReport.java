@@ -0,0 +1,111 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.horvath.aar.report;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Result of a read-only check of every album folder of a folder structure. 
+ * The report is tab separated: a header and a column description, the rows of the checked folders, 
+ * then "stat" rows with the totals, including the tracks whose tag could not be read. 
+ * @author jhorvath
+ */
+public abstract class AlbumCheckReport {
+	
+	private int unreadableTracks = 0;
+	
+	/**
+	 * Counts a track whose tag could not be read. 
+	 */
+	public synchronized void addUnreadableTrack() {
+		unreadableTracks++;
+	}
+	
+	public synchronized int getUnreadableTracks() {
+		return unreadableTracks;
+	}
+	
+	/**
+	 * Returns the statistics by name, including the number of unreadable tracks. 
+	 * @return Map of String to Long
+	 */
+	public synchronized Map<String, Long> getStatistics() {
+		Map<String, Long> statistics = new TreeMap<>();
+		statistics.put("tracks.unreadable", (long) unreadableTracks);
+		return statistics;
+	}
+	
+	/**
+	 * Writes the report to disk. 
+	 * @param file File 
+	 * @throws AarException
+	 */
+	public synchronized void write(File file) throws AarException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(getHeader());
+			writer.newLine();
+			writer.write(getColumns());
+			writer.newLine();
+			
+			writeRows(writer);
+			
+			for (Map.Entry<String, Long> entry : getStatistics().entrySet()) {
+				writer.write("stat\t" + entry.getKey() + "\t" + entry.getValue());
+				writer.newLine();
+			}
+			
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+	
+	/**
+	 * Returns the first line of the report. 
+	 * @return String 
+	 */
+	protected abstract String getHeader();
+	
+	/**
+	 * Returns the comment describing the columns of the rows. 
+	 * @return String 
+	 */
+	protected abstract String getColumns();
+	
+	/**
+	 * Writes the rows of the checked folders, one line each. 
+	 * @param writer BufferedWriter 
+	 * @throws IOException
+	 */
+	protected abstract void writeRows(BufferedWriter writer) throws IOException;
+}
@@ -0,0 +1,226 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of a read-only audit of a folder structure. 
+ * The report is tab separated: "album" rows describe one album folder each and "stat" rows 
+ * carry the totals and the size and format distribution of the embedded art. 
+ * @author jhorvath
+ */
+public class AuditReport extends AlbumCheckReport {
+	
+	/**
+	 * Audit outcome of one album folder. 
+	 */
+	public enum AuditStatus {
+		/** No track in the folder has embedded art. */
+		NO_ART("no-art"),
+		/** A track has art but the folder has no cover file, or no cover in the output tree or pack. */
+		MISSING("missing"),
+		/** The cover file is byte for byte the embedded art. */
+		MATCH("match"),
+		/** The cover file differs from the embedded art but has the same dimensions, as a re-encode would. */
+		REENCODED("reencoded"),
+		/** The cover file has different dimensions than the embedded art. */
+		MISMATCH("mismatch");
+		
+		private final String label;
+		
+		AuditStatus(String label) {
+			this.label = label;
+		}
+		
+		public String getLabel() {
+			return label;
+		}
+	}
+	
+	/**
+	 * One album folder row of the report. 
+	 */
+	public static class AlbumAudit {
+		private final String folder;
+		private final AuditStatus status;
+		private final String track;
+		private final String mimeType;
+		private final long bytes;
+		private final int width;
+		private final int height;
+		private final String hash;
+		
+		/**
+		 * Constructor. Art fields are empty or -1 when the folder has no art. 
+		 * @param folder String relative folder path
+		 * @param status AuditStatus
+		 * @param track String name of the track the art was read from
+		 * @param mimeType String
+		 * @param bytes long size of the embedded art
+		 * @param width int
+		 * @param height int
+		 * @param hash String SHA-256 of the embedded art
+		 */
+		public AlbumAudit(String folder, AuditStatus status, String track, String mimeType, long bytes,
+				int width, int height, String hash) {
+			this.folder = folder;
+			this.status = status;
+			this.track = track;
+			this.mimeType = mimeType;
+			this.bytes = bytes;
+			this.width = width;
+			this.height = height;
+			this.hash = hash;
+		}
+
+		public String getFolder() {
+			return folder;
+		}
+
+		public AuditStatus getStatus() {
+			return status;
+		}
+
+		public String getTrack() {
+			return track;
+		}
+
+		public String getMimeType() {
+			return mimeType;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public String getHash() {
+			return hash;
+		}
+	}
+	
+	public static final String HEADER = "# AAR audit report";
+	public static final String COLUMNS = "# album\tstatus\tfolder\ttrack\tmime\tbytes\twidth\theight\tsha256";
+	
+	private static final long KB = 1024;
+	private static final long[] SIZE_LIMITS = { 100 * KB, 500 * KB, 1024 * KB };
+	private static final String[] SIZE_LABELS = { "size.<100KB", "size.100-500KB", "size.500KB-1MB", "size.>=1MB" };
+	
+	private final List<AlbumAudit> albums = new ArrayList<>();
+	private final Map<String, Long> statistics = new TreeMap<>();
+	
+	/**
+	 * Adds an album folder and updates the statistics. 
+	 * @param album AlbumAudit 
+	 */
+	public synchronized void addAlbum(AlbumAudit album) {
+		albums.add(album);
+		
+		increment("albums");
+		increment("status." + album.getStatus().getLabel());
+		
+		if (album.getStatus() != AuditStatus.NO_ART) {
+			increment("format." + (album.getMimeType().isEmpty() ? "unknown" : album.getMimeType()));
+			increment(sizeLabel(album.getBytes()));
+			add("art.bytes", album.getBytes());
+		}
+	}
+	
+	/**
+	 * Returns the number of album folders with the given status. 
+	 * @param status AuditStatus 
+	 * @return int 
+	 */
+	public synchronized int count(AuditStatus status) {
+		Long count = statistics.get("status." + status.getLabel());
+		return count == null ? 0 : count.intValue();
+	}
+	
+	@Override
+	protected String getHeader() {
+		return HEADER;
+	}
+	
+	@Override
+	protected String getColumns() {
+		return COLUMNS;
+	}
+	
+	@Override
+	protected void writeRows(BufferedWriter writer) throws IOException {
+		for (AlbumAudit album : albums) {
+			writer.write("album\t" + album.getStatus().getLabel() + "\t" + album.getFolder() + "\t" 
+					+ album.getTrack() + "\t" + album.getMimeType() + "\t" + album.getBytes() + "\t" 
+					+ album.getWidth() + "\t" + album.getHeight() + "\t" + album.getHash());
+			writer.newLine();
+		}
+	}
+	
+	private void increment(String key) {
+		add(key, 1);
+	}
+	
+	private void add(String key, long value) {
+		Long current = statistics.get(key);
+		statistics.put(key, current == null ? value : current + value);
+	}
+	
+	private static String sizeLabel(long bytes) {
+		for (int i = 0; i < SIZE_LIMITS.length; i++) {
+			if (bytes < SIZE_LIMITS[i]) {
+				return SIZE_LABELS[i];
+			}
+		}
+		return SIZE_LABELS[SIZE_LABELS.length - 1];
+	}
+	
+	public synchronized List<AlbumAudit> getAlbums() {
+		return new ArrayList<>(albums);
+	}
+	
+	/**
+	 * Returns the statistics by name, including the number of unreadable tracks. 
+	 * @return Map of String to Long
+	 */
+	@Override
+	public synchronized Map<String, Long> getStatistics() {
+		Map<String, Long> copy = super.getStatistics();
+		copy.putAll(statistics);
+		return copy;
+	}
+}
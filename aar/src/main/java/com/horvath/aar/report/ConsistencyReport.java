@@ -0,0 +1,220 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of a consistency check of the embedded covers of each album folder.
+ * The report is tab separated: "folder" rows describe one album folder each, and every track of an
+ * inconsistent folder follows in a "track" row with the hash of its cover, so the odd ones out can be found.
+ * @author jhorvath
+ */
+public class ConsistencyReport extends AlbumCheckReport {
+
+	/**
+	 * Consistency of the covers of one album folder.
+	 */
+	public enum ConsistencyStatus {
+		/** Every track with art embeds the same cover. */
+		CONSISTENT("consistent"),
+		/** The tracks embed different covers. */
+		INCONSISTENT("inconsistent"),
+		/** No track in the folder has embedded art. */
+		NO_ART("no-art");
+
+		private final String label;
+
+		ConsistencyStatus(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	/**
+	 * One album folder row of the report.
+	 */
+	public static class FolderConsistency {
+		private final String folder;
+		private final Map<String, String> trackHashes;
+		private final int covers;
+		private final String majorityTrack;
+		private final int majorityCount;
+		private boolean majorityWritten = false;
+
+		/**
+		 * Constructor.
+		 * @param folder String relative folder path
+		 * @param trackHashes Map of track name to the SHA-256 of its cover, empty for a track without art, in track order
+		 * @param covers int number of different covers
+		 * @param majorityTrack String first track with the majority cover, empty without art
+		 * @param majorityCount int number of tracks with the majority cover
+		 */
+		public FolderConsistency(String folder, Map<String, String> trackHashes, int covers,
+				String majorityTrack, int majorityCount) {
+			this.folder = folder;
+			this.trackHashes = Collections.unmodifiableMap(trackHashes);
+			this.covers = covers;
+			this.majorityTrack = majorityTrack;
+			this.majorityCount = majorityCount;
+		}
+
+		public ConsistencyStatus getStatus() {
+			if (covers == 0) {
+				return ConsistencyStatus.NO_ART;
+			}
+			return covers == 1 ? ConsistencyStatus.CONSISTENT : ConsistencyStatus.INCONSISTENT;
+		}
+
+		public String getFolder() {
+			return folder;
+		}
+
+		public Map<String, String> getTrackHashes() {
+			return trackHashes;
+		}
+
+		/**
+		 * Returns the number of tracks with embedded art.
+		 * @return int
+		 */
+		public int getTracksWithArt() {
+			int count = 0;
+			for (String hash : trackHashes.values()) {
+				if (!hash.isEmpty()) {
+					count++;
+				}
+			}
+			return count;
+		}
+
+		public int getCovers() {
+			return covers;
+		}
+
+		public String getMajorityTrack() {
+			return majorityTrack;
+		}
+
+		public int getMajorityCount() {
+			return majorityCount;
+		}
+
+		public String getMajorityHash() {
+			return majorityTrack.isEmpty() ? "" : trackHashes.get(majorityTrack);
+		}
+
+		public boolean isMajorityWritten() {
+			return majorityWritten;
+		}
+
+		public void setMajorityWritten(boolean majorityWritten) {
+			this.majorityWritten = majorityWritten;
+		}
+	}
+
+	public static final String HEADER = "# AAR consistency report";
+	public static final String COLUMNS = "# folder\tstatus\tfolder\ttracks\twith-art\tcovers\tmajority-track\tmajority-tracks\twritten\tsha256\n"
+			+ "# track\tfolder\ttrack\tsha256";
+
+	private final List<FolderConsistency> folders = new ArrayList<>();
+
+	/**
+	 * Adds an album folder.
+	 * @param folder FolderConsistency
+	 */
+	public synchronized void addFolder(FolderConsistency folder) {
+		folders.add(folder);
+	}
+
+	/**
+	 * Returns the number of album folders with the given status.
+	 * @param status ConsistencyStatus
+	 * @return int
+	 */
+	public synchronized int count(ConsistencyStatus status) {
+		int count = 0;
+		for (FolderConsistency folder : folders) {
+			if (folder.getStatus() == status) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the row of a folder.
+	 * @param relativePath String
+	 * @return FolderConsistency, or null if the folder was not checked
+	 */
+	public synchronized FolderConsistency getFolder(String relativePath) {
+		for (FolderConsistency folder : folders) {
+			if (folder.getFolder().equals(relativePath)) {
+				return folder;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	protected String getHeader() {
+		return HEADER;
+	}
+
+	@Override
+	protected String getColumns() {
+		return COLUMNS;
+	}
+
+	@Override
+	protected void writeRows(BufferedWriter writer) throws IOException {
+		for (FolderConsistency folder : folders) {
+			writer.write("folder\t" + folder.getStatus().getLabel() + "\t" + folder.getFolder() + "\t"
+					+ folder.getTrackHashes().size() + "\t" + folder.getTracksWithArt() + "\t" + folder.getCovers() + "\t"
+					+ folder.getMajorityTrack() + "\t" + folder.getMajorityCount() + "\t" + folder.isMajorityWritten() + "\t"
+					+ folder.getMajorityHash());
+			writer.newLine();
+
+			if (folder.getStatus() == ConsistencyStatus.INCONSISTENT) {
+				for (Map.Entry<String, String> track : folder.getTrackHashes().entrySet()) {
+					writer.write("track\t" + folder.getFolder() + "\t" + track.getKey() + "\t" + track.getValue());
+					writer.newLine();
+				}
+			}
+		}
+	}
+
+	public synchronized List<FolderConsistency> getFolders() {
+		return new ArrayList<>(folders);
+	}
+}
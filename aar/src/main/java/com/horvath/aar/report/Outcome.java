@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.report;
+
+/**
+ * Typed result of processing one audio file. 
+ * @author jhorvath
+ */
+public enum Outcome {
+	
+	/** Art was found and written to disk. */
+	ART_WRITTEN("art-written"),
+	
+	/** The file has no embedded art. */
+	NO_ART("no-art"),
+	
+	/** The file or its embedded image is in a format that cannot be read. */
+	UNSUPPORTED_FORMAT("unsupported-format"),
+	
+	/** The tag or the audio frames of the file are damaged. */
+	CORRUPT_TAG("corrupt-tag"),
+	
+	/** The file could not be read or the cover could not be written. */
+	IO_ERROR("io-error"),
+	
+	/** The file took longer than the per-file deadline and the attempt was abandoned. */
+	TIMED_OUT("timed-out"),
+	
+	/** The file was not processed, for example because its folder already has a cover. */
+	SKIPPED("skipped");
+	
+	private final String label;
+	
+	Outcome(String label) {
+		this.label = label;
+	}
+	
+	public String getLabel() {
+		return label;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.report;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Streams one record per processed file while a run proceeds, as NDJSON or CSV. 
+ * Every record is flushed as it is written so the ledger can be tailed by monitoring tools. 
+ * @author jhorvath
+ */
+public class OutcomeLedger implements Closeable {
+	
+	/**
+	 * Output format of the ledger. 
+	 */
+	public enum Format {
+		NDJSON,
+		CSV;
+		
+		/**
+		 * Picks the format from a file name: ".csv" files get CSV, everything else NDJSON. 
+		 * @param fileName String 
+		 * @return Format 
+		 */
+		public static Format forFileName(String fileName) {
+			return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : NDJSON;
+		}
+	}
+	
+	public static final String CSV_HEADER = "time,path,outcome,detail,millis";
+	
+	private final Writer writer;
+	private final Format format;
+	private final boolean closeStream;
+	private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+	
+	/**
+	 * Constructor. 
+	 * @param out OutputStream 
+	 * @param format Format 
+	 * @param closeStream boolean true if closing the ledger should close the stream 
+	 * @throws AarException
+	 */
+	public OutcomeLedger(OutputStream out, Format format, boolean closeStream) throws AarException {
+		this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		this.format = format;
+		this.closeStream = closeStream;
+		
+		if (format == Format.CSV) {
+			writeLine(CSV_HEADER);
+		}
+	}
+	
+	/**
+	 * Writes the record of one file. 
+	 * @param path String 
+	 * @param outcome Outcome 
+	 * @param detail String extra information such as an error message, may be empty 
+	 * @param millis long time spent on the file 
+	 * @throws AarException
+	 */
+	public synchronized void record(String path, Outcome outcome, String detail, long millis) throws AarException {
+		Integer count = counts.get(outcome);
+		counts.put(outcome, count == null ? 1 : count + 1);
+		
+		final String time = Instant.now().toString();
+		final String safeDetail = detail == null ? "" : detail;
+		
+		if (format == Format.CSV) {
+			writeLine(time + "," + csv(path) + "," + outcome.getLabel() + "," + csv(safeDetail) + "," + millis);
+		} else {
+			writeLine("{\"time\":\"" + time + "\",\"path\":" + json(path) + ",\"outcome\":\"" + outcome.getLabel() 
+					+ "\",\"detail\":" + json(safeDetail) + ",\"millis\":" + millis + "}");
+		}
+	}
+	
+	/**
+	 * Returns how many files were recorded with the given outcome. 
+	 * @param outcome Outcome 
+	 * @return int 
+	 */
+	public synchronized int getCount(Outcome outcome) {
+		Integer count = counts.get(outcome);
+		return count == null ? 0 : count;
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		if (closeStream) {
+			writer.close();
+		} else {
+			writer.flush();
+		}
+	}
+	
+	private void writeLine(String line) throws AarException {
+		try {
+			writer.write(line);
+			writer.write('\n');
+			writer.flush();
+			
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+	
+	/**
+	 * Quotes a CSV field when it contains a separator, quote or line break. 
+	 */
+	private static String csv(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+	
+	/**
+	 * Returns a quoted and escaped JSON string. 
+	 */
+	private static String json(String value) {
+		StringBuilder builder = new StringBuilder(value.length() + 2);
+		builder.append('"');
+		
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				builder.append("\\\"");
+				break;
+			case '\\':
+				builder.append("\\\\");
+				break;
+			case '\n':
+				builder.append("\\n");
+				break;
+			case '\r':
+				builder.append("\\r");
+				break;
+			case '\t':
+				builder.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					builder.append(String.format("\\u%04x", (int) c));
+				} else {
+					builder.append(c);
+				}
+			}
+		}
+		
+		return builder.append('"').toString();
+	}
+}
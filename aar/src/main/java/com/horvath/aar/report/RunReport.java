@@ -0,0 +1,302 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.report;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Result of a folder run: the status of every album folder that was handled.
+ * Reports are plain tab separated text so shard reports can be merged or inspected by hand.
+ * Runs with a byte budget also give the quality, size and dimensions each cover was written with.
+ * @author jhorvath
+ */
+public class RunReport {
+
+	/**
+	 * Outcome of one album folder.
+	 */
+	public enum AlbumStatus {
+		WRITTEN("written"),
+		NO_ART("no-art");
+
+		private final String label;
+
+		AlbumStatus(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Returns the status for a report label, or null if the label is unknown.
+		 * @param label String
+		 * @return AlbumStatus
+		 */
+		public static AlbumStatus fromLabel(String label) {
+			for (AlbumStatus status : values()) {
+				if (status.label.equals(label)) {
+					return status;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * How the cover of one album folder was encoded within a byte budget.
+	 */
+	public static class CoverEncoding {
+		private final float quality;
+		private final long bytes;
+		private final int width;
+		private final int height;
+		private final boolean fits;
+
+		/**
+		 * Constructor.
+		 * @param quality float JPEG quality
+		 * @param bytes long file size
+		 * @param width int
+		 * @param height int
+		 * @param fits boolean false if the cover is larger than the budget even at the smallest size
+		 */
+		public CoverEncoding(float quality, long bytes, int width, int height, boolean fits) {
+			this.quality = quality;
+			this.bytes = bytes;
+			this.width = width;
+			this.height = height;
+			this.fits = fits;
+		}
+
+		public float getQuality() {
+			return quality;
+		}
+
+		public long getBytes() {
+			return bytes;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public boolean isFits() {
+			return fits;
+		}
+	}
+
+	public static final String HEADER = "# AAR run report";
+	public static final String SHARD_KEY = "shard";
+	public static final String ENCODED_KEY = "encoded";
+	public static final String OVER_BUDGET_KEY = "over-budget";
+
+	public static final String ERROR_NOT_A_REPORT = "The file is not an AAR run report: ";
+
+	private String shard = "";
+	private final Map<String, AlbumStatus> albums = new TreeMap<>();
+	private final Map<String, CoverEncoding> encodings = new TreeMap<>();
+
+	/**
+	 * Records the status of an album folder.
+	 * A written cover always wins over a missing one, so merging overlapping reports is safe.
+	 * @param relativePath String
+	 * @param status AlbumStatus
+	 */
+	public synchronized void addAlbum(String relativePath, AlbumStatus status) {
+		final String key = relativePath.replace('\\', '/');
+		if (albums.get(key) != AlbumStatus.WRITTEN) {
+			albums.put(key, status);
+		}
+	}
+
+	/**
+	 * Records how the cover of an album folder was encoded.
+	 * @param relativePath String
+	 * @param encoding CoverEncoding
+	 */
+	public synchronized void addEncoding(String relativePath, CoverEncoding encoding) {
+		encodings.put(relativePath.replace('\\', '/'), encoding);
+	}
+
+	/**
+	 * Adds all albums of another report to this one.
+	 * @param other RunReport
+	 */
+	public synchronized void merge(RunReport other) {
+		for (Map.Entry<String, AlbumStatus> entry : other.getAlbums().entrySet()) {
+			addAlbum(entry.getKey(), entry.getValue());
+		}
+		for (Map.Entry<String, CoverEncoding> entry : other.getEncodings().entrySet()) {
+			addEncoding(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Returns the number of album folders with the given status.
+	 * @param status AlbumStatus
+	 * @return int
+	 */
+	public synchronized int count(AlbumStatus status) {
+		int count = 0;
+		for (AlbumStatus value : albums.values()) {
+			if (value == status) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the report to disk.
+	 * @param file File
+	 * @throws AarException
+	 */
+	public synchronized void write(File file) throws AarException {
+		try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			writer.write(SHARD_KEY + "\t" + shard);
+			writer.newLine();
+
+			for (Map.Entry<String, AlbumStatus> entry : albums.entrySet()) {
+				writer.write(entry.getValue().getLabel() + "\t" + entry.getKey());
+				writer.newLine();
+			}
+
+			for (Map.Entry<String, CoverEncoding> entry : encodings.entrySet()) {
+				CoverEncoding encoding = entry.getValue();
+				writer.write((encoding.isFits() ? ENCODED_KEY : OVER_BUDGET_KEY) + "\t"
+						+ String.format(Locale.ROOT, "%.2f", encoding.getQuality()) + "\t" + encoding.getBytes() + "\t"
+						+ encoding.getWidth() + "\t" + encoding.getHeight() + "\t" + entry.getKey());
+				writer.newLine();
+			}
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Reads a report previously written with {@link #write(File)}.
+	 * @param file File
+	 * @return RunReport
+	 * @throws AarException
+	 */
+	public static RunReport read(File file) throws AarException {
+		RunReport report = new RunReport();
+
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			if (!HEADER.equals(line)) {
+				throw new AarException(ERROR_NOT_A_REPORT + file.getPath());
+			}
+
+			while ((line = reader.readLine()) != null) {
+				final int tab = line.indexOf('\t');
+				if (tab < 0) {
+					continue;
+				}
+
+				final String key = line.substring(0, tab);
+				final String value = line.substring(tab + 1);
+
+				if (SHARD_KEY.equals(key)) {
+					report.setShard(value);
+				} else if (ENCODED_KEY.equals(key) || OVER_BUDGET_KEY.equals(key)) {
+					report.readEncoding(value, ENCODED_KEY.equals(key), file);
+				} else {
+					AlbumStatus status = AlbumStatus.fromLabel(key);
+					if (status == null) {
+						throw new AarException(ERROR_NOT_A_REPORT + file.getPath());
+					}
+					report.addAlbum(value, status);
+				}
+			}
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+
+		return report;
+	}
+
+	/**
+	 * Reads the fields of an encoding line. The album path goes last, so it may hold tabs.
+	 * @param value String
+	 * @param fits boolean
+	 * @param file File being read
+	 * @throws AarException
+	 */
+	private void readEncoding(String value, boolean fits, File file) throws AarException {
+		final String[] fields = value.split("\t", 5);
+		if (fields.length < 5) {
+			throw new AarException(ERROR_NOT_A_REPORT + file.getPath());
+		}
+
+		try {
+			addEncoding(fields[4], new CoverEncoding(Float.parseFloat(fields[0]), Long.parseLong(fields[1]),
+					Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), fits));
+
+		} catch (NumberFormatException ex) {
+			throw new AarException(ERROR_NOT_A_REPORT + file.getPath(), ex);
+		}
+	}
+
+	public synchronized Map<String, AlbumStatus> getAlbums() {
+		return new TreeMap<>(albums);
+	}
+
+	/**
+	 * Returns how the cover of each album folder was encoded, for runs with a byte budget.
+	 * @return Map of relative path to CoverEncoding
+	 */
+	public synchronized Map<String, CoverEncoding> getEncodings() {
+		return new TreeMap<>(encodings);
+	}
+
+	public synchronized String getShard() {
+		return shard;
+	}
+
+	public synchronized void setShard(String shard) {
+		this.shard = shard == null ? "" : shard;
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.horvath.aar.tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hashes of embedded covers and of cover files, so they can be compared without decoding an image. 
+ * Every command hashes with the same algorithm, so the hashes in its reports can be compared with each other 
+ * and with the hashes of a cover pack. 
+ * @author jhorvath
+ */
+public final class CoverHash {
+	
+	public static final String ALGORITHM = "SHA-256";
+	
+	private static final int BUFFER_SIZE = 64 * 1024;
+	
+	private CoverHash() { }
+	
+	/**
+	 * Hashes the image data of a picture frame, read from the channel it was scanned from. 
+	 * @param channel SeekableByteChannel 
+	 * @param frame PictureFrame 
+	 * @return byte[] 
+	 * @throws IOException
+	 */
+	public static byte[] ofFrame(SeekableByteChannel channel, PictureFrame frame) throws IOException {
+		MessageDigest digest = newDigest();
+		Id3PictureScanner.hashPayload(channel, frame, digest);
+		return digest.digest();
+	}
+	
+	/**
+	 * Hashes the contents of a file, such as a cover file next to the tracks. 
+	 * @param file File 
+	 * @return byte[] 
+	 * @throws IOException
+	 */
+	public static byte[] ofFile(File file) throws IOException {
+		MessageDigest digest = newDigest();
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int count;
+			while ((count = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, count);
+			}
+		}
+		return digest.digest();
+	}
+	
+	/**
+	 * Returns a new digest of the algorithm every cover hash uses. 
+	 * @return MessageDigest 
+	 */
+	public static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException ex) {
+			// every Java platform provides SHA-256 
+			throw new IllegalStateException(ex);
+		}
+	}
+	
+	/**
+	 * Returns a hash as lowercase hex digits. 
+	 * @param bytes byte[] 
+	 * @return String 
+	 */
+	public static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Chooses which embedded picture is the album cover, using picture metadata only.
+ * The policy is: the front cover (ID3 picture type 3), then the largest picture, then the first one.
+ * When several pictures share the deciding property the largest of them wins, and on equal size the earliest.
+ * @author jhorvath
+ */
+public final class CoverSelector {
+
+	/** ID3 picture type of the front cover. */
+	public static final int FRONT_COVER = 3;
+
+	private CoverSelector() { }
+
+	/**
+	 * Returns the hash of the image data of the cover an MP3 file's ID3v2 tag would provide.
+	 * Only the tag is read and the image is not decoded.
+	 * @param mp3 File
+	 * @return byte[], or null if the tag holds no picture or cannot be scanned
+	 */
+	public static byte[] hashCover(File mp3) {
+		try (FileChannel channel = FileChannel.open(mp3.toPath(), StandardOpenOption.READ)) {
+			PictureFrame frame = select(Id3PictureScanner.scan(channel));
+			if (frame == null) {
+				return null;
+			}
+
+			return CoverHash.ofFrame(channel, frame);
+
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Selects the cover among scanned picture frames.
+	 * @param frames List of PictureFrame
+	 * @return PictureFrame, or null if the list is empty
+	 */
+	public static PictureFrame select(List<PictureFrame> frames) {
+		return select(frames, PictureFrame::getPictureType, PictureFrame::getPayloadLength);
+	}
+
+	/**
+	 * Selects the cover among pictures described by their picture type and size.
+	 * @param pictures List of pictures
+	 * @param pictureType ToIntFunction returning the ID3 picture type of a picture
+	 * @param size ToLongFunction returning the size of a picture's image data
+	 * @return the selected picture, or null if the list is empty
+	 */
+	public static <T> T select(List<T> pictures, ToIntFunction<T> pictureType, ToLongFunction<T> size) {
+		if (pictures == null || pictures.isEmpty()) {
+			return null;
+		}
+
+		T selected = null;
+		boolean selectedFront = false;
+		long selectedSize = -1;
+
+		for (T picture : pictures) {
+			final boolean front = pictureType.applyAsInt(picture) == FRONT_COVER;
+			final long pictureSize = size.applyAsLong(picture);
+
+			if (selected == null
+					|| (front && !selectedFront)
+					|| (front == selectedFront && pictureSize > selectedSize)) {
+				selected = picture;
+				selectedFront = front;
+				selectedSize = pictureSize;
+			}
+		}
+
+		return selected;
+	}
+}
@@ -0,0 +1,297 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.tag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.AtomicFiles;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
+
+/**
+ * Adds a front cover picture frame to the ID3v2 tag of an MP3 file without touching the other frames.
+ * When the padding of the existing tag can hold the new frame, and the tag has no extended header, it is written in place
+ * and only the tag changes on disk.
+ * Otherwise the file is rewritten once with generous padding, so later edits fit in place,
+ * and the audio data is copied with {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ * @author jhorvath
+ */
+public final class Id3ArtWriter {
+
+	/**
+	 * How a picture was embedded.
+	 */
+	public enum Result {
+		/** The frame was written into the padding of the existing tag. */
+		IN_PLACE,
+		/** The file was rewritten with a larger tag. */
+		REWRITTEN,
+		/** The tag is unsynchronised or compressed as a whole and is left alone. */
+		UNSUPPORTED
+	}
+
+	/** Padding added on a rewrite is at least this large, and at least the size of the embedded image. */
+	public static final int MIN_PADDING = 16 * 1024;
+
+	/** ID3 version used for files that have no tag yet. */
+	public static final int NEW_TAG_VERSION = 3;
+
+	public static final String ERROR_TAG_TOO_LARGE = "The tag would exceed the ID3 size limit.";
+	public static final String ERROR_SHORT_COPY = "The audio data ended before it was copied.";
+
+	private static final int MAX_TAG_SIZE = 0x0fffffff;
+
+	private Id3ArtWriter() { }
+
+	/**
+	 * Embeds an image as the front cover of an MP3 file.
+	 * @param mp3 Path
+	 * @param image byte[] encoded image data
+	 * @param mimeType String, for example "image/jpeg"
+	 * @param durability Durability of an in-place write or a rewrite
+	 * @param groupCommit GroupCommit collecting rewrites in group commit mode, may be null
+	 * @return Result
+	 * @throws IOException
+	 * @throws AarException if a group commit fails
+	 */
+	public static Result embed(Path mp3, byte[] image, String mimeType, Durability durability, GroupCommit groupCommit)
+			throws IOException, AarException {
+
+		Path temp;
+
+		try (FileChannel channel = FileChannel.open(mp3, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer header = Id3PictureScanner.read(channel, 0, Id3PictureScanner.HEADER_SIZE);
+
+			if (!Id3PictureScanner.isTagHeader(header)) {
+				temp = rewriteToTemp(mp3, channel, NEW_TAG_VERSION, new byte[0], 
+						pictureFrame(NEW_TAG_VERSION, image, mimeType), 0, image.length);
+
+			} else {
+				final int major = header.get(3);
+				final int flags = header.get(5) & 0xff;
+
+				if ((flags & 0x80) != 0 || (major == 2 && (flags & 0x40) != 0)) {
+					// every frame would have to be unsynchronised or compressed to match
+					return Result.UNSUPPORTED;
+				}
+
+				final long tagEnd = Id3PictureScanner.HEADER_SIZE + Id3PictureScanner.syncsafe(header, 6);
+				final boolean footer = major == 4 && (flags & 0x10) != 0;
+				final long audioStart = Math.min(channel.size(), tagEnd + (footer ? Id3PictureScanner.HEADER_SIZE : 0));
+
+				final long framesStart = Id3PictureScanner.skipExtendedHeader(channel, major, flags, Id3PictureScanner.HEADER_SIZE);
+				final long framesEnd = framesEnd(channel, major, framesStart, Math.min(tagEnd, channel.size()));
+
+				byte[] frame = pictureFrame(major, image, mimeType);
+
+				// a tag with a footer has no padding, and one with an extended header may give its padding size
+				// or a checksum there, which a frame written into the padding would make wrong
+				if (!footer && (flags & 0x40) == 0 && framesEnd + frame.length <= tagEnd && isZero(channel, framesEnd, frame.length)) {
+					writeInPlace(channel, framesEnd, frame, major == 2 ? 6 : 10, durability);
+					return Result.IN_PLACE;
+				}
+
+				byte[] frames = Id3PictureScanner.read(channel, framesStart, (int) (framesEnd - framesStart)).array();
+				temp = rewriteToTemp(mp3, channel, major, frames, frame, audioStart, image.length);
+			}
+		}
+
+		// the original is closed before it is replaced
+		try {
+			AtomicFiles.copyPermissions(mp3, temp);
+			AtomicFiles.commit(temp, mp3, durability, groupCommit);
+
+		} catch (IOException | AarException | RuntimeException ex) {
+			AtomicFiles.deleteQuietly(temp);
+			throw ex;
+		}
+
+		return Result.REWRITTEN;
+	}
+
+	/**
+	 * Returns the position where the frames end and the padding starts.
+	 */
+	private static long framesEnd(FileChannel channel, int major, long start, long end) throws IOException {
+		final int headerLength = major == 2 ? 6 : 10;
+		long position = start;
+
+		while (position + headerLength <= end) {
+			ByteBuffer frameHeader = Id3PictureScanner.read(channel, position, headerLength);
+			if (frameHeader.limit() < headerLength || frameHeader.get(0) == 0) {
+				break;
+			}
+
+			final String id = new String(frameHeader.array(), 0, major == 2 ? 3 : 4, StandardCharsets.US_ASCII);
+			final long frameSize;
+			if (major == 2) {
+				frameSize = ((frameHeader.get(3) & 0xff) << 16) | ((frameHeader.get(4) & 0xff) << 8) | (frameHeader.get(5) & 0xff);
+			} else {
+				frameSize = major == 4 ? Id3PictureScanner.syncsafe(frameHeader, 4) : frameHeader.getInt(4) & 0xffffffffL;
+			}
+
+			if (!Id3PictureScanner.isFrameId(id) || frameSize <= 0 || position + headerLength + frameSize > end) {
+				// whatever follows is not a frame, it is treated as padding
+				break;
+			}
+			position += headerLength + frameSize;
+		}
+
+		return position;
+	}
+
+	/**
+	 * Builds an APIC frame, or a PIC frame for ID3v2.2, holding the image as the front cover.
+	 */
+	private static byte[] pictureFrame(int major, byte[] image, String mimeType) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(image.length + 32);
+		body.write(0);
+		if (major == 2) {
+			body.write(("image/png".equals(mimeType) ? "PNG" : "JPG").getBytes(StandardCharsets.US_ASCII));
+		} else {
+			body.write(mimeType.getBytes(StandardCharsets.ISO_8859_1));
+			body.write(0);
+		}
+		body.write(CoverSelector.FRONT_COVER);
+		// empty description
+		body.write(0);
+		body.write(image);
+
+		final int size = body.size();
+		if (major == 2 && size > 0xffffff) {
+			throw new IOException(ERROR_TAG_TOO_LARGE);
+		}
+		ByteArrayOutputStream frame = new ByteArrayOutputStream(size + 10);
+
+		if (major == 2) {
+			frame.write("PIC".getBytes(StandardCharsets.US_ASCII));
+			frame.write(new byte[] { (byte) (size >>> 16), (byte) (size >>> 8), (byte) size });
+		} else {
+			frame.write("APIC".getBytes(StandardCharsets.US_ASCII));
+			frame.write(major == 4 ? syncsafe(size) : new byte[] { (byte) (size >>> 24), (byte) (size >>> 16), (byte) (size >>> 8), (byte) size });
+			// no frame flags
+			frame.write(new byte[] { 0, 0 });
+		}
+
+		body.writeTo(frame);
+		return frame.toByteArray();
+	}
+
+	/**
+	 * Writes a frame into the padding. The body goes first and the header last,
+	 * so an interrupted write leaves the header bytes zero and the tag still ends at the padding.
+	 */
+	private static void writeInPlace(FileChannel channel, long position, byte[] frame, int headerLength, Durability durability)
+			throws IOException {
+
+		writeFully(channel, ByteBuffer.wrap(frame, headerLength, frame.length - headerLength), position + headerLength);
+		if (durability != Durability.NONE) {
+			channel.force(false);
+		}
+
+		writeFully(channel, ByteBuffer.wrap(frame, 0, headerLength), position);
+		if (durability != Durability.NONE) {
+			channel.force(false);
+		}
+	}
+
+	/**
+	 * Writes a temporary file made of a tag with the existing frames, the new frame and padding, 
+	 * followed by the audio data of the original. 
+	 */
+	private static Path rewriteToTemp(Path mp3, FileChannel source, int major, byte[] frames, byte[] frame,
+			long audioStart, int imageLength) throws IOException {
+
+		final long padding = Math.max(MIN_PADDING, imageLength);
+		final long tagSize = frames.length + frame.length + padding;
+		if (tagSize > MAX_TAG_SIZE) {
+			throw new IOException(ERROR_TAG_TOO_LARGE);
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(Id3PictureScanner.HEADER_SIZE);
+		header.put(new byte[] { 'I', 'D', '3', (byte) major, 0, 0 });
+		header.put(syncsafe((int) tagSize));
+		header.flip();
+
+		Path temp = AtomicFiles.createTempFile(mp3);
+
+		try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+			long position = 0;
+			for (ByteBuffer part : new ByteBuffer[] { header, ByteBuffer.wrap(frames), ByteBuffer.wrap(frame), ByteBuffer.allocate((int) padding) }) {
+				position += writeFully(target, part, position);
+			}
+
+			// the audio data never passes through the Java heap
+			final long audioEnd = source.size();
+			long copied = audioStart;
+			target.position(position);
+			while (copied < audioEnd) {
+				final long count = source.transferTo(copied, audioEnd - copied, target);
+				if (count <= 0) {
+					throw new IOException(ERROR_SHORT_COPY);
+				}
+				copied += count;
+			}
+			return temp;
+
+		} catch (IOException | RuntimeException ex) {
+			AtomicFiles.deleteQuietly(temp);
+			throw ex;
+		}
+	}
+
+	private static boolean isZero(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer bytes = Id3PictureScanner.read(channel, position, length);
+		if (bytes.limit() < length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (bytes.get(i) != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		long offset = position;
+		while (buffer.hasRemaining()) {
+			offset += channel.write(buffer, offset);
+		}
+		return offset - position;
+	}
+
+	private static byte[] syncsafe(int value) {
+		return new byte[] { (byte) ((value >>> 21) & 0x7f), (byte) ((value >>> 14) & 0x7f),
+				(byte) ((value >>> 7) & 0x7f), (byte) (value & 0x7f) };
+	}
+}
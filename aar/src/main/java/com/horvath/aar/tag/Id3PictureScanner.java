@@ -0,0 +1,588 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.tag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import com.horvath.aar.io.ByteBufferChannel;
+
+/**
+ * Finds the picture frames of an ID3v2 tag by reading frame headers only.
+ * Picture data is skipped over and can be read or hashed later for just the frame that is wanted,
+ * so no image is decoded and the audio data after the tag is never touched.
+ * Supports ID3v2.2, v2.3 and v2.4, including unsynchronised tags and frames.
+ * @author jhorvath
+ */
+public final class Id3PictureScanner {
+
+	public static final int HEADER_SIZE = 10;
+	public static final String LINK_MIME_TYPE = "-->";
+
+	/** Largest tag readTag will hold in memory. */
+	public static final long MAX_TAG_SIZE = 64L * 1024 * 1024;
+
+	public static final String ERROR_TAG_TOO_LARGE = "ID3 tag size exceeds the limit: ";
+	public static final String ERROR_TAG_PAST_END = "ID3 tag size exceeds the remaining data: ";
+
+	/** Bytes read from the start of a picture frame to find where its image data begins. */
+	private static final int PROBE_SIZE = 1024;
+	private static final int HASH_CHUNK_SIZE = 64 * 1024;
+
+	private Id3PictureScanner() { }
+
+	/**
+	 * Thrown when the size in a tag header cannot be true, which marks the tag as corrupt.
+	 */
+	public static final class OversizedTagException extends IOException {
+
+		private static final long serialVersionUID = 1L;
+
+		public OversizedTagException(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * Returns the size of the ID3v2 tag at the start of the channel, including its header,
+	 * or 0 if the channel does not start with a tag.
+	 * @param channel SeekableByteChannel
+	 * @return long
+	 * @throws IOException
+	 */
+	public static long tagSize(SeekableByteChannel channel) throws IOException {
+		ByteBuffer header = read(channel, 0, HEADER_SIZE);
+		if (!isTagHeader(header)) {
+			return 0;
+		}
+
+		long size = HEADER_SIZE + syncsafe(header, 6);
+		if ((header.get(3) == 4) && (header.get(5) & 0x10) != 0) {
+			// v2.4 footer
+			size += HEADER_SIZE;
+		}
+		return size;
+	}
+
+	/**
+	 * Reads the ID3v2 tag at the start of a stream, and nothing after it.
+	 * Returns null, having read only the header bytes, if the stream does not start with a tag.
+	 * A stream that ends inside the tag returns what was read.
+	 * @param in InputStream positioned at the start of the file
+	 * @return byte[] holding the tag including its header, or null
+	 * @throws IOException
+	 * @throws OversizedTagException if the tag claims more than MAX_TAG_SIZE bytes
+	 */
+	public static byte[] readTag(InputStream in) throws IOException {
+		return readTag(in, -1);
+	}
+
+	/**
+	 * Reads the ID3v2 tag at the start of a stream of known length, and nothing after it.
+	 * The size in the header is not trusted: the buffer grows only as bytes arrive.
+	 * @param in InputStream positioned at the start of the file
+	 * @param available long bytes in the stream, or -1 if unknown
+	 * @return byte[] holding the tag including its header, or null
+	 * @throws IOException
+	 * @throws OversizedTagException if the tag claims more than MAX_TAG_SIZE bytes, or more than the stream holds
+	 */
+	public static byte[] readTag(InputStream in, long available) throws IOException {
+		byte[] header = new byte[HEADER_SIZE];
+		if (readFully(in, header, 0, HEADER_SIZE) < HEADER_SIZE || !isTagHeader(ByteBuffer.wrap(header))) {
+			return null;
+		}
+
+		final long size = tagSize(new ByteBufferChannel(header));
+		if (size > MAX_TAG_SIZE) {
+			throw new OversizedTagException(ERROR_TAG_TOO_LARGE + size);
+		}
+		if (available >= 0 && size > available) {
+			throw new OversizedTagException(ERROR_TAG_PAST_END + size);
+		}
+
+		byte[] tag = Arrays.copyOf(header, (int) Math.min(size, HEADER_SIZE + HASH_CHUNK_SIZE));
+		int length = HEADER_SIZE;
+
+		while (length < size) {
+			if (length == tag.length) {
+				tag = Arrays.copyOf(tag, (int) Math.min(size, 2L * tag.length));
+			}
+			final int count = readFully(in, tag, length, tag.length - length);
+			length += count;
+			if (length < tag.length) {
+				// the stream ended inside the tag
+				break;
+			}
+		}
+		return length == tag.length ? tag : Arrays.copyOf(tag, length);
+	}
+
+	/**
+	 * Lists the picture frames of the ID3v2 tag at the start of the channel, in tag order.
+	 * Returns an empty list if there is no tag or it has no pictures.
+	 * @param channel SeekableByteChannel
+	 * @return List of PictureFrame
+	 * @throws IOException
+	 */
+	public static List<PictureFrame> scan(SeekableByteChannel channel) throws IOException {
+		List<PictureFrame> frames = new ArrayList<>();
+		walk(channel, frames);
+		return frames;
+	}
+
+	/**
+	 * Checks if the ID3v2 tag at the start of the channel has a picture frame of any kind, including compressed,
+	 * encrypted and linked pictures that scan leaves out. 
+	 * @param channel SeekableByteChannel
+	 * @return boolean
+	 * @throws IOException
+	 */
+	public static boolean hasPictureFrame(SeekableByteChannel channel) throws IOException {
+		return walk(channel, null);
+	}
+
+	/**
+	 * Walks the frames of the tag at the start of the channel. 
+	 * @param channel SeekableByteChannel
+	 * @param frames List to collect the picture frames in, or null to stop at the first picture frame
+	 * @return boolean true if a picture frame was found
+	 * @throws IOException
+	 */
+	private static boolean walk(SeekableByteChannel channel, List<PictureFrame> frames) throws IOException {
+		ByteBuffer header = read(channel, 0, HEADER_SIZE);
+		if (!isTagHeader(header)) {
+			return false;
+		}
+
+		final int major = header.get(3);
+		final int flags = header.get(5) & 0xff;
+		final long end = Math.min(HEADER_SIZE + syncsafe(header, 6), channel.size());
+
+		if (major == 2 && (flags & 0x40) != 0) {
+			// compression was never defined for v2.2 tags
+			return false;
+		}
+
+		if (major < 4 && (flags & 0x80) != 0) {
+			// the whole tag is unsynchronised, undo it in memory and scan the copy
+			ByteBuffer body = read(channel, HEADER_SIZE, (int) (end - HEADER_SIZE));
+			byte[] clear = resynchronise(body.array(), 0, body.limit());
+
+			try (ByteBufferChannel copy = new ByteBufferChannel(clear)) {
+				long start = skipExtendedHeader(copy, major, flags, 0);
+				return scanFrames(copy, major, start, clear.length, true, frames);
+			}
+		}
+
+		long start = skipExtendedHeader(channel, major, flags, HEADER_SIZE);
+		return scanFrames(channel, major, start, end, false, frames);
+	}
+
+	/**
+	 * Reads the image data of a picture frame.
+	 * @param channel SeekableByteChannel the channel the frame was scanned from
+	 * @param frame PictureFrame
+	 * @return byte[]
+	 * @throws IOException
+	 */
+	public static byte[] readPayload(SeekableByteChannel channel, PictureFrame frame) throws IOException {
+		if (frame.getData() != null) {
+			return frame.getData();
+		}
+		return read(channel, frame.getPayloadPosition(), frame.getPayloadLength()).array();
+	}
+
+	/**
+	 * Feeds the image data of a picture frame into a digest in chunks, without holding it in memory.
+	 * @param channel SeekableByteChannel the channel the frame was scanned from
+	 * @param frame PictureFrame
+	 * @param digest MessageDigest
+	 * @throws IOException
+	 */
+	public static void hashPayload(SeekableByteChannel channel, PictureFrame frame, MessageDigest digest) throws IOException {
+		if (frame.getData() != null) {
+			digest.update(frame.getData());
+			return;
+		}
+
+		ByteBuffer chunk = ByteBuffer.allocate(Math.min(HASH_CHUNK_SIZE, Math.max(1, frame.getPayloadLength())));
+		long position = frame.getPayloadPosition();
+		long remaining = frame.getPayloadLength();
+
+		channel.position(position);
+		while (remaining > 0) {
+			chunk.clear();
+			chunk.limit((int) Math.min(chunk.capacity(), remaining));
+
+			final int count = channel.read(chunk);
+			if (count < 0) {
+				throw new IOException("Unexpected end of file in picture frame");
+			}
+
+			chunk.flip();
+			digest.update(chunk);
+			remaining -= count;
+		}
+	}
+
+	/**
+	 * Walks the frame headers between start and end and collects the picture frames, 
+	 * or stops at the first picture frame if there is no list to collect them in.
+	 */
+	private static boolean scanFrames(SeekableByteChannel channel, int major, long start, long end,
+			boolean copyPayload, List<PictureFrame> frames) throws IOException {
+
+		final int headerLength = major == 2 ? 6 : 10;
+		long position = start;
+		boolean found = false;
+
+		while (position + headerLength <= end) {
+			ByteBuffer frameHeader = read(channel, position, headerLength);
+			if (frameHeader.limit() < headerLength || frameHeader.get(0) == 0) {
+				// end of file or start of the padding
+				break;
+			}
+
+			final String id;
+			final long frameSize;
+			int formatFlags = 0;
+
+			if (major == 2) {
+				id = ascii(frameHeader, 0, 3);
+				frameSize = ((frameHeader.get(3) & 0xff) << 16) | ((frameHeader.get(4) & 0xff) << 8) | (frameHeader.get(5) & 0xff);
+			} else {
+				id = ascii(frameHeader, 0, 4);
+				frameSize = major == 4 ? syncsafe(frameHeader, 4) : frameHeader.getInt(4) & 0xffffffffL;
+				formatFlags = frameHeader.get(9) & 0xff;
+			}
+
+			final long bodyPosition = position + headerLength;
+			if (!isFrameId(id) || frameSize <= 0 || bodyPosition + frameSize > end) {
+				break;
+			}
+
+			if ("APIC".equals(id) || "PIC".equals(id)) {
+				found = true;
+				if (frames == null) {
+					return true;
+				}
+				PictureFrame frame = readPictureFrame(channel, major, formatFlags, bodyPosition, frameSize, copyPayload);
+				if (frame != null) {
+					frames.add(frame);
+				}
+			}
+
+			position = bodyPosition + frameSize;
+		}
+		return found;
+	}
+
+	/**
+	 * Handles the frame format flags and parses the picture frame body.
+	 * Compressed and encrypted frames are skipped.
+	 */
+	private static PictureFrame readPictureFrame(SeekableByteChannel channel, int major, int formatFlags,
+			long bodyPosition, long frameSize, boolean copyPayload) throws IOException {
+
+		long position = bodyPosition;
+		long length = frameSize;
+		boolean unsynchronised = false;
+
+		if (major == 3) {
+			if ((formatFlags & 0xc0) != 0) {
+				return null;
+			}
+			if ((formatFlags & 0x20) != 0) {
+				// group identifier
+				position++;
+				length--;
+			}
+
+		} else if (major == 4) {
+			if ((formatFlags & 0x0c) != 0) {
+				return null;
+			}
+			if ((formatFlags & 0x40) != 0) {
+				// group identifier
+				position++;
+				length--;
+			}
+			if ((formatFlags & 0x01) != 0) {
+				// data length indicator
+				position += 4;
+				length -= 4;
+			}
+			unsynchronised = (formatFlags & 0x02) != 0;
+		}
+
+		if (length <= 0 || length > Integer.MAX_VALUE) {
+			return null;
+		}
+
+		if (unsynchronised) {
+			ByteBuffer body = read(channel, position, (int) length);
+			byte[] clear = resynchronise(body.array(), 0, body.limit());
+
+			try (ByteBufferChannel copy = new ByteBufferChannel(clear)) {
+				return parsePicture(copy, major, 0, clear.length, true);
+			}
+		}
+
+		return parsePicture(channel, major, position, (int) length, copyPayload);
+	}
+
+	/**
+	 * Parses the text fields at the start of a picture frame body to find the picture type,
+	 * the MIME type and where the image data starts.
+	 */
+	private static PictureFrame parsePicture(SeekableByteChannel channel, int major, long position, int length,
+			boolean copyPayload) throws IOException {
+
+		int probe = Math.min(length, PROBE_SIZE);
+
+		while (true) {
+			ByteBuffer body = read(channel, position, probe);
+			if (body.limit() < probe) {
+				return null;
+			}
+
+			final int encoding = body.get(0) & 0xff;
+			int index = 1;
+			String mimeType;
+
+			if (major == 2) {
+				if (probe < 5) {
+					return null;
+				}
+				mimeType = mimeTypeForFormat(ascii(body, 1, 3));
+				index = 4;
+
+			} else {
+				final int zero = indexOfZero(body, 1);
+				if (zero < 0) {
+					if (probe < length) {
+						probe = length;
+						continue;
+					}
+					return null;
+				}
+				mimeType = normalizeMimeType(latin1(body, 1, zero - 1));
+				index = zero + 1;
+			}
+
+			if (index >= probe) {
+				if (probe < length) {
+					probe = length;
+					continue;
+				}
+				return null;
+			}
+
+			if (LINK_MIME_TYPE.equals(mimeType)) {
+				// points to an external file instead of holding image data
+				return null;
+			}
+
+			final int pictureType = body.get(index++) & 0xff;
+			final int dataOffset = skipDescription(body, index, encoding);
+
+			if (dataOffset < 0) {
+				if (probe < length) {
+					probe = length;
+					continue;
+				}
+				return null;
+			}
+
+			final int payloadLength = length - dataOffset;
+			if (payloadLength <= 0) {
+				return null;
+			}
+
+			final long payloadPosition = position + dataOffset;
+			byte[] data = null;
+			if (copyPayload) {
+				data = read(channel, payloadPosition, payloadLength).array();
+			}
+
+			return new PictureFrame(pictureType, mimeType, payloadPosition, payloadLength, data);
+		}
+	}
+
+	/**
+	 * Returns the offset just past the terminated description, or -1 if the terminator was not found.
+	 */
+	private static int skipDescription(ByteBuffer body, int start, int encoding) {
+		if (encoding == 1 || encoding == 2) {
+			// UTF-16 text ends with two zero bytes on a character boundary
+			for (int i = start; i + 1 < body.limit(); i += 2) {
+				if (body.get(i) == 0 && body.get(i + 1) == 0) {
+					return i + 2;
+				}
+			}
+			return -1;
+		}
+
+		final int zero = indexOfZero(body, start);
+		return zero < 0 ? -1 : zero + 1;
+	}
+
+	/**
+	 * Returns the position just past the extended header, if the tag has one.
+	 */
+	static long skipExtendedHeader(SeekableByteChannel channel, int major, int flags, long position) throws IOException {
+		if (major == 2 || (flags & 0x40) == 0) {
+			return position;
+		}
+
+		ByteBuffer size = read(channel, position, 4);
+		if (size.limit() < 4) {
+			return position;
+		}
+
+		// v2.3 does not count the size field itself, v2.4 does and uses a syncsafe integer
+		return major == 3 ? position + 4 + (size.getInt(0) & 0xffffffffL) : position + syncsafe(size, 0);
+	}
+
+	/**
+	 * Reverses ID3 unsynchronisation by dropping every zero byte that follows 0xFF.
+	 * @param bytes byte[]
+	 * @param offset int
+	 * @param length int
+	 * @return byte[]
+	 */
+	public static byte[] resynchronise(byte[] bytes, int offset, int length) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+
+		for (int i = offset; i < offset + length; i++) {
+			out.write(bytes[i]);
+			if ((bytes[i] & 0xff) == 0xff && i + 1 < offset + length && bytes[i + 1] == 0) {
+				i++;
+			}
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Reads up to length bytes at a position. The returned buffer is shorter at the end of the channel.
+	 */
+	static ByteBuffer read(SeekableByteChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(Math.max(0, length));
+		channel.position(position);
+
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				break;
+			}
+		}
+
+		buffer.flip();
+		return buffer;
+	}
+
+	private static int readFully(InputStream in, byte[] bytes, int offset, int length) throws IOException {
+		int total = 0;
+		while (total < length) {
+			final int count = in.read(bytes, offset + total, length - total);
+			if (count < 0) {
+				break;
+			}
+			total += count;
+		}
+		return total;
+	}
+
+	static boolean isTagHeader(ByteBuffer header) {
+		return header.limit() == HEADER_SIZE
+				&& header.get(0) == 'I' && header.get(1) == 'D' && header.get(2) == '3'
+				&& header.get(3) >= 2 && header.get(3) <= 4;
+	}
+
+	static boolean isFrameId(String id) {
+		for (int i = 0; i < id.length(); i++) {
+			char c = id.charAt(i);
+			if (!((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static long syncsafe(ByteBuffer buffer, int index) {
+		return ((buffer.get(index) & 0x7fL) << 21) | ((buffer.get(index + 1) & 0x7fL) << 14)
+				| ((buffer.get(index + 2) & 0x7fL) << 7) | (buffer.get(index + 3) & 0x7fL);
+	}
+
+	private static int indexOfZero(ByteBuffer buffer, int start) {
+		for (int i = start; i < buffer.limit(); i++) {
+			if (buffer.get(i) == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static String ascii(ByteBuffer buffer, int index, int length) {
+		return new String(buffer.array(), index, length, StandardCharsets.US_ASCII);
+	}
+
+	private static String latin1(ByteBuffer buffer, int index, int length) {
+		return new String(buffer.array(), index, length, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Maps the three letter image format of an ID3v2.2 PIC frame to a MIME type.
+	 */
+	private static String mimeTypeForFormat(String format) {
+		final String upper = format.trim().toUpperCase(Locale.ROOT);
+		if ("JPG".equals(upper) || "JPEG".equals(upper)) {
+			return "image/jpeg";
+		}
+		if (LINK_MIME_TYPE.equals(upper)) {
+			return LINK_MIME_TYPE;
+		}
+		return "image/" + upper.toLowerCase(Locale.ROOT);
+	}
+
+	private static String normalizeMimeType(String mimeType) {
+		final String lower = mimeType.trim().toLowerCase(Locale.ROOT);
+		if ("image/jpg".equals(lower) || "jpg".equals(lower) || "jpeg".equals(lower)) {
+			return "image/jpeg";
+		}
+		if ("png".equals(lower)) {
+			return "image/png";
+		}
+		return lower;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.tag;
+
+/**
+ * Metadata of one embedded picture frame (ID3 APIC or PIC), without its image data. 
+ * The payload is located by position and length so it can be read or hashed on demand. 
+ * @author jhorvath
+ */
+public class PictureFrame {
+	
+	private final int pictureType;
+	private final String mimeType;
+	private final long payloadPosition;
+	private final int payloadLength;
+	private final byte[] data;
+	
+	/**
+	 * Constructor. 
+	 * @param pictureType int ID3 picture type
+	 * @param mimeType String 
+	 * @param payloadPosition long position of the image data in the scanned channel 
+	 * @param payloadLength int length of the image data 
+	 * @param data byte[] the image data when it had to be copied out of the tag, otherwise null 
+	 */
+	public PictureFrame(int pictureType, String mimeType, long payloadPosition, int payloadLength, byte[] data) {
+		this.pictureType = pictureType;
+		this.mimeType = mimeType;
+		this.payloadPosition = payloadPosition;
+		this.payloadLength = payloadLength;
+		this.data = data;
+	}
+
+	public int getPictureType() {
+		return pictureType;
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	public long getPayloadPosition() {
+		return payloadPosition;
+	}
+
+	public int getPayloadLength() {
+		return payloadLength;
+	}
+
+	/**
+	 * Returns the image data if it is held in memory, or null if it must be read from the channel. 
+	 * @return byte[]
+	 */
+	public byte[] getData() {
+		return data;
+	}
+}
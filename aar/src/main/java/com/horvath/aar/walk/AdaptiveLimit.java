@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import com.horvath.aar.application.Debugger;
+
+/**
+ * Concurrency limit of one device that tunes itself while a run goes, in the way TCP finds the capacity of a link.
+ * Completed files are collected over a window of at least {@value #WINDOW_MILLIS} ms and {@value #MIN_SAMPLES} files.
+ * At the end of each window the files per second and the mean latency per file are compared with earlier windows:
+ * <ul>
+ * <li>if the latency has grown past {@value #LATENCY_TOLERANCE} times the lowest latency seen and the throughput
+ * did not grow with it, the extra workers only queue on the device, and the limit is cut to
+ * {@value #DECREASE} of itself (multiplicative decrease);</li>
+ * <li>otherwise the device keeps up, and the limit grows by one (additive increase).</li>
+ * </ul>
+ * The limit always stays within the configured bounds, and every change is logged.
+ * @author jhorvath
+ */
+public class AdaptiveLimit {
+
+	public static final long WINDOW_MILLIS = 1000;
+	public static final int MIN_SAMPLES = 4;
+	public static final double LATENCY_TOLERANCE = 2.0;
+	public static final double DECREASE = 0.75;
+	/** Throughput gain, as a fraction, that pays for a longer latency. */
+	public static final double GAIN = 0.05;
+
+	private final String name;
+	private final int min;
+	private final int max;
+
+	private int limit;
+	private int changes = 0;
+
+	private long windowStart = System.nanoTime();
+	private int files = 0;
+	private long latencyMillis = 0;
+
+	private double lowestLatency = Double.MAX_VALUE;
+	private double previousThroughput = 0;
+
+	/**
+	 * Constructor.
+	 * @param name String of the device, for the log
+	 * @param min int lowest limit, at least 1
+	 * @param max int highest limit, at least min
+	 * @param initial int limit to start at, moved within the bounds
+	 */
+	public AdaptiveLimit(String name, int min, int max, int initial) {
+		this.name = name;
+		this.min = min;
+		this.max = max;
+		this.limit = Math.max(min, Math.min(max, initial));
+	}
+
+	/**
+	 * Records a completed file and, at the end of a window, adjusts the limit.
+	 * @param millis long the file took
+	 * @return int the limit to apply
+	 */
+	public synchronized int record(long millis) {
+		files++;
+		latencyMillis += millis;
+
+		final long now = System.nanoTime();
+		final long elapsed = now - windowStart;
+		if (files < MIN_SAMPLES || elapsed < TimeUnit.MILLISECONDS.toNanos(WINDOW_MILLIS)) {
+			return limit;
+		}
+
+		final double throughput = files * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+		final double latency = (double) latencyMillis / files;
+
+		windowStart = now;
+		files = 0;
+		latencyMillis = 0;
+
+		return adjust(throughput, latency);
+	}
+
+	/**
+	 * Adjusts the limit for the measurements of one window.
+	 * @param throughput double files per second
+	 * @param latency double mean milliseconds per file
+	 * @return int the new limit
+	 */
+	public synchronized int adjust(double throughput, double latency) {
+		// a millisecond floor keeps files served from the cache from making every later window look congested
+		lowestLatency = Math.min(lowestLatency, Math.max(1, latency));
+
+		final boolean congested = latency > lowestLatency * LATENCY_TOLERANCE
+				&& throughput <= previousThroughput * (1 + GAIN);
+		previousThroughput = throughput;
+
+		final int next = congested
+				? Math.max(min, Math.min(limit - 1, (int) (limit * DECREASE)))
+				: Math.min(max, limit + 1);
+
+		if (next != limit) {
+			changes++;
+			Debugger.printLog(Level.INFO, this.getClass().getName(), "Concurrency of %s %d -> %d: %.1f files/s, %.1f ms per file (lowest %.1f ms)",
+					name, limit, next, throughput, latency, lowestLatency);
+			limit = next;
+		}
+		return limit;
+	}
+
+	public synchronized int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns the number of times the limit has changed.
+	 * @return int
+	 */
+	public synchronized int getChanges() {
+		return changes;
+	}
+
+	public int getMin() {
+		return min;
+	}
+
+	public int getMax() {
+		return max;
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Concurrency limits for the devices a run reads from.
+ * Each device class has a default limit, and a single device can be overridden by its mount point or device name.
+ * Limits are written on the command line as "hdd=2", "ssd=8", "other=4" or "/mnt/music=1".
+ * With adaptive bounds, each limit is only the starting point of a device that tunes itself, see {@link AdaptiveLimit}.
+ * @author jhorvath
+ */
+public class DeviceLimits {
+
+	/**
+	 * Kind of device behind a file store.
+	 */
+	public enum DeviceType {
+		/** Solid state storage, where concurrent reads are cheap. */
+		SSD("ssd"),
+		/** Rotational storage, where concurrent reads cost seeks. */
+		HDD("hdd"),
+		/** Network, virtual or unknown storage. */
+		OTHER("other");
+
+		private final String label;
+
+		DeviceType(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * Returns the device type for a label, or null if the label is unknown.
+		 * @param label String
+		 * @return DeviceType
+		 */
+		public static DeviceType fromLabel(String label) {
+			for (DeviceType type : values()) {
+				if (type.label.equals(label)) {
+					return type;
+				}
+			}
+			return null;
+		}
+	}
+
+	public static final int DEFAULT_HDD_LIMIT = 2;
+	public static final int DEFAULT_OTHER_LIMIT = 4;
+
+	public static final String ERROR_LIMIT_FORMAT = "The device limit must be given as device=count, for example hdd=2.";
+	public static final String ERROR_LIMIT_RANGE = "The device limit must be at least 1.";
+	public static final String ERROR_ADAPTIVE_FORMAT = "The adaptive bounds must be given as min-max, for example 1-16, with 1 <= min <= max.";
+
+	private final Map<DeviceType, Integer> typeLimits = new LinkedHashMap<>();
+	private final Map<String, Integer> deviceLimits = new LinkedHashMap<>();
+
+	private int adaptiveMin = 0;
+	private int adaptiveMax = 0;
+
+	/**
+	 * Constructor. Uses one reader per processor for solid state devices,
+	 * {@value #DEFAULT_HDD_LIMIT} for rotational devices and {@value #DEFAULT_OTHER_LIMIT} for anything else.
+	 */
+	public DeviceLimits() {
+		typeLimits.put(DeviceType.SSD, Math.max(2, Runtime.getRuntime().availableProcessors()));
+		typeLimits.put(DeviceType.HDD, DEFAULT_HDD_LIMIT);
+		typeLimits.put(DeviceType.OTHER, DEFAULT_OTHER_LIMIT);
+	}
+
+	/**
+	 * Adds a limit given as "device=count", where the device is a device class or a mount point or device name.
+	 * @param text String
+	 * @throws AarException
+	 */
+	public void add(String text) throws AarException {
+		final int equals = text == null ? -1 : text.lastIndexOf('=');
+		if (equals < 1) {
+			throw new AarException(ERROR_LIMIT_FORMAT);
+		}
+
+		final String device = text.substring(0, equals).trim();
+		final int limit;
+		try {
+			limit = Integer.parseInt(text.substring(equals + 1).trim());
+
+		} catch (NumberFormatException ex) {
+			throw new AarException(ERROR_LIMIT_FORMAT, ex);
+		}
+
+		if (limit < 1) {
+			throw new AarException(ERROR_LIMIT_RANGE);
+		}
+
+		DeviceType type = DeviceType.fromLabel(device.toLowerCase(Locale.ROOT));
+		if (type != null) {
+			typeLimits.put(type, limit);
+		} else {
+			deviceLimits.put(device, limit);
+		}
+	}
+
+	/**
+	 * Returns the limit for a device. A limit given for its mount point or device name wins over the class limit.
+	 * @param type DeviceType
+	 * @param mountPoint String, may be null
+	 * @param deviceName String, may be null
+	 * @return int
+	 */
+	public int limitFor(DeviceType type, String mountPoint, String deviceName) {
+		if (mountPoint != null && deviceLimits.containsKey(mountPoint)) {
+			return deviceLimits.get(mountPoint);
+		}
+		if (deviceName != null && deviceLimits.containsKey(deviceName)) {
+			return deviceLimits.get(deviceName);
+		}
+		return typeLimits.get(type);
+	}
+
+	/**
+	 * Makes every device tune its limit at run time within bounds given as "min-max".
+	 * The limit of a device is then where its tuning starts.
+	 * @param text String
+	 * @throws AarException
+	 */
+	public void setAdaptive(String text) throws AarException {
+		final int dash = text == null ? -1 : text.indexOf('-');
+		if (dash < 1) {
+			throw new AarException(ERROR_ADAPTIVE_FORMAT);
+		}
+
+		try {
+			setAdaptive(Integer.parseInt(text.substring(0, dash).trim()), Integer.parseInt(text.substring(dash + 1).trim()));
+
+		} catch (NumberFormatException ex) {
+			throw new AarException(ERROR_ADAPTIVE_FORMAT, ex);
+		}
+	}
+
+	/**
+	 * Makes every device tune its limit at run time within bounds.
+	 * @param min int
+	 * @param max int
+	 * @throws AarException if min is below 1 or above max
+	 */
+	public void setAdaptive(int min, int max) throws AarException {
+		if (min < 1 || max < min) {
+			throw new AarException(ERROR_ADAPTIVE_FORMAT);
+		}
+		this.adaptiveMin = min;
+		this.adaptiveMax = max;
+	}
+
+	/**
+	 * Checks if devices tune their limits at run time.
+	 * @return boolean
+	 */
+	public boolean isAdaptive() {
+		return adaptiveMin > 0;
+	}
+
+	public int getAdaptiveMin() {
+		return adaptiveMin;
+	}
+
+	public int getAdaptiveMax() {
+		return adaptiveMax;
+	}
+
+	/**
+	 * Returns the default limit for a device class.
+	 * @param type DeviceType
+	 * @return int
+	 */
+	public int getLimit(DeviceType type) {
+		return typeLimits.get(type);
+	}
+}
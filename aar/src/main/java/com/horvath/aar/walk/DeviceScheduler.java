@@ -0,0 +1,418 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.logging.Level;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.walk.DeviceLimits.DeviceType;
+
+/**
+ * Runs tasks with a separate concurrency limit for every device they read from.
+ * Tasks are grouped by the device of the file they read. On rotational devices the queued tasks are
+ * served in inode order, sweeping upwards and wrapping around, so reads follow the on-disk layout instead of seeking back and forth.
+ * Other devices serve their tasks in submission order.
+ * With adaptive device limits, every device tunes its number of workers from the files its tasks complete,
+ * reported through {@link #fileDone(long)}.
+ * @author jhorvath
+ */
+public class DeviceScheduler {
+
+	private final DeviceLimits limits;
+	private final Map<Object, DeviceQueue> queues = new HashMap<>();
+
+	private long sequence = 0;
+	private int outstanding = 0;
+	private Throwable failure = null;
+
+	/** Milliseconds an idle worker waits for more work before it ends. */
+	public static final long KEEP_ALIVE_MILLIS = 2000;
+
+	private static final String SYS_DEV_BLOCK = "/sys/dev/block/";
+	private static final String ROTATIONAL = "queue/rotational";
+
+	/** Queue served by the current worker thread. */
+	private static final ThreadLocal<DeviceQueue> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * Constructor.
+	 * @param limits DeviceLimits
+	 */
+	public DeviceScheduler(DeviceLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * Queues a task on the device that holds the given file.
+	 * @param file File the task reads first, used to find the device and the inode
+	 * @param task Runnable
+	 */
+	public void submit(File file, Runnable task) {
+		final Path path = file.toPath();
+
+		Object key = null;
+		long inode = -1;
+		try {
+			Map<String, Object> attributes = Files.readAttributes(path, "unix:dev,ino");
+			key = attributes.get("dev");
+			inode = (Long) attributes.get("ino");
+
+		} catch (UnsupportedOperationException | IllegalArgumentException | IOException ex) {
+			// not a unix file system, fall back to the file store
+		}
+
+		DeviceQueue queue;
+		final long order;
+		synchronized (this) {
+			if (key == null) {
+				key = fileStore(path);
+			}
+
+			queue = queues.get(key);
+			if (queue == null) {
+				queue = createQueue(key, path);
+				queues.put(key, queue);
+			}
+
+			outstanding++;
+			order = ++sequence;
+		}
+
+		queue.add(new Task(queue.ordered && inode >= 0 ? inode : order, order, task));
+	}
+
+	/**
+	 * Waits until every submitted task has run.
+	 * A task that failed with an unchecked exception is rethrown here.
+	 * @throws InterruptedException
+	 */
+	public synchronized void awaitCompletion() throws InterruptedException {
+		while (outstanding > 0) {
+			wait();
+		}
+
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+	}
+
+	/**
+	 * Reports a file completed by the task running on this thread, so an adaptive device can tune its limit.
+	 * Does nothing on threads that are not workers of this scheduler, or without adaptive limits.
+	 * @param millis long the file took
+	 */
+	public void fileDone(long millis) {
+		DeviceQueue queue = CURRENT.get();
+		if (queue != null && queue.adaptive != null && queue.scheduler() == this) {
+			queue.fileDone(millis);
+		}
+	}
+
+	/**
+	 * Returns a description of every device seen so far, with its type and limit.
+	 * @return List of String
+	 */
+	public synchronized List<String> getDevices() {
+		List<String> devices = new ArrayList<>();
+		for (DeviceQueue queue : queues.values()) {
+			devices.add(queue.toString());
+		}
+		return devices;
+	}
+
+	/**
+	 * Called by the workers after each task.
+	 * @param error Throwable thrown by the task, or null
+	 */
+	private synchronized void taskDone(Throwable error) {
+		if (error != null && failure == null) {
+			failure = error;
+		}
+		outstanding--;
+		if (outstanding == 0) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Creates the queue for a newly seen device.
+	 * @param key Object device number or file store
+	 * @param path Path on the device
+	 * @return DeviceQueue
+	 */
+	private DeviceQueue createQueue(Object key, Path path) {
+		String name = null;
+		String mountPoint = null;
+
+		Object store = key instanceof FileStore ? key : fileStore(path);
+		if (store instanceof FileStore) {
+			name = ((FileStore) store).name();
+			mountPoint = mountPoint((FileStore) store);
+		}
+
+		DeviceType type = key instanceof Long ? deviceType((Long) key) : DeviceType.OTHER;
+		int limit = limits.limitFor(type, mountPoint, name);
+
+		final String queueName = mountPoint != null ? mountPoint : String.valueOf(key);
+		AdaptiveLimit adaptive = limits.isAdaptive() 
+				? new AdaptiveLimit(queueName, limits.getAdaptiveMin(), limits.getAdaptiveMax(), limit) 
+				: null;
+
+		DeviceQueue queue = new DeviceQueue(queueName, type, limit, adaptive);
+		Debugger.printLog(Level.INFO, this.getClass().getName(), "Scheduling device %s", queue);
+		return queue;
+	}
+
+	/**
+	 * Returns the file store holding a path, or a placeholder key if it cannot be determined.
+	 * @param path Path
+	 * @return Object
+	 */
+	private static Object fileStore(Path path) {
+		try {
+			return Files.getFileStore(path);
+		} catch (IOException ex) {
+			return "unknown";
+		}
+	}
+
+	/**
+	 * Returns the mount point of a file store, taken from its description "mount point (device)".
+	 * @param store FileStore
+	 * @return String, or null if unknown
+	 */
+	private static String mountPoint(FileStore store) {
+		final String text = store.toString();
+		final int open = text.lastIndexOf(" (");
+		return open > 0 ? text.substring(0, open) : null;
+	}
+
+	/**
+	 * Finds out whether a device is rotational from the Linux block device attributes.
+	 * Devices without block device attributes, such as network shares, are reported as other.
+	 * @param device long device number
+	 * @return DeviceType
+	 */
+	private static DeviceType deviceType(long device) {
+		final long major = ((device >>> 8) & 0xfffL) | ((device >>> 32) & 0xfffff000L);
+		final long minor = (device & 0xffL) | ((device >>> 12) & 0xffffff00L);
+
+		try {
+			Path block = Paths.get(SYS_DEV_BLOCK + major + ":" + minor);
+			if (!Files.exists(block)) {
+				return DeviceType.OTHER;
+			}
+
+			block = block.toRealPath();
+			Path rotational = block.resolve(ROTATIONAL);
+			if (!Files.exists(rotational) && block.getParent() != null) {
+				// a partition, the queue belongs to the whole disk
+				rotational = block.getParent().resolve(ROTATIONAL);
+			}
+			if (!Files.exists(rotational)) {
+				return DeviceType.OTHER;
+			}
+
+			final String value = new String(Files.readAllBytes(rotational), StandardCharsets.US_ASCII).trim();
+			return "1".equals(value) ? DeviceType.HDD : DeviceType.SSD;
+
+		} catch (IOException | RuntimeException ex) {
+			return DeviceType.OTHER;
+		}
+	}
+
+	/**
+	 * A queued task with its position on the device.
+	 */
+	private static final class Task {
+		final long position;
+		final long sequence;
+		final Runnable runnable;
+
+		Task(long position, long sequence, Runnable runnable) {
+			this.position = position;
+			this.sequence = sequence;
+			this.runnable = runnable;
+		}
+	}
+
+	/**
+	 * Tasks and workers of one device.
+	 */
+	private final class DeviceQueue {
+		final String name;
+		final DeviceType type;
+		final int limit;
+		final boolean ordered;
+		final AdaptiveLimit adaptive;
+
+		final TreeSet<Task> tasks = new TreeSet<>(
+				Comparator.<Task>comparingLong(task -> task.position).thenComparingLong(task -> task.sequence));
+
+		long head = Long.MIN_VALUE;
+		int workers = 0;
+		int idle = 0;
+
+		DeviceQueue(String name, DeviceType type, int limit, AdaptiveLimit adaptive) {
+			this.name = name;
+			this.type = type;
+			this.limit = limit;
+			this.ordered = type == DeviceType.HDD;
+			this.adaptive = adaptive;
+		}
+
+		DeviceScheduler scheduler() {
+			return DeviceScheduler.this;
+		}
+
+		/**
+		 * Returns the number of workers the device may have now.
+		 * @return int
+		 */
+		int currentLimit() {
+			return adaptive == null ? limit : adaptive.getLimit();
+		}
+
+		synchronized void add(Task task) {
+			tasks.add(task);
+
+			if (idle > 0) {
+				notify();
+			} else if (workers < currentLimit()) {
+				startWorker();
+			}
+		}
+
+		/**
+		 * Feeds a completed file to the adaptive limit, and starts workers for queued tasks if the limit grew.
+		 * Surplus workers end by themselves after their current task.
+		 * @param millis long
+		 */
+		void fileDone(long millis) {
+			final int current = adaptive.record(millis);
+
+			synchronized (this) {
+				final int spare = Math.min(current - workers, tasks.size() - idle);
+				for (int i = 0; i < spare; i++) {
+					startWorker();
+				}
+			}
+		}
+
+		/**
+		 * Starts another worker. Called holding the lock of the queue.
+		 */
+		private void startWorker() {
+			workers++;
+			Thread worker = new Thread(this::work, "aar-device-" + name + "-" + workers);
+			worker.setDaemon(true);
+			worker.start();
+		}
+
+		/**
+		 * Takes the next task: the one at or after the head position, wrapping around to the lowest position.
+		 * @return Task, or null if the queue is empty
+		 */
+		Task next() {
+			if (tasks.isEmpty()) {
+				return null;
+			}
+
+			Task task = tasks.ceiling(new Task(head, Long.MIN_VALUE, null));
+			if (task == null) {
+				task = tasks.first();
+			}
+			tasks.remove(task);
+			head = task.position;
+			return task;
+		}
+
+		void work() {
+			CURRENT.set(this);
+			while (true) {
+				Task task;
+
+				synchronized (this) {
+					if (workers > currentLimit()) {
+						// the limit was lowered
+						workers--;
+						return;
+					}
+
+					task = next();
+					if (task == null) {
+						idle++;
+						try {
+							wait(KEEP_ALIVE_MILLIS);
+						} catch (InterruptedException ex) {
+							Thread.currentThread().interrupt();
+						} finally {
+							idle--;
+						}
+
+						task = next();
+						if (task == null) {
+							workers--;
+							return;
+						}
+					}
+				}
+
+				Throwable error = null;
+				try {
+					task.runnable.run();
+				} catch (RuntimeException | Error ex) {
+					error = ex;
+				}
+				taskDone(error);
+			}
+		}
+
+		@Override
+		public String toString() {
+			if (adaptive != null) {
+				return name + " (" + type.getLabel() + ", limit " + currentLimit() + " of " + adaptive.getMin() + "-" + adaptive.getMax() 
+						+ " after " + adaptive.getChanges() + " changes, started at " + limit + ")";
+			}
+			return name + " (" + type.getLabel() + ", limit " + limit + ")";
+		}
+	}
+}
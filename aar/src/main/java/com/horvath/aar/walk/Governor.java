@@ -0,0 +1,326 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import com.horvath.aar.application.Debugger;
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Limits how hard a run works the machine, so it can share a box with live playback.
+ * Three token buckets bound the bytes read per second, the files opened per second and the share of one processor
+ * spent encoding covers. Callers take from a bucket after the work is done, and the next caller waits off the debt,
+ * so the long-run rate holds without knowing the cost of work up front.
+ * <p>
+ * The limits can be changed while a run is going by editing a control file of "key=value" lines:
+ * {@value #KEY_READ_BYTES} (with an optional K, M or G suffix), {@value #KEY_FILES} and {@value #KEY_ENCODE_SHARE}
+ * (a fraction of one processor, such as 0.25). A missing key, or 0, leaves that resource unlimited.
+ * The file is checked at most once a second; a file that cannot be read or parsed keeps the limits in force.
+ * @author jhorvath
+ */
+public class Governor {
+
+	public static final String KEY_READ_BYTES = "read-bytes-per-second";
+	public static final String KEY_FILES = "files-per-second";
+	public static final String KEY_ENCODE_SHARE = "encode-cpu-share";
+
+	public static final long CONTROL_CHECK_MILLIS = 1000;
+
+	public static final String ERROR_CONTROL_FORMAT = "The throttle value is not a number: ";
+	public static final String ERROR_CONTROL_RANGE = "The throttle value cannot be negative: ";
+	public static final String ERROR_CONTROL_KEY = "Unknown throttle setting: ";
+
+	private final TokenBucket readBytes = new TokenBucket();
+	private final TokenBucket files = new TokenBucket();
+	private final TokenBucket encodeNanos = new TokenBucket();
+
+	private File controlFile = null;
+	private long controlModified = 0;
+	private long nextCheckMillis = 0;
+
+	/**
+	 * Constructor. Every resource starts unlimited.
+	 */
+	public Governor() {
+	}
+
+	/**
+	 * Waits until another file may be opened.
+	 */
+	public void acquireFile() {
+		checkControlFile();
+		pause(files.take(1));
+	}
+
+	/**
+	 * Charges bytes that were read, waiting off any debt this leaves.
+	 * @param bytes long
+	 */
+	public void chargeRead(long bytes) {
+		checkControlFile();
+		pause(readBytes.take(bytes));
+	}
+
+	/**
+	 * Charges processor time spent encoding, waiting off any debt this leaves.
+	 * @param nanos long
+	 */
+	public void chargeEncode(long nanos) {
+		checkControlFile();
+		pause(encodeNanos.take(nanos));
+	}
+
+	/**
+	 * Sets the bytes that may be read per second. 0 is unlimited.
+	 * @param bytesPerSecond long
+	 */
+	public void setReadBytesPerSecond(long bytesPerSecond) {
+		readBytes.setRate(bytesPerSecond);
+	}
+
+	/**
+	 * Sets the files that may be opened per second. 0 is unlimited.
+	 * @param filesPerSecond double
+	 */
+	public void setFilesPerSecond(double filesPerSecond) {
+		files.setRate(filesPerSecond);
+	}
+
+	/**
+	 * Sets the share of one processor that encoding may use, such as 0.25. 0 is unlimited.
+	 * @param share double
+	 */
+	public void setEncodeShare(double share) {
+		encodeNanos.setRate(share * TimeUnit.SECONDS.toNanos(1));
+	}
+
+	public long getReadBytesPerSecond() {
+		return (long) readBytes.getRate();
+	}
+
+	public double getFilesPerSecond() {
+		return files.getRate();
+	}
+
+	public double getEncodeShare() {
+		return encodeNanos.getRate() / TimeUnit.SECONDS.toNanos(1);
+	}
+
+	public File getControlFile() {
+		return controlFile;
+	}
+
+	/**
+	 * Sets the control file and applies it at once. A file that does not exist yet leaves every resource unlimited
+	 * until it is created.
+	 * @param controlFile File
+	 * @throws AarException if the file exists but holds an invalid setting
+	 */
+	public void setControlFile(File controlFile) throws AarException {
+		this.controlFile = controlFile;
+		this.controlModified = 0;
+
+		if (controlFile != null && controlFile.isFile()) {
+			controlModified = controlFile.lastModified();
+			apply(readControlFile());
+		}
+		nextCheckMillis = System.currentTimeMillis() + CONTROL_CHECK_MILLIS;
+	}
+
+	/**
+	 * Applies settings, each a {@value #KEY_READ_BYTES}, {@value #KEY_FILES} or {@value #KEY_ENCODE_SHARE} key.
+	 * Settings that are not given become unlimited. Nothing changes if any setting is invalid.
+	 * @param settings Properties
+	 * @throws AarException
+	 */
+	public void apply(Properties settings) throws AarException {
+		for (String key : settings.stringPropertyNames()) {
+			if (!KEY_READ_BYTES.equals(key) && !KEY_FILES.equals(key) && !KEY_ENCODE_SHARE.equals(key)) {
+				throw new AarException(ERROR_CONTROL_KEY + key);
+			}
+		}
+
+		final long bytes = (long) parse(settings.getProperty(KEY_READ_BYTES), true);
+		final double filesPerSecond = parse(settings.getProperty(KEY_FILES), false);
+		final double share = parse(settings.getProperty(KEY_ENCODE_SHARE), false);
+
+		setReadBytesPerSecond(bytes);
+		setFilesPerSecond(filesPerSecond);
+		setEncodeShare(share);
+
+		Debugger.printLog(Level.INFO, this.getClass().getName(), "Throttle: %d bytes/s, %s files/s, encode share %s",
+				bytes, filesPerSecond, share);
+	}
+
+	/**
+	 * Re-reads the control file if it changed since it was last applied, at most once every
+	 * {@value #CONTROL_CHECK_MILLIS} ms.
+	 */
+	private void checkControlFile() {
+		if (controlFile == null) {
+			return;
+		}
+
+		final long now = System.currentTimeMillis();
+		synchronized (this) {
+			if (now < nextCheckMillis) {
+				return;
+			}
+			nextCheckMillis = now + CONTROL_CHECK_MILLIS;
+
+			final long modified = controlFile.lastModified();
+			if (modified == controlModified) {
+				return;
+			}
+			controlModified = modified;
+		}
+
+		try {
+			// a deleted control file lifts every limit
+			apply(controlFile.isFile() ? readControlFile() : new Properties());
+
+		} catch (AarException ex) {
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), "Keeping the current throttle: %s", ex.getMessage());
+		}
+	}
+
+	private Properties readControlFile() throws AarException {
+		Properties settings = new Properties();
+		try (InputStream in = Files.newInputStream(controlFile.toPath())) {
+			settings.load(in);
+
+		} catch (IOException | IllegalArgumentException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+		return settings;
+	}
+
+	/**
+	 * Parses a rate. Byte rates may end in K, M or G for multiples of 1024.
+	 * @param text String, null for unlimited
+	 * @param bytes boolean true to accept a size suffix
+	 * @return double
+	 * @throws AarException
+	 */
+	private static double parse(String text, boolean bytes) throws AarException {
+		if (text == null || text.trim().isEmpty()) {
+			return 0;
+		}
+
+		String value = text.trim().toUpperCase(Locale.ROOT);
+		long multiplier = 1;
+
+		if (bytes && value.length() > 1) {
+			final int shift = "KMG".indexOf(value.charAt(value.length() - 1)) + 1;
+			if (shift > 0) {
+				multiplier = 1L << (10 * shift);
+				value = value.substring(0, value.length() - 1).trim();
+			}
+		}
+
+		final double rate;
+		try {
+			rate = Double.parseDouble(value) * multiplier;
+
+		} catch (NumberFormatException ex) {
+			throw new AarException(ERROR_CONTROL_FORMAT + text, ex);
+		}
+
+		if (rate < 0 || Double.isNaN(rate)) {
+			throw new AarException(ERROR_CONTROL_RANGE + text);
+		}
+		return rate;
+	}
+
+	/**
+	 * Sleeps for a wait handed out by a bucket. An interrupt ends the wait early and is kept for the caller.
+	 * The wait is not held against the deadline of a Watchdog call, so throttling alone never times out a file.
+	 * @param nanos long
+	 */
+	private static void pause(long nanos) {
+		if (nanos <= 0) {
+			return;
+		}
+		final long start = Watchdog.beginPause();
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		} finally {
+			Watchdog.endPause(start);
+		}
+	}
+
+	/**
+	 * Token bucket holding up to one second of its rate. Taking more than it holds leaves a debt,
+	 * and the taker is told how long to wait for the debt to be paid off.
+	 */
+	static class TokenBucket {
+
+		private double rate = 0;
+		private double tokens = 0;
+		private long refilled = System.nanoTime();
+
+		/**
+		 * Takes an amount and returns the nanoseconds to wait before going on.
+		 * @param amount double
+		 * @return long
+		 */
+		synchronized long take(double amount) {
+			if (rate <= 0) {
+				return 0;
+			}
+
+			final long now = System.nanoTime();
+			tokens = Math.min(rate, tokens + (now - refilled) * rate / TimeUnit.SECONDS.toNanos(1));
+			refilled = now;
+			tokens -= amount;
+
+			return tokens >= 0 ? 0 : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+		}
+
+		synchronized void setRate(double rate) {
+			if (Math.max(0, rate) == this.rate) {
+				return;
+			}
+			this.rate = Math.max(0, rate);
+			// a new rate starts with a full bucket rather than an old debt
+			this.tokens = this.rate;
+			this.refilled = System.nanoTime();
+		}
+
+		synchronized double getRate() {
+			return rate;
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Append-only journal of folders whose whole subtree has been processed.
+ * Entries are buffered and appended in batches; a resumed run loads the journal and skips those subtrees.
+ * The journal records the run key it was written with, and a run with a different key starts a fresh journal.
+ * @author jhorvath
+ */
+public class Journal {
+
+	private final File file;
+	private final int batchSize;
+
+	private final Set<String> completed = new HashSet<>();
+	private final List<String> pending = new ArrayList<>();
+
+	private String runKey = "";
+	private boolean discarded = false;
+
+	public static final int DEFAULT_BATCH_SIZE = 64;
+	public static final String HEADER = "# AAR journal";
+	public static final String ROOT_ENTRY = ".";
+	public static final String RUN_KEY_PREFIX = SummaryTree.RUN_KEY_PREFIX;
+
+	/**
+	 * Constructor.
+	 * @param file File
+	 */
+	public Journal(File file) {
+		this(file, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 * @param file File
+	 * @param batchSize int number of entries buffered before they are appended to disk
+	 */
+	public Journal(File file, int batchSize) {
+		this.file = file;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Loads the entries of an existing journal. A line that was cut short by a crash is ignored.
+	 * A journal written with a different run key is removed, and the run starts from the beginning.
+	 * @throws AarException
+	 */
+	public synchronized void load() throws AarException {
+		completed.clear();
+		discarded = false;
+
+		if (!file.exists()) {
+			return;
+		}
+
+		try {
+			String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+			// everything after the last newline is an incomplete append
+			final int end = text.lastIndexOf('\n');
+			if (end < 0) {
+				return;
+			}
+
+			String storedKey = null;
+			for (String line : text.substring(0, end).split("\n")) {
+				if (line.startsWith(RUN_KEY_PREFIX)) {
+					storedKey = line.substring(RUN_KEY_PREFIX.length());
+				} else if (!line.isEmpty() && !line.startsWith("#")) {
+					completed.add(line);
+				}
+			}
+
+			if (!SummaryTree.digest(runKey).equals(storedKey)) {
+				// folders finished under other options may still need work under these
+				discarded = !completed.isEmpty();
+				completed.clear();
+				Files.deleteIfExists(file.toPath());
+			}
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Returns true if the folder's subtree was completed by an earlier run.
+	 * @param relativePath String
+	 * @return boolean
+	 */
+	public synchronized boolean isComplete(String relativePath) {
+		return completed.contains(toEntry(relativePath));
+	}
+
+	/**
+	 * Records that the folder's subtree has been completed.
+	 * @param relativePath String
+	 * @throws AarException
+	 */
+	public synchronized void markComplete(String relativePath) throws AarException {
+		final String entry = toEntry(relativePath);
+		completed.add(entry);
+		pending.add(entry);
+
+		if (pending.size() >= batchSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Returns true if the next completed folder will cause the journal to be flushed. 
+	 * Callers use this to make the work behind the entries durable first. 
+	 * @return boolean
+	 */
+	public synchronized boolean isFlushDue() {
+		return pending.size() + 1 >= batchSize;
+	}
+
+	/**
+	 * Appends all buffered entries to the journal file and forces them to disk.
+	 * @throws AarException
+	 */
+	public synchronized void flush() throws AarException {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		final boolean newFile = !file.exists() || file.length() == 0;
+
+		StringBuilder builder = new StringBuilder();
+		if (newFile) {
+			builder.append(HEADER).append('\n');
+			builder.append(RUN_KEY_PREFIX).append(SummaryTree.digest(runKey)).append('\n');
+		}
+		for (String entry : pending) {
+			builder.append(entry).append('\n');
+		}
+
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+			out.getChannel().force(false);
+			pending.clear();
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Removes the journal file once a run has completed.
+	 * @throws AarException
+	 */
+	public synchronized void delete() throws AarException {
+		pending.clear();
+		completed.clear();
+
+		try {
+			Files.deleteIfExists(file.toPath());
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Converts a relative path to its journal entry. The root folder is stored as ".".
+	 * @param relativePath String
+	 * @return String
+	 */
+	private static String toEntry(String relativePath) {
+		return relativePath.isEmpty() ? ROOT_ENTRY : relativePath.replace('\\', '/');
+	}
+
+	public synchronized int size() {
+		return completed.size();
+	}
+
+	public synchronized String getRunKey() {
+		return runKey;
+	}
+
+	/**
+	 * Sets the options of the run that decide which folders are walked and where and how their covers are written.
+	 * Must be set before the journal is loaded.
+	 * @param runKey String, null for none
+	 */
+	public synchronized void setRunKey(String runKey) {
+		this.runKey = runKey == null ? "" : runKey;
+	}
+
+	/**
+	 * Checks if the last load dropped the journal because it was written with a different run key.
+	 * @return boolean
+	 */
+	public synchronized boolean isDiscarded() {
+		return discarded;
+	}
+
+	public File getFile() {
+		return file;
+	}
+}
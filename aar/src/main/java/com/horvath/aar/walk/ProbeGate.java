@@ -0,0 +1,72 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+/**
+ * Keeps speculative probes of the tracks of one album in track order. 
+ * Tracks are parsed concurrently, but a track may only write its cover once every earlier track 
+ * has finished without writing one, so the album gets the same cover as a one-by-one run. 
+ * @author jhorvath
+ */
+public class ProbeGate {
+
+	private int resolved = 0;
+	private boolean won = false;
+
+	/**
+	 * Waits until every track before the given one is resolved. 
+	 * @param track int index of the track in the album 
+	 * @return boolean true if the track may write its cover, false if an earlier track wrote one or the wait was interrupted 
+	 */
+	public synchronized boolean awaitTurn(int track) {
+		try {
+			while (!won && resolved < track) {
+				wait();
+			}
+		} catch (InterruptedException ex) {
+			// the probe was cancelled 
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return !won;
+	}
+
+	/**
+	 * Resolves a track, releasing the next one, or every waiting track if this one wrote the cover. 
+	 * @param track int 
+	 * @param wroteCover boolean 
+	 */
+	public synchronized void resolve(int track, boolean wroteCover) {
+		if (wroteCover) {
+			won = true;
+		}
+		resolved = Math.max(resolved, track + 1);
+		notifyAll();
+	}
+
+	public synchronized boolean isWon() {
+		return won;
+	}
+}
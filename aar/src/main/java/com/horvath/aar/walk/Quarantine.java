@@ -0,0 +1,154 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Append-only list of files that timed out. A file that timed out in enough runs is quarantined and skipped by later runs.
+ * Each timeout is one line holding the absolute path of the file; deleting the file's lines releases it again.
+ * @author jhorvath
+ */
+public class Quarantine {
+
+	private final File file;
+	private final int threshold;
+
+	private final Map<String, Integer> timeouts = new HashMap<>();
+
+	public static final int DEFAULT_THRESHOLD = 2;
+	public static final String HEADER = "# AAR quarantine";
+
+	/**
+	 * Constructor.
+	 * @param file File
+	 */
+	public Quarantine(File file) {
+		this(file, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Constructor.
+	 * @param file File
+	 * @param threshold int number of timeouts after which a file is quarantined
+	 */
+	public Quarantine(File file, int threshold) {
+		this.file = file;
+		this.threshold = Math.max(1, threshold);
+	}
+
+	/**
+	 * Loads the timeouts recorded by earlier runs. A line that was cut short by a crash is ignored.
+	 * @throws AarException
+	 */
+	public synchronized void load() throws AarException {
+		timeouts.clear();
+
+		if (!file.exists()) {
+			return;
+		}
+
+		try {
+			String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+			final int end = text.lastIndexOf('\n');
+			if (end < 0) {
+				return;
+			}
+
+			for (String line : text.substring(0, end).split("\n")) {
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					timeouts.merge(line, 1, Integer::sum);
+				}
+			}
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Returns true if the file timed out often enough to be skipped.
+	 * @param audioFile File
+	 * @return boolean
+	 */
+	public synchronized boolean isQuarantined(File audioFile) {
+		return timeouts.getOrDefault(key(audioFile), 0) >= threshold;
+	}
+
+	/**
+	 * Records a timeout of the file and appends it to the quarantine file straight away.
+	 * @param audioFile File
+	 * @throws AarException
+	 */
+	public synchronized void recordTimeout(File audioFile) throws AarException {
+		final String key = key(audioFile);
+		timeouts.merge(key, 1, Integer::sum);
+
+		final boolean newFile = !file.exists() || file.length() == 0;
+
+		StringBuilder builder = new StringBuilder();
+		if (newFile) {
+			builder.append(HEADER).append('\n');
+		}
+		builder.append(key).append('\n');
+
+		try (FileOutputStream out = new FileOutputStream(file, true)) {
+			out.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+
+		} catch (IOException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Returns the number of timeouts recorded for a file.
+	 * @param audioFile File
+	 * @return int
+	 */
+	public synchronized int getTimeouts(File audioFile) {
+		return timeouts.getOrDefault(key(audioFile), 0);
+	}
+
+	private static String key(File audioFile) {
+		return audioFile.getAbsolutePath();
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Describes one shard of a folder run, written on the command line as "i/N".
+ * Album folders are assigned to shards by a CRC32 of their path relative to the root,
+ * so every process sharing the same root agrees on the assignment without coordination.
+ * @author jhorvath
+ */
+public class ShardSpec {
+
+	private final int index;
+	private final int count;
+
+	public static final String ERROR_SHARD_FORMAT = "The shard must be given as i/N, for example 1/4.";
+	public static final String ERROR_SHARD_RANGE = "The shard index must be between 1 and the shard count.";
+
+	/**
+	 * Constructor.
+	 * @param index int one based shard index
+	 * @param count int total number of shards
+	 * @throws AarException
+	 */
+	public ShardSpec(int index, int count) throws AarException {
+		if (count < 1 || index < 1 || index > count) {
+			throw new AarException(ERROR_SHARD_RANGE);
+		}
+		this.index = index;
+		this.count = count;
+	}
+
+	/**
+	 * Parses a shard given as "i/N".
+	 * @param text String
+	 * @return ShardSpec
+	 * @throws AarException
+	 */
+	public static ShardSpec parse(String text) throws AarException {
+		if (text == null) {
+			throw new AarException(ERROR_SHARD_FORMAT);
+		}
+
+		final int slash = text.indexOf('/');
+		if (slash < 1) {
+			throw new AarException(ERROR_SHARD_FORMAT);
+		}
+
+		try {
+			int index = Integer.parseInt(text.substring(0, slash).trim());
+			int count = Integer.parseInt(text.substring(slash + 1).trim());
+			return new ShardSpec(index, count);
+
+		} catch (NumberFormatException ex) {
+			throw new AarException(ERROR_SHARD_FORMAT, ex);
+		}
+	}
+
+	/**
+	 * Returns true if the album folder with the given relative path belongs to this shard.
+	 * The path is normalized to forward slashes so that all platforms hash it the same way.
+	 * @param relativePath String
+	 * @return boolean
+	 */
+	public boolean contains(String relativePath) {
+		if (count == 1) {
+			return true;
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(relativePath.replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+
+		return (int) (crc.getValue() % count) == index - 1;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return index + "/" + count;
+	}
+}
@@ -0,0 +1,424 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2025 Joshua Horvath
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.AtomicFiles;
+import com.horvath.aar.io.Durability;
+
+/**
+ * Persisted summaries of the folders of a library, used to leave unchanged subtrees alone on the next run.
+ * Every folder is summarised by its modification time, its number of entries and a hash over those and the hashes
+ * of its sub-folders, so the hash of a folder covers its whole subtree like a Merkle tree. A summary file that was
+ * edited or cut short fails the hash check of the damaged folders and of every folder above them, which are then
+ * visited again.
+ * <p>
+ * A subtree is unchanged when the modification time of every folder in it is the one recorded, which takes one
+ * stat per folder instead of a listing of every entry. A folder's modification time changes when entries are added,
+ * removed or renamed in it, but not when a file in it is rewritten in place, such as a retagged MP3 file.
+ * <p>
+ * The summaries only hold for the run options they were written with, since those decide which folders are walked
+ * and which covers are written. The file records a key of those options, and a run with a different key starts
+ * from no summaries at all.
+ * @author jhorvath
+ */
+public class SummaryTree {
+
+	public static final String HEADER = "# AAR folder summaries";
+	public static final String ROOT_ENTRY = Journal.ROOT_ENTRY;
+	public static final String RUN_KEY_PREFIX = "# run ";
+
+	private final File file;
+	private final Durability durability;
+	private final Map<String, Summary> summaries = new HashMap<>();
+	private final Map<String, Boolean> checked = new HashMap<>();
+
+	private String runKey = "";
+	private boolean discarded = false;
+	private int prunedCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param file File
+	 * @param durability Durability of the file when it is saved
+	 */
+	public SummaryTree(File file, Durability durability) {
+		this.file = file;
+		this.durability = durability == null ? Durability.NONE : durability;
+	}
+
+	/**
+	 * Loads the summaries of an earlier run. Summaries whose hash does not match their subtree are dropped,
+	 * and all of them are if the earlier run had a different run key.
+	 * @throws AarException
+	 */
+	public synchronized void load() throws AarException {
+		summaries.clear();
+		checked.clear();
+		discarded = false;
+		prunedCount = 0;
+
+		if (!file.exists()) {
+			return;
+		}
+
+		Map<String, String> storedHashes = new HashMap<>();
+		String storedKey = null;
+		try {
+			for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+				if (line.startsWith(RUN_KEY_PREFIX)) {
+					storedKey = line.substring(RUN_KEY_PREFIX.length());
+					continue;
+				}
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+
+				// the path goes last, so it may hold tabs
+				String[] fields = line.split("\t", 4);
+				if (fields.length < 4) {
+					continue;
+				}
+				summaries.put(fields[3], new Summary(Long.parseLong(fields[1]), Integer.parseInt(fields[2])));
+				storedHashes.put(fields[3], fields[0]);
+			}
+
+		} catch (IOException | NumberFormatException ex) {
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+
+		if (!digest(runKey).equals(storedKey)) {
+			// written for other options, so folders they left out or skipped may hold new work
+			discarded = !summaries.isEmpty();
+			summaries.clear();
+			return;
+		}
+
+		for (String path : summaries.keySet()) {
+			if (!ROOT_ENTRY.equals(path)) {
+				Summary parent = summaries.get(parentOf(path));
+				if (parent != null) {
+					parent.children.add(path.substring(path.lastIndexOf('/') + 1));
+				}
+			}
+		}
+
+		Map<String, String> hashes = new HashMap<>();
+		for (String path : new ArrayList<>(summaries.keySet())) {
+			if (!hash(path, hashes).equals(storedHashes.get(path))) {
+				summaries.remove(path);
+			}
+		}
+	}
+
+	/**
+	 * Checks if a folder and every folder below it still have the modification times recorded.
+	 * Each folder is checked at most once per run.
+	 * @param relativePath String of the folder, empty for the root folder
+	 * @param folder File
+	 * @return boolean
+	 */
+	public synchronized boolean isUnchanged(String relativePath, File folder) {
+		final String entry = toEntry(relativePath);
+		Boolean known = checked.get(entry);
+		if (known != null) {
+			return known;
+		}
+
+		Summary summary = summaries.get(entry);
+		boolean unchanged = summary != null && summary.modified != 0 && folder.lastModified() == summary.modified;
+
+		if (unchanged) {
+			for (String child : summary.children) {
+				if (!isUnchanged(childPath(relativePath, child), new File(folder, child))) {
+					unchanged = false;
+					break;
+				}
+			}
+		}
+
+		checked.put(entry, unchanged);
+		return unchanged;
+	}
+
+	/**
+	 * Returns the sub-folders recorded for a folder whose own modification time is unchanged,
+	 * so it can be walked without listing it. Its sub-folders may still have changed.
+	 * @param relativePath String
+	 * @param folder File
+	 * @return List of String names, or null if the folder has changed or is not known
+	 */
+	public synchronized List<String> getUnchangedChildren(String relativePath, File folder) {
+		Summary summary = summaries.get(toEntry(relativePath));
+		if (summary == null || summary.modified == 0 || folder.lastModified() != summary.modified) {
+			return null;
+		}
+		return new ArrayList<>(summary.children);
+	}
+
+	/**
+	 * Returns the number of entries recorded for a folder.
+	 * @param relativePath String
+	 * @return int, or -1 if the folder is not known
+	 */
+	public synchronized int getEntries(String relativePath) {
+		Summary summary = summaries.get(toEntry(relativePath));
+		return summary == null ? -1 : summary.entries;
+	}
+
+	/**
+	 * Records that a subtree was left alone because it is unchanged.
+	 */
+	public synchronized void pruned() {
+		prunedCount++;
+	}
+
+	/**
+	 * Records the summary of a folder whose subtree has just been processed.
+	 * The modification time is read when the summaries are saved, after the covers of the run were committed, 
+	 * so covers still waiting in a group commit are part of it.
+	 * @param relativePath String
+	 * @param folder File
+	 * @param entries int number of entries the folder was listed with
+	 * @param children List of String names of its sub-folders
+	 */
+	public synchronized void update(String relativePath, File folder, int entries, List<String> children) {
+		Summary summary = new Summary(0, entries);
+		summary.folder = folder;
+		summary.children.addAll(children);
+		summaries.put(toEntry(relativePath), summary);
+	}
+
+	/**
+	 * Forgets a folder, so the next run visits it again.
+	 * @param relativePath String
+	 */
+	public synchronized void forget(String relativePath) {
+		summaries.remove(toEntry(relativePath));
+	}
+
+	/**
+	 * Writes the summaries of every folder that can be reached from the root folder, replacing the file at once.
+	 * The file is synced like the covers it describes, but always on its own since it is written after them.
+	 * It must be called once the covers are in place, since the folders updated by this run are stat'ed now.
+	 * @throws AarException
+	 */
+	public synchronized void save() throws AarException {
+		for (Summary summary : summaries.values()) {
+			if (summary.folder != null) {
+				summary.modified = summary.folder.lastModified();
+				summary.folder = null;
+			}
+		}
+
+		Map<String, String> hashes = new HashMap<>();
+		TreeMap<String, String> lines = new TreeMap<>();
+		collect(ROOT_ENTRY, hashes, lines);
+
+		StringBuilder builder = new StringBuilder(HEADER).append('\n');
+		builder.append(RUN_KEY_PREFIX).append(digest(runKey)).append('\n');
+		for (String line : lines.values()) {
+			builder.append(line).append('\n');
+		}
+
+		final Path target = file.toPath().toAbsolutePath();
+		Path temp = null;
+		try {
+			temp = AtomicFiles.createTempFile(target);
+			Files.write(temp, builder.toString().getBytes(StandardCharsets.UTF_8));
+			AtomicFiles.commit(temp, target, durability == Durability.NONE ? Durability.NONE : Durability.FSYNC, null);
+
+		} catch (IOException ex) {
+			AtomicFiles.deleteQuietly(temp);
+			throw new AarException("Unexpected Exception: " + ex.getMessage(), ex);
+		}
+	}
+
+	/**
+	 * Adds the lines of a folder and of the folders below it that have a summary.
+	 * A folder is only written if all its sub-folders were, since a run that finds it unchanged
+	 * only looks at the sub-folders it knows of.
+	 * @param entry String
+	 * @param hashes Map of computed hashes
+	 * @param lines Map of lines by entry
+	 * @return boolean true if the folder was written
+	 */
+	private boolean collect(String entry, Map<String, String> hashes, Map<String, String> lines) {
+		Summary summary = summaries.get(entry);
+		if (summary == null) {
+			return false;
+		}
+
+		boolean complete = true;
+		for (String child : summary.children) {
+			complete &= collect(childEntry(entry, child), hashes, lines);
+		}
+
+		if (complete) {
+			lines.put(entry, hash(entry, hashes) + "\t" + summary.modified + "\t" + summary.entries + "\t" + entry);
+		}
+		return complete;
+	}
+
+	/**
+	 * Computes the hash of a folder from its summary and the hashes of the sub-folders that have one.
+	 * @param entry String
+	 * @param hashes Map of hashes already computed
+	 * @return String hex digest
+	 */
+	private String hash(String entry, Map<String, String> hashes) {
+		String hash = hashes.get(entry);
+		if (hash != null) {
+			return hash;
+		}
+
+		Summary summary = summaries.get(entry);
+		MessageDigest digest = newDigest();
+
+		digest.update((entry + "\t" + summary.modified + "\t" + summary.entries).getBytes(StandardCharsets.UTF_8));
+
+		List<String> children = new ArrayList<>(summary.children);
+		Collections.sort(children);
+		for (String child : children) {
+			final String childEntry = childEntry(entry, child);
+			if (summaries.containsKey(childEntry)) {
+				digest.update(("\n" + child + "\t" + hash(childEntry, hashes)).getBytes(StandardCharsets.UTF_8));
+			}
+		}
+
+		hash = toHex(digest.digest());
+		hashes.put(entry, hash);
+		return hash;
+	}
+
+	/**
+	 * Returns the hex digest of a run key, so the options it holds need no escaping in the file.
+	 * @param key String
+	 * @return String
+	 */
+	static String digest(String key) {
+		return toHex(newDigest().digest(key.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	public synchronized String getRunKey() {
+		return runKey;
+	}
+
+	/**
+	 * Sets the options of the run that decide which folders are walked and which covers are written.
+	 * Must be set before the summaries are loaded.
+	 * @param runKey String, null for none
+	 */
+	public synchronized void setRunKey(String runKey) {
+		this.runKey = runKey == null ? "" : runKey;
+	}
+
+	/**
+	 * Checks if the last load dropped the summaries because they were written with a different run key.
+	 * @return boolean
+	 */
+	public synchronized boolean isDiscarded() {
+		return discarded;
+	}
+
+	/**
+	 * Returns the number of subtrees left alone in this run.
+	 * @return int
+	 */
+	public synchronized int getPrunedCount() {
+		return prunedCount;
+	}
+
+	public synchronized int size() {
+		return summaries.size();
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	private static String toEntry(String relativePath) {
+		return relativePath.isEmpty() ? ROOT_ENTRY : relativePath.replace('\\', '/');
+	}
+
+	private static String childPath(String relativePath, String child) {
+		return relativePath.isEmpty() ? child : relativePath + "/" + child;
+	}
+
+	private static String childEntry(String entry, String child) {
+		return ROOT_ENTRY.equals(entry) ? child : entry + "/" + child;
+	}
+
+	private static String parentOf(String entry) {
+		final int slash = entry.lastIndexOf('/');
+		return slash < 0 ? ROOT_ENTRY : entry.substring(0, slash);
+	}
+
+	/**
+	 * Summary of one folder.
+	 */
+	private static final class Summary {
+		long modified;
+		final int entries;
+		final List<String> children = new ArrayList<>();
+		/** The folder updated by this run, until its modification time is read on save. */
+		File folder;
+
+		Summary(long modified, int entries) {
+			this.modified = modified;
+			this.entries = entries;
+		}
+	}
+}
@@ -0,0 +1,367 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Rules that keep the folder walk out of parts of a library, such as version control folders, NAS thumbnails,
+ * trash folders or video folders. 
+ * <p>
+ * A rule is a glob, or a regular expression after "regex:"; a leading "glob:" is optional, as with PathMatcher. 
+ * A rule without a slash matches the name of a folder or file, a rule with one matches its path from the root folder, 
+ * such as "Videos/**" or "**&#47;Backups". An entry matching an exclude rule is left out unless it also matches an 
+ * include rule, so includes are exceptions to the excludes. A left out folder is never listed, and nothing below it 
+ * is looked at. 
+ * <p>
+ * All rules of a kind are compiled into one regular expression, with plain names in a hash set, so an entry is 
+ * checked with a single lookup and match before it is even stat'ed. A maximum depth and a minimum file size can 
+ * be set as well. 
+ * @author jhorvath
+ */
+public class WalkFilter {
+
+	public static final String GLOB = "glob:";
+	public static final String REGEX = "regex:";
+
+	/** Folders that NAS devices, operating systems and tools keep inside a library. */
+	public static final List<String> SYSTEM_EXCLUDES = Collections.unmodifiableList(Arrays.asList(
+			".git", ".svn", "@eaDir", "#recycle", "#snapshot", ".snapshot", ".Trash*", ".Trashes",
+			"$RECYCLE.BIN", "System Volume Information", ".Spotlight-V100", ".fseventsd"));
+
+	public static final String ERROR_PATTERN = "The walk rule is not valid: ";
+	public static final String ERROR_MAX_DEPTH = "The maximum depth cannot be negative.";
+	public static final String ERROR_MIN_SIZE = "The minimum file size cannot be negative.";
+
+	private final List<String> excludes = new ArrayList<>();
+	private final List<String> includes = new ArrayList<>();
+	private int maxDepth = -1;
+	private long minFileBytes = 0;
+
+	private Rules excludeRules = Rules.NONE;
+	private Rules includeRules = Rules.NONE;
+
+	private final AtomicLong leftOutEntries = new AtomicLong();
+	private final AtomicLong smallFiles = new AtomicLong();
+
+	/**
+	 * Adds a rule for entries to leave out. 
+	 * @param rule String glob, or regular expression after "regex:" 
+	 * @throws AarException if the rule does not compile 
+	 */
+	public synchronized void addExclude(String rule) throws AarException {
+		excludes.add(rule);
+		excludeRules = Rules.compile(excludes);
+	}
+
+	/**
+	 * Adds the folders NAS devices, operating systems and tools keep inside a library to the excludes. 
+	 * @throws AarException
+	 */
+	public synchronized void addSystemExcludes() throws AarException {
+		excludes.addAll(SYSTEM_EXCLUDES);
+		excludeRules = Rules.compile(excludes);
+	}
+
+	/**
+	 * Adds a rule for entries to keep even though they match an exclude rule. 
+	 * @param rule String glob, or regular expression after "regex:" 
+	 * @throws AarException if the rule does not compile 
+	 */
+	public synchronized void addInclude(String rule) throws AarException {
+		includes.add(rule);
+		includeRules = Rules.compile(includes);
+	}
+
+	/**
+	 * Checks if the rules leave out an entry of a folder. Only names are compared, so nothing is read from disk. 
+	 * @param folderPath String path of the folder holding the entry, relative to the root folder, empty for the root 
+	 * @param name String of the entry 
+	 * @return boolean 
+	 */
+	public boolean isExcluded(String folderPath, String name) {
+		final Rules exclude;
+		final Rules include;
+		synchronized (this) {
+			exclude = excludeRules;
+			include = includeRules;
+		}
+
+		if (exclude == Rules.NONE) {
+			return false;
+		}
+
+		final String path = exclude.usesPaths || include.usesPaths
+				? (folderPath.isEmpty() ? name : folderPath + "/" + name) : null;
+
+		if (exclude.matches(name, path) && !include.matches(name, path)) {
+			leftOutEntries.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if a folder at the given depth is walked. The root folder has depth 0. 
+	 * @param depth int 
+	 * @return boolean 
+	 */
+	public synchronized boolean isWithinDepth(int depth) {
+		if (maxDepth >= 0 && depth > maxDepth) {
+			leftOutEntries.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a file is at least the minimum size. Costs a stat only if a minimum is set. 
+	 * @param file File 
+	 * @return boolean 
+	 */
+	public boolean isLargeEnough(File file) {
+		final long min;
+		synchronized (this) {
+			min = minFileBytes;
+		}
+		if (min > 0 && file.length() < min) {
+			smallFiles.incrementAndGet();
+			return false;
+		}
+		return true;
+	}
+
+	public synchronized int getMaxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * Sets how many folder levels below the root folder are walked. 0 walks the root folder only, -1 has no limit. 
+	 * @param maxDepth int 
+	 * @throws AarException if below -1 
+	 */
+	public synchronized void setMaxDepth(int maxDepth) throws AarException {
+		if (maxDepth < -1) {
+			throw new AarException(ERROR_MAX_DEPTH);
+		}
+		this.maxDepth = maxDepth;
+	}
+
+	public synchronized long getMinFileBytes() {
+		return minFileBytes;
+	}
+
+	/**
+	 * Sets the size below which files are left out, such as truncated downloads or ring tones. 
+	 * @param minFileBytes long, 0 keeps every file 
+	 * @throws AarException if negative 
+	 */
+	public synchronized void setMinFileBytes(long minFileBytes) throws AarException {
+		if (minFileBytes < 0) {
+			throw new AarException(ERROR_MIN_SIZE);
+		}
+		this.minFileBytes = minFileBytes;
+	}
+
+	public synchronized List<String> getExcludes() {
+		return new ArrayList<>(excludes);
+	}
+
+	public synchronized List<String> getIncludes() {
+		return new ArrayList<>(includes);
+	}
+
+	/**
+	 * Returns the rules, depth and size in a form that is equal for rules that walk the same entries, 
+	 * whatever order the rules were added in. 
+	 * @return String 
+	 */
+	public synchronized String describe() {
+		List<String> sortedExcludes = new ArrayList<>(new HashSet<>(excludes));
+		List<String> sortedIncludes = new ArrayList<>(new HashSet<>(includes));
+		Collections.sort(sortedExcludes);
+		Collections.sort(sortedIncludes);
+		return "exclude=" + sortedExcludes + "\tinclude=" + sortedIncludes
+				+ "\tmaxDepth=" + maxDepth + "\tminFileBytes=" + minFileBytes;
+	}
+
+	/**
+	 * Returns the number of folders and files left out by the rules or the depth. 
+	 * @return long 
+	 */
+	public long getLeftOutCount() {
+		return leftOutEntries.get();
+	}
+
+	/**
+	 * Returns the number of files left out for being below the minimum size. 
+	 * @return long 
+	 */
+	public long getSmallFileCount() {
+		return smallFiles.get();
+	}
+
+	/**
+	 * Converts a glob to a regular expression. "*" and "?" stay within one path element, "**" crosses them, 
+	 * and "[...]" and "{a,b}" work as in PathMatcher. 
+	 * @param glob String 
+	 * @return String regular expression 
+	 */
+	static String globToRegex(String glob) {
+		StringBuilder regex = new StringBuilder();
+		boolean inGroup = false;
+
+		for (int i = 0; i < glob.length(); i++) {
+			final char c = glob.charAt(i);
+			switch (c) {
+			case '*':
+				if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+					i++;
+					if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+						// "**/" may also match no folder at all 
+						i++;
+						regex.append("(?:.*/)?");
+					} else {
+						regex.append(".*");
+					}
+				} else {
+					regex.append("[^/]*");
+				}
+				break;
+			case '?':
+				regex.append("[^/]");
+				break;
+			case '[':
+				final int end = glob.indexOf(']', i + 2);
+				if (end < 0) {
+					regex.append("\\[");
+				} else {
+					String set = glob.substring(i + 1, end);
+					if (set.startsWith("!")) {
+						set = "^" + set.substring(1);
+					}
+					regex.append('[').append(set.replace("\\", "\\\\").replace("[", "\\[")).append(']');
+					i = end;
+				}
+				break;
+			case '{':
+				regex.append("(?:");
+				inGroup = true;
+				break;
+			case '}':
+				regex.append(inGroup ? ")" : "\\}");
+				inGroup = false;
+				break;
+			case ',':
+				regex.append(inGroup ? "|" : ",");
+				break;
+			default:
+				if ("\\.^$|+()".indexOf(c) >= 0) {
+					regex.append('\\');
+				}
+				regex.append(c);
+			}
+		}
+		return regex.toString();
+	}
+
+	/**
+	 * The compiled rules of one kind. 
+	 */
+	private static final class Rules {
+		static final Rules NONE = new Rules(Collections.<String>emptySet(), null, null);
+
+		final Set<String> names;
+		final Pattern namePattern;
+		final Pattern pathPattern;
+		final boolean usesPaths;
+
+		Rules(Set<String> names, Pattern namePattern, Pattern pathPattern) {
+			this.names = names;
+			this.namePattern = namePattern;
+			this.pathPattern = pathPattern;
+			this.usesPaths = pathPattern != null;
+		}
+
+		/**
+		 * Compiles rules into a set of plain names and one alternation each for names and paths. 
+		 * @param rules List of String 
+		 * @return Rules 
+		 * @throws AarException if a rule does not compile 
+		 */
+		static Rules compile(List<String> rules) throws AarException {
+			Set<String> names = new HashSet<>();
+			List<String> nameRegexes = new ArrayList<>();
+			List<String> pathRegexes = new ArrayList<>();
+
+			for (String rule : rules) {
+				String regex;
+				if (rule.startsWith(REGEX)) {
+					regex = rule.substring(REGEX.length());
+				} else {
+					final String glob = rule.startsWith(GLOB) ? rule.substring(GLOB.length()) : rule;
+					if (glob.isEmpty()) {
+						throw new AarException(ERROR_PATTERN + rule);
+					}
+					if (glob.indexOf('/') < 0 && !glob.matches(".*[*?\\[{].*")) {
+						names.add(glob);
+						continue;
+					}
+					regex = globToRegex(glob);
+				}
+
+				try {
+					Pattern.compile(regex);
+				} catch (PatternSyntaxException ex) {
+					throw new AarException(ERROR_PATTERN + rule, ex);
+				}
+				(regex.indexOf('/') < 0 ? nameRegexes : pathRegexes).add("(?:" + regex + ")");
+			}
+
+			return new Rules(names, alternation(nameRegexes), alternation(pathRegexes));
+		}
+
+		private static Pattern alternation(List<String> regexes) {
+			return regexes.isEmpty() ? null : Pattern.compile(String.join("|", regexes));
+		}
+
+		boolean matches(String name, String path) {
+			return names.contains(name)
+					|| (namePattern != null && namePattern.matcher(name).matches())
+					|| (pathPattern != null && pathPattern.matcher(path).matches());
+		}
+	}
+}
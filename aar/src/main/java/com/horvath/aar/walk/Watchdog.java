@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.walk;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs work against a deadline. Work that misses the deadline is interrupted and abandoned so the caller can move on.
+ * Java cannot stop a thread that ignores interrupts, so an abandoned attempt may keep running in the background
+ * until it finishes on its own; its threads are daemons and never keep the application alive.
+ * <p>
+ * Waits the work is told to take, such as the pauses of a Governor, are not held against the deadline, 
+ * which moves back by the time spent in them. 
+ * @author jhorvath
+ */
+public class Watchdog {
+
+	private final long timeoutMillis;
+	private final AtomicInteger threadCount = new AtomicInteger();
+	private final AtomicInteger abandonedCount = new AtomicInteger();
+
+	/** The call running on a watched thread. */
+	private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+	private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "aar-watched-" + threadCount.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Constructor.
+	 * @param timeoutMillis long deadline of each call, in milliseconds
+	 */
+	public Watchdog(long timeoutMillis) {
+		this.timeoutMillis = Math.max(1, timeoutMillis);
+	}
+
+	/**
+	 * Runs a task and returns its result, or abandons it when the deadline passes.
+	 * Unchecked exceptions and errors of the task are rethrown as they are.
+	 * @param task Callable
+	 * @return the task's result
+	 * @throws TimeoutException if the deadline passed
+	 * @throws ExecutionException if the task failed with a checked exception
+	 * @throws InterruptedException if the calling thread was interrupted while waiting
+	 */
+	public <T> T call(Callable<T> task) throws TimeoutException, ExecutionException, InterruptedException {
+		final Deadline deadline = new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+		Future<T> future = executor.submit(() -> {
+			current.set(deadline);
+			try {
+				return task.call();
+			} finally {
+				current.remove();
+			}
+		});
+
+		try {
+			while (true) {
+				final long remaining = deadline.remaining(System.nanoTime());
+				if (remaining <= 0) {
+					throw new TimeoutException();
+				}
+				try {
+					return future.get(remaining, TimeUnit.NANOSECONDS);
+				} catch (TimeoutException ex) {
+					// the deadline may have moved back while waiting 
+				}
+			}
+
+		} catch (TimeoutException ex) {
+			future.cancel(true);
+			abandonedCount.incrementAndGet();
+			throw ex;
+
+		} catch (InterruptedException ex) {
+			future.cancel(true);
+			throw ex;
+
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ex.getCause();
+			}
+			if (ex.getCause() instanceof Error) {
+				throw (Error) ex.getCause();
+			}
+			throw ex;
+		}
+	}
+
+	/**
+	 * Checks if the call running on this thread has passed its deadline. 
+	 * @return boolean, false outside a watched call 
+	 */
+	public static boolean isOverdue() {
+		Deadline deadline = current.get();
+		return deadline != null && deadline.remaining(System.nanoTime()) <= 0;
+	}
+
+	/**
+	 * Marks the start of a wait that is not held against the deadline of the call running on this thread. 
+	 * @return long start of the wait, to pass to endPause 
+	 */
+	static long beginPause() {
+		final long now = System.nanoTime();
+		Deadline deadline = current.get();
+		if (deadline != null) {
+			deadline.pauseStart = now;
+		}
+		return now;
+	}
+
+	/**
+	 * Marks the end of a wait begun with beginPause, moving the deadline back by its length. 
+	 * @param start long returned by beginPause 
+	 */
+	static void endPause(long start) {
+		Deadline deadline = current.get();
+		if (deadline != null) {
+			deadline.paused.addAndGet(System.nanoTime() - start);
+			deadline.pauseStart = 0;
+		}
+	}
+
+	/**
+	 * Stops accepting work. Abandoned attempts that are still running are left to finish.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	public long getTimeoutMillis() {
+		return timeoutMillis;
+	}
+
+	/**
+	 * Returns the number of attempts that missed their deadline.
+	 * @return int
+	 */
+	public int getAbandonedCount() {
+		return abandonedCount.get();
+	}
+
+	/**
+	 * The deadline of one call, and the time its thread has spent in waits that do not count. 
+	 */
+	private static final class Deadline {
+		final long end;
+		final AtomicLong paused = new AtomicLong();
+		volatile long pauseStart = 0;
+
+		Deadline(long end) {
+			this.end = end;
+		}
+
+		/**
+		 * Returns the nanoseconds left, counting a wait still in progress as well. 
+		 */
+		long remaining(long now) {
+			final long start = pauseStart;
+			return end + paused.get() + (start != 0 ? now - start : 0) - now;
+		}
+	}
+}
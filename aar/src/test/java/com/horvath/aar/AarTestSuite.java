@@ -27,15 +27,41 @@ package com.horvath.aar;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import com.horvath.aar.application.DebuggerTest;
+import com.horvath.aar.command.AuditFolderCmdTest;
+import com.horvath.aar.command.CheckConsistencyCmdTest;
+import com.horvath.aar.command.CompactPackCmdTest;
+import com.horvath.aar.command.EmbedFolderArtCmdTest;
+import com.horvath.aar.command.MergeReportsCmdTest;
 import com.horvath.aar.command.ParseAlbumArtCmdTest;
+import com.horvath.aar.command.ParseArchiveCmdTest;
+import com.horvath.aar.command.ParseBatchCmdTest;
 import com.horvath.aar.command.ParseFolderCmdTest;
 import com.horvath.aar.command.WriteBufferedImageCmdTest;
+import com.horvath.aar.tag.Id3ArtWriterTest;
+import com.horvath.aar.tag.Id3PictureScannerTest;
+import com.horvath.aar.walk.AdaptiveLimitTest;
+import com.horvath.aar.walk.GovernorTest;
+import com.horvath.aar.walk.WalkFilterTest;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
 	ParseAlbumArtCmdTest.class,
 	WriteBufferedImageCmdTest.class,
-	ParseFolderCmdTest.class
+	ParseFolderCmdTest.class,
+	MergeReportsCmdTest.class,
+	AuditFolderCmdTest.class,
+	ParseBatchCmdTest.class,
+	EmbedFolderArtCmdTest.class,
+	ParseArchiveCmdTest.class,
+	CompactPackCmdTest.class,
+	CheckConsistencyCmdTest.class,
+	DebuggerTest.class,
+	Id3PictureScannerTest.class,
+	Id3ArtWriterTest.class,
+	AdaptiveLimitTest.class,
+	GovernorTest.class,
+	WalkFilterTest.class
 })
 
 public class AarTestSuite { }
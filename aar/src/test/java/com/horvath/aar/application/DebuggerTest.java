@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests operations of Debugger.
+ * @author jhorvath
+ */
+public class DebuggerTest {
+	
+	private final List<LogRecord> records = Collections.synchronizedList(new ArrayList<>());
+	private final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+	private final Logger logger = Logger.getLogger(Debugger.class.getName());
+	
+	private final Handler handler = new Handler() {
+		@Override
+		public void publish(LogRecord record) {
+			// the record's own thread id is deprecated, so the publishing thread is kept next to it 
+			synchronized (records) {
+				records.add(record);
+				threads.add(Thread.currentThread());
+			}
+		}
+		
+		@Override
+		public void flush() { }
+		
+		@Override
+		public void close() { }
+	};
+	
+	@Before
+	public void setUp() {
+		logger.addHandler(handler);
+		logger.setUseParentHandlers(false);
+		Debugger.setDebugging(true);
+	}
+	
+	@After
+	public void tearDown() {
+		Debugger.setDebugging(false);
+		logger.removeHandler(handler);
+		logger.setUseParentHandlers(true);
+	}
+	
+	@Test
+	public void printLog_debugging_writtenInBackground() {
+		final String text = "Background message " + System.nanoTime();
+		
+		Debugger.printLog(text, this.getClass().getName());
+		Debugger.flush();
+		
+		int messages = 0;
+		synchronized (records) {
+			for (int i = 0; i < records.size(); i++) {
+				if (records.get(i).getMessage().startsWith(text)) {
+					// written by the logging thread, not the one doing the work 
+					Assert.assertNotSame(Thread.currentThread(), threads.get(i));
+					messages++;
+				}
+			}
+		}
+		Assert.assertEquals(1, messages);
+	}
+	
+	@Test
+	public void printLog_repeatedWarning_rateLimited() {
+		// a message no other test logs, so its rate is not shared with earlier tests in the same JVM 
+		final String prefix = "Repeated warning " + System.nanoTime();
+		
+		for (int i = 0; i < Debugger.RATE_LIMIT * 4; i++) {
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), prefix + " %d", i);
+		}
+		Debugger.flush();
+		
+		int repeats = 0;
+		for (LogRecord record : records) {
+			if (record.getMessage().startsWith(prefix)) {
+				repeats++;
+			}
+		}
+		Assert.assertEquals(Debugger.RATE_LIMIT, repeats);
+	}
+	
+	@Test
+	public void flush_repeatedWarning_leftOutCountLogged() {
+		final String prefix = "Flushed warning " + System.nanoTime();
+		
+		for (int i = 0; i < Debugger.RATE_LIMIT + 3; i++) {
+			Debugger.printLog(Level.WARNING, this.getClass().getName(), prefix + " %d", i);
+		}
+		// the window is still open, and the warning never comes back 
+		Debugger.flush();
+		
+		int summaries = 0;
+		for (LogRecord record : records) {
+			if (record.getMessage().startsWith("Left out 3 repeats of: " + prefix)) {
+				summaries++;
+			}
+		}
+		Assert.assertEquals(1, summaries);
+		
+		// a second flush has nothing more to count 
+		Debugger.flush();
+		Assert.assertEquals(1, records.stream().filter(r -> r.getMessage().contains("repeats of: " + prefix)).count());
+	}
+	
+	@Test
+	public void getLibraryLevel_default_warning() {
+		Assert.assertEquals(Debugger.DEFAULT_LIBRARY_LEVEL, Debugger.getLibraryLevel());
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.horvath.aar.TestFolders;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.report.AuditReport;
+import com.horvath.aar.report.AuditReport.AlbumAudit;
+import com.horvath.aar.report.AuditReport.AuditStatus;
+
+/**
+ * Tests operations of AuditFolderCmd.
+ * @author jhorvath
+ */
+public class AuditFolderCmdTest {
+	
+	public static final String RESOURCES_DIRECTORY = "src" + File.separator + "test" 
+			+ File.separator + "resources"+ File.separator;
+	
+	public static final String PARSE_FOLDER = RESOURCES_DIRECTORY + "ParseFolder";
+	
+	@Test
+	public void perform_nullFolder_exception() {
+		boolean caughtException = false;
+		try {
+			AuditFolderCmd cmd = new AuditFolderCmd(null, null);
+			cmd.perform();
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(AuditFolderCmd.ERROR_NULL_FOLDER));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void perform_folderWithoutArt_noArtReported() {
+		try {
+			AuditFolderCmd cmd = new AuditFolderCmd(new File(RESOURCES_DIRECTORY + "No-Art"), null);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(1, cmd.getReport().count(AuditStatus.NO_ART));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void perform_noCoverFiles_missingReportedAndNothingWritten() {
+		File rootFolder = new File(PARSE_FOLDER);
+		File reportFile = new File(RESOURCES_DIRECTORY + "audit.txt");
+		File art01File = new File(PARSE_FOLDER + File.separator + "01" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME);
+		
+		try {
+			AuditFolderCmd cmd = new AuditFolderCmd(rootFolder, reportFile);
+			cmd.perform();
+			
+			AuditReport report = cmd.getReport();
+			Assert.assertEquals(4, report.count(AuditStatus.MISSING));
+			Assert.assertEquals(Long.valueOf(4), report.getStatistics().get("format.image/png"));
+			
+			for (AlbumAudit album : report.getAlbums()) {
+				Assert.assertTrue(album.getBytes() > 0);
+				Assert.assertTrue(album.getWidth() > 0);
+				Assert.assertEquals(64, album.getHash().length());
+			}
+			
+			// the audit never writes covers
+			Assert.assertFalse(art01File.exists());
+			Assert.assertTrue(reportFile.exists());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			reportFile.delete();
+		}
+	}
+	
+	@Test
+	public void perform_writtenCoverFiles_reencodedReported() {
+		File rootFolder = new File(PARSE_FOLDER);
+		
+		try {
+			new ParseFolderCmd(rootFolder).perform();
+			
+			AuditFolderCmd cmd = new AuditFolderCmd(rootFolder, null);
+			cmd.perform();
+			
+			// covers written by the AAR are re-encoded copies of the embedded art
+			Assert.assertEquals(4, cmd.getReport().count(AuditStatus.REENCODED));
+			Assert.assertEquals(0, cmd.getReport().count(AuditStatus.MISSING));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_coversInOutputTreeOrPack_reencodedReported() {
+		File rootFolder = new File(RESOURCES_DIRECTORY + "MP3-with-art");
+		File outputRoot = new File(RESOURCES_DIRECTORY + "Audit-output");
+		File packFile = new File(RESOURCES_DIRECTORY + "audit.pack");
+		
+		try {
+			ParseFolderCmd parseCmd = new ParseFolderCmd(rootFolder);
+			parseCmd.setOutputRoot(outputRoot);
+			parseCmd.perform();
+			
+			// the album folder itself has no cover 
+			AuditFolderCmd cmd = new AuditFolderCmd(rootFolder, null);
+			cmd.perform();
+			Assert.assertEquals(1, cmd.getReport().count(AuditStatus.MISSING));
+			
+			cmd = new AuditFolderCmd(rootFolder, null);
+			cmd.setOutputRoot(outputRoot);
+			cmd.perform();
+			Assert.assertEquals(1, cmd.getReport().count(AuditStatus.REENCODED));
+			
+			parseCmd = new ParseFolderCmd(rootFolder);
+			parseCmd.setPackFile(packFile);
+			parseCmd.perform();
+			
+			cmd = new AuditFolderCmd(rootFolder, null);
+			cmd.setPackFile(packFile);
+			cmd.perform();
+			Assert.assertEquals(1, cmd.getReport().count(AuditStatus.REENCODED));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			new File(outputRoot, WriteBufferedImageCmd.DEFAULT_NAME).delete();
+			outputRoot.delete();
+			packFile.delete();
+			new File(packFile.getPath() + ".idx").delete();
+		}
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.horvath.aar.TestFolders;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.pack.CoverPackReader;
+import com.horvath.aar.report.ConsistencyReport.ConsistencyStatus;
+import com.horvath.aar.report.ConsistencyReport.FolderConsistency;
+
+/**
+ * Tests operations of CheckConsistencyCmd.
+ * @author jhorvath
+ */
+public class CheckConsistencyCmdTest {
+
+	public static final String CONSISTENCY_FOLDER = ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + "Consistency";
+
+	private File folder = new File(CONSISTENCY_FOLDER);
+	private File art = new File(ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + ParseAlbumArtCmdTest.MP3_WITH_ART, ParseAlbumArtCmdTest.MP3);
+	private File altArt = new File(ParseFolderCmdTest.PARSE_FOLDER + File.separator + "03" + File.separator + "01"
+			+ File.separator + "01" + File.separator + "01", "02-snap-alt-art.mp3");
+
+	@Before
+	public void setUp() {
+		TestFolders.deleteRecursively(folder);
+		Assert.assertTrue(folder.mkdir());
+	}
+
+	@After
+	public void tearDown() {
+		TestFolders.deleteRecursively(folder);
+	}
+
+	@Test
+	public void perform_parseFolder_differentCoversReported() {
+		File rootFolder = new File(ParseFolderCmdTest.PARSE_FOLDER);
+		File reportFile = new File(folder, "consistency.txt");
+
+		try {
+			CheckConsistencyCmd cmd = new CheckConsistencyCmd(rootFolder, reportFile);
+			cmd.perform();
+
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(1, cmd.getReport().count(ConsistencyStatus.INCONSISTENT));
+			Assert.assertEquals(3, cmd.getReport().count(ConsistencyStatus.CONSISTENT));
+
+			FolderConsistency mixed = cmd.getReport().getFolder("03/01/01/01");
+			Assert.assertEquals(ConsistencyStatus.INCONSISTENT, mixed.getStatus());
+			Assert.assertEquals(2, mixed.getCovers());
+			// one track each, so the first track wins
+			Assert.assertEquals("01-snap.mp3", mixed.getMajorityTrack());
+
+			// a track without art does not make a folder inconsistent
+			FolderConsistency partial = cmd.getReport().getFolder("02/01");
+			Assert.assertEquals(ConsistencyStatus.CONSISTENT, partial.getStatus());
+			Assert.assertEquals(1, partial.getTracksWithArt());
+
+			List<String> lines = Files.readAllLines(reportFile.toPath(), StandardCharsets.UTF_8);
+			Assert.assertEquals(2, lines.stream().filter(line -> line.startsWith("track\t03/01/01/01\t")).count());
+
+			// nothing was written
+			Assert.assertFalse(new File(rootFolder, "01" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).exists());
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_writeMajority_coverSharedByMostTracksWritten() {
+		try {
+			Files.copy(art.toPath(), new File(folder, "01.mp3").toPath());
+			Files.copy(altArt.toPath(), new File(folder, "02.mp3").toPath());
+			Files.copy(altArt.toPath(), new File(folder, "03.mp3").toPath());
+
+			CheckConsistencyCmd cmd = new CheckConsistencyCmd(folder, null);
+			cmd.setWriteMajority(true);
+			cmd.setThreads(2);
+			cmd.perform();
+
+			FolderConsistency album = cmd.getReport().getFolder("");
+			Assert.assertEquals(ConsistencyStatus.INCONSISTENT, album.getStatus());
+			Assert.assertEquals("02.mp3", album.getMajorityTrack());
+			Assert.assertEquals(2, album.getMajorityCount());
+			Assert.assertEquals(album.getTrackHashes().get("03.mp3"), album.getMajorityHash());
+			Assert.assertTrue(album.isMajorityWritten());
+			Assert.assertTrue(new File(folder, WriteBufferedImageCmd.DEFAULT_NAME).exists());
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_writeMajorityWithOutputTarget_sourceFolderUntouched() {
+		File outputRoot = new File(CONSISTENCY_FOLDER + "-output");
+		File packFile = new File(CONSISTENCY_FOLDER + ".pack");
+		try {
+			Files.copy(art.toPath(), new File(folder, "01.mp3").toPath());
+			Files.copy(altArt.toPath(), new File(folder, "02.mp3").toPath());
+			Files.copy(altArt.toPath(), new File(folder, "03.mp3").toPath());
+
+			CheckConsistencyCmd cmd = new CheckConsistencyCmd(folder, null);
+			cmd.setWriteMajority(true);
+			cmd.setOutputRoot(outputRoot);
+			cmd.perform();
+
+			Assert.assertTrue(cmd.getReport().getFolder("").isMajorityWritten());
+			Assert.assertTrue(new File(outputRoot, WriteBufferedImageCmd.DEFAULT_NAME).exists());
+			Assert.assertFalse(new File(folder, WriteBufferedImageCmd.DEFAULT_NAME).exists());
+
+			cmd = new CheckConsistencyCmd(folder, null);
+			cmd.setWriteMajority(true);
+			cmd.setPackFile(packFile);
+			cmd.perform();
+
+			Assert.assertFalse(new File(folder, WriteBufferedImageCmd.DEFAULT_NAME).exists());
+			try (CoverPackReader reader = CoverPackReader.open(packFile)) {
+				Assert.assertTrue(reader.contains(ParseFolderCmd.ROOT_PACK_KEY));
+			}
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+
+		} finally {
+			new File(outputRoot, WriteBufferedImageCmd.DEFAULT_NAME).delete();
+			outputRoot.delete();
+			packFile.delete();
+			new File(packFile.getPath() + ".idx").delete();
+		}
+	}
+
+	@Test
+	public void perform_nullFolder_exception() {
+		boolean caughtException = false;
+		try {
+			CheckConsistencyCmd cmd = new CheckConsistencyCmd(null, null);
+			cmd.perform();
+
+			// should not get here
+			Assert.fail();
+
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(CheckConsistencyCmd.ERROR_NULL_FOLDER));
+		}
+		Assert.assertTrue(caughtException);
+	}
+}
@@ -0,0 +1,333 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.horvath.aar.TestFolders;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.pack.CoverPackReader;
+import com.horvath.aar.pack.CoverPackWriter;
+import com.horvath.aar.report.RunReport.AlbumStatus;
+
+/**
+ * Tests operations of CompactPackCmd, and the cover pack it works on.
+ * @author jhorvath
+ */
+public class CompactPackCmdTest {
+
+	public static final String PACK_FOLDER = ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + "Pack";
+
+	private File folder = new File(PACK_FOLDER);
+	private File packFile = new File(folder, "covers.pack");
+
+	@Before
+	public void setUp() {
+		TestFolders.deleteRecursively(folder);
+		Assert.assertTrue(folder.mkdir());
+	}
+
+	@After
+	public void tearDown() {
+		TestFolders.deleteRecursively(folder);
+	}
+
+	@Test
+	public void parseFolder_packFile_coversReadableByAlbumPath() {
+		File rootFolder = new File(ParseFolderCmdTest.PARSE_FOLDER);
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setPackFile(packFile);
+			cmd.perform();
+
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertFalse(new File(rootFolder, "01" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).exists());
+
+			final long length = packFile.length();
+
+			try (CoverPackReader reader = CoverPackReader.open(packFile)) {
+				Assert.assertEquals(cmd.getReport().count(AlbumStatus.WRITTEN), reader.size());
+
+				byte[] cover = reader.read("01");
+				Assert.assertNotNull(cover);
+				// a JPEG starts with a start of image marker
+				Assert.assertEquals((byte) 0xff, cover[0]);
+				Assert.assertEquals((byte) 0xd8, cover[1]);
+
+				Assert.assertNull(reader.read("02"));
+				Assert.assertTrue(reader.contains("02/01"));
+			}
+
+			// the same covers are not appended again
+			ParseFolderCmd again = new ParseFolderCmd(rootFolder);
+			again.setPackFile(packFile);
+			again.perform();
+			Assert.assertEquals(length, packFile.length());
+
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_replacedCovers_staleBytesReclaimed() {
+		try {
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				Assert.assertTrue(writer.put("a", bytes(100, 1)));
+				Assert.assertTrue(writer.put("b", bytes(50, 2)));
+				Assert.assertTrue(writer.put("a", bytes(80, 3)));
+				Assert.assertFalse(writer.put("b", bytes(50, 2)));
+			}
+
+			final long stale;
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				stale = writer.getStaleBytes();
+				Assert.assertTrue(stale > 100);
+			}
+
+			CompactPackCmd cmd = new CompactPackCmd(packFile);
+			cmd.setDurability(Durability.NONE);
+			cmd.perform();
+
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(stale, cmd.getReclaimedBytes());
+			Assert.assertEquals(2, cmd.getAlbumCount());
+
+			try (CoverPackReader reader = CoverPackReader.open(packFile)) {
+				Assert.assertArrayEquals(bytes(80, 3), reader.read("a"));
+				Assert.assertArrayEquals(bytes(50, 2), reader.read("b"));
+				Assert.assertEquals(Arrays.asList("a", "b"), reader.keys());
+			}
+
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_rootFolder_missingAlbumsDropped() {
+		try {
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				writer.put("01", bytes(10, 1));
+				writer.put("gone/01", bytes(10, 2));
+			}
+
+			CompactPackCmd cmd = new CompactPackCmd(packFile);
+			cmd.setRootFolder(new File(ParseFolderCmdTest.PARSE_FOLDER));
+			cmd.setDurability(Durability.NONE);
+			cmd.perform();
+
+			try (CoverPackReader reader = CoverPackReader.open(packFile)) {
+				Assert.assertEquals(Arrays.asList("01"), reader.keys());
+			}
+
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_rootFolderWithUpperCaseArchive_albumsInsideKept() {
+		try {
+			// only the name of the archive is looked at
+			Assert.assertTrue(new File(folder, "Album.ZIP").createNewFile());
+
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				writer.put("Album/CD", bytes(10, 1));
+				writer.put("Gone/CD", bytes(10, 2));
+			}
+
+			CompactPackCmd cmd = new CompactPackCmd(packFile);
+			cmd.setRootFolder(folder);
+			cmd.setDurability(Durability.NONE);
+			cmd.perform();
+
+			Assert.assertEquals(1, cmd.getAlbumCount());
+			try (CoverPackReader reader = CoverPackReader.open(packFile)) {
+				Assert.assertEquals(Arrays.asList("Album/CD"), reader.keys());
+			}
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void open_lostIndexAndTornRecord_recoveredFromPack() {
+		try {
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				writer.put("a", bytes(100, 1));
+				writer.put("b", bytes(100, 2));
+			}
+			final long length = packFile.length();
+
+			// a crash lost the index and cut the last append short
+			Assert.assertTrue(new File(packFile.getPath() + ".idx").delete());
+			try (FileOutputStream out = new FileOutputStream(packFile, true)) {
+				out.write(new byte[] { 0x41, 0x41, 0x52, 0x43, 0, 0 });
+			}
+
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				Assert.assertEquals(2, writer.size());
+				Assert.assertEquals(length, writer.getLength());
+			}
+
+			try (CoverPackReader reader = CoverPackReader.open(packFile)) {
+				Assert.assertArrayEquals(bytes(100, 2), reader.read("b"));
+			}
+			Assert.assertEquals(length, packFile.length());
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_posixFileSystem_packAndIndexKeepReadablePermissions() {
+		Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+
+		File indexFile = new File(packFile.getPath() + ".idx");
+		File probe = new File(folder, "permissions.probe");
+		try {
+			// new files get what any file created here gets under the umask
+			Files.createFile(probe.toPath());
+			Set<PosixFilePermission> defaults = Files.getPosixFilePermissions(probe.toPath());
+
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				writer.put("a", bytes(100, 1));
+				writer.put("a", bytes(80, 2));
+			}
+			Assert.assertEquals(defaults, Files.getPosixFilePermissions(indexFile.toPath()));
+
+			// compaction replaces the pack and its index, and both keep their own
+			Set<PosixFilePermission> custom = PosixFilePermissions.fromString("rw-r-----");
+			Files.setPosixFilePermissions(packFile.toPath(), custom);
+			Files.setPosixFilePermissions(indexFile.toPath(), custom);
+
+			CompactPackCmd cmd = new CompactPackCmd(packFile);
+			cmd.setDurability(Durability.NONE);
+			cmd.perform();
+
+			Assert.assertTrue(cmd.getReclaimedBytes() > 0);
+			Assert.assertEquals(custom, Files.getPosixFilePermissions(packFile.toPath()));
+			Assert.assertEquals(custom, Files.getPosixFilePermissions(indexFile.toPath()));
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void open_packAlreadyOpen_exceptionThrown() {
+		boolean caughtException = false;
+		try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+			Assert.assertTrue(writer.put("a", bytes(10, 1)));
+
+			try {
+				CoverPackWriter.open(packFile, Durability.NONE);
+
+				// should not get here
+				Assert.fail();
+
+			} catch (AarException ex) {
+				caughtException = true;
+				Assert.assertTrue(ex.getMessage().contains(CoverPackWriter.ERROR_IN_USE));
+			}
+
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+		Assert.assertTrue(caughtException);
+	}
+
+	@Test
+	public void open_afterCompaction_newPackLocked() {
+		boolean caughtException = false;
+		try {
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				Assert.assertTrue(writer.put("a", bytes(100, 1)));
+				Assert.assertTrue(writer.put("a", bytes(80, 2)));
+				Assert.assertTrue(writer.compact(null) > 0);
+
+				// the compacted pack is still held by the writer
+				try {
+					CoverPackWriter.open(packFile, Durability.NONE);
+					Assert.fail();
+
+				} catch (AarException ex) {
+					caughtException = true;
+				}
+				Assert.assertTrue(writer.put("b", bytes(50, 3)));
+			}
+
+			// closing releases the lock
+			try (CoverPackWriter writer = CoverPackWriter.open(packFile, Durability.NONE)) {
+				Assert.assertEquals(2, writer.size());
+			}
+
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+		Assert.assertTrue(caughtException);
+	}
+
+	@Test
+	public void perform_nullPack_exception() {
+		boolean caughtException = false;
+		try {
+			CompactPackCmd cmd = new CompactPackCmd(null);
+			cmd.perform();
+
+			// should not get here
+			Assert.fail();
+
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(CompactPackCmd.ERROR_NULL_FILE));
+		}
+		Assert.assertTrue(caughtException);
+	}
+
+	private static byte[] bytes(int length, int value) {
+		byte[] bytes = new byte[length];
+		Arrays.fill(bytes, (byte) value);
+		return bytes;
+	}
+}
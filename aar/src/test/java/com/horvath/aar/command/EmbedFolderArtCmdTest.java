@@ -0,0 +1,183 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.horvath.aar.TestFolders;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.tag.CoverSelector;
+import com.horvath.aar.tag.Id3ArtWriter.Result;
+
+/**
+ * Tests operations of EmbedFolderArtCmd.
+ * @author jhorvath
+ */
+public class EmbedFolderArtCmdTest {
+	
+	public static final String EMBED_FOLDER = ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + "Embed";
+	
+	/** Length of the ID3v2.2 tag of the no-art test file, including its header. */
+	public static final int NO_ART_TAG_LENGTH = 2114;
+	
+	private File folder = new File(EMBED_FOLDER);
+	private File noArt = new File(folder, "01-no-art.mp3");
+	private File withArt = new File(folder, "02-with-art.mp3");
+	private File cover = new File(folder, WriteBufferedImageCmd.DEFAULT_NAME);
+	
+	@Before
+	public void setUp() throws IOException {
+		TestFolders.deleteRecursively(folder);
+		Assert.assertTrue(folder.mkdir());
+		
+		Files.copy(new File(ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + "No-Art" + File.separator + ParseAlbumArtCmdTest.MP3_NO_ART).toPath(), 
+				noArt.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(new File(ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + ParseAlbumArtCmdTest.MP3_WITH_ART + File.separator + ParseAlbumArtCmdTest.MP3).toPath(), 
+				withArt.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+	@After
+	public void tearDown() {
+		TestFolders.deleteRecursively(folder);
+	}
+	
+	@Test
+	public void perform_noCoverFile_exception() {
+		boolean caughtException = false;
+		try {
+			EmbedFolderArtCmd cmd = new EmbedFolderArtCmd(folder);
+			cmd.perform();
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(EmbedFolderArtCmd.ERROR_COVER_DOES_NOT_EXIST));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void perform_smallCover_embeddedInPadding() {
+		try {
+			writeCover(16);
+			final long length = noArt.length();
+			
+			EmbedFolderArtCmd cmd = new EmbedFolderArtCmd(folder);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(1, cmd.getResultCount(Result.IN_PLACE));
+			Assert.assertEquals(1, cmd.getCount(Outcome.SKIPPED));
+			
+			// only the tag padding changed
+			Assert.assertEquals(length, noArt.length());
+			assertFrontCover(noArt, 16);
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void perform_largeCover_fileRewrittenWithAudioIntact() {
+		try {
+			writeCover(200);
+			byte[] before = Files.readAllBytes(noArt.toPath());
+			
+			EmbedFolderArtCmd cmd = new EmbedFolderArtCmd(folder);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(1, cmd.getResultCount(Result.REWRITTEN));
+			Assert.assertEquals(1, cmd.getCount(Outcome.ART_WRITTEN));
+			
+			byte[] after = Files.readAllBytes(noArt.toPath());
+			Assert.assertTrue(after.length > before.length + cover.length());
+			
+			// the audio data after the tag is copied unchanged
+			byte[] audioBefore = Arrays.copyOfRange(before, NO_ART_TAG_LENGTH, before.length);
+			byte[] audioAfter = Arrays.copyOfRange(after, after.length - audioBefore.length, after.length);
+			Assert.assertArrayEquals(audioBefore, audioAfter);
+			
+			assertFrontCover(noArt, 200);
+			
+			// no temporary file is left behind
+			Assert.assertEquals(0, countTempFiles());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+	
+	/**
+	 * Writes a noisy square JPEG cover of the given size, so larger covers do not compress away. 
+	 * @param size int 
+	 * @throws IOException
+	 */
+	private void writeCover(int size) throws IOException {
+		BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		Random random = new Random(size);
+		for (int x = 0; x < size; x++) {
+			for (int y = 0; y < size; y++) {
+				image.setRGB(x, y, random.nextInt(0xffffff));
+			}
+		}
+		Assert.assertTrue(ImageIO.write(image, "jpg", cover));
+	}
+	
+	/**
+	 * Checks that the file's selected cover is the front cover with the given size. 
+	 * @param mp3 File 
+	 * @param size int 
+	 * @throws AarException
+	 */
+	private void assertFrontCover(File mp3, int size) throws AarException {
+		ParseAlbumArtCmd parseCmd = new ParseAlbumArtCmd(mp3);
+		parseCmd.perform();
+		
+		Assert.assertEquals(CoverSelector.FRONT_COVER, parseCmd.getPictureType());
+		Assert.assertEquals(size, parseCmd.getBufferedImage().getWidth());
+	}
+	
+	private int countTempFiles() {
+		return folder.list((dir, name) -> name.endsWith(".tmp")).length;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.report.RunReport;
+import com.horvath.aar.report.RunReport.AlbumStatus;
+
+/**
+ * Tests operations of MergeReportsCmd.
+ * @author jhorvath
+ */
+public class MergeReportsCmdTest {
+	
+	public static final String RESOURCES_DIRECTORY = "src" + File.separator + "test" 
+			+ File.separator + "resources"+ File.separator;
+	
+	@Test
+	public void perform_noReports_exception() {
+		boolean caughtException = false;
+		try {
+			MergeReportsCmd cmd = new MergeReportsCmd(Collections.<File>emptyList(), new File("merged.txt"));
+			cmd.perform();
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(MergeReportsCmd.ERROR_NO_REPORTS));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void perform_reportDoesNotExist_exception() {
+		boolean caughtException = false;
+		try {
+			MergeReportsCmd cmd = new MergeReportsCmd(Arrays.asList(new File("fake.txt")), new File("merged.txt"));
+			cmd.perform();
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(MergeReportsCmd.ERROR_REPORT_DOES_NOT_EXIST));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void perform_allShards_summaryWritten() {
+		File shard1 = new File(RESOURCES_DIRECTORY + "shard1.txt");
+		File shard2 = new File(RESOURCES_DIRECTORY + "shard2.txt");
+		File merged = new File(RESOURCES_DIRECTORY + "merged.txt");
+		
+		try {
+			RunReport first = new RunReport();
+			first.setShard("1/2");
+			first.addAlbum("A/Album", AlbumStatus.WRITTEN);
+			first.addAlbum("B/Album", AlbumStatus.NO_ART);
+			first.write(shard1);
+			
+			RunReport second = new RunReport();
+			second.setShard("2/2");
+			second.addAlbum("C/Album", AlbumStatus.WRITTEN);
+			second.write(shard2);
+			
+			MergeReportsCmd cmd = new MergeReportsCmd(Arrays.asList(shard1, shard2), merged);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertFalse(cmd.getMessage().contains(MergeReportsCmd.MESSAGE_MISSING_SHARDS));
+			
+			RunReport result = RunReport.read(merged);
+			Assert.assertEquals(2, result.count(AlbumStatus.WRITTEN));
+			Assert.assertEquals(1, result.count(AlbumStatus.NO_ART));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			shard1.delete();
+			shard2.delete();
+			merged.delete();
+		}
+	}
+	
+	@Test
+	public void perform_missingShard_messageReturned() {
+		File shard1 = new File(RESOURCES_DIRECTORY + "shard1.txt");
+		File merged = new File(RESOURCES_DIRECTORY + "merged.txt");
+		
+		try {
+			RunReport first = new RunReport();
+			first.setShard("1/2");
+			first.addAlbum("A/Album", AlbumStatus.WRITTEN);
+			first.write(shard1);
+			
+			MergeReportsCmd cmd = new MergeReportsCmd(Arrays.asList(shard1), merged);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertTrue(cmd.getMessage().contains(MergeReportsCmd.MESSAGE_MISSING_SHARDS));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			shard1.delete();
+			merged.delete();
+		}
+	}
+}
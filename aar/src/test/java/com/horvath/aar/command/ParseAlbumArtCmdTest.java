@@ -24,12 +24,34 @@
 
 package com.horvath.aar.command;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import com.horvath.aar.exception.AarException;
+import com.horvath.aar.jfr.DecodeEvent;
+import com.horvath.aar.jfr.TagReadEvent;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.tag.CoverSelector;
+import com.horvath.aar.tag.Id3PictureScanner;
+import com.horvath.aar.walk.Governor;
 
 /**
  * Tests operations of ParseAlbumArtCmd. 
@@ -97,6 +119,7 @@ public class ParseAlbumArtCmdTest {
 			Assert.assertEquals(ParseAlbumArtCmd.MESSAGE_NO_ARTWORK_FOUND, cmd.getMessage());
 			// expect the image to be null, since no art was in the MP3
 			Assert.assertNull(cmd.getBufferedImage());
+			Assert.assertEquals(Outcome.NO_ART, cmd.getOutcome());
 			
 		} catch (AarException ex) {
 			Assert.fail();
@@ -122,6 +145,42 @@ public class ParseAlbumArtCmdTest {
 		}
 	}
 
+	@Test
+	public void perform_flightRecording_stageEventsRecorded() {
+		File recordingFile = new File(RESOURCES_DIRECTORY + "stages.jfr");
+		try (Recording recording = new Recording()) {
+			File mp3File = new File(RESOURCES_DIRECTORY + MP3_WITH_ART + File.separator + MP3);
+			
+			recording.enable(TagReadEvent.NAME);
+			recording.enable(DecodeEvent.NAME);
+			recording.start();
+			
+			ParseAlbumArtCmd cmd = new ParseAlbumArtCmd(mp3File);
+			cmd.perform();
+			
+			recording.stop();
+			recording.dump(recordingFile.toPath());
+			
+			List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile.toPath());
+			Assert.assertEquals(2, events.size());
+			
+			RecordedEvent read = events.get(0);
+			Assert.assertEquals(TagReadEvent.NAME, read.getEventType().getName());
+			Assert.assertEquals(mp3File.getPath(), read.getString("path"));
+			Assert.assertTrue(read.getLong("bytes") > 0);
+			
+			RecordedEvent decode = events.get(1);
+			Assert.assertEquals(DecodeEvent.NAME, decode.getEventType().getName());
+			Assert.assertEquals(cmd.getBufferedImage().getWidth(), decode.getInt("width"));
+			Assert.assertEquals(cmd.getBufferedImage().getHeight(), decode.getInt("height"));
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		} finally {
+			recordingFile.delete();
+		}
+	}
+	
 	@Test
 	public void perform_mp3File_getParentFolder() {
 		try {
@@ -141,4 +200,280 @@ public class ParseAlbumArtCmdTest {
 			Assert.fail();
 		}
 	}	
+	@Test
+	public void perform_severalPictures_frontCoverSelected() {
+		
+		File mp3 = new File(RESOURCES_DIRECTORY + "several-pictures.mp3");
+		
+		try {
+			// back cover and booklet page are larger and come before the front cover
+			ByteArrayOutputStream frames = new ByteArrayOutputStream();
+			frames.write(apicFrame(4, png(40, 40)));
+			frames.write(apicFrame(8, png(30, 30)));
+			frames.write(apicFrame(CoverSelector.FRONT_COVER, png(7, 5)));
+			writeId3v23File(mp3, frames.toByteArray());
+			
+			ParseAlbumArtCmd cmd = new ParseAlbumArtCmd(mp3);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertNull(cmd.getOutcome());
+			Assert.assertEquals(CoverSelector.FRONT_COVER, cmd.getPictureType());
+			Assert.assertEquals(7, cmd.getBufferedImage().getWidth());
+			Assert.assertEquals(5, cmd.getBufferedImage().getHeight());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			mp3.delete();
+		}
+	}
+	
+	@Test
+	public void perform_noFrontCover_largestSelected() {
+		
+		File mp3 = new File(RESOURCES_DIRECTORY + "several-pictures.mp3");
+		
+		try {
+			ByteArrayOutputStream frames = new ByteArrayOutputStream();
+			frames.write(apicFrame(4, png(10, 10)));
+			frames.write(apicFrame(8, png(60, 20)));
+			writeId3v23File(mp3, frames.toByteArray());
+			
+			ParseAlbumArtCmd cmd = new ParseAlbumArtCmd(mp3);
+			cmd.perform();
+			
+			Assert.assertEquals(8, cmd.getPictureType());
+			Assert.assertEquals(60, cmd.getBufferedImage().getWidth());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			mp3.delete();
+		}
+	}
+	
+	@Test
+	public void fromBytes_mp3InMemory_imageParsed() {
+		try {
+			File mp3 = new File(RESOURCES_DIRECTORY + MP3_WITH_ART + File.separator + MP3);
+			
+			ParseAlbumArtCmd cmd = ParseAlbumArtCmd.fromBytes(Files.readAllBytes(mp3.toPath()));
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(ParseAlbumArtCmd.MESSAGE_ARTWORK_PARSED, cmd.getMessage());
+			Assert.assertNotNull(cmd.getBufferedImage());
+			Assert.assertNull(cmd.getParentDirectory());
+			Assert.assertEquals(ParseAlbumArtCmd.SOURCE_BYTES, cmd.getSourceName());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void fromBuffer_mappedFile_imageParsedAndBufferUnchanged() {
+		File mp3 = new File(RESOURCES_DIRECTORY + MP3_WITH_ART + File.separator + MP3);
+		
+		try (FileChannel channel = FileChannel.open(mp3.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			
+			ParseAlbumArtCmd cmd = ParseAlbumArtCmd.fromBuffer(buffer);
+			cmd.perform();
+			
+			Assert.assertNotNull(cmd.getBufferedImage());
+			Assert.assertEquals(0, buffer.position());
+			Assert.assertEquals(channel.size(), buffer.limit());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void fromStream_mp3Stream_onlyTagRead() {
+		try {
+			ByteArrayOutputStream frames = new ByteArrayOutputStream();
+			frames.write(apicFrame(3, png(20, 20)));
+			final int tagLength = 10 + frames.size();
+			
+			File mp3 = new File(RESOURCES_DIRECTORY + "streamed.mp3");
+			writeId3v23File(mp3, frames.toByteArray());
+			byte[] bytes = Files.readAllBytes(mp3.toPath());
+			mp3.delete();
+			
+			ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+			ParseAlbumArtCmd cmd = ParseAlbumArtCmd.fromStream(in);
+			cmd.perform();
+			
+			Assert.assertEquals(20, cmd.getBufferedImage().getWidth());
+			Assert.assertEquals(3, cmd.getPictureType());
+			// the audio after the tag is left in the stream
+			Assert.assertEquals(bytes.length - tagLength, in.available());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void fromStream_noTag_noArtwork() {
+		try {
+			ParseAlbumArtCmd cmd = ParseAlbumArtCmd.fromStream(new ByteArrayInputStream(new byte[] { (byte) 0xff, (byte) 0xfb, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 }));
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(ParseAlbumArtCmd.MESSAGE_NO_ARTWORK_FOUND, cmd.getMessage());
+			Assert.assertEquals(Outcome.NO_ART, cmd.getOutcome());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void perform_governor_oneOpenAndBytesReadCharged() {
+		try {
+			File noArt = new File(RESOURCES_DIRECTORY + "No-Art" + File.separator + MP3_NO_ART);
+			CountingGovernor governor = new CountingGovernor();
+			
+			ParseAlbumArtCmd cmd = new ParseAlbumArtCmd(noArt);
+			cmd.setGovernor(governor);
+			cmd.perform();
+			
+			// the scan and the jaudiotagger fallback read the same file once 
+			Assert.assertEquals(Outcome.NO_ART, cmd.getOutcome());
+			Assert.assertEquals(1, governor.files);
+			Assert.assertTrue(governor.bytes >= noArt.length());
+			
+			File withArt = new File(RESOURCES_DIRECTORY + MP3_WITH_ART + File.separator + MP3);
+			governor = new CountingGovernor();
+			
+			cmd = new ParseAlbumArtCmd(withArt);
+			cmd.setGovernor(governor);
+			cmd.perform();
+			
+			// the frame headers are read as well as the picture 
+			Assert.assertNotNull(cmd.getBufferedImage());
+			Assert.assertEquals(1, governor.files);
+			Assert.assertTrue(governor.bytes > 0 && governor.bytes < withArt.length());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void fromStream_oversizedTagHeader_corruptTag() {
+		boolean caughtException = false;
+		ParseAlbumArtCmd cmd = null;
+		try {
+			// a bare header whose syncsafe size claims about 256 MB
+			byte[] crafted = { 0x49, 0x44, 0x33, 0x03, 0x00, 0x00, 0x7f, 0x7f, 0x7f, 0x7f };
+			cmd = ParseAlbumArtCmd.fromStream(new ByteArrayInputStream(crafted));
+			cmd.perform();
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(Id3PictureScanner.ERROR_TAG_TOO_LARGE));
+			Assert.assertEquals(Outcome.CORRUPT_TAG, cmd.getOutcome());
+		}
+		Assert.assertTrue(caughtException);
+	}
+
+	@Test
+	public void fromBytes_null_exception() {
+		boolean caughtException = false;
+		try {
+			ParseAlbumArtCmd cmd = ParseAlbumArtCmd.fromBytes(null);
+			cmd.perform();
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(ParseAlbumArtCmd.ERROR_NULL_SOURCE));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	/**
+	 * Creates the PNG data of a blank image. 
+	 * @param width int 
+	 * @param height int 
+	 * @return byte[] 
+	 * @throws IOException
+	 */
+	public static byte[] png(int width, int height) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Creates an ID3v2.3 APIC frame holding a PNG image. 
+	 * @param pictureType int 
+	 * @param image byte[] 
+	 * @return byte[] 
+	 * @throws IOException
+	 */
+	public static byte[] apicFrame(int pictureType, byte[] image) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		body.write(0);
+		body.write("image/png".getBytes(StandardCharsets.ISO_8859_1));
+		body.write(0);
+		body.write(pictureType);
+		body.write(0);
+		body.write(image);
+		
+		ByteArrayOutputStream frame = new ByteArrayOutputStream();
+		frame.write("APIC".getBytes(StandardCharsets.ISO_8859_1));
+		final int size = body.size();
+		frame.write(new byte[] { (byte) (size >>> 24), (byte) (size >>> 16), (byte) (size >>> 8), (byte) size, 0, 0 });
+		frame.write(body.toByteArray());
+		return frame.toByteArray();
+	}
+	
+	/**
+	 * Writes a file made of an ID3v2.3 tag with the given frames, followed by some audio bytes. 
+	 * @param file File 
+	 * @param frames byte[] 
+	 * @throws IOException
+	 */
+	public static void writeId3v23File(File file, byte[] frames) throws IOException {
+		final int size = frames.length;
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(new byte[] { 'I', 'D', '3', 3, 0, 0,
+				(byte) ((size >>> 21) & 0x7f), (byte) ((size >>> 14) & 0x7f), (byte) ((size >>> 7) & 0x7f), (byte) (size & 0x7f) });
+		out.write(frames);
+		out.write(new byte[] { (byte) 0xff, (byte) 0xfb, (byte) 0x90, 0x00 });
+		
+		Files.write(file.toPath(), out.toByteArray());
+	}
+	
+	/**
+	 * Governor that counts what it is charged, without pacing anything. 
+	 */
+	static class CountingGovernor extends Governor {
+		int files = 0;
+		long bytes = 0;
+		
+		@Override
+		public synchronized void acquireFile() {
+			files++;
+		}
+		
+		@Override
+		public synchronized void chargeRead(long bytes) {
+			this.bytes += bytes;
+		}
+	}
 }
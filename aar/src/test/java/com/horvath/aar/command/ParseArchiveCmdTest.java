@@ -0,0 +1,272 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.horvath.aar.TestFolders;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.report.OutcomeLedger;
+import com.horvath.aar.report.OutcomeLedger.Format;
+import com.horvath.aar.report.RunReport.AlbumStatus;
+import com.horvath.aar.report.RunReport.CoverEncoding;
+
+/**
+ * Tests operations of ParseArchiveCmd.
+ * @author jhorvath
+ */
+public class ParseArchiveCmdTest {
+
+	public static final String ARCHIVE_FOLDER = ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + "Archive";
+
+	private File folder = new File(ARCHIVE_FOLDER);
+	private File archive = new File(folder, "Album.zip");
+
+	@Before
+	public void setUp() throws IOException {
+		TestFolders.deleteRecursively(folder);
+		Assert.assertTrue(folder.mkdir());
+
+		byte[] noArt = Files.readAllBytes(new File(ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + "No-Art"
+				+ File.separator + ParseAlbumArtCmdTest.MP3_NO_ART).toPath());
+		byte[] withArt = Files.readAllBytes(new File(ParseAlbumArtCmdTest.RESOURCES_DIRECTORY
+				+ ParseAlbumArtCmdTest.MP3_WITH_ART + File.separator + ParseAlbumArtCmdTest.MP3).toPath());
+
+		try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+			addEntry(zip, "CD1/01-no-art.mp3", noArt, false);
+			addEntry(zip, "CD1/02-snap.mp3", withArt, false);
+			addEntry(zip, "CD1/03-snap.mp3", withArt, false);
+			addEntry(zip, "CD2/01-snap.mp3", withArt, true);
+			addEntry(zip, "../Escaped/01-snap.mp3", withArt, false);
+		}
+	}
+
+	@After
+	public void tearDown() {
+		TestFolders.deleteRecursively(folder);
+	}
+
+	@Test
+	public void perform_albumFolders_coversWrittenBesideArchive() {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+
+			ParseArchiveCmd cmd = new ParseArchiveCmd(archive, ParseArchiveCmd.defaultOutputFolder(archive));
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(AlbumStatus.WRITTEN, cmd.getAlbums().get("CD1"));
+			Assert.assertEquals(AlbumStatus.WRITTEN, cmd.getAlbums().get("CD2"));
+			Assert.assertEquals(AlbumStatus.NO_ART, cmd.getAlbums().get("../Escaped"));
+
+			File album = new File(folder, "Album");
+			Assert.assertTrue(new File(album, "CD1" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).isFile());
+			Assert.assertTrue(new File(album, "CD2" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).isFile());
+
+			// an entry path must never lead outside the output folder
+			Assert.assertFalse(new File(folder, "Escaped").exists());
+
+			Assert.assertEquals(2, ledger.getCount(Outcome.ART_WRITTEN));
+			Assert.assertEquals(1, ledger.getCount(Outcome.NO_ART));
+			Assert.assertEquals(1, ledger.getCount(Outcome.SKIPPED));
+			Assert.assertEquals(1, ledger.getCount(Outcome.IO_ERROR));
+			Assert.assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains(ParseArchiveCmd.DETAIL_UNSAFE_PATH));
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_notAnArchive_ioErrorRecorded() {
+		try {
+			File broken = new File(folder, "Broken.zip");
+			Files.write(broken.toPath(), "not a zip file".getBytes(StandardCharsets.UTF_8));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+
+			ParseArchiveCmd cmd = new ParseArchiveCmd(broken, ParseArchiveCmd.defaultOutputFolder(broken));
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+
+			Assert.assertFalse(cmd.isSuccess());
+			Assert.assertTrue(cmd.getMessage().contains(ParseArchiveCmd.DETAIL_ARCHIVE_UNREADABLE));
+			Assert.assertEquals(1, ledger.getCount(Outcome.IO_ERROR));
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_governor_archiveOpenedOnceAndTagsCharged() {
+		try {
+			ParseAlbumArtCmdTest.CountingGovernor governor = new ParseAlbumArtCmdTest.CountingGovernor();
+
+			ParseArchiveCmd cmd = new ParseArchiveCmd(archive, ParseArchiveCmd.defaultOutputFolder(archive));
+			cmd.setGovernor(governor);
+			cmd.perform();
+
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(1, governor.files);
+			Assert.assertTrue(governor.bytes > 0);
+
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_oversizedTagHeader_ioErrorRecorded() {
+		try {
+			// a bare header whose syncsafe size claims about 256 MB
+			byte[] crafted = { 0x49, 0x44, 0x33, 0x03, 0x00, 0x00, 0x7f, 0x7f, 0x7f, 0x7f };
+			byte[] withArt = Files.readAllBytes(new File(ParseAlbumArtCmdTest.RESOURCES_DIRECTORY
+					+ ParseAlbumArtCmdTest.MP3_WITH_ART + File.separator + ParseAlbumArtCmdTest.MP3).toPath());
+
+			File crafty = new File(folder, "Crafted.zip");
+			try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(crafty))) {
+				addEntry(zip, "Bad/01-crafted.mp3", crafted, false);
+				addEntry(zip, "Good/01-snap.mp3", withArt, false);
+			}
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+
+			ParseArchiveCmd cmd = new ParseArchiveCmd(crafty, ParseArchiveCmd.defaultOutputFolder(crafty));
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+
+			Assert.assertEquals(AlbumStatus.WRITTEN, cmd.getAlbums().get("Good"));
+			Assert.assertEquals(1, ledger.getCount(Outcome.IO_ERROR));
+			Assert.assertEquals(1, ledger.getCount(Outcome.ART_WRITTEN));
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void perform_nullArchive_exception() {
+		boolean caughtException = false;
+		try {
+			ParseArchiveCmd cmd = new ParseArchiveCmd(null, folder);
+			cmd.perform();
+
+			// should not get here
+			Assert.fail();
+
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(ParseArchiveCmd.ERROR_NULL_FILE));
+		}
+		Assert.assertTrue(caughtException);
+	}
+
+	@Test
+	public void parseFolder_archiveWithOutputRoot_coversMirrored() {
+		File outputRoot = new File(ARCHIVE_FOLDER + "-Covers");
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(folder);
+			cmd.setOutputRoot(outputRoot);
+			cmd.perform();
+
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(AlbumStatus.WRITTEN, cmd.getReport().getAlbums().get("Album/CD1"));
+			Assert.assertEquals(AlbumStatus.WRITTEN, cmd.getReport().getAlbums().get("Album/CD2"));
+			Assert.assertTrue(new File(outputRoot, "Album" + File.separator + "CD1" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).isFile());
+
+			// nothing is written next to the archive
+			Assert.assertFalse(new File(folder, "Album").exists());
+
+		} catch (AarException ex) {
+			Assert.fail();
+		} finally {
+			TestFolders.deleteRecursively(outputRoot);
+		}
+	}
+
+	@Test
+	public void parseFolder_archiveWithByteBudget_encodingsReported() {
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(folder);
+			cmd.setBudget(new JpegBudget(20 * 1024));
+			cmd.perform();
+
+			Assert.assertTrue(cmd.isSuccess());
+			Map<String, CoverEncoding> encodings = cmd.getReport().getEncodings();
+			Assert.assertEquals(2, encodings.size());
+
+			for (String album : new String[] { "Album/CD1", "Album/CD2" }) {
+				File cover = new File(folder, album + File.separator + WriteBufferedImageCmd.DEFAULT_NAME);
+				Assert.assertTrue(encodings.get(album).isFits());
+				Assert.assertEquals(cover.length(), encodings.get(album).getBytes());
+				Assert.assertTrue(cover.length() <= 20 * 1024);
+			}
+
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+
+	/**
+	 * Adds an entry to a ZIP archive, deflated or stored.
+	 */
+	private void addEntry(ZipOutputStream zip, String name, byte[] data, boolean stored) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		if (stored) {
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(data.length);
+			entry.setCrc(crc.getValue());
+		}
+		zip.putNextEntry(entry);
+		zip.write(data);
+		zip.closeEntry();
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.report.Outcome;
+
+/**
+ * Tests operations of ParseBatchCmd.
+ * @author jhorvath
+ */
+public class ParseBatchCmdTest {
+	
+	public static final String ALBUM_FOLDER = ParseFolderCmdTest.PARSE_FOLDER + File.separator + "03" 
+			+ File.separator + "01" + File.separator + "01" + File.separator + "01";
+	
+	@Test
+	public void perform_noFiles_exception() {
+		boolean caughtException = false;
+		try {
+			ParseBatchCmd cmd = new ParseBatchCmd(new ArrayList<File>());
+			cmd.perform();
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(ParseBatchCmd.ERROR_NO_FILES));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void perform_filesOfSeveralFolders_oneCoverPerFolder() {
+		
+		File first = new File(ALBUM_FOLDER + File.separator + "01-snap.mp3");
+		File second = new File(ALBUM_FOLDER + File.separator + "02-snap-alt-art.mp3");
+		File other = new File(ALBUM_FOLDER + File.separator + "03" + File.separator + "01-snap.mp3");
+		File missing = new File(ALBUM_FOLDER + File.separator + "missing.mp3");
+		
+		File cover = new File(ALBUM_FOLDER + File.separator + WriteBufferedImageCmd.DEFAULT_NAME);
+		File otherCover = new File(ALBUM_FOLDER + File.separator + "03" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME);
+		
+		try {
+			ParseBatchCmd cmd = new ParseBatchCmd(Arrays.asList(first, second, other, missing));
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertTrue(cover.exists());
+			Assert.assertTrue(otherCover.exists());
+			
+			Assert.assertEquals(2, cmd.getCount(Outcome.ART_WRITTEN));
+			Assert.assertEquals(1, cmd.getCount(Outcome.SKIPPED));
+			Assert.assertEquals(1, cmd.getCount(Outcome.IO_ERROR));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			cover.delete();
+			otherCover.delete();
+		}
+	}
+}
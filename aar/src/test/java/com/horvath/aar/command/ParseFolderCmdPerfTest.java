@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.horvath.aar.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.horvath.aar.PerformanceTests;
+import com.horvath.aar.TestFolders;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.report.RunReport.AlbumStatus;
+
+/**
+ * End-to-end performance test of ParseFolderCmd on a corpus generated from the test MP3 files.
+ * Throughput, peak heap and bytes read per file are compared with the baseline in
+ * {@value #BASELINE_FILE}, within its tolerances. Bytes read come from /proc/self/io, so that check needs Linux.
+ * Every measurement is written to {@value #MEASURED_FILE} for updating the baseline.
+ * @author jhorvath
+ */
+@Category(PerformanceTests.class)
+public class ParseFolderCmdPerfTest {
+
+	public static final String BASELINE_FILE = "src/test/resources/perf-baseline.properties";
+	public static final String MEASURED_FILE = "target/perf/measured.properties";
+	public static final String CORPUS_FOLDER = "target/perf/corpus";
+
+	public static final int ALBUM_COUNT = 60;
+	public static final int TRACKS_PER_ALBUM = 4;
+
+	/** Every fourth album starts with a track without art, so the next track is read too. */
+	public static final int NO_ART_FIRST_EVERY = 4;
+
+	private static final File corpus = new File(CORPUS_FOLDER);
+	private static final Properties baseline = new Properties();
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		try (InputStream in = Files.newInputStream(Paths.get(BASELINE_FILE))) {
+			baseline.load(in);
+		}
+
+		TestFolders.deleteRecursively(corpus);
+
+		File withArt = new File(ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + ParseAlbumArtCmdTest.MP3_WITH_ART, ParseAlbumArtCmdTest.MP3);
+		File noArt = new File(ParseAlbumArtCmdTest.RESOURCES_DIRECTORY + "No-Art", ParseAlbumArtCmdTest.MP3_NO_ART);
+
+		for (int album = 0; album < ALBUM_COUNT; album++) {
+			File folder = new File(corpus, String.format("Artist %02d/Album %03d", album % 10, album));
+			Assert.assertTrue(folder.mkdirs());
+
+			for (int track = 1; track <= TRACKS_PER_ALBUM; track++) {
+				File source = track == 1 && album % NO_ART_FIRST_EVERY == 0 ? noArt : withArt;
+				Files.copy(source.toPath(), new File(folder, String.format("%02d - Track.mp3", track)).toPath(),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		TestFolders.deleteRecursively(corpus);
+	}
+
+	@Test
+	public void perform_generatedCorpus_withinBaseline() throws AarException, IOException {
+		// a first pass loads and compiles every path the measured pass takes
+		parse(corpus);
+		TestFolders.cleanupImages(corpus);
+
+		System.gc();
+		List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+		for (MemoryPoolMXBean pool : pools) {
+			pool.resetPeakUsage();
+		}
+		final long readBefore = bytesRead();
+		final long start = System.nanoTime();
+
+		ParseFolderCmd cmd = parse(corpus);
+
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		final long readAfter = bytesRead();
+
+		long peakHeap = 0;
+		for (MemoryPoolMXBean pool : pools) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peakHeap += pool.getPeakUsage().getUsed();
+			}
+		}
+
+		Assert.assertEquals(ALBUM_COUNT, cmd.getReport().count(AlbumStatus.WRITTEN));
+
+		final int files = ALBUM_COUNT * TRACKS_PER_ALBUM;
+		final double filesPerSecond = files / seconds;
+		final long bytesPerFile = readBefore < 0 || readAfter < 0 ? -1 : (readAfter - readBefore) / files;
+
+		Properties measured = new Properties();
+		measured.setProperty("files.per.second", String.format("%.1f", filesPerSecond));
+		measured.setProperty("heap.peak.bytes", Long.toString(peakHeap));
+		measured.setProperty("bytes.read.per.file", Long.toString(bytesPerFile));
+		writeMeasured(measured);
+
+		Assert.assertTrue("Throughput " + filesPerSecond + " files/s is below the baseline",
+				filesPerSecond >= limit("files.per.second", "tolerance.throughput", -1));
+
+		Assert.assertTrue("Peak heap " + peakHeap + " bytes is above the baseline",
+				peakHeap <= limit("heap.peak.bytes", "tolerance.heap", 1));
+
+		if (bytesPerFile >= 0) {
+			Assert.assertTrue("Read " + bytesPerFile + " bytes per file, above the baseline",
+					bytesPerFile <= limit("bytes.read.per.file", "tolerance.bytes.read", 1));
+		}
+	}
+
+	private static ParseFolderCmd parse(File folder) throws AarException {
+		ParseFolderCmd cmd = new ParseFolderCmd(folder);
+		cmd.perform();
+		Assert.assertTrue(cmd.isSuccess());
+		return cmd;
+	}
+
+	/**
+	 * Returns the baseline value widened by its tolerance, in the direction given.
+	 * A tolerance can be overridden with a system property of the same name prefixed by "aar.perf.".
+	 */
+	private static double limit(String key, String toleranceKey, int direction) {
+		final double value = Double.parseDouble(baseline.getProperty(key));
+		final double tolerance = Double.parseDouble(System.getProperty("aar.perf." + toleranceKey, baseline.getProperty(toleranceKey)));
+		return value * (1 + direction * tolerance);
+	}
+
+	/**
+	 * Returns the bytes this process has read through read calls, or -1 where /proc/self/io is not available.
+	 */
+	private static long bytesRead() {
+		try {
+			for (String line : Files.readAllLines(Paths.get("/proc/self/io"), StandardCharsets.US_ASCII)) {
+				if (line.startsWith("rchar:")) {
+					return Long.parseLong(line.substring("rchar:".length()).trim());
+				}
+			}
+		} catch (IOException | NumberFormatException ex) {
+			// not Linux
+		}
+		return -1;
+	}
+
+	private static void writeMeasured(Properties measured) throws IOException {
+		Path path = Paths.get(MEASURED_FILE);
+		Files.createDirectories(path.getParent());
+		try (OutputStream out = Files.newOutputStream(path)) {
+			measured.store(out, "ParseFolderCmd on " + ALBUM_COUNT + " albums of " + TRACKS_PER_ALBUM + " tracks");
+		}
+		System.out.println("Measured: " + measured);
+	}
+}
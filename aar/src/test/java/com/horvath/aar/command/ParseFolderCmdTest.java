@@ -24,12 +24,34 @@
 
 package com.horvath.aar.command;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.horvath.aar.TestFolders;
 import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.report.Outcome;
+import com.horvath.aar.report.OutcomeLedger;
+import com.horvath.aar.report.OutcomeLedger.Format;
+import com.horvath.aar.report.RunReport;
+import com.horvath.aar.report.RunReport.AlbumStatus;
+import com.horvath.aar.report.RunReport.CoverEncoding;
+import com.horvath.aar.walk.DeviceLimits;
+import com.horvath.aar.walk.Governor;
+import com.horvath.aar.walk.Journal;
+import com.horvath.aar.walk.Quarantine;
+import com.horvath.aar.walk.ShardSpec;
+import com.horvath.aar.walk.WalkFilter;
 
 /**
  * Tests operations of ParseFolderCmd.
@@ -112,7 +134,7 @@ public class ParseFolderCmdTest {
 		Assert.assertTrue(rootFolder.isDirectory());
 		
 		// run cleanup in case of prior failed run 
-		cleanupImages(rootFolder);
+		TestFolders.cleanupImages(rootFolder);
 		
 		// locations of JPEG files we expect to generate
 		final String art01 = PARSE_FOLDER + File.separator + "01" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME;
@@ -144,31 +166,854 @@ public class ParseFolderCmdTest {
 			Assert.assertTrue(art0201File.delete());
 			Assert.assertTrue(art03010101File.delete());
 			Assert.assertTrue(art0301010103File.delete());
-			cleanupImages(rootFolder);
+			TestFolders.cleanupImages(rootFolder);
 			
 		} catch (AarException ex) {
 			Assert.fail();
 		}
 	}
 	
+	@Test
+	public void perform_twoShards_albumsSplitWithoutOverlap() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd first = new ParseFolderCmd(rootFolder);
+			first.setShard(ShardSpec.parse("1/2"));
+			first.perform();
+			
+			ParseFolderCmd second = new ParseFolderCmd(rootFolder);
+			second.setShard(ShardSpec.parse("2/2"));
+			second.perform();
+			
+			RunReport firstReport = first.getReport();
+			RunReport secondReport = second.getReport();
+			
+			Assert.assertEquals("1/2", firstReport.getShard());
+			Assert.assertEquals(4, firstReport.getAlbums().size() + secondReport.getAlbums().size());
+			Assert.assertEquals(4, firstReport.count(AlbumStatus.WRITTEN) + secondReport.count(AlbumStatus.WRITTEN));
+			
+			for (String album : firstReport.getAlbums().keySet()) {
+				Assert.assertFalse(secondReport.getAlbums().containsKey(album));
+			}
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_reportFile_reportWritten() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File reportFile = new File(RESOURCES_DIRECTORY + "report.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setReportFile(reportFile);
+			cmd.perform();
+			
+			Assert.assertTrue(reportFile.exists());
+			
+			RunReport report = RunReport.read(reportFile);
+			Assert.assertEquals(4, report.count(AlbumStatus.WRITTEN));
+			Assert.assertEquals(AlbumStatus.WRITTEN, report.getAlbums().get("02/01"));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			reportFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_journalWithCompletedFolder_folderSkipped() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File journalFile = new File(RESOURCES_DIRECTORY + "journal.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		File art01File = new File(PARSE_FOLDER + File.separator + "01" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME);
+		File art0201File = new File(PARSE_FOLDER + File.separator + "02" + File.separator + "01" + File.separator
+				+ WriteBufferedImageCmd.DEFAULT_NAME);
+		
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setJournalFile(journalFile);
+			
+			// journal left behind by an interrupted run that finished folder 01
+			Journal journal = new Journal(journalFile, 1);
+			journal.setRunKey(cmd.journalKey());
+			journal.markComplete("01");
+			
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertFalse(art01File.exists());
+			Assert.assertTrue(art0201File.exists());
+			
+			// a completed run removes its journal
+			Assert.assertFalse(journalFile.exists());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			journalFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_journalWithOtherOptions_folderVisitedAgain() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File journalFile = new File(RESOURCES_DIRECTORY + "journal.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		File art01File = new File(PARSE_FOLDER + File.separator + "01" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME);
+		
+		try {
+			// journal left behind by an interrupted run without a byte budget
+			Journal journal = new Journal(journalFile, 1);
+			journal.setRunKey(new ParseFolderCmd(rootFolder).journalKey());
+			journal.markComplete("01");
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setJournalFile(journalFile);
+			cmd.setBudget(new JpegBudget(200 * 1024));
+			
+			Journal resumed = new Journal(journalFile);
+			resumed.setRunKey(cmd.journalKey());
+			resumed.load();
+			Assert.assertTrue(resumed.isDiscarded());
+			Assert.assertEquals(0, resumed.size());
+			Assert.assertFalse(journalFile.exists());
+			
+			// the interrupted run writes its journal again, and this run starts it over
+			journal.markComplete("01");
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertTrue(art01File.exists());
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			journalFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_ledger_outcomePerFileStreamed() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+			
+			Assert.assertEquals(4, ledger.getCount(Outcome.ART_WRITTEN));
+			Assert.assertEquals(1, ledger.getCount(Outcome.NO_ART));
+			// the alternative art track is not read once its folder has a cover
+			Assert.assertEquals(1, ledger.getCount(Outcome.SKIPPED));
+			
+			String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+			Assert.assertEquals(6, lines.length);
+			for (String line : lines) {
+				Assert.assertTrue(line.startsWith("{\"time\":"));
+			}
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_deviceLimitsWithJournal_albumsWrittenAndJournalCompleted() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File journalFile = new File(RESOURCES_DIRECTORY + "journal.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			DeviceLimits limits = new DeviceLimits();
+			limits.add("ssd=2");
+			limits.add("hdd=2");
+			limits.add("other=2");
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setDeviceLimits(limits);
+			cmd.setJournalFile(journalFile);
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			Assert.assertEquals(4, ledger.getCount(Outcome.ART_WRITTEN));
+			Assert.assertEquals(1, ledger.getCount(Outcome.SKIPPED));
+			
+			// every subtree completed, so the journal was removed
+			Assert.assertFalse(journalFile.exists());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			journalFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_invalidDeviceLimit_exception() {
+		boolean caughtException = false;
+		try {
+			new DeviceLimits().add("hdd=0");
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(DeviceLimits.ERROR_LIMIT_RANGE));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void perform_adaptiveDeviceLimits_albumsWritten() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			DeviceLimits limits = new DeviceLimits();
+			limits.setAdaptive("1-4");
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setDeviceLimits(limits);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_summaryFile_onlyChangedFoldersVisited() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File summaryFile = new File(RESOURCES_DIRECTORY + "summaries.txt");
+		File newAlbum = new File(rootFolder, "03" + File.separator + "new");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.perform();
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			Assert.assertTrue(summaryFile.exists());
+			
+			// nothing changed, so nothing is parsed 
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+			
+			cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(0, cmd.getReport().count(AlbumStatus.WRITTEN));
+			Assert.assertEquals(0, out.size());
+			
+			// a new album deep in the tree is the only one parsed 
+			Assert.assertTrue(newAlbum.mkdir());
+			Files.copy(new File(RESOURCES_DIRECTORY + MP3_WITH_ART, MP3).toPath(), new File(newAlbum, MP3).toPath());
+			
+			cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.perform();
+			
+			Assert.assertEquals(1, cmd.getReport().count(AlbumStatus.WRITTEN));
+			Assert.assertTrue(new File(newAlbum, WriteBufferedImageCmd.DEFAULT_NAME).exists());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			new File(newAlbum, MP3).delete();
+			new File(newAlbum, WriteBufferedImageCmd.DEFAULT_NAME).delete();
+			newAlbum.delete();
+			summaryFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_summaryFileWithGroupCommit_secondRunPruned() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File summaryFile = new File(RESOURCES_DIRECTORY + "summaries.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.setDurability(Durability.GROUP_COMMIT);
+			cmd.perform();
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+			// the covers were renamed into place after their folders were done, and still count as unchanged 
+			cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.setDurability(Durability.GROUP_COMMIT);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(0, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			summaryFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_damagedSummary_folderAndParentsVisitedAgain() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File summaryFile = new File(RESOURCES_DIRECTORY + "summaries.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.perform();
+			
+			// change the recorded entry count of the deepest album, without fixing its hash 
+			String text = new String(Files.readAllBytes(summaryFile.toPath()), StandardCharsets.UTF_8);
+			text = text.replaceAll("\t(\\d+)\t03/01/01/01/03\n", "\t99\t03/01/01/01/03\n");
+			Files.write(summaryFile.toPath(), text.getBytes(StandardCharsets.UTF_8));
+			
+			cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.perform();
+			
+			// the album and the album above it, whose hashes no longer match 
+			Assert.assertEquals(2, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			summaryFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_summaryFileWiderRules_excludedFolderVisited() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File summaryFile = new File(RESOURCES_DIRECTORY + "summaries.txt");
+		File art0201 = new File(PARSE_FOLDER + File.separator + "02" + File.separator + "01", WriteBufferedImageCmd.DEFAULT_NAME);
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			WalkFilter filter = new WalkFilter();
+			filter.addExclude("02");
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.setWalkFilter(filter);
+			cmd.perform();
+			Assert.assertEquals(3, cmd.getReport().count(AlbumStatus.WRITTEN));
+			Assert.assertFalse(art0201.exists());
+			
+			// the same rules, even added twice, still use the summaries 
+			filter = new WalkFilter();
+			filter.addExclude("02");
+			filter.addExclude("02");
+			cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.setWalkFilter(filter);
+			cmd.perform();
+			Assert.assertEquals(0, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+			// without the exclude the folder left out before is walked 
+			cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.perform();
+			Assert.assertTrue(art0201.exists());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			summaryFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_summaryFileAfterShard_otherAlbumsWritten() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File summaryFile = new File(RESOURCES_DIRECTORY + "summaries.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.setShard(ShardSpec.parse("1/2"));
+			cmd.perform();
+			final int firstShard = cmd.getReport().count(AlbumStatus.WRITTEN);
+			Assert.assertTrue(firstShard < 4);
+			
+			// the albums the shard skipped are not taken as done, so every folder is visited 
+			cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.perform();
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			summaryFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_summaryFileAfterTimeout_folderVisitedAgain() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File summaryFile = new File(RESOURCES_DIRECTORY + "summaries.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+			
+			// no cover can be read and decoded within a millisecond 
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.setTimeoutMillis(1);
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+			
+			Assert.assertTrue(ledger.getCount(Outcome.TIMED_OUT) > 0);
+			
+			// the stall is over, and the folders that timed out were not summarised as done
+			TestFolders.cleanupImages(rootFolder);
+			cmd = new ParseFolderCmd(rootFolder);
+			cmd.setSummaryFile(summaryFile);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			summaryFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+
+	@Test
+	public void perform_slowGovernorAndShortTimeout_noneTimedOut() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			// once the bucket is empty each file waits half a second, longer than the deadline 
+			Governor governor = new Governor();
+			governor.setFilesPerSecond(2);
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setGovernor(governor);
+			cmd.setTimeoutMillis(400);
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(0, ledger.getCount(Outcome.TIMED_OUT));
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+
+	@Test
+	public void perform_quarantinedFile_skipped() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File quarantineFile = new File(RESOURCES_DIRECTORY + "quarantine.txt");
+		File quarantined = new File(PARSE_FOLDER + File.separator + "02" + File.separator + "01" + File.separator + "02-snap.mp3");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			// two earlier timeouts reach the default threshold
+			String lines = Quarantine.HEADER + "\n" + quarantined.getAbsolutePath() + "\n" + quarantined.getAbsolutePath() + "\n";
+			Files.write(quarantineFile.toPath(), lines.getBytes(StandardCharsets.UTF_8));
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setQuarantineFile(quarantineFile);
+			cmd.setTimeoutMillis(60_000);
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(3, cmd.getReport().count(AlbumStatus.WRITTEN));
+			Assert.assertEquals(0, ledger.getCount(Outcome.TIMED_OUT));
+			Assert.assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).contains(ParseFolderCmd.DETAIL_QUARANTINED));
+			Assert.assertFalse(new File(quarantined.getParentFile(), WriteBufferedImageCmd.DEFAULT_NAME).exists());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			quarantineFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_outputRoot_coversMirroredAndSourceUntouched() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File outputRoot = new File(RESOURCES_DIRECTORY + "Mirror" + File.separator + "covers");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setOutputRoot(outputRoot);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+			for (String album : cmd.getReport().getAlbums().keySet()) {
+				File source = new File(rootFolder, album + File.separator + WriteBufferedImageCmd.DEFAULT_NAME);
+				Assert.assertFalse(source.exists());
+			}
+			Assert.assertTrue(new File(outputRoot, "01" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).isFile());
+			Assert.assertTrue(new File(outputRoot, "03/01/01/01/03".replace('/', File.separatorChar) 
+					+ File.separator + WriteBufferedImageCmd.DEFAULT_NAME).isFile());
+			
+			// the folder only holds sub-folders and a text file 
+			Assert.assertFalse(new File(outputRoot, "03" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).exists());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.deleteRecursively(outputRoot.getParentFile());
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_outputRootInsideRoot_exception() {
+		boolean caughtException = false;
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(new File(PARSE_FOLDER));
+			cmd.setOutputRoot(new File(PARSE_FOLDER + File.separator + "covers"));
+			cmd.perform();
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(ParseFolderCmd.ERROR_OUTPUT_OVERLAPS_ROOT));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void perform_probeWidth_sameCoversAsOneByOne() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		// the first track has art and the second has different art 
+		File cover = new File(PARSE_FOLDER + File.separator + "03/01/01/01".replace('/', File.separatorChar), WriteBufferedImageCmd.DEFAULT_NAME);
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd sequential = new ParseFolderCmd(rootFolder);
+			sequential.perform();
+			byte[] expected = Files.readAllBytes(cover.toPath());
+			TestFolders.cleanupImages(rootFolder);
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			OutcomeLedger ledger = new OutcomeLedger(out, Format.NDJSON, true);
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setProbeWidth(3);
+			cmd.setLedger(ledger);
+			cmd.perform();
+			ledger.close();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			Assert.assertArrayEquals(expected, Files.readAllBytes(cover.toPath()));
+			
+			Assert.assertEquals(4, ledger.getCount(Outcome.ART_WRITTEN));
+			Assert.assertEquals(1, ledger.getCount(Outcome.NO_ART));
+			Assert.assertEquals(1, ledger.getCount(Outcome.SKIPPED));
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void setProbeWidth_zero_exception() {
+		boolean caughtException = false;
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(new File(PARSE_FOLDER));
+			cmd.setProbeWidth(0);
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(ParseFolderCmd.ERROR_PROBE_WIDTH));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void perform_throttleControlFile_albumsWritten() {
+		
+		File rootFolder = new File(PARSE_FOLDER);
+		File controlFile = new File(RESOURCES_DIRECTORY + "throttle.properties");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			String settings = Governor.KEY_READ_BYTES + "=64M\n" + Governor.KEY_FILES + "=20\n" + Governor.KEY_ENCODE_SHARE + "=0.5\n";
+			Files.write(controlFile.toPath(), settings.getBytes(StandardCharsets.UTF_8));
+			
+			Governor governor = new Governor();
+			governor.setControlFile(controlFile);
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setGovernor(governor);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(4, cmd.getReport().count(AlbumStatus.WRITTEN));
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			controlFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_discFolders_coverHoistedToAlbumFolder() {
+		
+		File rootFolder = new File(RESOURCES_DIRECTORY + "Multi-Disc");
+		File album = new File(rootFolder, "Album");
+		File withArt = new File(RESOURCES_DIRECTORY + MP3_WITH_ART + File.separator + MP3);
+		File altArt = new File(PARSE_FOLDER + File.separator + "03" + File.separator + "01" + File.separator 
+				+ "01" + File.separator + "01" + File.separator + "02-" + MP3_ALT_ART);
+		File noArt = new File(RESOURCES_DIRECTORY + "No-Art" + File.separator + ParseAlbumArtCmdTest.MP3_NO_ART);
+		
+		try {
+			copy(noArt, new File(album, "CD1" + File.separator + "01.mp3"));
+			copy(withArt, new File(album, "CD1" + File.separator + "02.mp3"));
+			copy(withArt, new File(album, "CD 2" + File.separator + "01.mp3"));
+			copy(altArt, new File(album, "Disc 3 - Bonus" + File.separator + "01.mp3"));
+			
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setDiscPattern(ParseFolderCmd.DEFAULT_DISC_PATTERN);
+			cmd.setLinkDiscArt(true);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertEquals(AlbumStatus.WRITTEN, cmd.getReport().getAlbums().get("Album"));
+			Assert.assertTrue(new File(album, WriteBufferedImageCmd.DEFAULT_NAME).isFile());
+			
+			// the first disc provided the cover, the second shares it through a link
+			Assert.assertFalse(new File(album, "CD1" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).exists());
+			Assert.assertTrue(Files.isSymbolicLink(new File(album, "CD 2" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).toPath()));
+			
+			// the bonus disc has a cover of its own
+			Assert.assertEquals(AlbumStatus.WRITTEN, cmd.getReport().getAlbums().get("Album/Disc 3 - Bonus"));
+			Assert.assertTrue(Files.isRegularFile(new File(album, "Disc 3 - Bonus" + File.separator + WriteBufferedImageCmd.DEFAULT_NAME).toPath(), 
+					LinkOption.NOFOLLOW_LINKS));
+			Assert.assertEquals(2, cmd.getReport().getAlbums().size());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.deleteRecursively(rootFolder);
+		}
+	}
+	
+	@Test
+	public void perform_walkFilter_leftOutFoldersNotVisited() {
+		File rootFolder = new File(PARSE_FOLDER);
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			// a plain name 
+			WalkFilter filter = new WalkFilter();
+			filter.addExclude("03");
+			Assert.assertEquals(2, parseWritten(rootFolder, filter));
+			Assert.assertFalse(new File(rootFolder, "03" + File.separator + "01" + File.separator + "01" + File.separator + "01" 
+					+ File.separator + WriteBufferedImageCmd.DEFAULT_NAME).exists());
+			Assert.assertEquals(1, filter.getLeftOutCount());
+			TestFolders.cleanupImages(rootFolder);
+			
+			// an include is an exception to the excludes 
+			filter = new WalkFilter();
+			filter.addExclude("regex:0\\d");
+			filter.addInclude("01");
+			Assert.assertEquals(1, parseWritten(rootFolder, filter));
+			TestFolders.cleanupImages(rootFolder);
+			
+			// a glob on the path from the root folder 
+			filter = new WalkFilter();
+			filter.addExclude("03/**/03");
+			Assert.assertEquals(3, parseWritten(rootFolder, filter));
+			TestFolders.cleanupImages(rootFolder);
+			
+			// the root folder has depth 0 
+			filter = new WalkFilter();
+			filter.setMaxDepth(1);
+			Assert.assertEquals(1, parseWritten(rootFolder, filter));
+			TestFolders.cleanupImages(rootFolder);
+			
+			filter = new WalkFilter();
+			filter.setMinFileBytes(100L * 1024 * 1024);
+			Assert.assertEquals(0, parseWritten(rootFolder, filter));
+			Assert.assertEquals(6, filter.getSmallFileCount());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
 	/**
-	 * Recursively removed all files that end in ".jpg" from a given root folder.
-	 * @param folder File
+	 * Runs a folder with walk rules. 
+	 * @param rootFolder File 
+	 * @param filter WalkFilter 
+	 * @return int number of covers written 
+	 * @throws AarException
 	 */
-	private void cleanupImages(File folder) {
-		
-		Assert.assertTrue(folder.isDirectory());
-		
-	    File[] files = folder.listFiles();
-	    
-        for (File file: files) {
-            if (file.isDirectory()) {
-            	// recurse, and go down another folder level 
-            	cleanupImages(file);
-            }
-            else if (file.getName().endsWith(".jpg")) {
-                file.delete();
-            }
-        }
+	private static int parseWritten(File rootFolder, WalkFilter filter) throws AarException {
+		ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+		cmd.setWalkFilter(filter);
+		cmd.perform();
+		Assert.assertTrue(cmd.isSuccess());
+		return cmd.getReport().count(AlbumStatus.WRITTEN);
+	}
+	
+	@Test
+	public void perform_byteBudget_qualityAndSizeReported() {
+		File rootFolder = new File(PARSE_FOLDER);
+		File reportFile = new File(RESOURCES_DIRECTORY + "budget-report.txt");
+		TestFolders.cleanupImages(rootFolder);
+		
+		try {
+			ParseFolderCmd cmd = new ParseFolderCmd(rootFolder);
+			cmd.setBudget(new JpegBudget(20 * 1024));
+			cmd.setReportFile(reportFile);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Map<String, CoverEncoding> encodings = cmd.getReport().getEncodings();
+			Assert.assertEquals(4, encodings.size());
+			
+			for (Map.Entry<String, CoverEncoding> entry : encodings.entrySet()) {
+				File cover = new File(rootFolder, entry.getKey() + File.separator + WriteBufferedImageCmd.DEFAULT_NAME);
+				Assert.assertTrue(entry.getValue().isFits());
+				Assert.assertEquals(cover.length(), entry.getValue().getBytes());
+				Assert.assertTrue(cover.length() <= 20 * 1024);
+			}
+			
+			// the encodings survive a round trip through the report file 
+			RunReport read = RunReport.read(reportFile);
+			Assert.assertEquals(encodings.get("01").getQuality(), read.getEncodings().get("01").getQuality(), 0.005);
+			Assert.assertEquals(encodings.get("01").getBytes(), read.getEncodings().get("01").getBytes());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			reportFile.delete();
+			TestFolders.cleanupImages(rootFolder);
+		}
+	}
+	
+	private static void copy(File source, File target) throws IOException {
+		target.getParentFile().mkdirs();
+		Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
 	}
 }
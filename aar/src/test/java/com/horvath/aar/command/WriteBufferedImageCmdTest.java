@@ -26,13 +26,25 @@ package com.horvath.aar.command;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
 
 import javax.activation.MimetypesFileTypeMap;
 
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
 import com.horvath.aar.exception.AarException;
+import com.horvath.aar.image.JpegBudget;
+import com.horvath.aar.image.JpegBudget.Encoding;
+import com.horvath.aar.io.AtomicFiles;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.io.GroupCommit;
 
 /**
  * Tests operations of WriteBufferedImageCmd. 
@@ -193,6 +205,274 @@ public class WriteBufferedImageCmdTest {
 		
 	}
 	
+	@Test
+	public void perform_fsyncDurability_fileGeneratedWithoutTempFiles() {
+		File mp3Folder = new File(RESOURCES_DIRECTORY + MP3_WITH_ART);
+		File imageFile = new File(mp3Folder, WriteBufferedImageCmd.DEFAULT_NAME);
+		imageFile.delete();
+		
+		try {
+			WriteBufferedImageCmd cmd = new WriteBufferedImageCmd(mp3Folder, new BufferedImage(1, 1, 1));
+			cmd.setDurability(Durability.FSYNC);
+			cmd.perform();
+			
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertTrue(isFileImage(imageFile));
+			Assert.assertEquals(0, countTempFiles(mp3Folder));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			imageFile.delete();
+		}
+	}
+	
+	@Test
+	public void perform_abandoned_nothingWritten() {
+		File mp3Folder = new File(RESOURCES_DIRECTORY + MP3_WITH_ART);
+		File imageFile = new File(mp3Folder, WriteBufferedImageCmd.DEFAULT_NAME);
+		imageFile.delete();
+		
+		try {
+			WriteBufferedImageCmd cmd = new WriteBufferedImageCmd(mp3Folder, new BufferedImage(1, 1, 1));
+			cmd.setAbandoned(() -> true);
+			cmd.perform();
+			
+			Assert.assertFalse(cmd.isSuccess());
+			Assert.assertEquals(WriteBufferedImageCmd.MESSAGE_ABANDONED, cmd.getMessage());
+			Assert.assertFalse(imageFile.exists());
+			Assert.assertEquals(0, countTempFiles(mp3Folder));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			imageFile.delete();
+		}
+	}
+
+	@Test
+	public void perform_posixFileSystem_permissionsOfDefaultOrReplacedFile() throws IOException {
+		File mp3Folder = new File(RESOURCES_DIRECTORY + MP3_WITH_ART);
+		File imageFile = new File(mp3Folder, WriteBufferedImageCmd.DEFAULT_NAME);
+		File probe = new File(mp3Folder, "permissions.probe");
+		imageFile.delete();
+		probe.delete();
+		
+		Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+		
+		try {
+			// a new file gets what any file created here gets under the umask 
+			Files.createFile(probe.toPath());
+			
+			WriteBufferedImageCmd cmd = new WriteBufferedImageCmd(mp3Folder, new BufferedImage(1, 1, 1));
+			cmd.perform();
+			Assert.assertEquals(Files.getPosixFilePermissions(probe.toPath()), Files.getPosixFilePermissions(imageFile.toPath()));
+			
+			// a replaced file keeps its own 
+			Set<PosixFilePermission> custom = PosixFilePermissions.fromString("rw-r-----");
+			Files.setPosixFilePermissions(imageFile.toPath(), custom);
+			cmd = new WriteBufferedImageCmd(mp3Folder, new BufferedImage(1, 1, 1));
+			cmd.setDurability(Durability.FSYNC);
+			cmd.perform();
+			Assert.assertEquals(custom, Files.getPosixFilePermissions(imageFile.toPath()));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			imageFile.delete();
+			probe.delete();
+		}
+	}
+	
+	@Test
+	public void perform_groupCommit_fileAppearsOnCommit() {
+		File mp3Folder = new File(RESOURCES_DIRECTORY + MP3_WITH_ART);
+		File imageFile = new File(mp3Folder, WriteBufferedImageCmd.DEFAULT_NAME);
+		imageFile.delete();
+		
+		try {
+			GroupCommit groupCommit = new GroupCommit();
+			
+			WriteBufferedImageCmd cmd = new WriteBufferedImageCmd(mp3Folder, new BufferedImage(1, 1, 1));
+			cmd.setDurability(Durability.GROUP_COMMIT);
+			cmd.setGroupCommit(groupCommit);
+			cmd.perform();
+			
+			// the file stays in its temporary location until the group is committed
+			Assert.assertTrue(cmd.isSuccess());
+			Assert.assertFalse(imageFile.exists());
+			Assert.assertEquals(1, groupCommit.getPendingCount());
+			
+			groupCommit.commit();
+			
+			Assert.assertTrue(imageFile.exists());
+			Assert.assertEquals(0, countTempFiles(mp3Folder));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+			
+		} finally {
+			imageFile.delete();
+		}
+	}
+	
+	@Test
+	public void perform_groupCommitDelay_fileAppearsWithoutCommit() {
+		File mp3Folder = new File(RESOURCES_DIRECTORY + MP3_WITH_ART);
+		File imageFile = new File(mp3Folder, WriteBufferedImageCmd.DEFAULT_NAME);
+		imageFile.delete();
+		
+		try {
+			// the batch never fills, so only its time bound commits it 
+			GroupCommit groupCommit = new GroupCommit(GroupCommit.DEFAULT_BATCH_SIZE, 50);
+			
+			WriteBufferedImageCmd cmd = new WriteBufferedImageCmd(mp3Folder, new BufferedImage(1, 1, 1));
+			cmd.setDurability(Durability.GROUP_COMMIT);
+			cmd.setGroupCommit(groupCommit);
+			cmd.perform();
+			
+			final long deadline = System.currentTimeMillis() + 5000;
+			while (!imageFile.exists() && System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			
+			Assert.assertTrue(imageFile.exists());
+			Assert.assertEquals(0, groupCommit.getPendingCount());
+			Assert.assertEquals(0, countTempFiles(mp3Folder));
+			
+		} catch (AarException | InterruptedException ex) {
+			Assert.fail();
+			
+		} finally {
+			imageFile.delete();
+		}
+	}
+	
+	@Test
+	public void perform_staleTempFile_deleted() {
+		File mp3Folder = new File(RESOURCES_DIRECTORY + MP3_WITH_ART);
+		File imageFile = new File(mp3Folder, WriteBufferedImageCmd.DEFAULT_NAME);
+		File stale = new File(mp3Folder, "." + WriteBufferedImageCmd.DEFAULT_NAME + ".1" + AtomicFiles.TEMP_SUFFIX);
+		File recent = new File(mp3Folder, "." + WriteBufferedImageCmd.DEFAULT_NAME + ".2" + AtomicFiles.TEMP_SUFFIX);
+		imageFile.delete();
+		
+		try {
+			// left behind by a killed run, and possibly being written by another one 
+			Assert.assertTrue(stale.createNewFile());
+			Assert.assertTrue(stale.setLastModified(System.currentTimeMillis() - 2 * AtomicFiles.STALE_TEMP_MILLIS));
+			Assert.assertTrue(recent.createNewFile());
+			
+			WriteBufferedImageCmd cmd = new WriteBufferedImageCmd(mp3Folder, new BufferedImage(1, 1, 1));
+			cmd.perform();
+			
+			Assert.assertTrue(imageFile.exists());
+			Assert.assertFalse(stale.exists());
+			Assert.assertTrue(recent.exists());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			imageFile.delete();
+			stale.delete();
+			recent.delete();
+		}
+	}
+	
+	@Test
+	public void perform_byteBudget_highestQualityThatFits() {
+		File mp3Folder = new File(RESOURCES_DIRECTORY + MP3_WITH_ART);
+		File imageFile = new File(mp3Folder, WriteBufferedImageCmd.DEFAULT_NAME);
+		imageFile.delete();
+		
+		try {
+			ParseAlbumArtCmd parseCmd = new ParseAlbumArtCmd(new File(mp3Folder, MP3));
+			parseCmd.perform();
+			BufferedImage image = parseCmd.getBufferedImage();
+			
+			final long defaultSize = WriteBufferedImageCmd.encodeJpeg(image).length;
+			final long maxBytes = defaultSize * 4 / 5;
+			
+			WriteBufferedImageCmd cmd = new WriteBufferedImageCmd(mp3Folder, image);
+			cmd.setBudget(new JpegBudget(maxBytes));
+			cmd.perform();
+			
+			Encoding encoding = cmd.getEncoding();
+			Assert.assertTrue(encoding.isFits());
+			Assert.assertEquals(encoding.getBytes().length, imageFile.length());
+			Assert.assertTrue(imageFile.length() <= maxBytes);
+			Assert.assertTrue(encoding.getQuality() < JpegBudget.DEFAULT_QUALITY);
+			Assert.assertEquals(image.getWidth(), encoding.getWidth());
+			
+			// one step higher no longer fits 
+			Encoding tighter = new JpegBudget(encoding.getBytes().length - 1).encode(image);
+			Assert.assertTrue(tighter.getQuality() < encoding.getQuality());
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			imageFile.delete();
+		}
+	}
+	
+	@Test
+	public void perform_byteBudgetTooSmall_imageScaledDown() {
+		try {
+			ParseAlbumArtCmd parseCmd = new ParseAlbumArtCmd(new File(RESOURCES_DIRECTORY + MP3_WITH_ART + File.separator + MP3));
+			parseCmd.perform();
+			BufferedImage image = parseCmd.getBufferedImage();
+			
+			Encoding encoding = WriteBufferedImageCmd.encodeJpeg(image, null, new JpegBudget(8 * 1024));
+			Assert.assertTrue(encoding.isFits());
+			Assert.assertTrue(encoding.getBytes().length <= 8 * 1024);
+			Assert.assertTrue(encoding.getWidth() < image.getWidth());
+			
+			// even the smallest size does not fit 
+			Encoding smallest = WriteBufferedImageCmd.encodeJpeg(image, null, new JpegBudget(100));
+			Assert.assertFalse(smallest.isFits());
+			Assert.assertEquals(JpegBudget.MIN_SIDE, Math.max(smallest.getWidth(), smallest.getHeight()));
+			Assert.assertEquals(JpegBudget.DEFAULT_MIN_QUALITY, smallest.getQuality(), 0.001);
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void setBudget_minQualityOutOfRange_exception() {
+		boolean caughtException = false;
+		try {
+			new JpegBudget(1024, 1.5f);
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(JpegBudget.ERROR_MIN_QUALITY));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	/**
+	 * Counts the temporary files left in a folder. 
+	 * @param folder File
+	 * @return int 
+	 */
+	private int countTempFiles(File folder) {
+		int count = 0;
+		for (File file : folder.listFiles()) {
+			if (file.getName().endsWith(AtomicFiles.TEMP_SUFFIX)) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
 	/**
 	 * Checks if a given file is an image or not. 
 	 * @param file File
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.horvath.aar.tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.horvath.aar.command.ParseFolderCmdTest;
+import com.horvath.aar.exception.AarException;
+import com.horvath.aar.io.Durability;
+import com.horvath.aar.tag.Id3ArtWriter.Result;
+
+/**
+ * Tests operations of Id3ArtWriter on files built in memory.
+ * @author jhorvath
+ */
+public class Id3ArtWriterTest {
+
+	private File mp3 = new File(ParseFolderCmdTest.RESOURCES_DIRECTORY + "writer-test.mp3");
+
+	@After
+	public void tearDown() {
+		mp3.delete();
+	}
+
+	@Test
+	public void embed_extendedHeaderWithPadding_rewritten() {
+		byte[] audio = Id3PictureScannerTest.image(500);
+		byte[] cover = new byte[] { (byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe0, 1, 2, 3 };
+		// the v2.3 extended header gives the size of the padding, which an in-place write would make wrong 
+		byte[] extended = new byte[] { 0, 0, 0, 6, 0, 0, 0, 0, 4, 0 };
+		byte[] tag = Id3PictureScannerTest.tag(3, 0x40, Id3PictureScannerTest.concat(extended, new byte[1024]));
+
+		try {
+			Files.write(mp3.toPath(), Id3PictureScannerTest.concat(tag, audio));
+
+			Assert.assertEquals(Result.REWRITTEN, Id3ArtWriter.embed(mp3.toPath(), cover, "image/jpeg", Durability.NONE, null));
+
+			try (FileChannel channel = FileChannel.open(mp3.toPath(), StandardOpenOption.READ)) {
+				List<PictureFrame> frames = Id3PictureScanner.scan(channel);
+				Assert.assertEquals(1, frames.size());
+				Assert.assertArrayEquals(cover, Id3PictureScanner.readPayload(channel, frames.get(0)));
+
+				// the audio data follows the new tag untouched 
+				final long tagSize = Id3PictureScanner.tagSize(channel);
+				Assert.assertEquals(tagSize + audio.length, channel.size());
+				Assert.assertArrayEquals(audio, Id3PictureScanner.read(channel, tagSize, audio.length).array());
+			}
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void embed_paddingWithoutExtendedHeader_writtenInPlace() {
+		byte[] audio = Id3PictureScannerTest.image(500);
+		byte[] cover = new byte[] { (byte) 0xff, (byte) 0xd8, (byte) 0xff, (byte) 0xe0, 1, 2, 3 };
+		byte[] tag = Id3PictureScannerTest.tag(3, 0, new byte[1024]);
+
+		try {
+			Files.write(mp3.toPath(), Id3PictureScannerTest.concat(tag, audio));
+
+			Assert.assertEquals(Result.IN_PLACE, Id3ArtWriter.embed(mp3.toPath(), cover, "image/jpeg", Durability.NONE, null));
+			Assert.assertEquals(tag.length + audio.length, mp3.length());
+
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+		}
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.horvath.aar.tag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.horvath.aar.io.ByteBufferChannel;
+import com.horvath.aar.tag.Id3PictureScanner.OversizedTagException;
+
+/**
+ * Tests operations of Id3PictureScanner on tags built in memory, one for each variant of the format it reads.
+ * @author jhorvath
+ */
+public class Id3PictureScannerTest {
+
+	private static final int FRONT_COVER = 3;
+
+	@Test
+	public void scan_v22PicFrame_formatMappedToMimeType() {
+		byte[] image = image(40);
+		byte[] body = concat(new byte[] { 0 }, ascii("JPG"), new byte[] { FRONT_COVER }, ascii("cover\0"), image);
+		byte[] tag = tag(2, 0, concat(ascii("TT2"), new byte[] { 0, 0, 2, 0, 'A' }, frame22("PIC", body)));
+
+		PictureFrame frame = single(tag);
+		Assert.assertEquals("image/jpeg", frame.getMimeType());
+		Assert.assertEquals(FRONT_COVER, frame.getPictureType());
+		Assert.assertArrayEquals(image, payload(tag, frame));
+	}
+
+	@Test
+	public void scan_v24SyncsafeSizes_frameFoundPastFirstSizeByte() {
+		// sizes above 127 read wrong unless taken as syncsafe integers
+		byte[] image = image(300);
+		byte[] tag = tag(4, 0, concat(frame24("TIT2", 0, concat(new byte[] { 0 }, ascii(repeat('T', 200)))),
+				frame24("APIC", 0, apic(0, "image/png", ascii("\0"), image))));
+
+		PictureFrame frame = single(tag);
+		Assert.assertEquals("image/png", frame.getMimeType());
+		Assert.assertEquals(image.length, frame.getPayloadLength());
+		Assert.assertArrayEquals(image, payload(tag, frame));
+	}
+
+	@Test
+	public void scan_v23UnsynchronisedTag_payloadRestored() {
+		byte[] image = new byte[] { (byte) 0xff, (byte) 0xd8, (byte) 0xff, 0x00, (byte) 0xff, (byte) 0xe0, 1, 2 };
+		byte[] frames = frame23("APIC", 0, apic(0, "image/jpeg", ascii("\0"), image));
+		byte[] tag = tag(3, 0x80, unsynchronise(frames));
+
+		PictureFrame frame = single(tag);
+		Assert.assertNotNull(frame.getData());
+		Assert.assertArrayEquals(image, payload(tag, frame));
+	}
+
+	@Test
+	public void scan_v24UnsynchronisedFrame_payloadRestored() {
+		byte[] image = new byte[] { (byte) 0xff, 0x00, (byte) 0xff, (byte) 0xfb, 7, 8, 9 };
+		byte[] body = apic(0, "image/jpeg", ascii("\0"), image);
+		// data length indicator followed by the unsynchronised body
+		byte[] framed = concat(syncsafe(body.length), unsynchronise(body));
+		byte[] tag = tag(4, 0, frame24("APIC", 0x03, framed));
+
+		PictureFrame frame = single(tag);
+		Assert.assertArrayEquals(image, payload(tag, frame));
+	}
+
+	@Test
+	public void scan_v23ExtendedHeader_skipped() {
+		byte[] image = image(20);
+		// the v2.3 size does not count its own four bytes
+		byte[] extended = concat(new byte[] { 0, 0, 0, 6 }, new byte[6]);
+		byte[] tag = tag(3, 0x40, concat(extended, frame23("APIC", 0, apic(0, "image/jpeg", ascii("\0"), image))));
+
+		Assert.assertArrayEquals(image, payload(tag, single(tag)));
+	}
+
+	@Test
+	public void scan_v24ExtendedHeader_skipped() {
+		byte[] image = image(20);
+		// the v2.4 size is syncsafe and counts its own four bytes
+		byte[] extended = concat(syncsafe(6), new byte[] { 1, 0 });
+		byte[] tag = tag(4, 0x40, concat(extended, frame24("APIC", 0, apic(0, "image/jpeg", ascii("\0"), image))));
+
+		Assert.assertArrayEquals(image, payload(tag, single(tag)));
+	}
+
+	@Test
+	public void scan_utf16Description_payloadStartsAfterTerminator() {
+		byte[] image = image(16);
+		// U+0100 holds a zero byte that must not be taken for the terminator
+		byte[] description = concat(new byte[] { (byte) 0xff, (byte) 0xfe },
+				"\u0100b".getBytes(StandardCharsets.UTF_16LE), new byte[] { 0, 0 });
+		byte[] tag = tag(3, 0, frame23("APIC", 0, apic(1, "image/jpeg", description, image)));
+
+		PictureFrame frame = single(tag);
+		Assert.assertEquals(image.length, frame.getPayloadLength());
+		Assert.assertArrayEquals(image, payload(tag, frame));
+	}
+
+	@Test
+	public void scan_zeroSizeFrame_scanStops() {
+		byte[] tag = tag(3, 0, concat(frame23("TIT2", 0, new byte[0]),
+				frame23("APIC", 0, apic(0, "image/jpeg", ascii("\0"), image(10)))));
+
+		Assert.assertTrue(scan(tag).isEmpty());
+	}
+
+	@Test
+	public void scan_frameLongerThanTag_noPicture() {
+		byte[] frame = frame23("APIC", 0, apic(0, "image/jpeg", ascii("\0"), image(50)));
+		// the tag ends half way through the frame
+		byte[] tag = tag(3, 0, frame);
+		byte[] header = tag(3, 0, new byte[frame.length / 2]);
+		System.arraycopy(header, 0, tag, 0, Id3PictureScanner.HEADER_SIZE);
+
+		Assert.assertTrue(scan(tag).isEmpty());
+	}
+
+	@Test
+	public void scan_fileEndsInsideTag_noPicture() {
+		byte[] tag = tag(3, 0, frame23("APIC", 0, apic(0, "image/jpeg", ascii("\0"), image(50))));
+		// past the padding and into the picture
+		byte[] truncated = new byte[tag.length - 30];
+		System.arraycopy(tag, 0, truncated, 0, truncated.length);
+
+		Assert.assertTrue(scan(truncated).isEmpty());
+	}
+
+	@Test
+	public void hasPictureFrame_compressedPicture_foundThoughNotScanned() {
+		// a compressed frame cannot be read without inflating it, but it is still a picture 
+		byte[] tag = tag(3, 0, frame23("APIC", 0x80, concat(new byte[] { 0, 0, 0, 40 }, image(30))));
+		try (ByteBufferChannel channel = new ByteBufferChannel(tag)) {
+			Assert.assertTrue(Id3PictureScanner.scan(channel).isEmpty());
+			Assert.assertTrue(Id3PictureScanner.hasPictureFrame(channel));
+			
+		} catch (IOException ex) {
+			Assert.fail();
+		}
+		
+		byte[] plain = tag(3, 0, frame23("TIT2", 0, concat(new byte[] { 0 }, ascii("Title"))));
+		try (ByteBufferChannel channel = new ByteBufferChannel(plain)) {
+			Assert.assertFalse(Id3PictureScanner.hasPictureFrame(channel));
+			
+		} catch (IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void readTag_streamEndsInsideTag_bytesReadReturned() {
+		byte[] tag = tag(3, 0, frame23("APIC", 0, apic(0, "image/jpeg", ascii("\0"), image(50))));
+		try {
+			byte[] read = Id3PictureScanner.readTag(new ByteArrayInputStream(tag, 0, tag.length - 10));
+			Assert.assertEquals(tag.length - 10, read.length);
+		} catch (IOException ex) {
+			Assert.fail();
+		}
+	}
+
+	@Test
+	public void readTag_sizePastEndOfFile_exception() {
+		boolean caughtException = false;
+		byte[] tag = tag(3, 0, new byte[100]);
+		try {
+			Id3PictureScanner.readTag(new ByteArrayInputStream(tag), tag.length - 1);
+
+			// should not get here
+			Assert.fail();
+
+		} catch (OversizedTagException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(Id3PictureScanner.ERROR_TAG_PAST_END));
+		} catch (IOException ex) {
+			Assert.fail();
+		}
+		Assert.assertTrue(caughtException);
+	}
+
+	private static List<PictureFrame> scan(byte[] file) {
+		try (ByteBufferChannel channel = new ByteBufferChannel(file)) {
+			return Id3PictureScanner.scan(channel);
+		} catch (IOException ex) {
+			Assert.fail();
+			return null;
+		}
+	}
+
+	private static PictureFrame single(byte[] file) {
+		List<PictureFrame> frames = scan(file);
+		Assert.assertEquals(1, frames.size());
+		return frames.get(0);
+	}
+
+	private static byte[] payload(byte[] file, PictureFrame frame) {
+		try (ByteBufferChannel channel = new ByteBufferChannel(file)) {
+			return Id3PictureScanner.readPayload(channel, frame);
+		} catch (IOException ex) {
+			Assert.fail();
+			return null;
+		}
+	}
+
+	static byte[] tag(int major, int flags, byte[] body) {
+		byte[] padding = new byte[16];
+		byte[] header = concat(ascii("ID3"), new byte[] { (byte) major, 0, (byte) flags },
+				syncsafe(body.length + padding.length));
+		return concat(header, body, padding);
+	}
+
+	private static byte[] frame22(String id, byte[] body) {
+		return concat(ascii(id), new byte[] { (byte) (body.length >> 16), (byte) (body.length >> 8), (byte) body.length }, body);
+	}
+
+	static byte[] frame23(String id, int formatFlags, byte[] body) {
+		byte[] size = new byte[] { (byte) (body.length >> 24), (byte) (body.length >> 16), (byte) (body.length >> 8), (byte) body.length };
+		return concat(ascii(id), size, new byte[] { 0, (byte) formatFlags }, body);
+	}
+
+	private static byte[] frame24(String id, int formatFlags, byte[] body) {
+		return concat(ascii(id), syncsafe(body.length), new byte[] { 0, (byte) formatFlags }, body);
+	}
+
+	static byte[] apic(int encoding, String mimeType, byte[] description, byte[] image) {
+		return concat(new byte[] { (byte) encoding }, ascii(mimeType + "\0"), new byte[] { FRONT_COVER }, description, image);
+	}
+
+	static byte[] syncsafe(int value) {
+		return new byte[] { (byte) ((value >> 21) & 0x7f), (byte) ((value >> 14) & 0x7f),
+				(byte) ((value >> 7) & 0x7f), (byte) (value & 0x7f) };
+	}
+
+	/**
+	 * Puts a zero byte after every 0xFF that is followed by a zero or by a byte with its top three bits set.
+	 */
+	private static byte[] unsynchronise(byte[] bytes) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (int i = 0; i < bytes.length; i++) {
+			out.write(bytes[i]);
+			if ((bytes[i] & 0xff) == 0xff && (i + 1 == bytes.length || bytes[i + 1] == 0 || (bytes[i + 1] & 0xe0) == 0xe0)) {
+				out.write(0);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	static byte[] image(int length) {
+		byte[] image = new byte[length];
+		for (int i = 0; i < length; i++) {
+			image[i] = (byte) (i * 7 + 1);
+		}
+		return image;
+	}
+
+	private static String repeat(char c, int count) {
+		StringBuilder text = new StringBuilder(count);
+		for (int i = 0; i < count; i++) {
+			text.append(c);
+		}
+		return text.toString();
+	}
+
+	static byte[] ascii(String text) {
+		return text.getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	static byte[] concat(byte[]... parts) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (byte[] part : parts) {
+			out.write(part, 0, part.length);
+		}
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.horvath.aar.walk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Tests operations of AdaptiveLimit, and the adaptive bounds of DeviceLimits.
+ * @author jhorvath
+ */
+public class AdaptiveLimitTest {
+	
+	@Test
+	public void adjust_throughputAndLatency_additiveIncreaseMultiplicativeDecrease() {
+		AdaptiveLimit adaptive = new AdaptiveLimit("test", 2, 8, 1);
+		Assert.assertEquals(2, adaptive.getLimit());
+		
+		// more workers, more files per second 
+		Assert.assertEquals(3, adaptive.adjust(100, 10));
+		Assert.assertEquals(4, adaptive.adjust(150, 12));
+		Assert.assertEquals(5, adaptive.adjust(180, 15));
+		
+		// latency has doubled without any gain, the device is saturated 
+		Assert.assertEquals(3, adaptive.adjust(178, 30));
+		// still congested, but the limit stays within its bounds 
+		Assert.assertEquals(2, adaptive.adjust(170, 40));
+		Assert.assertEquals(2, adaptive.adjust(160, 45));
+		
+		// the queue drained, probing upwards again 
+		Assert.assertEquals(3, adaptive.adjust(170, 11));
+		Assert.assertEquals(6, adaptive.getChanges());
+		
+		for (int i = 0; i < 10; i++) {
+			adaptive.adjust(170 + i * 20, 11);
+		}
+		Assert.assertEquals(8, adaptive.getLimit());
+	}
+	
+	@Test
+	public void setAdaptive_invalidBounds_exception() {
+		boolean caughtException = false;
+		try {
+			new DeviceLimits().setAdaptive("4-2");
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(DeviceLimits.ERROR_ADAPTIVE_FORMAT));
+		}
+		Assert.assertTrue(caughtException);
+	}
+}
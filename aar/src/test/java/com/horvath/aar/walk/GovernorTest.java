@@ -0,0 +1,98 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.horvath.aar.walk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.horvath.aar.command.ParseFolderCmdTest;
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Tests operations of Governor.
+ * @author jhorvath
+ */
+public class GovernorTest {
+	
+	private File controlFile = new File(ParseFolderCmdTest.RESOURCES_DIRECTORY + "throttle.properties");
+	
+	@Test
+	public void setControlFile_settings_limitsApplied() {
+		try {
+			String settings = Governor.KEY_READ_BYTES + "=64M\n" + Governor.KEY_FILES + "=20\n" + Governor.KEY_ENCODE_SHARE + "=0.5\n";
+			Files.write(controlFile.toPath(), settings.getBytes(StandardCharsets.UTF_8));
+			
+			Governor governor = new Governor();
+			governor.setControlFile(controlFile);
+			Assert.assertEquals(64L * 1024 * 1024, governor.getReadBytesPerSecond());
+			Assert.assertEquals(20, governor.getFilesPerSecond(), 0);
+			Assert.assertEquals(0.5, governor.getEncodeShare(), 0.0001);
+			
+			// the bucket holds one second of opens, the rest are paced at the limit 
+			final long start = System.nanoTime();
+			for (int i = 0; i < 30; i++) {
+				governor.acquireFile();
+			}
+			Assert.assertTrue(System.nanoTime() - start >= 400_000_000L);
+			
+		} catch (AarException | IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			controlFile.delete();
+		}
+	}
+	
+	@Test
+	public void setControlFile_unknownSetting_exception() {
+		boolean caughtException = false;
+		try {
+			Files.write(controlFile.toPath(), "reads-per-day=5\n".getBytes(StandardCharsets.UTF_8));
+			
+			Governor governor = new Governor();
+			governor.setControlFile(controlFile);
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(Governor.ERROR_CONTROL_KEY));
+			
+		} catch (IOException ex) {
+			Assert.fail();
+			
+		} finally {
+			controlFile.delete();
+		}
+		Assert.assertTrue(caughtException);
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2025 Joshua Horvath
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package com.horvath.aar.walk;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.horvath.aar.exception.AarException;
+
+/**
+ * Tests operations of WalkFilter.
+ * @author jhorvath
+ */
+public class WalkFilterTest {
+	
+	@Test
+	public void isExcluded_plainName_matchedAtAnyDepth() {
+		try {
+			WalkFilter filter = new WalkFilter();
+			filter.addExclude("@eaDir");
+			
+			Assert.assertTrue(filter.isExcluded("", "@eaDir"));
+			Assert.assertTrue(filter.isExcluded("Artist/Album", "@eaDir"));
+			Assert.assertFalse(filter.isExcluded("", "eaDir"));
+			Assert.assertEquals(2, filter.getLeftOutCount());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void isExcluded_include_exceptionToExcludes() {
+		try {
+			WalkFilter filter = new WalkFilter();
+			filter.addExclude("regex:0\\d");
+			filter.addInclude("01");
+			
+			Assert.assertTrue(filter.isExcluded("", "02"));
+			Assert.assertFalse(filter.isExcluded("", "01"));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void isExcluded_pathGlob_matchedFromRootFolder() {
+		try {
+			WalkFilter filter = new WalkFilter();
+			filter.addExclude("Videos/**");
+			filter.addExclude("**/Backups");
+			
+			Assert.assertTrue(filter.isExcluded("Videos", "Concert"));
+			Assert.assertFalse(filter.isExcluded("", "Videos"));
+			Assert.assertFalse(filter.isExcluded("Music", "Videos"));
+			
+			// "**/" also matches no folder at all 
+			Assert.assertTrue(filter.isExcluded("", "Backups"));
+			Assert.assertTrue(filter.isExcluded("Artist/Album", "Backups"));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void isWithinDepth_maxDepth_deeperFoldersLeftOut() {
+		try {
+			WalkFilter filter = new WalkFilter();
+			Assert.assertTrue(filter.isWithinDepth(50));
+			
+			// the root folder has depth 0 
+			filter.setMaxDepth(1);
+			Assert.assertTrue(filter.isWithinDepth(1));
+			Assert.assertFalse(filter.isWithinDepth(2));
+			
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void describe_rulesInAnyOrder_equal() {
+		try {
+			WalkFilter first = new WalkFilter();
+			first.addExclude("a");
+			first.addExclude("b");
+			
+			WalkFilter second = new WalkFilter();
+			second.addExclude("b");
+			second.addExclude("a");
+			Assert.assertEquals(first.describe(), second.describe());
+			
+			second.setMaxDepth(3);
+			Assert.assertNotEquals(first.describe(), second.describe());
+			
+		} catch (AarException ex) {
+			Assert.fail();
+		}
+	}
+	
+	@Test
+	public void addExclude_badRegex_exception() {
+		boolean caughtException = false;
+		try {
+			new WalkFilter().addExclude("regex:(unclosed");
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(WalkFilter.ERROR_PATTERN));
+		}
+		Assert.assertTrue(caughtException);
+	}
+	
+	@Test
+	public void setMaxDepth_belowMinusOne_exception() {
+		boolean caughtException = false;
+		try {
+			new WalkFilter().setMaxDepth(-2);
+			
+			// should not get here
+			Assert.fail();
+			
+		} catch (AarException ex) {
+			caughtException = true;
+			Assert.assertTrue(ex.getMessage().contains(WalkFilter.ERROR_MAX_DEPTH));
+		}
+		Assert.assertTrue(caughtException);
+	}
+}